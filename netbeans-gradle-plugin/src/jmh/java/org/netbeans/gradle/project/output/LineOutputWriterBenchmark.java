@@ -0,0 +1,82 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class LineOutputWriterBenchmark {
+    private static final int LINE_COUNT = 10000;
+
+    @Param({"64", "8192"})
+    public int chunkSize;
+
+    @Param({"LF", "CRLF"})
+    public String lineSeparatorType;
+
+    private char[] output;
+
+    @Setup
+    public void setup() {
+        String lineSeparator = "CRLF".equals(lineSeparatorType) ? "\r\n" : "\n";
+
+        StringBuilder result = new StringBuilder(LINE_COUNT * 64);
+        for (int i = 0; i < LINE_COUNT; i++) {
+            switch (i % 4) {
+                case 0:
+                    result.append(":compileJava UP-TO-DATE");
+                    break;
+                case 1:
+                    result.append("\tat org.example.SomeClass.someMethod(SomeClass.java:").append(i).append(')');
+                    break;
+                case 2:
+                    result.append("");
+                    break;
+                default:
+                    result.append("/home/user/project/src/main/java/org/example/Main.java:")
+                            .append(i)
+                            .append(": warning: [unchecked] unchecked conversion");
+                    break;
+            }
+            result.append(lineSeparator);
+        }
+
+        output = new char[result.length()];
+        result.getChars(0, output.length, output, 0);
+    }
+
+    @Benchmark
+    public void writeOutput(final Blackhole blackhole) throws IOException {
+        LineOutputWriter writer = new LineOutputWriter(new LineOutputWriter.Handler() {
+            @Override
+            public void writeLine(String line) {
+                blackhole.consume(line);
+            }
+
+            @Override
+            public void flush() {
+            }
+        });
+
+        for (int offset = 0; offset < output.length; offset += chunkSize) {
+            writer.write(output, offset, Math.min(chunkSize, output.length - offset));
+        }
+        writer.close();
+    }
+}
@@ -0,0 +1,381 @@
+package org.netbeans.gradle.project.output;
+
+import java.awt.Color;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.jtrim.concurrent.TaskExecutor;
+import org.netbeans.api.project.Project;
+import org.netbeans.gradle.project.NbTaskExecutors;
+import org.netbeans.gradle.project.api.task.TaskOutputProcessor;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.Lookup;
+import org.openide.util.lookup.Lookups;
+import org.openide.windows.IOColorPrint;
+import org.openide.windows.InputOutput;
+import org.openide.windows.OutputListener;
+import org.openide.windows.OutputWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Feeds a recorded build output through the same chain of output handlers
+ * as used for the output of Gradle tasks (including the asynchronous
+ * handler). The score is the number of processed lines per second. Run with
+ * {@code -PjmhProfilers=gc} to also see the allocation rate.
+ * <P>
+ * The files referenced by the recorded output are created in a temporary
+ * project directory, so that the links to project files are actually
+ * resolved.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class OutputChainBenchmark {
+    private static final int LINE_COUNT = 10000;
+    private static final String SAMPLE_RESOURCE = "build-output.log";
+    private static final String PROJECT_DIR_VAR = "${projectDir}";
+    private static final Charset ENCODING = Charset.forName("UTF-8");
+
+    // Has as many threads as the executor processing the output of tasks.
+    private static final TaskExecutor OUTPUT_PROCESSOR = NbTaskExecutors.newExecutor(
+            "Benchmark-Output-Processor",
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())));
+
+    private static final String[] PROJECT_FILES = {
+        "settings.gradle",
+        "src/main/java/org/example/Main.java",
+        "src/main/java/org/example/util/Strings.java",
+        "build/reports/tests/index.html",
+    };
+
+    @Param({"64", "8192"})
+    public int chunkSize;
+
+    @Param({"DROP_DECORATION", "SPILL"})
+    public AsyncOutputHandler.OverflowPolicy overflowPolicy;
+
+    private File projectDir;
+    private byte[] output;
+
+    private StackTraceConsumer stackTraceConsumer;
+    private OutputFileCache fileCache;
+    private CountingOutputWriter outputWriter;
+    private InputOutput io;
+
+    private static List<String> readSampleLines() throws IOException {
+        InputStream input = OutputChainBenchmark.class.getResourceAsStream(SAMPLE_RESOURCE);
+        if (input == null) {
+            throw new IOException("Missing resource: " + SAMPLE_RESOURCE);
+        }
+
+        List<String> result = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, ENCODING))) {
+            String line = reader.readLine();
+            while (line != null) {
+                result.add(line);
+                line = reader.readLine();
+            }
+        }
+        return result;
+    }
+
+    private static void createProjectFiles(File projectDir) throws IOException {
+        for (String relPath: PROJECT_FILES) {
+            Path file = projectDir.toPath().resolve(relPath);
+            Files.createDirectories(file.getParent());
+            Files.write(file, new byte[]{'\n'});
+        }
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child: children) {
+                deleteRecursively(child);
+            }
+        }
+
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        projectDir = Files.createTempDirectory("output-chain-benchmark").toFile();
+        createProjectFiles(projectDir);
+        String projectPath = projectDir.getPath();
+
+        List<String> sampleLines = readSampleLines();
+        StringBuilder result = new StringBuilder(LINE_COUNT * 64);
+        for (int i = 0; i < LINE_COUNT; i++) {
+            String line = sampleLines.get(i % sampleLines.size());
+            result.append(line.replace(PROJECT_DIR_VAR, projectPath));
+            result.append('\n');
+        }
+        output = result.toString().getBytes(ENCODING);
+
+        stackTraceConsumer = new StackTraceConsumer(new StubProject());
+        fileCache = new OutputFileCache();
+        outputWriter = new CountingOutputWriter();
+        io = new StubInputOutput(outputWriter);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stackTraceConsumer.close();
+        fileCache.close();
+        deleteRecursively(projectDir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINE_COUNT)
+    public long processOutput() throws IOException {
+        List<SmartOutputHandler.Consumer> consumers = new ArrayList<>();
+        consumers.add(new BuildErrorConsumer());
+        consumers.add(new OutputLinkPrinter(
+                stackTraceConsumer,
+                new OutputUrlConsumer(),
+                new ProjectFileConsumer(projectDir.getPath(), fileCache),
+                new FileLineConsumer(fileCache)));
+
+        SmartOutputHandler handler = new SmartOutputHandler(
+                io,
+                outputWriter,
+                Collections.<TaskOutputProcessor>emptyList(),
+                consumers);
+
+        AsyncOutputHandler asyncHandler = new AsyncOutputHandler(
+                handler,
+                OUTPUT_PROCESSOR,
+                AsyncOutputHandler.DEFAULT_CAPACITY,
+                overflowPolicy);
+
+        outputWriter.resetCount();
+        try (OutputStream stream = new WriterOutputStream(new LineOutputWriter(asyncHandler), ENCODING)) {
+            for (int offset = 0; offset < output.length; offset += chunkSize) {
+                stream.write(output, offset, Math.min(chunkSize, output.length - offset));
+            }
+        }
+        // Waits until every line has been processed.
+        asyncHandler.close();
+        return outputWriter.getCount();
+    }
+
+    private static final class StubProject implements Project {
+        private final FileObject projectDirectory;
+
+        public StubProject() {
+            this.projectDirectory = FileUtil.createMemoryFileSystem().getRoot();
+        }
+
+        @Override
+        public FileObject getProjectDirectory() {
+            return projectDirectory;
+        }
+
+        @Override
+        public Lookup getLookup() {
+            return Lookup.EMPTY;
+        }
+    }
+
+    private static final class CountingWriter extends Writer {
+        private long count;
+
+        public CountingWriter() {
+            this.count = 0;
+        }
+
+        public void add(int charCount) {
+            count += charCount;
+        }
+
+        public void resetCount() {
+            count = 0;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public void write(int c) {
+            count++;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class CountingOutputWriter extends OutputWriter {
+        private final CountingWriter counter;
+
+        public CountingOutputWriter() {
+            this(new CountingWriter());
+        }
+
+        private CountingOutputWriter(CountingWriter counter) {
+            super(counter);
+            this.counter = counter;
+        }
+
+        public void add(int charCount) {
+            counter.add(charCount);
+        }
+
+        public void resetCount() {
+            counter.resetCount();
+        }
+
+        public long getCount() {
+            return counter.getCount();
+        }
+
+        @Override
+        public void println(String s, OutputListener l) {
+            println(s);
+        }
+
+        @Override
+        public void reset() {
+        }
+    }
+
+    private static final class CountingColorPrint extends IOColorPrint {
+        private final CountingOutputWriter output;
+
+        public CountingColorPrint(CountingOutputWriter output) {
+            this.output = output;
+        }
+
+        @Override
+        protected void print(CharSequence text, OutputListener listener, boolean important, Color color) {
+            output.add(text.length());
+        }
+    }
+
+    private static final class StubInputOutput implements InputOutput, Lookup.Provider {
+        private final CountingOutputWriter output;
+        private final Lookup lookup;
+
+        public StubInputOutput(CountingOutputWriter output) {
+            this.output = output;
+            this.lookup = Lookups.singleton(new CountingColorPrint(output));
+        }
+
+        @Override
+        public Lookup getLookup() {
+            return lookup;
+        }
+
+        @Override
+        public OutputWriter getOut() {
+            return output;
+        }
+
+        @Override
+        public Reader getIn() {
+            return new StringReader("");
+        }
+
+        @Override
+        public OutputWriter getErr() {
+            return output;
+        }
+
+        @Override
+        public void closeInputOutput() {
+        }
+
+        @Override
+        public boolean isClosed() {
+            return false;
+        }
+
+        @Override
+        public void setOutputVisible(boolean value) {
+        }
+
+        @Override
+        public void setErrVisible(boolean value) {
+        }
+
+        @Override
+        public void setInputVisible(boolean value) {
+        }
+
+        @Override
+        public void select() {
+        }
+
+        @Override
+        public boolean isErrSeparated() {
+            return false;
+        }
+
+        @Override
+        public void setErrSeparated(boolean value) {
+        }
+
+        @Override
+        public boolean isFocusTaken() {
+            return false;
+        }
+
+        @Override
+        public void setFocusTaken(boolean value) {
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public Reader flushReader() {
+            return new StringReader("");
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.netbeans.gradle.project.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares finding the source set of a file (as done by the class path
+ * provider) using a {@link PathPrefixTrie} with checking every root of every
+ * source set. The roots imitate a model with many modules: Each module has
+ * source roots, output directories and jar dependencies in the Gradle cache.
+ * The score is the number of looked up files per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PathPrefixTrieBenchmark {
+    private static final int LOOKUP_COUNT = 1024;
+    private static final int ROOTS_PER_SOURCE_SET = 10;
+
+    @Param({"1000"})
+    public int rootCount;
+
+    private List<List<File>> sourceSetRoots;
+    private PathPrefixTrie<String> trie;
+    private File[] lookedUpFiles;
+
+    @Setup
+    public void setup() {
+        File projectDir = new File(new File(new File("").getAbsoluteFile(), "workspace"), "big-project");
+        File cacheDir = new File(new File(projectDir, ".gradle-cache"), "files-2.1");
+
+        sourceSetRoots = new ArrayList<>();
+        PathPrefixTrie.Builder<String> trieBuilder = new PathPrefixTrie.Builder<>();
+
+        List<File> allRoots = new ArrayList<>(rootCount);
+        int sourceSetCount = (rootCount + ROOTS_PER_SOURCE_SET - 1) / ROOTS_PER_SOURCE_SET;
+        for (int i = 0; i < sourceSetCount; i++) {
+            String sourceSetName = "sourceSet" + i;
+            File moduleDir = new File(projectDir, "module" + (i / 2));
+            String kind = i % 2 == 0 ? "main" : "test";
+
+            List<File> roots = new ArrayList<>(ROOTS_PER_SOURCE_SET);
+            roots.add(new File(moduleDir, "src/" + kind + "/java"));
+            roots.add(new File(moduleDir, "src/" + kind + "/resources"));
+            roots.add(new File(moduleDir, "build/classes/" + kind));
+            roots.add(new File(moduleDir, "build/resources/" + kind));
+            for (int j = roots.size(); j < ROOTS_PER_SOURCE_SET && allRoots.size() + roots.size() < rootCount; j++) {
+                roots.add(new File(cacheDir, "org.example" + (j * 7 + i) % 97 + "/lib" + i + "-" + j + ".jar"));
+            }
+
+            for (File root: roots) {
+                trieBuilder.add(root, sourceSetName);
+            }
+            allRoots.addAll(roots);
+            sourceSetRoots.add(roots);
+        }
+        trie = trieBuilder.create();
+
+        Random random = new Random(5246);
+        lookedUpFiles = new File[LOOKUP_COUNT];
+        for (int i = 0; i < lookedUpFiles.length; i++) {
+            File root = allRoots.get(random.nextInt(allRoots.size()));
+            lookedUpFiles[i] = random.nextInt(4) == 0
+                    ? new File(projectDir, "other/dir/File" + i + ".java")
+                    : new File(root, "org/example/pkg" + (i % 10) + "/File" + i + ".java");
+        }
+    }
+
+    private String findSourceSetLinear(File file) {
+        for (int i = 0; i < sourceSetRoots.size(); i++) {
+            for (File root: sourceSetRoots.get(i)) {
+                if (NbFileUtils.isParentOrSame(root, file)) {
+                    return "sourceSet" + i;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUP_COUNT)
+    public void trieLookup(Blackhole blackhole) {
+        for (File file: lookedUpFiles) {
+            blackhole.consume(trie.tryGetValue(file));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUP_COUNT)
+    public void linearLookup(Blackhole blackhole) {
+        for (File file: lookedUpFiles) {
+            blackhole.consume(findSourceSetLinear(file));
+        }
+    }
+}
@@ -52,7 +52,9 @@ import org.netbeans.gradle.project.query.GradleCacheByBinaryLookup;
 import org.netbeans.gradle.project.query.GradleSharabilityQuery;
 import org.netbeans.gradle.project.query.GradleSourceEncodingQuery;
 import org.netbeans.gradle.project.query.GradleTemplateAttrProvider;
+import org.netbeans.gradle.project.tasks.CachingVariableMap;
 import org.netbeans.gradle.project.tasks.CombinedTaskVariableMap;
+import org.netbeans.gradle.project.tasks.DaemonPrewarmTask;
 import org.netbeans.gradle.project.tasks.DefaultGradleCommandExecutor;
 import org.netbeans.gradle.project.tasks.GradleDaemonManager;
 import org.netbeans.gradle.project.tasks.MergedBuiltInGradleCommandQuery;
@@ -101,6 +103,7 @@ public final class NbGradleProject implements Project {
     private volatile Set<String> extensionNames;
 
     private final AtomicReference<BuiltInGradleCommandQuery> mergedCommandQueryRef;
+    private final CachingVariableMap.ContextFreeCache taskVariableCache;
 
     private NbGradleProject(FileObject projectDir, ProjectState state) throws IOException {
         this.projectDir = projectDir;
@@ -110,6 +113,7 @@ public final class NbGradleProject implements Project {
         }
 
         this.mergedCommandQueryRef = new AtomicReference<>(null);
+        this.taskVariableCache = new CachingVariableMap.ContextFreeCache();
         this.state = state;
         this.defaultLookupRef = new AtomicReference<>(null);
         this.properties = new ProjectPropertiesProxy(this);
@@ -286,6 +290,10 @@ public final class NbGradleProject implements Project {
         return new CombinedTaskVariableMap(maps);
     }
 
+    public CachingVariableMap.ContextFreeCache getTaskVariableCache() {
+        return taskVariableCache;
+    }
+
     public ProjectInfoManager getProjectInfoManager() {
         return projectInfoManager;
     }
@@ -569,6 +577,7 @@ public final class NbGradleProject implements Project {
         protected void projectOpened() {
             GradleModelLoader.addModelLoadedListener(modelLoadListener);
             reloadProject(true);
+            DaemonPrewarmTask.prewarmIfEnabled(NbGradleProject.this);
 
             if (licenseChangeListener != null) {
                 LOGGER.warning("projectOpened() without close.");
@@ -248,6 +248,31 @@ public final class NbStrings {
         return NbBundle.getMessage(NbStrings.class, "NbStrings.DeleteProject");
     }
 
+    public static String getTaskQueueCommandCaption() {
+        return NbBundle.getMessage(NbStrings.class, "NbStrings.TaskQueueCommandCaption");
+    }
+
+    public static String getTaskQueueDlgTitle() {
+        return NbBundle.getMessage(NbStrings.class, "NbStrings.TaskQueueDlgTitle");
+    }
+
+    public static String getCancelQueuedTaskLabel() {
+        return NbBundle.getMessage(NbStrings.class, "NbStrings.CancelQueuedTask");
+    }
+
+    public static String getMoveQueuedTaskToFrontLabel() {
+        return NbBundle.getMessage(NbStrings.class, "NbStrings.MoveQueuedTaskToFront");
+    }
+
+    public static String getMoveQueuedTaskToBackLabel() {
+        return NbBundle.getMessage(NbStrings.class, "NbStrings.MoveQueuedTaskToBack");
+    }
+
+    public static String getQueuedTaskCaption(String displayName, String rootName, Object priority) {
+        return NbBundle.getMessage(NbStrings.class, "NbStrings.QueuedTaskCaption",
+                displayName, rootName, priority);
+    }
+
     public static String getYesOption() {
         return NbBundle.getMessage(NbStrings.class, "NbStrings.OptionYes");
     }
@@ -330,6 +355,10 @@ public final class NbStrings {
         return NbBundle.getMessage(NbStrings.class, "NbStrings.GradleTaskFailure");
     }
 
+    public static String getOutputTruncated(int removedLineCount, String logFile) {
+        return NbBundle.getMessage(NbStrings.class, "NbStrings.OutputTruncated", removedLineCount, logFile);
+    }
+
     public static String getDefaultProfileName() {
         return NbBundle.getMessage(NbStrings.class, "NbStrings.DefaultProfile");
     }
@@ -374,6 +403,10 @@ public final class NbStrings {
         return NbBundle.getMessage(NbStrings.class, "NbStrings.GradleProjectLicenseCategoryName");
     }
 
+    public static String getPrewarmDaemonProgressCaption() {
+        return NbBundle.getMessage(NbStrings.class, "NbStrings.PrewarmDaemonProgressCaption");
+    }
+
     public static String getDownloadSourcesProgressCaption() {
         return NbBundle.getMessage(NbStrings.class, "NbStrings.DownloadSourcesProgressCaption");
     }
@@ -438,6 +471,30 @@ public final class NbStrings {
         return NbBundle.getMessage(NbStrings.class, "NbStrings.SourceDirsActionGroup");
     }
 
+    public static String getContinuousBuildActionGroup() {
+        return NbBundle.getMessage(NbStrings.class, "NbStrings.ContinuousBuildActionGroup");
+    }
+
+    public static String getContinuousBuildAction() {
+        return NbBundle.getMessage(NbStrings.class, "NbStrings.ContinuousBuildAction");
+    }
+
+    public static String getContinuousTestAction() {
+        return NbBundle.getMessage(NbStrings.class, "NbStrings.ContinuousTestAction");
+    }
+
+    public static String getContinuousRunAction() {
+        return NbBundle.getMessage(NbStrings.class, "NbStrings.ContinuousRunAction");
+    }
+
+    public static String getTestAffectedAction() {
+        return NbBundle.getMessage(NbStrings.class, "NbStrings.TestAffectedAction");
+    }
+
+    public static String getNoAffectedTests() {
+        return NbBundle.getMessage(NbStrings.class, "NbStrings.NoAffectedTests");
+    }
+
     public static String getDependencyResolutionFailure(String projectName) {
         return NbBundle.getMessage(NbStrings.class, "NbStrings.DependencyResolutionFailure", projectName);
     }
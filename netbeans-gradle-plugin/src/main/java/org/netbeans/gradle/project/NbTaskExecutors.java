@@ -1,5 +1,8 @@
 package org.netbeans.gradle.project;
 
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -30,6 +33,31 @@ public final class NbTaskExecutors {
         }
     }
 
+    /**
+     * Returns a new executor for tasks to be executed after a delay. The
+     * executor has a single daemon thread, which terminates when it is idle,
+     * and canceled tasks are removed from its queue immediately.
+     * <P>
+     * The tasks of the returned executor are expected to be short (e.g.: only
+     * submitting the actual work to another executor).
+     */
+    public static ScheduledExecutorService newScheduledExecutor(final String name) {
+        ExceptionHelper.checkNotNullArgument(name, "name");
+
+        ScheduledThreadPoolExecutor result = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        result.setKeepAliveTime(IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        result.allowCoreThreadTimeOut(true);
+        result.setRemoveOnCancelPolicy(true);
+        return result;
+    }
+
     public static void defaultCleanup(boolean canceled, Throwable error) {
         if (error == null || (canceled && error instanceof OperationCanceledException)) {
             return;
@@ -7,6 +7,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -40,10 +42,15 @@ import org.netbeans.gradle.project.java.query.GradleSourceLevelQueryImplementati
 import org.netbeans.gradle.project.java.query.GradleUnitTestFinder;
 import org.netbeans.gradle.project.java.query.J2SEPlatformFromScriptQueryImpl;
 import org.netbeans.gradle.project.java.query.JavaInitScriptQuery;
+import org.netbeans.gradle.project.java.query.JavaSourceRootIndex;
+import org.netbeans.gradle.project.java.tasks.ContinuousGradleTask;
 import org.netbeans.gradle.project.java.tasks.GradleJavaBuiltInCommands;
 import org.netbeans.gradle.project.java.tasks.JavaGradleTaskVariableQuery;
+import org.netbeans.gradle.project.java.test.TestImpactAnalyzer;
+import org.netbeans.gradle.project.java.test.TestReportCache;
 import org.netbeans.gradle.project.model.issue.DependencyResolutionIssue;
 import org.netbeans.gradle.project.model.issue.ModelLoadIssueReporter;
+import org.netbeans.gradle.project.output.StackTraceConsumer;
 import org.netbeans.spi.project.support.LookupProviderSupport;
 import org.netbeans.spi.project.ui.ProjectOpenedHook;
 import org.openide.filesystems.FileObject;
@@ -64,6 +71,11 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
     private final GradleClassPathProvider cpProvider;
     private final AtomicReference<JavaSourceDirHandler> sourceDirsHandlerRef;
     private final ProjectInfoRef dependencyResolutionFailureRef;
+    private final ConcurrentMap<String, ContinuousGradleTask> continuousTasks;
+    private final TestReportCache testReportCache;
+    private final TestImpactAnalyzer testImpactAnalyzer;
+    private final AtomicReference<JavaSourceRootIndex> sourceRootIndexRef;
+    private final AtomicReference<StackTraceConsumer> stackTraceConsumerRef;
 
     private final AtomicReference<Lookup> projectLookupRef;
     private final AtomicReference<Lookup> permanentLookupRef;
@@ -91,6 +103,11 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
         this.sourceDirsHandlerRef = new AtomicReference<>(null);
         this.dependencyResolutionFailureRef = getProjectInfoManager(project).createInfoRef();
         this.modelChanges = new ChangeSupport(this);
+        this.continuousTasks = new ConcurrentHashMap<>();
+        this.testReportCache = new TestReportCache();
+        this.testImpactAnalyzer = new TestImpactAnalyzer(this);
+        this.sourceRootIndexRef = new AtomicReference<>(JavaSourceRootIndex.create(currentModel));
+        this.stackTraceConsumerRef = new AtomicReference<>(null);
     }
 
     public static JavaExtension getJavaExtensionOfProject(Project project) {
@@ -127,6 +144,54 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
         return result;
     }
 
+    /**
+     * Returns the stack trace consumer used to open the locations of stack
+     * traces outside the output of builds (e.g., in the test results window).
+     * It is shared, so that it caches the source files of the frames.
+     */
+    public StackTraceConsumer getStackTraceConsumer() {
+        StackTraceConsumer result = stackTraceConsumerRef.get();
+        if (result == null) {
+            StackTraceConsumer newConsumer = new StackTraceConsumer(project);
+            if (stackTraceConsumerRef.compareAndSet(null, newConsumer)) {
+                result = newConsumer;
+            }
+            else {
+                newConsumer.close();
+                result = stackTraceConsumerRef.get();
+            }
+        }
+        return result;
+    }
+
+    public TestReportCache getTestReportCache() {
+        return testReportCache;
+    }
+
+    public TestImpactAnalyzer getTestImpactAnalyzer() {
+        return testImpactAnalyzer;
+    }
+
+    public ContinuousGradleTask getContinuousTask(String command) {
+        ExceptionHelper.checkNotNullArgument(command, "command");
+
+        ContinuousGradleTask result = continuousTasks.get(command);
+        if (result == null) {
+            ContinuousGradleTask newTask = new ContinuousGradleTask(this, command, Lookup.EMPTY);
+            result = continuousTasks.putIfAbsent(command, newTask);
+            if (result == null) {
+                result = newTask;
+            }
+        }
+        return result;
+    }
+
+    private void stopContinuousTasks() {
+        for (ContinuousGradleTask task: continuousTasks.values()) {
+            task.stop();
+        }
+    }
+
     public static JavaExtension create(Project project) throws IOException {
         return new JavaExtension(project);
     }
@@ -161,6 +226,22 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
         return currentModel;
     }
 
+    /**
+     * Returns the source root index of the {@link #getCurrentModel() current model}.
+     * The index is recreated only when the model changes.
+     */
+    public JavaSourceRootIndex getSourceRootIndex() {
+        NbJavaModel model = currentModel;
+        JavaSourceRootIndex result = sourceRootIndexRef.get();
+        if (result.getModel() != model) {
+            JavaSourceRootIndex newIndex = JavaSourceRootIndex.create(model);
+            // Do not overwrite the index of a model set concurrently.
+            sourceRootIndexRef.compareAndSet(result, newIndex);
+            result = newIndex;
+        }
+        return result;
+    }
+
     private void initLookup(Lookup lookup) {
         for (ProjectInitListener listener: lookup.lookupAll(ProjectInitListener.class)) {
             listener.onInitProject();
@@ -316,6 +397,7 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
         ExceptionHelper.checkNotNullArgument(parsedModel, "parsedModel");
 
         currentModel = parsedModel;
+        sourceRootIndexRef.set(JavaSourceRootIndex.create(parsedModel));
         hasEverBeenLoaded = true;
 
         checkDependencyResolveProblems(parsedModel.getMainModule());
@@ -363,6 +445,8 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
 
         @Override
         protected void projectClosed() {
+            stopContinuousTasks();
+
             SwingUtilities.invokeLater(new Runnable() {
                 @Override
                 public void run() {
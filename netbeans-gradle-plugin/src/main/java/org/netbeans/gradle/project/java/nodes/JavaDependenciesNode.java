@@ -54,6 +54,9 @@ public final class JavaDependenciesNode extends AbstractNode {
     private static final Logger LOGGER = Logger.getLogger(JavaDependenciesNode.class.getName());
     private static final Collator STR_CMP = Collator.getInstance();
 
+    // Source downloads are not counted against the limits of
+    // GradleTaskScheduler, so that they never delay the commands started by
+    // the user.
     private static final TaskExecutor SOURCES_DOWNLOADER
             = NbTaskExecutors.newExecutor("Sources-downloader", 1);
 
@@ -619,7 +622,7 @@ public final class JavaDependenciesNode extends AbstractNode {
         @Override
         public void actionPerformed(ActionEvent e) {
             DaemonTaskDef taskDef = DownloadSourcesTask.createTaskDef(project);
-            GradleDaemonManager.submitGradleTask(SOURCES_DOWNLOADER, taskDef, new CommandCompleteListener() {
+            GradleDaemonManager.submitGradleTask(SOURCES_DOWNLOADER, project, taskDef, new CommandCompleteListener() {
                 @Override
                 public void onComplete(Throwable error) {
                     if (error != null) {
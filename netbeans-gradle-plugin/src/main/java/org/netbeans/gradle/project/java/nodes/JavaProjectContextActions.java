@@ -1,6 +1,7 @@
 package org.netbeans.gradle.project.java.nodes;
 
 import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.text.Collator;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -10,6 +11,7 @@ import java.util.LinkedList;
 import java.util.List;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JMenu;
 import javax.swing.JMenuItem;
 import org.jtrim.utils.ExceptionHelper;
@@ -21,6 +23,8 @@ import org.netbeans.gradle.project.api.nodes.GradleActionType;
 import org.netbeans.gradle.project.api.nodes.GradleProjectAction;
 import org.netbeans.gradle.project.api.nodes.GradleProjectContextActions;
 import org.netbeans.gradle.project.java.JavaExtension;
+import org.netbeans.gradle.project.java.tasks.AffectedTestsTask;
+import org.netbeans.gradle.project.java.tasks.ContinuousGradleTask;
 import org.netbeans.gradle.project.java.test.TestTaskName;
 import org.netbeans.gradle.project.util.StringUtils;
 import org.netbeans.gradle.project.view.GradleActionProvider;
@@ -53,12 +57,23 @@ public final class JavaProjectContextActions implements GradleProjectContextActi
         if (customTestsAction.hasCustomTestActions()) {
             result.add(customTestsAction);
         }
+        result.add(createTestAffectedAction());
         result.add(createJavaDocAction());
         result.add(sourcesDirsAction());
+        result.add(new ContinuousBuildAction());
 
         return result;
     }
 
+    private Action createTestAffectedAction() {
+        return backgroundTaskAction(NbStrings.getTestAffectedAction(), new Runnable() {
+            @Override
+            public void run() {
+                AffectedTestsTask.execute(javaExt);
+            }
+        });
+    }
+
     private Action createJavaDocAction() {
         return createProjectAction(
                 JavaProjectConstants.COMMAND_JAVADOC,
@@ -159,6 +174,36 @@ public final class JavaProjectContextActions implements GradleProjectContextActi
         }
     }
 
+    private JMenuItem continuousTaskMenuItem(String name, String command) {
+        final ContinuousGradleTask task = javaExt.getContinuousTask(command);
+
+        final JCheckBoxMenuItem menuItem = new JCheckBoxMenuItem(name, task.isStarted());
+        menuItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (menuItem.isSelected()) {
+                    task.start();
+                }
+                else {
+                    task.stop();
+                }
+            }
+        });
+        return menuItem;
+    }
+
+    @SuppressWarnings("serial") // don't care about serialization
+    private class ContinuousBuildAction extends SubmenuParentAction {
+        @Override
+        protected JMenu createMenu() {
+            JMenu menu = new JMenu(NbStrings.getContinuousBuildActionGroup());
+            menu.add(continuousTaskMenuItem(NbStrings.getContinuousBuildAction(), ActionProvider.COMMAND_BUILD));
+            menu.add(continuousTaskMenuItem(NbStrings.getContinuousTestAction(), ActionProvider.COMMAND_TEST));
+            menu.add(continuousTaskMenuItem(NbStrings.getContinuousRunAction(), ActionProvider.COMMAND_RUN));
+            return menu;
+        }
+    }
+
     private static void sortTestActions(List<CustomTestAction> actions) {
         Collections.sort(actions, new Comparator<CustomTestAction>() {
             @Override
@@ -10,11 +10,8 @@ import javax.swing.SwingUtilities;
 import javax.swing.event.ChangeListener;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.api.java.queries.BinaryForSourceQuery;
-import org.netbeans.gradle.model.java.JavaSourceGroup;
-import org.netbeans.gradle.model.java.JavaSourceSet;
 import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.java.JavaModelChangeListener;
-import org.netbeans.gradle.project.java.model.NbJavaModule;
 import org.netbeans.gradle.project.query.AbstractBinaryForSourceQuery;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
@@ -43,26 +40,10 @@ implements
         eventSource.init(this.changes);
     }
 
-    private static File tryGetOutputDir(
-            NbJavaModule module, FileObject root) {
-
-        for (JavaSourceSet sourceSet: module.getSources()) {
-            for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
-                for (File sourceRoot: sourceGroup.getSourceRoots()) {
-                    FileObject sourceRootObj = FileUtil.toFileObject(sourceRoot);
-                    if (sourceRootObj != null && FileUtil.getRelativePath(sourceRootObj, root) != null) {
-                        return sourceSet.getOutputDirs().getClassesDir();
-                    }
-                }
-            }
-        }
-        return null;
-    }
-
     private static URL[] getRootsAsURLs(
-            NbJavaModule module, FileObject root) {
+            JavaSourceRootIndex index, File root) {
 
-        File outputDir = tryGetOutputDir(module, root);
+        File outputDir = index.tryGetClassesDir(root);
         if (outputDir == null) {
             return NO_ROOTS;
         }
@@ -88,22 +69,24 @@ implements
 
     @Override
     protected BinaryForSourceQuery.Result tryFindBinaryRoots(File sourceRoot) {
-        final FileObject sourceRootObj = FileUtil.toFileObject(sourceRoot);
+        FileObject sourceRootObj = FileUtil.toFileObject(sourceRoot);
         if (sourceRootObj == null) {
             return null;
         }
 
-        NbJavaModule mainModule = javaExt.getCurrentModel().getMainModule();
-        if (tryGetOutputDir(mainModule, sourceRootObj) == null) {
+        final File normSourceRoot = FileUtil.toFile(sourceRootObj);
+        if (normSourceRoot == null) {
+            return null;
+        }
+
+        if (javaExt.getSourceRootIndex().tryGetClassesDir(normSourceRoot) == null) {
             return null;
         }
 
         return new BinaryForSourceQuery.Result() {
             @Override
             public URL[] getRoots() {
-                NbJavaModule mainModule = javaExt.getCurrentModel().getMainModule();
-
-                return getRootsAsURLs(mainModule, sourceRootObj);
+                return getRootsAsURLs(javaExt.getSourceRootIndex(), normSourceRoot);
             }
 
             @Override
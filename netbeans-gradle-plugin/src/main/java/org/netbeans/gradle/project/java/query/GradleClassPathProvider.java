@@ -4,7 +4,6 @@ import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.io.File;
 import java.net.URL;
-import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -43,14 +42,11 @@ import org.netbeans.gradle.project.java.model.NbJavaModel;
 import org.netbeans.gradle.project.java.model.NbJavaModule;
 import org.netbeans.gradle.project.query.GradleFilesClassPathProvider;
 import org.netbeans.gradle.project.util.ExcludeIncludeRules;
-import org.netbeans.gradle.project.util.NbFileUtils;
+import org.netbeans.gradle.project.util.PathPrefixTrie;
 import org.netbeans.spi.java.classpath.ClassPathFactory;
 import org.netbeans.spi.java.classpath.ClassPathImplementation;
 import org.netbeans.spi.java.classpath.ClassPathProvider;
-import org.netbeans.spi.java.classpath.FilteringPathResourceImplementation;
 import org.netbeans.spi.java.classpath.PathResourceImplementation;
-import org.netbeans.spi.java.classpath.support.ClassPathSupport;
-import org.netbeans.spi.java.classpath.support.PathResourceBase;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
 
@@ -73,6 +69,8 @@ implements
     private final AtomicReference<ClassPath> allSourcesClassPathRef;
     private volatile List<PathResourceImplementation> allSources;
 
+    private final AtomicReference<SourceSetIndex> sourceSetIndexRef;
+
     private volatile boolean loadedOnce;
 
     public GradleClassPathProvider(JavaExtension javaExt) {
@@ -87,6 +85,7 @@ implements
         this.classpaths = new ConcurrentHashMap<>();
         this.allSources = Collections.emptyList();
         this.allSourcesClassPathRef = new AtomicReference<>(null);
+        this.sourceSetIndexRef = new AtomicReference<>(null);
 
         EventSource eventSource = new EventSource();
         this.changes = new PropertyChangeSupport(eventSource);
@@ -181,57 +180,26 @@ implements
         changes.removePropertyChangeListener(listener);
     }
 
-    private boolean isInOneOf(File file, Collection<File> roots) {
-        return isInOneOf(file, roots, null);
-    }
-
-    private boolean isInOneOf(File file, Collection<File> roots, ExcludeIncludeRules excludeRules) {
-        for (File root: roots) {
-            if (NbFileUtils.isParentOrSame(root, file)) {
-                if (excludeRules == null) {
-                    return true;
-                }
-                return excludeRules.isIncluded(root.toPath(), file);
-            }
+    private SourceSetIndex getSourceSetIndex(NbJavaModel projectModel) {
+        SourceSetIndex result = sourceSetIndexRef.get();
+        if (result == null || result.projectModel != projectModel) {
+            result = new SourceSetIndex(projectModel);
+            sourceSetIndexRef.set(result);
         }
-        return false;
+        return result;
     }
 
-    private JavaSourceSet findAssociatedSourceSet(NbJavaModel projectModel, FileObject fileObj) {
-        File file = FileUtil.toFile(fileObj);
-        if (file == null) {
+    private ClassPathKey getClassPathType(NbJavaModel projectModel, FileObject fileObj, String type) {
+        if (type == null) {
             return null;
         }
 
-        for (JavaSourceSet sourceSet: projectModel.getMainModule().getSources()) {
-            JavaOutputDirs outputDirs = sourceSet.getOutputDirs();
-            outputDirs.getClassesDir();
-
-            if (isInOneOf(file, sourceSet.getClasspaths().getCompileClasspaths())) {
-                return sourceSet;
-            }
-
-            if (isInOneOf(file, sourceSet.getClasspaths().getRuntimeClasspaths())) {
-                return sourceSet;
-            }
-
-            for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
-                ExcludeIncludeRules excludeRules = ExcludeIncludeRules.create(sourceGroup);
-                if (isInOneOf(file, sourceGroup.getSourceRoots())) {
-                    return sourceSet;
-                }
-            }
-        }
-
-        return null;
-    }
-
-    private ClassPathKey getClassPathType(NbJavaModel projectModel, FileObject fileObj, String type) {
-        if (type == null) {
+        File file = FileUtil.toFile(fileObj);
+        if (file == null) {
             return null;
         }
 
-        JavaSourceSet sourceSet = findAssociatedSourceSet(projectModel, fileObj);
+        SourceSetClassPaths sourceSet = getSourceSetIndex(projectModel).tryGetSourceSet(file);
         if (sourceSet == null) {
             return null;
         }
@@ -240,16 +208,14 @@ implements
             return SpecialClassPath.BOOT;
         }
 
-        String name = sourceSet.getName();
-
         switch (type) {
             case ClassPath.SOURCE:
-                return new SourceSetClassPathType(name, ClassPathType.SOURCES);
+                return sourceSet.sources;
             case JavaClassPathConstants.PROCESSOR_PATH: /* falls through */
             case ClassPath.COMPILE:
-                return new SourceSetClassPathType(name, ClassPathType.COMPILE);
+                return sourceSet.compile;
             case ClassPath.EXECUTE:
-                return new SourceSetClassPathType(name, ClassPathType.RUNTIME);
+                return sourceSet.runtime;
             default:
                 return null;
         }
@@ -287,12 +253,7 @@ implements
     }
 
     private static PathResourceImplementation toPathResource(File file) {
-        URL url = FileUtil.urlForArchiveOrDir(file);
-        return url != null ? ClassPathSupport.createResource(url) : null;
-    }
-
-    private static PathResourceImplementation toPathResource(File file, ExcludeIncludeRules includeRules) {
-        return ExcludeAwarePathResource.tryCreate(file, includeRules);
+        return PathResourcePool.tryGetResource(file);
     }
 
     private static List<PathResourceImplementation> getPathResources(
@@ -308,9 +269,7 @@ implements
 
         List<PathResourceImplementation> result = new ArrayList<>(files.size());
         for (File file: new LinkedHashSet<>(files)) {
-            PathResourceImplementation pathResource = includeRules.isAllowAll()
-                    ? toPathResource(file)
-                    : toPathResource(file, includeRules);
+            PathResourceImplementation pathResource = PathResourcePool.tryGetResource(file, includeRules);
             // Ignore invalid classpath entries
             if (pathResource != null) {
                 result.add(pathResource);
@@ -382,7 +341,7 @@ implements
             platform = getPlatformProperty().getValue();
         }
         for (URL url: platform.getBootLibraries()) {
-            platformResources.add(ClassPathSupport.createResource(url));
+            platformResources.add(PathResourcePool.getResource(url));
         }
 
         setClassPathResources(SpecialClassPath.BOOT, platformResources);
@@ -465,6 +424,8 @@ implements
         // TODO: This method must be called whenever any of the dependent projects
         //   is reloaded.
 
+        getSourceSetIndex(projectModel);
+
         Set<File> missing = new HashSet<>();
 
         NbJavaModule mainModule = projectModel.getMainModule();
@@ -619,6 +580,58 @@ implements
         }
     }
 
+    private static final class SourceSetClassPaths {
+        public final ClassPathKey sources;
+        public final ClassPathKey compile;
+        public final ClassPathKey runtime;
+
+        public SourceSetClassPaths(String sourceSetName) {
+            this.sources = new SourceSetClassPathType(sourceSetName, ClassPathType.SOURCES);
+            this.compile = new SourceSetClassPathType(sourceSetName, ClassPathType.COMPILE);
+            this.runtime = new SourceSetClassPathType(sourceSetName, ClassPathType.RUNTIME);
+        }
+    }
+
+    /**
+     * Maps the class path entries and source roots of the source sets of a
+     * project model to the source sets. If a file is in the roots of more
+     * than one source set, the first source set (in the order of the model)
+     * is chosen.
+     */
+    private static final class SourceSetIndex {
+        public final NbJavaModel projectModel;
+        private final PathPrefixTrie<SourceSetClassPaths> roots;
+
+        public SourceSetIndex(NbJavaModel projectModel) {
+            this.projectModel = projectModel;
+
+            PathPrefixTrie.Builder<SourceSetClassPaths> rootsBuilder = new PathPrefixTrie.Builder<>();
+            for (JavaSourceSet sourceSet: projectModel.getMainModule().getSources()) {
+                SourceSetClassPaths classPaths = new SourceSetClassPaths(sourceSet.getName());
+
+                addRoots(sourceSet.getClasspaths().getCompileClasspaths(), classPaths, rootsBuilder);
+                addRoots(sourceSet.getClasspaths().getRuntimeClasspaths(), classPaths, rootsBuilder);
+                for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
+                    addRoots(sourceGroup.getSourceRoots(), classPaths, rootsBuilder);
+                }
+            }
+            this.roots = rootsBuilder.create();
+        }
+
+        private static void addRoots(
+                Collection<File> rootFiles,
+                SourceSetClassPaths classPaths,
+                PathPrefixTrie.Builder<SourceSetClassPaths> rootsBuilder) {
+            for (File root: rootFiles) {
+                rootsBuilder.add(root, classPaths);
+            }
+        }
+
+        public SourceSetClassPaths tryGetSourceSet(File file) {
+            return roots.tryGetValue(file);
+        }
+    }
+
     private enum ClassPathType {
         SOURCES,
         COMPILE,
@@ -656,52 +669,4 @@ implements
             changes.removePropertyChangeListener(listener);
         }
     }
-
-    private static final class ExcludeAwarePathResource
-    extends
-            PathResourceBase
-    implements
-            FilteringPathResourceImplementation {
-
-        private final Path root;
-        private final URL url;
-        private final ExcludeIncludeRules includeRules;
-
-        private ExcludeAwarePathResource(File root, URL rootUrl, ExcludeIncludeRules includeRules) {
-            this.root = root.toPath();
-            this.url = rootUrl;
-            this.includeRules = includeRules;
-        }
-
-        public static ExcludeAwarePathResource tryCreate(File root, ExcludeIncludeRules includeRules) {
-            URL url = FileUtil.urlForArchiveOrDir(root);
-            if (url == null) {
-                return null;
-            }
-
-            return new ExcludeAwarePathResource(root, url, includeRules);
-        }
-
-        @Override
-        public URL[] getRoots() {
-            return new URL[] {url};
-        }
-
-        @Override
-        public ClassPathImplementation getContent() {
-            return null;
-        }
-
-        @Override
-        public boolean includes(URL urlRoot, String resource) {
-            String normPath = resource.replace("/", root.getFileSystem().getSeparator());
-            Path resourcePath = root.resolve(normPath);
-            return includeRules.isIncluded(root, resourcePath);
-        }
-
-        @Override
-        public String toString () {
-            return "ExcludeAwarePathResource{" + url + "}";
-        }
-    }
 }
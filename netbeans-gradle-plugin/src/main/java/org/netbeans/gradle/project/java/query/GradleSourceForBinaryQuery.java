@@ -3,20 +3,13 @@ package org.netbeans.gradle.project.java.query;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 import javax.swing.SwingUtilities;
 import javax.swing.event.ChangeListener;
 import org.jtrim.utils.ExceptionHelper;
-import org.netbeans.gradle.model.java.JavaOutputDirs;
-import org.netbeans.gradle.model.java.JavaSourceGroup;
-import org.netbeans.gradle.model.java.JavaSourceSet;
 import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.java.JavaModelChangeListener;
-import org.netbeans.gradle.project.java.model.NbJavaModel;
-import org.netbeans.gradle.project.java.model.NbJavaModule;
 import org.netbeans.gradle.project.query.AbstractSourceForBinaryQuery;
-import org.netbeans.gradle.project.util.NbFileUtils;
 import org.netbeans.spi.java.queries.SourceForBinaryQueryImplementation2;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
@@ -56,26 +49,10 @@ implements
         eventSource.init(this.changes);
     }
 
-    private static List<File> tryGetSourceRoots(NbJavaModule module, File binaryRoot) {
-        for (JavaSourceSet sourceSet: module.getSources()) {
-            JavaOutputDirs outputDirs = sourceSet.getOutputDirs();
-            if (NbFileUtils.isParentOrSame(outputDirs.getClassesDir(), binaryRoot)) {
-                List<File> result = new LinkedList<>();
-
-                for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
-                    result.addAll(sourceGroup.getSourceRoots());
-                }
-
-                return result;
-            }
-        }
-        return null;
-    }
-
     private static FileObject[] getSourceRoots(
-            NbJavaModule module, File binaryRoot) {
+            JavaSourceRootIndex index, File binaryRoot) {
 
-        List<File> srcRoots = tryGetSourceRoots(module, binaryRoot);
+        List<File> srcRoots = index.tryGetSourceRoots(binaryRoot);
         if (srcRoots == null) {
             return NO_ROOTS;
         }
@@ -104,8 +81,7 @@ implements
 
     @Override
     protected Result tryFindSourceRoot(final File binaryRoot) {
-        NbJavaModule mainModule = javaExt.getCurrentModel().getMainModule();
-        if (tryGetSourceRoots(mainModule, binaryRoot) == null) {
+        if (javaExt.getSourceRootIndex().tryGetSourceRoots(binaryRoot) == null) {
             return null;
         }
 
@@ -117,10 +93,7 @@ implements
 
             @Override
             public FileObject[] getRoots() {
-                NbJavaModel projectModel = javaExt.getCurrentModel();
-                NbJavaModule mainModule = projectModel.getMainModule();
-
-                return getSourceRoots(mainModule, binaryRoot);
+                return getSourceRoots(javaExt.getSourceRootIndex(), binaryRoot);
             }
 
             @Override
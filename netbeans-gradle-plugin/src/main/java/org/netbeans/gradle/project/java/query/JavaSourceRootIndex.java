@@ -0,0 +1,154 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.project.java.model.NbJavaModel;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.util.PathPrefixTrie;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Defines the relations between the source roots and the output directories
+ * of the main module of a particular {@link NbJavaModel}. The relations are
+ * computed once, when the index is created, so that the source for binary,
+ * binary for source and unit test queries do not have to iterate over every
+ * source root of every source set (and convert them to {@code FileObject})
+ * on each query.
+ * <P>
+ * Instances of this class are immutable and are safe to be used by multiple
+ * threads concurrently.
+ *
+ * @see org.netbeans.gradle.project.java.JavaExtension#getSourceRootIndex()
+ */
+public final class JavaSourceRootIndex {
+    private static final URL[] NO_URLS = new URL[0];
+
+    private final NbJavaModel model;
+    private final PathPrefixTrie<List<File>> classesDirToSourceRoots;
+    private final PathPrefixTrie<File> sourceRootToClassesDir;
+    private final PathPrefixTrie<Boolean> nonTestSourceRoots;
+    private final URL[] nonTestSourceRootUrls;
+    private final URL[] testSourceRootUrls;
+
+    private JavaSourceRootIndex(NbJavaModel model) {
+        NbJavaModule module = model.getMainModule();
+
+        PathPrefixTrie.Builder<List<File>> classesDirBuilder = new PathPrefixTrie.Builder<>();
+        PathPrefixTrie.Builder<File> sourceRootBuilder = new PathPrefixTrie.Builder<>();
+        for (JavaSourceSet sourceSet: module.getSources()) {
+            File classesDir = sourceSet.getOutputDirs().getClassesDir();
+            List<File> sourceRoots = getSourceRoots(sourceSet);
+
+            classesDirBuilder.add(normalize(classesDir), sourceRoots);
+            for (File sourceRoot: sourceRoots) {
+                sourceRootBuilder.add(normalize(sourceRoot), classesDir);
+            }
+        }
+
+        PathPrefixTrie.Builder<Boolean> nonTestBuilder = new PathPrefixTrie.Builder<>();
+        for (JavaSourceSet sourceSet: module.getNonTestSourceSets()) {
+            for (File sourceRoot: getSourceRoots(sourceSet)) {
+                nonTestBuilder.add(normalize(sourceRoot), Boolean.TRUE);
+            }
+        }
+
+        this.model = model;
+        this.classesDirToSourceRoots = classesDirBuilder.create();
+        this.sourceRootToClassesDir = sourceRootBuilder.create();
+        this.nonTestSourceRoots = nonTestBuilder.create();
+        this.nonTestSourceRootUrls = urlsFromSourceSets(module.getNonTestSourceSets());
+        this.testSourceRootUrls = urlsFromSourceSets(module.getTestSourceSets());
+    }
+
+    /**
+     * Creates the index of the main module of the given model.
+     */
+    public static JavaSourceRootIndex create(NbJavaModel model) {
+        ExceptionHelper.checkNotNullArgument(model, "model");
+        return new JavaSourceRootIndex(model);
+    }
+
+    // The paths are compared as strings, so the paths of the model must be in
+    // the same form as the (normalized) paths of the queries.
+    private static File normalize(File file) {
+        return FileUtil.normalizeFile(file);
+    }
+
+    private static List<File> getSourceRoots(JavaSourceSet sourceSet) {
+        List<File> result = new ArrayList<>();
+        for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
+            result.addAll(sourceGroup.getSourceRoots());
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private static URL[] urlsFromSourceSets(Collection<JavaSourceSet> sourceSets) {
+        List<URL> result = new ArrayList<>();
+        for (JavaSourceSet sourceSet: sourceSets) {
+            for (File sourceRoot: getSourceRoots(sourceSet)) {
+                URL url = FileUtil.urlForArchiveOrDir(sourceRoot);
+                if (url != null) {
+                    result.add(url);
+                }
+            }
+        }
+
+        return result.isEmpty() ? NO_URLS : result.toArray(new URL[result.size()]);
+    }
+
+    /**
+     * Returns the model this index was created from.
+     */
+    public NbJavaModel getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the source roots of the first source set whose classes
+     * directory contains the given binary root, or {@code null} if there is
+     * no such source set.
+     */
+    public List<File> tryGetSourceRoots(File binaryRoot) {
+        return classesDirToSourceRoots.tryGetValue(binaryRoot);
+    }
+
+    /**
+     * Returns the classes directory of the first source set having a source
+     * root containing the given file, or {@code null} if there is no such
+     * source set.
+     */
+    public File tryGetClassesDir(File sourceFile) {
+        return sourceRootToClassesDir.tryGetValue(sourceFile);
+    }
+
+    /**
+     * Returns {@code true} if the given file is within one of the source roots
+     * of a non-test source set.
+     */
+    public boolean isInNonTestSourceRoot(File file) {
+        return nonTestSourceRoots.tryGetValue(file) != null;
+    }
+
+    /**
+     * Returns the URLs of the source roots of the non-test source sets. The
+     * returned array is a new copy which might be modified by the caller.
+     */
+    public URL[] getNonTestSourceRootUrls() {
+        return nonTestSourceRootUrls.clone();
+    }
+
+    /**
+     * Returns the URLs of the source roots of the test source sets. The
+     * returned array is a new copy which might be modified by the caller.
+     */
+    public URL[] getTestSourceRootUrls() {
+        return testSourceRootUrls.clone();
+    }
+}
@@ -0,0 +1,173 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.util.ExcludeIncludeRules;
+import org.netbeans.gradle.project.util.WeakValueInterner;
+import org.netbeans.spi.java.classpath.ClassPathImplementation;
+import org.netbeans.spi.java.classpath.FilteringPathResourceImplementation;
+import org.netbeans.spi.java.classpath.PathResourceImplementation;
+import org.netbeans.spi.java.classpath.support.ClassPathSupport;
+import org.netbeans.spi.java.classpath.support.PathResourceBase;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Defines a global pool of {@link PathResourceImplementation} instances, so
+ * that the class paths of every project share the same instance for the same
+ * root (and include rules). Many projects usually depend on the same jars and
+ * without sharing the instances, each project would have its own copy of every
+ * dependency.
+ * <P>
+ * The pool only references its instances weakly, so they are removed from the
+ * pool when no class path uses them anymore.
+ * <P>
+ * This class is safe to be used by multiple threads concurrently.
+ */
+final class PathResourcePool {
+    private static final Logger LOGGER = Logger.getLogger(PathResourcePool.class.getName());
+
+    private static final int LOG_STATS_INTERVAL = 4096;
+
+    private static final WeakValueInterner<ResourceKey, PathResourceImplementation> POOL
+            = new WeakValueInterner<>();
+
+    private static final AtomicLong HIT_COUNT = new AtomicLong(0);
+    private static final AtomicLong MISS_COUNT = new AtomicLong(0);
+
+    /**
+     * Returns the path resource of the given file (directory or archive), or
+     * {@code null} if the file cannot be converted to a class path root.
+     */
+    public static PathResourceImplementation tryGetResource(File root, ExcludeIncludeRules includeRules) {
+        ExceptionHelper.checkNotNullArgument(root, "root");
+        ExceptionHelper.checkNotNullArgument(includeRules, "includeRules");
+
+        URL url = FileUtil.urlForArchiveOrDir(root);
+        if (url == null) {
+            return null;
+        }
+
+        return getResource(root, url, includeRules);
+    }
+
+    /**
+     * Returns the path resource of the given file (directory or archive), or
+     * {@code null} if the file cannot be converted to a class path root.
+     */
+    public static PathResourceImplementation tryGetResource(File root) {
+        return tryGetResource(root, ExcludeIncludeRules.ALLOW_ALL);
+    }
+
+    /**
+     * Returns the path resource of the given class path root.
+     */
+    public static PathResourceImplementation getResource(URL url) {
+        ExceptionHelper.checkNotNullArgument(url, "url");
+
+        return getResource(null, url, ExcludeIncludeRules.ALLOW_ALL);
+    }
+
+    private static PathResourceImplementation getResource(File root, URL url, ExcludeIncludeRules includeRules) {
+        ResourceKey key = new ResourceKey(url, includeRules);
+        PathResourceImplementation result = POOL.get(key);
+        if (result != null) {
+            HIT_COUNT.incrementAndGet();
+            return result;
+        }
+
+        logPoolStats(MISS_COUNT.incrementAndGet());
+
+        result = includeRules.isAllowAll() || root == null
+                ? ClassPathSupport.createResource(url)
+                : new ExcludeAwarePathResource(root, url, includeRules);
+
+        PathResourceImplementation oldResult = POOL.putIfAbsent(key, result);
+        return oldResult != null ? oldResult : result;
+    }
+
+    private static void logPoolStats(long missCount) {
+        if (LOGGER.isLoggable(Level.FINE) && missCount % LOG_STATS_INTERVAL == 0) {
+            long hitCount = HIT_COUNT.get();
+            double hitRate = (double)hitCount / (double)(hitCount + missCount);
+            LOGGER.log(Level.FINE, "Path resource pool: hit rate = {0}, {1}",
+                    new Object[]{hitRate, POOL});
+        }
+    }
+
+    private static final class ResourceKey {
+        // URL.equals might resolve host names, so compare the strings.
+        private final String url;
+        private final ExcludeIncludeRules includeRules;
+
+        public ResourceKey(URL url, ExcludeIncludeRules includeRules) {
+            this.url = url.toExternalForm();
+            this.includeRules = includeRules;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 5;
+            hash = 37 * hash + url.hashCode();
+            hash = 37 * hash + includeRules.hashCode();
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null) return false;
+            if (obj == this) return true;
+            if (getClass() != obj.getClass()) return false;
+
+            final ResourceKey other = (ResourceKey)obj;
+            return url.equals(other.url) && includeRules.equals(other.includeRules);
+        }
+    }
+
+    private static final class ExcludeAwarePathResource
+    extends
+            PathResourceBase
+    implements
+            FilteringPathResourceImplementation {
+
+        private final Path root;
+        private final URL url;
+        private final ExcludeIncludeRules includeRules;
+
+        public ExcludeAwarePathResource(File root, URL rootUrl, ExcludeIncludeRules includeRules) {
+            this.root = root.toPath();
+            this.url = rootUrl;
+            this.includeRules = includeRules;
+        }
+
+        @Override
+        public URL[] getRoots() {
+            return new URL[] {url};
+        }
+
+        @Override
+        public ClassPathImplementation getContent() {
+            return null;
+        }
+
+        @Override
+        public boolean includes(URL urlRoot, String resource) {
+            String normPath = resource.replace("/", root.getFileSystem().getSeparator());
+            Path resourcePath = root.resolve(normPath);
+            return includeRules.isIncluded(root, resourcePath);
+        }
+
+        @Override
+        public String toString () {
+            return "ExcludeAwarePathResource{" + url + "}";
+        }
+    }
+
+    private PathResourcePool() {
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,86 @@
+package org.netbeans.gradle.project.java.tasks;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.concurrent.CleanupTask;
+import org.jtrim.concurrent.TaskExecutor;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.NbStrings;
+import org.netbeans.gradle.project.NbTaskExecutors;
+import org.netbeans.gradle.project.api.task.CommandCompleteListener;
+import org.netbeans.gradle.project.api.task.GradleCommandExecutor;
+import org.netbeans.gradle.project.java.JavaExtension;
+import org.netbeans.gradle.project.java.test.TestImpactAnalyzer;
+import org.openide.awt.StatusDisplayer;
+
+/**
+ * Executes only the tests of a project which might be affected by the source
+ * files changed since the affected tests were last executed successfully.
+ *
+ * @see TestImpactAnalyzer
+ */
+public final class AffectedTestsTask {
+    private static final Logger LOGGER = Logger.getLogger(AffectedTestsTask.class.getName());
+
+    private static final TaskExecutor ANALYZER_EXECUTOR
+            = NbTaskExecutors.newExecutor("Gradle-Test-Impact-Analyzer", 1);
+
+    private static void executeNow(final JavaExtension javaExt) {
+        final long startTime = System.currentTimeMillis();
+        final TestImpactAnalyzer analyzer = javaExt.getTestImpactAnalyzer();
+
+        List<String> testClasses = analyzer.findAffectedTestClasses();
+        if (testClasses.isEmpty()) {
+            StatusDisplayer.getDefault().setStatusText(NbStrings.getNoAffectedTests());
+            return;
+        }
+
+        LOGGER.log(Level.FINE, "Executing affected tests: {0}", testClasses);
+
+        GradleCommandExecutor executor = javaExt.getProject().getLookup().lookup(GradleCommandExecutor.class);
+        if (executor == null) {
+            LOGGER.log(Level.WARNING, "Missing GradleCommandExecutor for project: {0}",
+                    javaExt.getProjectDirectoryAsFile());
+            return;
+        }
+
+        executor.executeCommand(
+                GradleJavaBuiltInCommands.testClassesCommand(testClasses),
+                GradleJavaBuiltInCommands.testClassesActions(javaExt, new CommandCompleteListener() {
+                    @Override
+                    public void onComplete(Throwable error) {
+                        if (error == null) {
+                            analyzer.markTestsExecuted(startTime);
+                        }
+                    }
+                }));
+    }
+
+    /**
+     * Determines the affected tests in the background, then executes them.
+     * Does not execute anything if no test is affected.
+     */
+    public static void execute(final JavaExtension javaExt) {
+        ExceptionHelper.checkNotNullArgument(javaExt, "javaExt");
+
+        ANALYZER_EXECUTOR.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+            @Override
+            public void execute(CancellationToken cancelToken) {
+                executeNow(javaExt);
+            }
+        }, new CleanupTask() {
+            @Override
+            public void cleanup(boolean canceled, Throwable error) {
+                NbTaskExecutors.defaultCleanup(canceled, error);
+            }
+        });
+    }
+
+    private AffectedTestsTask() {
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,366 @@
+package org.netbeans.gradle.project.java.tasks;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationSource;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.NbTaskExecutors;
+import org.netbeans.gradle.project.java.JavaExtension;
+import org.netbeans.gradle.project.java.model.JavaProjectReference;
+import org.netbeans.gradle.project.java.model.NamedSourceRoot;
+import org.netbeans.gradle.project.java.model.NbJavaModel;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.view.GradleActionProvider;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.Lookup;
+import org.openide.util.lookup.Lookups;
+import org.openide.util.lookup.ProxyLookup;
+
+/**
+ * Executes a command of a Java project whenever a file changes in one of the
+ * source roots of the project or of the projects it depends on. Changes are collected for a short time before
+ * executing the command, so that saving many files at once only triggers a
+ * single execution. An execution still in progress is canceled when new
+ * changes arrive.
+ * <P>
+ * The command is executed through the action provider of the project, so the
+ * output tab of the command is reused between executions and the Gradle
+ * daemon is kept busy (and therefore warm).
+ */
+public final class ContinuousGradleTask {
+    private static final Logger LOGGER = Logger.getLogger(ContinuousGradleTask.class.getName());
+
+    private static final long DEFAULT_DEBOUNCE_MS = 300;
+
+    // Also used to (un)register the file listeners, so that they are never
+    // registered concurrently.
+    private static final ScheduledExecutorService TRIGGER_EXECUTOR
+            = NbTaskExecutors.newScheduledExecutor("Gradle-Continuous-Build");
+
+    private final CommandTarget target;
+    private final String command;
+    private final Lookup context;
+    private final long debounceNanos;
+
+    private final FileChangeListener sourceChangeListener;
+    private final ChangeListener modelChangeListener;
+    private final Runnable executeTask;
+    private final Runnable updateRootsTask;
+
+    // Accessed only from TRIGGER_EXECUTOR.
+    private Set<File> watchedRoots;
+
+    private final Lock mainLock;
+    private boolean started;
+    private ScheduledFuture<?> scheduledExecute;
+    private CancellationSource currentExecution;
+
+    public ContinuousGradleTask(JavaExtension javaExt, String command, Lookup context) {
+        this(new JavaExtensionTarget(javaExt), command, context, DEFAULT_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    ContinuousGradleTask(
+            CommandTarget target,
+            String command,
+            Lookup context,
+            long debounceTime,
+            TimeUnit unit) {
+        ExceptionHelper.checkNotNullArgument(target, "target");
+        ExceptionHelper.checkNotNullArgument(command, "command");
+        ExceptionHelper.checkNotNullArgument(context, "context");
+        ExceptionHelper.checkArgumentInRange(debounceTime, 0, Long.MAX_VALUE, "debounceTime");
+        ExceptionHelper.checkNotNullArgument(unit, "unit");
+
+        this.target = target;
+        this.command = command;
+        this.context = context;
+        this.debounceNanos = unit.toNanos(debounceTime);
+
+        this.sourceChangeListener = new SourceChangeListener();
+        this.modelChangeListener = new ChangeListener() {
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                TRIGGER_EXECUTOR.execute(updateRootsTask);
+            }
+        };
+        this.executeTask = new Runnable() {
+            @Override
+            public void run() {
+                executeCommand();
+            }
+        };
+        this.updateRootsTask = new Runnable() {
+            @Override
+            public void run() {
+                updateWatchedRoots();
+            }
+        };
+
+        this.watchedRoots = Collections.emptySet();
+
+        this.mainLock = new ReentrantLock();
+        this.started = false;
+        this.scheduledExecute = null;
+        this.currentExecution = null;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public boolean isStarted() {
+        mainLock.lock();
+        try {
+            return started;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Starts watching the source roots and executes the command once, so that
+     * the user sees the current state without having to edit a file first.
+     * Does nothing if this task has already been started.
+     */
+    public void start() {
+        mainLock.lock();
+        try {
+            if (started) {
+                return;
+            }
+            started = true;
+        } finally {
+            mainLock.unlock();
+        }
+
+        target.addModelChangeListener(modelChangeListener);
+        TRIGGER_EXECUTOR.execute(updateRootsTask);
+        TRIGGER_EXECUTOR.execute(executeTask);
+    }
+
+    /**
+     * Stops watching the source roots and cancels the execution of the
+     * command if it is still in progress.
+     */
+    public void stop() {
+        CancellationSource execution;
+        mainLock.lock();
+        try {
+            if (!started) {
+                return;
+            }
+            started = false;
+
+            if (scheduledExecute != null) {
+                scheduledExecute.cancel(false);
+                scheduledExecute = null;
+            }
+
+            execution = currentExecution;
+            currentExecution = null;
+        } finally {
+            mainLock.unlock();
+        }
+
+        target.removeModelChangeListener(modelChangeListener);
+        TRIGGER_EXECUTOR.execute(updateRootsTask);
+
+        if (execution != null) {
+            execution.getController().cancel();
+        }
+    }
+
+    private void updateWatchedRoots() {
+        Set<File> newRoots = isStarted() ? target.getSourceRoots() : Collections.<File>emptySet();
+
+        for (File root: watchedRoots) {
+            if (!newRoots.contains(root)) {
+                try {
+                    FileUtil.removeRecursiveListener(sourceChangeListener, root);
+                } catch (IllegalArgumentException ex) {
+                    LOGGER.log(Level.INFO, "Failed to remove listener from " + root, ex);
+                }
+            }
+        }
+
+        Set<File> registeredRoots = new HashSet<>();
+        for (File root: newRoots) {
+            if (watchedRoots.contains(root)) {
+                registeredRoots.add(root);
+                continue;
+            }
+
+            try {
+                FileUtil.addRecursiveListener(sourceChangeListener, root);
+                registeredRoots.add(root);
+            } catch (IllegalArgumentException ex) {
+                LOGGER.log(Level.INFO, "Cannot listen for changes in " + root, ex);
+            }
+        }
+
+        watchedRoots = registeredRoots;
+    }
+
+    /**
+     * Schedules the execution of the command after the debounce time,
+     * unless another change is reported before that. This method is called
+     * when a file changes in one of the watched source roots.
+     */
+    void sourcesChanged() {
+        mainLock.lock();
+        try {
+            if (!started) {
+                return;
+            }
+
+            if (scheduledExecute != null) {
+                scheduledExecute.cancel(false);
+            }
+            scheduledExecute = TRIGGER_EXECUTOR.schedule(executeTask, debounceNanos, TimeUnit.NANOSECONDS);
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private void executeCommand() {
+        CancellationSource newExecution = Cancellation.createCancellationSource();
+        CancellationSource prevExecution;
+
+        mainLock.lock();
+        try {
+            scheduledExecute = null;
+            if (!started) {
+                return;
+            }
+
+            prevExecution = currentExecution;
+            currentExecution = newExecution;
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (prevExecution != null) {
+            prevExecution.getController().cancel();
+        }
+
+        // The cancellation token is picked up by GradleActionProvider and
+        // merged with the cancellation token of the command.
+        Lookup executionContext = new ProxyLookup(Lookups.singleton(newExecution.getToken()), context);
+        target.executeCommand(command, executionContext);
+    }
+
+    /**
+     * Defines the project whose command is executed continuously.
+     */
+    interface CommandTarget {
+        /**
+         * Returns the source roots to be watched for changes.
+         */
+        public Set<File> getSourceRoots();
+
+        /**
+         * Registers a listener to be notified when the source roots might have
+         * changed.
+         */
+        public void addModelChangeListener(ChangeListener listener);
+
+        public void removeModelChangeListener(ChangeListener listener);
+
+        public void executeCommand(String command, Lookup context);
+    }
+
+    private static final class JavaExtensionTarget implements CommandTarget {
+        private final JavaExtension javaExt;
+
+        public JavaExtensionTarget(JavaExtension javaExt) {
+            ExceptionHelper.checkNotNullArgument(javaExt, "javaExt");
+            this.javaExt = javaExt;
+        }
+
+        private static void addSourceRoots(NbJavaModule module, Set<File> result) {
+            for (NamedSourceRoot root: module.getNamedSourceRoots()) {
+                result.add(root.getRoot());
+            }
+        }
+
+        @Override
+        public Set<File> getSourceRoots() {
+            NbJavaModel model = javaExt.getCurrentModel();
+
+            Set<File> result = new HashSet<>();
+            addSourceRoots(model.getMainModule(), result);
+
+            // Changes in the projects we depend on also require executing
+            // the command again.
+            for (JavaProjectReference dependency: model.getAllDependencies()) {
+                NbJavaModule module = dependency.tryGetModule();
+                if (module != null) {
+                    addSourceRoots(module, result);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public void addModelChangeListener(ChangeListener listener) {
+            javaExt.addModelChangeListener(listener);
+        }
+
+        @Override
+        public void removeModelChangeListener(ChangeListener listener) {
+            javaExt.removeModelChangeListener(listener);
+        }
+
+        @Override
+        public void executeCommand(String command, Lookup context) {
+            GradleActionProvider.invokeAction(javaExt.getProject(), command, context);
+        }
+    }
+
+    private final class SourceChangeListener implements FileChangeListener {
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+            sourcesChanged();
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            sourcesChanged();
+        }
+
+        @Override
+        public void fileChanged(FileEvent fe) {
+            sourcesChanged();
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            sourcesChanged();
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fe) {
+            sourcesChanged();
+        }
+
+        @Override
+        public void fileAttributeChanged(FileAttributeEvent fe) {
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.netbeans.gradle.project.java.tasks;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -21,6 +22,7 @@ import org.netbeans.gradle.project.api.config.GlobalConfig;
 import org.netbeans.gradle.project.api.config.ProfileDef;
 import org.netbeans.gradle.project.api.modelquery.GradleTarget;
 import org.netbeans.gradle.project.api.task.BuiltInGradleCommandQuery;
+import org.netbeans.gradle.project.api.task.CommandCompleteListener;
 import org.netbeans.gradle.project.api.task.CommandExceptionHider;
 import org.netbeans.gradle.project.api.task.ContextAwareCommandAction;
 import org.netbeans.gradle.project.api.task.ContextAwareCommandCompleteAction;
@@ -318,6 +320,45 @@ public final class GradleJavaBuiltInCommands implements BuiltInGradleCommandQuer
         };
     }
 
+    /**
+     * Returns the command executing only the given test classes with the
+     * default test task. The command must be executed with the custom actions
+     * returned by {@link #testClassesActions(JavaExtension, CommandCompleteListener) testClassesActions}.
+     */
+    public static GradleCommandTemplate testClassesCommand(Collection<String> testClassNames) {
+        ExceptionHelper.checkNotNullElements(testClassNames, "testClassNames");
+
+        List<String> testTaskOptions = new ArrayList<>(2 * testClassNames.size());
+        for (String testClassName: testClassNames) {
+            testTaskOptions.add("--tests");
+            testTaskOptions.add(testClassName);
+        }
+
+        String[] taskNames = cleanAndTestTasks(testTaskOptions.toArray(new String[testTaskOptions.size()]));
+        GradleCommandTemplate.Builder commandBuilder = new GradleCommandTemplate.Builder("", Arrays.asList(taskNames));
+        commandBuilder.setBlocking(false);
+        return commandBuilder.create();
+    }
+
+    /**
+     * Returns the custom actions of {@link #testClassesCommand(Collection) testClassesCommand}
+     * displaying the test results just like the built-in test command.
+     */
+    public static CustomCommandActions testClassesActions(
+            JavaExtension javaExt,
+            final CommandCompleteListener completeListener) {
+        ExceptionHelper.checkNotNullArgument(javaExt, "javaExt");
+        ExceptionHelper.checkNotNullArgument(completeListener, "completeListener");
+
+        return createCustomActions(TaskKind.BUILD, javaExt, displayTestResults(), hideTestFailures(),
+                new CustomCommandAdjuster() {
+                    @Override
+                    public void adjust(JavaExtension javaExt, CustomCommandActions.Builder customActions) {
+                        customActions.setCommandCompleteListener(completeListener);
+                    }
+                });
+    }
+
     private static CustomCommandAdjuster needsGradle(String minGradleVersionStr) {
         final GradleVersion minGradleVersion = GradleVersion.version(minGradleVersionStr);
 
@@ -0,0 +1,236 @@
+package org.netbeans.gradle.project.java.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Stores the dependencies between the compiled classes found in a set of
+ * output directories. The index is updated incrementally: Only class files
+ * whose size or modification time changed since the previous update are read
+ * again.
+ * <P>
+ * Nested classes are merged into their top level classes, so the classes in
+ * the index are identified by the binary names of top level classes.
+ */
+public final class ClassDependencyIndex {
+    private static final Logger LOGGER = Logger.getLogger(ClassDependencyIndex.class.getName());
+
+    private static final String CLASS_FILE_EXT = ".class";
+
+    private final Lock mainLock;
+    private final Map<File, IndexedClassFile> classFiles;
+    // Maps class names to the classes referencing them.
+    // Rebuilt lazily after the index changes (null means it must be rebuilt).
+    private Map<String, Set<String>> dependents;
+
+    public ClassDependencyIndex() {
+        this.mainLock = new ReentrantLock();
+        this.classFiles = new HashMap<>();
+        this.dependents = null;
+    }
+
+    private static String getClassName(Path classesDir, Path classFile) {
+        String relPath = classesDir.relativize(classFile).toString().replace(File.separatorChar, '/');
+        String internalName = relPath.substring(0, relPath.length() - CLASS_FILE_EXT.length());
+        return ClassFileReferences.toTopLevelClassName(internalName);
+    }
+
+    private static Set<String> tryReadReferences(File classFile) {
+        try (InputStream input = Files.newInputStream(classFile.toPath())) {
+            return ClassFileReferences.readReferencedClasses(input);
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to read class file: " + classFile, ex);
+            return Collections.emptySet();
+        }
+    }
+
+    private void updateClassFile(File classesDir, String className, File classFile, BasicFileAttributes attrs) {
+        long length = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+
+        IndexedClassFile prevEntry = classFiles.get(classFile);
+        if (prevEntry != null && prevEntry.length == length && prevEntry.lastModified == lastModified) {
+            return;
+        }
+
+        Set<String> references = tryReadReferences(classFile);
+        classFiles.put(classFile, new IndexedClassFile(classesDir, className, length, lastModified, references));
+        dependents = null;
+    }
+
+    private void updateClassesDir(final File classesDir, final Set<File> foundFiles) {
+        final Path classesDirPath = classesDir.toPath();
+        try {
+            Files.walkFileTree(classesDirPath, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && file.getFileName().toString().endsWith(CLASS_FILE_EXT)) {
+                        File classFile = file.toFile();
+                        foundFiles.add(classFile);
+                        updateClassFile(classesDir, getClassName(classesDirPath, file), classFile, attrs);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to list the classes in " + classesDir, ex);
+        }
+    }
+
+    /**
+     * Updates the index to contain exactly the class files found in the given
+     * directories. Class files not changed since the previous update are not
+     * read again.
+     */
+    public void update(Collection<File> classesDirs) {
+        ExceptionHelper.checkNotNullElements(classesDirs, "classesDirs");
+
+        mainLock.lock();
+        try {
+            Set<File> foundFiles = new HashSet<>();
+            for (File classesDir: classesDirs) {
+                if (classesDir.isDirectory()) {
+                    updateClassesDir(classesDir, foundFiles);
+                }
+            }
+
+            if (classFiles.keySet().retainAll(foundFiles)) {
+                dependents = null;
+            }
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private Map<String, Set<String>> getDependents() {
+        assert ((ReentrantLock)mainLock).isHeldByCurrentThread();
+
+        if (dependents == null) {
+            Map<String, Set<String>> newDependents = new HashMap<>();
+            for (IndexedClassFile classFile: classFiles.values()) {
+                for (String reference: classFile.references) {
+                    if (reference.equals(classFile.className)) {
+                        continue;
+                    }
+
+                    Set<String> referencingClasses = newDependents.get(reference);
+                    if (referencingClasses == null) {
+                        referencingClasses = new HashSet<>();
+                        newDependents.put(reference, referencingClasses);
+                    }
+                    referencingClasses.add(classFile.className);
+                }
+            }
+            dependents = newDependents;
+        }
+        return dependents;
+    }
+
+    /**
+     * Returns the given classes and every class which depends on any of them
+     * (directly or transitively).
+     */
+    public Set<String> findDependentClasses(Collection<String> classNames) {
+        ExceptionHelper.checkNotNullElements(classNames, "classNames");
+
+        mainLock.lock();
+        try {
+            Map<String, Set<String>> currentDependents = getDependents();
+
+            Set<String> result = new HashSet<>(classNames);
+            List<String> toProcess = new LinkedList<>(classNames);
+            while (!toProcess.isEmpty()) {
+                String className = toProcess.remove(0);
+                Set<String> referencingClasses = currentDependents.get(className);
+                if (referencingClasses == null) {
+                    continue;
+                }
+
+                for (String referencingClass: referencingClasses) {
+                    if (result.add(referencingClass)) {
+                        toProcess.add(referencingClass);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the classes found in the given output directory during the last
+     * {@link #update(Collection) update}.
+     */
+    public Set<String> getClassesInDir(File classesDir) {
+        ExceptionHelper.checkNotNullArgument(classesDir, "classesDir");
+
+        mainLock.lock();
+        try {
+            Set<String> result = new HashSet<>();
+            for (IndexedClassFile classFile: classFiles.values()) {
+                if (classesDir.equals(classFile.classesDir)) {
+                    result.add(classFile.className);
+                }
+            }
+            return result;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    public int getClassFileCount() {
+        mainLock.lock();
+        try {
+            return classFiles.size();
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private static final class IndexedClassFile {
+        public final File classesDir;
+        public final String className;
+        public final long length;
+        public final long lastModified;
+        public final List<String> references;
+
+        public IndexedClassFile(
+                File classesDir,
+                String className,
+                long length,
+                long lastModified,
+                Set<String> references) {
+            this.classesDir = classesDir;
+            this.className = className;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.references = new ArrayList<>(references);
+        }
+    }
+}
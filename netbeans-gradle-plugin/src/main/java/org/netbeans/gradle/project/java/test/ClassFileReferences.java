@@ -0,0 +1,184 @@
+package org.netbeans.gradle.project.java.test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Extracts the names of the classes referenced by a compiled class file. The
+ * names are read from the constant pool of the class file: Both the class
+ * entries and the type descriptors (e.g.: field and method signatures,
+ * annotations) are considered. The result might contain names which are not
+ * real references (e.g.: from string constants) but it only misses classes
+ * whose compile-time constants were inlined by the compiler.
+ * <P>
+ * Nested classes are not distinguished from their top level classes: Every
+ * returned name is the binary name of a top level class.
+ */
+final class ClassFileReferences {
+    private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELD_REF = 9;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    public static Set<String> readReferencedClasses(InputStream input) throws IOException {
+        DataInputStream classInput = new DataInputStream(input);
+        if (classInput.readInt() != CLASS_FILE_MAGIC) {
+            throw new IOException("Not a class file.");
+        }
+
+        classInput.readUnsignedShort(); // minor version
+        classInput.readUnsignedShort(); // major version
+
+        int constantCount = classInput.readUnsignedShort();
+        String[] utf8Entries = new String[constantCount];
+        int[] classNameIndexes = new int[constantCount];
+        int classCount = 0;
+
+        for (int i = 1; i < constantCount; i++) {
+            int tag = classInput.readUnsignedByte();
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    utf8Entries[i] = classInput.readUTF();
+                    break;
+                case CONSTANT_CLASS:
+                    classNameIndexes[classCount] = classInput.readUnsignedShort();
+                    classCount++;
+                    break;
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    skipFully(classInput, 2);
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    skipFully(classInput, 3);
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELD_REF:
+                case CONSTANT_METHOD_REF:
+                case CONSTANT_INTERFACE_METHOD_REF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    skipFully(classInput, 4);
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    skipFully(classInput, 8);
+                    // These entries take two slots in the constant pool.
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unexpected constant pool tag: " + tag);
+            }
+        }
+
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i < classCount; i++) {
+            String internalName = getUtf8(utf8Entries, classNameIndexes[i]);
+            if (internalName.startsWith("[")) {
+                addDescriptorTypes(internalName, result);
+            }
+            else {
+                result.add(toTopLevelClassName(internalName));
+            }
+        }
+
+        for (String entry: utf8Entries) {
+            if (entry != null) {
+                addDescriptorTypes(entry, result);
+            }
+        }
+        return result;
+    }
+
+    private static String getUtf8(String[] utf8Entries, int index) throws IOException {
+        String result = index > 0 && index < utf8Entries.length ? utf8Entries[index] : null;
+        if (result == null) {
+            throw new IOException("Invalid constant pool index: " + index);
+        }
+        return result;
+    }
+
+    private static void skipFully(DataInputStream input, int byteCount) throws IOException {
+        int remaining = byteCount;
+        while (remaining > 0) {
+            int skipped = input.skipBytes(remaining);
+            if (skipped <= 0) {
+                // Forces an EOFException if the end of the stream is reached.
+                input.readByte();
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private static boolean isTypeNameChar(char ch) {
+        return ch != ';' && ch != '<' && ch != '>' && ch != '(' && ch != ')'
+                && ch != '.' && ch != '[' && ch != ':' && !Character.isWhitespace(ch);
+    }
+
+    /**
+     * Adds the class names of every {@code "L<internal name>;"} (or
+     * {@code "L<internal name><"} in generic signatures) found in the given
+     * string.
+     */
+    static void addDescriptorTypes(String descriptor, Set<String> result) {
+        int length = descriptor.length();
+        int index = descriptor.indexOf('L');
+        while (index >= 0) {
+            int nameStart = index + 1;
+            int nameEnd = nameStart;
+            while (nameEnd < length && isTypeNameChar(descriptor.charAt(nameEnd))) {
+                nameEnd++;
+            }
+
+            int nextSearchIndex = nameStart;
+            if (nameEnd > nameStart && nameEnd < length) {
+                char endChar = descriptor.charAt(nameEnd);
+                if (endChar == ';' || endChar == '<') {
+                    result.add(toTopLevelClassName(descriptor.substring(nameStart, nameEnd)));
+                    nextSearchIndex = nameEnd;
+                }
+            }
+
+            index = descriptor.indexOf('L', nextSearchIndex);
+        }
+    }
+
+    /**
+     * Converts an internal class name (e.g.: {@code "mypackage/Outer$Inner"})
+     * to the binary name of its top level class (e.g.:
+     * {@code "mypackage.Outer"}).
+     */
+    static String toTopLevelClassName(String internalName) {
+        int nestedSepIndex = internalName.indexOf('$', internalName.lastIndexOf('/') + 1);
+        String topLevelName = nestedSepIndex >= 0
+                ? internalName.substring(0, nestedSepIndex)
+                : internalName;
+        return topLevelName.replace('/', '.');
+    }
+
+    private ClassFileReferences() {
+        throw new AssertionError();
+    }
+}
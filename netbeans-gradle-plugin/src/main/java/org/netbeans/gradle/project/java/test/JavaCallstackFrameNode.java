@@ -9,7 +9,6 @@ import org.jtrim.cancel.Cancellation;
 import org.jtrim.cancel.CancellationToken;
 import org.jtrim.concurrent.CancelableTask;
 import org.jtrim.utils.ExceptionHelper;
-import org.netbeans.api.project.Project;
 import org.netbeans.gradle.project.NbStrings;
 import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.output.StackTraceConsumer;
@@ -35,10 +34,10 @@ public final class JavaCallstackFrameNode extends CallstackFrameNode {
         return new JumpToSourceAction();
     }
 
-    public static ActionListener tryGetOpenLocationAction(Project project, String location) {
+    public static ActionListener tryGetOpenLocationAction(JavaExtension javaExt, String location) {
         String stackTraceLine = getConsumableStackTrace(location);
 
-        StackTraceConsumer stackTraceConsumer = new StackTraceConsumer(project);
+        StackTraceConsumer stackTraceConsumer = javaExt.getStackTraceConsumer();
         return stackTraceConsumer.tryGetOpenEditorAction(stackTraceLine);
     }
 
@@ -63,7 +62,7 @@ public final class JavaCallstackFrameNode extends CallstackFrameNode {
                 return;
             }
 
-            final ActionListener action = tryGetOpenLocationAction(javaExt.getProject(), frameInfo);
+            final ActionListener action = tryGetOpenLocationAction(javaExt, frameInfo);
             if (action != null) {
                 SwingUtilities.invokeLater(new Runnable() {
                     @Override
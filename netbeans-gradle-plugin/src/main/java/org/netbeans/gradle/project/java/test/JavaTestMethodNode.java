@@ -113,7 +113,7 @@ public final class JavaTestMethodNode extends TestMethodNode {
 
         for (String location: stackTrace) {
             if (location != null && location.contains(qualifiedName)) {
-                return JavaCallstackFrameNode.tryGetOpenLocationAction(javaExt.getProject(), location);
+                return JavaCallstackFrameNode.tryGetOpenLocationAction(javaExt, location);
             }
         }
 
@@ -0,0 +1,180 @@
+package org.netbeans.gradle.project.java.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceGroupName;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.project.java.JavaExtension;
+import org.netbeans.gradle.project.java.model.JavaProjectReference;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+
+/**
+ * Determines the test classes of a project which might be affected by the
+ * source files changed since the affected tests were last executed
+ * successfully. A test class is affected if it (directly or transitively)
+ * depends on a changed class, according to the {@link ClassDependencyIndex}
+ * built from the output directories of the project and the projects it
+ * depends on.
+ * <P>
+ * Before the affected tests were ever executed, the source files newer than
+ * their compiled class files are considered to be changed.
+ */
+public final class TestImpactAnalyzer {
+    private static final Logger LOGGER = Logger.getLogger(TestImpactAnalyzer.class.getName());
+
+    private final JavaExtension javaExt;
+    private final ClassDependencyIndex index;
+    private volatile long lastSuccessfulRunTime;
+
+    public TestImpactAnalyzer(JavaExtension javaExt) {
+        ExceptionHelper.checkNotNullArgument(javaExt, "javaExt");
+
+        this.javaExt = javaExt;
+        this.index = new ClassDependencyIndex();
+        this.lastSuccessfulRunTime = 0;
+    }
+
+    /**
+     * Records that the affected tests were executed successfully. Sources
+     * modified after the given time (as returned by
+     * {@code System.currentTimeMillis()}) are considered to be changed for the
+     * next execution.
+     */
+    public void markTestsExecuted(long startTimeMillis) {
+        lastSuccessfulRunTime = startTimeMillis;
+    }
+
+    private List<JavaSourceSet> getAnalyzedSourceSets(NbJavaModule mainModule) {
+        List<JavaSourceSet> result = new ArrayList<>(mainModule.getSources());
+        for (JavaProjectReference dependency: javaExt.getCurrentModel().getAllDependencies()) {
+            NbJavaModule module = dependency.tryGetModule();
+            if (module != null) {
+                result.addAll(module.getNonTestSourceSets());
+            }
+        }
+        return result;
+    }
+
+    private static Set<File> getClassesDirs(List<JavaSourceSet> sourceSets) {
+        Set<File> result = new LinkedHashSet<>();
+        for (JavaSourceSet sourceSet: sourceSets) {
+            result.add(sourceSet.getOutputDirs().getClassesDir());
+        }
+        return result;
+    }
+
+    private static String removeExtension(String path) {
+        int extSepIndex = path.lastIndexOf('.');
+        int dirSepIndex = path.lastIndexOf('/');
+        return extSepIndex > dirSepIndex ? path.substring(0, extSepIndex) : path;
+    }
+
+    private boolean isChanged(File classesDir, String relPathWithoutExt, long lastModified) {
+        long lastRunTime = lastSuccessfulRunTime;
+        if (lastRunTime > 0) {
+            return lastModified > lastRunTime;
+        }
+
+        File classFile = new File(classesDir, relPathWithoutExt + ".class");
+        return classFile.lastModified() < lastModified;
+    }
+
+    private void addChangedClasses(
+            final File sourceRoot,
+            final File classesDir,
+            final Set<String> result) {
+
+        final Path sourceRootPath = sourceRoot.toPath();
+        try {
+            Files.walkFileTree(sourceRootPath, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (!attrs.isRegularFile()) {
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    String relPath = sourceRootPath.relativize(file).toString().replace(File.separatorChar, '/');
+                    String relPathWithoutExt = removeExtension(relPath);
+                    if (isChanged(classesDir, relPathWithoutExt, attrs.lastModifiedTime().toMillis())) {
+                        result.add(relPathWithoutExt.replace('/', '.'));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to list the sources in " + sourceRoot, ex);
+        }
+    }
+
+    private Set<String> findChangedClasses(JavaSourceSet sourceSet) {
+        File classesDir = sourceSet.getOutputDirs().getClassesDir();
+
+        Set<String> result = new HashSet<>();
+        for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
+            if (sourceGroup.getGroupName() == JavaSourceGroupName.RESOURCES) {
+                continue;
+            }
+
+            for (File sourceRoot: sourceGroup.getSourceRoots()) {
+                if (sourceRoot.isDirectory()) {
+                    addChangedClasses(sourceRoot, classesDir, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the (sorted) binary names of the test classes of the default
+     * test source set affected by the changed sources. This method reads the
+     * file system and therefore should not be called on the event dispatch
+     * thread.
+     */
+    public List<String> findAffectedTestClasses() {
+        NbJavaModule mainModule = javaExt.getCurrentModel().getMainModule();
+        JavaSourceSet testSourceSet = mainModule.getTestSourceSet();
+        List<JavaSourceSet> sourceSets = getAnalyzedSourceSets(mainModule);
+
+        index.update(getClassesDirs(sourceSets));
+
+        Set<String> testClasses = index.getClassesInDir(testSourceSet.getOutputDirs().getClassesDir());
+
+        Set<String> changedClasses = new HashSet<>();
+        for (JavaSourceSet sourceSet: sourceSets) {
+            Set<String> changedInSourceSet = findChangedClasses(sourceSet);
+            changedClasses.addAll(changedInSourceSet);
+
+            if (sourceSet.getName().equals(testSourceSet.getName())) {
+                // Test classes changed but not compiled yet are not in the index.
+                testClasses.addAll(changedInSourceSet);
+            }
+        }
+
+        Set<String> affectedClasses = index.findDependentClasses(changedClasses);
+        affectedClasses.retainAll(testClasses);
+
+        List<String> result = new ArrayList<>(affectedClasses);
+        Collections.sort(result);
+        return result;
+    }
+}
@@ -0,0 +1,131 @@
+package org.netbeans.gradle.project.java.test;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.util.LruCache;
+
+/**
+ * Caches the summaries of the parsed test report files of a project, so that
+ * displaying the same reports again (e.g.: after rerunning only some of the
+ * tests) does not need to parse the unchanged reports again. The summaries are
+ * keyed by the path of the report file and are only returned if the size and
+ * the modification time of the file did not change since it was parsed.
+ * <P>
+ * Only the {@link TestSuiteReport#toSummary() summaries} of the suites are
+ * cached and the suites whose tests printed something are not cached at all,
+ * because their output would have to be kept in memory.
+ */
+public final class TestReportCache {
+    private static final int DEFAULT_MAX_SIZE = 512;
+
+    private final LruCache<String, CachedReport> cache;
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+
+    public TestReportCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public TestReportCache(int maxSize) {
+        this.cache = new LruCache<>(maxSize);
+        this.hitCount = new AtomicLong(0);
+        this.missCount = new AtomicLong(0);
+    }
+
+    /**
+     * Returns the current state of the given report file, which must be
+     * passed to {@link #put(File, ReportFileState, TestSuiteReport) put}
+     * after parsing the file. The state must be retrieved before parsing, so
+     * that a concurrent modification of the file cannot go unnoticed.
+     */
+    static ReportFileState getFileState(File reportFile) {
+        return new ReportFileState(reportFile);
+    }
+
+    private static String getKey(File reportFile) {
+        return reportFile.getAbsolutePath();
+    }
+
+    TestSuiteReport tryGetReport(File reportFile, ReportFileState currentState) {
+        ExceptionHelper.checkNotNullArgument(reportFile, "reportFile");
+        ExceptionHelper.checkNotNullArgument(currentState, "currentState");
+
+        CachedReport cached = cache.get(getKey(reportFile));
+        if (cached == null || !cached.state.equals(currentState)) {
+            missCount.incrementAndGet();
+            return null;
+        }
+
+        hitCount.incrementAndGet();
+        return cached.summary;
+    }
+
+    void put(File reportFile, ReportFileState state, TestSuiteReport report) {
+        ExceptionHelper.checkNotNullArgument(reportFile, "reportFile");
+        ExceptionHelper.checkNotNullArgument(state, "state");
+        ExceptionHelper.checkNotNullArgument(report, "report");
+
+        String key = getKey(reportFile);
+        if (report.hasOutput()) {
+            cache.remove(key);
+            return;
+        }
+
+        cache.put(key, new CachedReport(state, report.toSummary()));
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "TestReportCache{" + cache + '}';
+    }
+
+    static final class ReportFileState {
+        private final long length;
+        private final long lastModified;
+
+        private ReportFileState(File reportFile) {
+            this.length = reportFile.length();
+            this.lastModified = reportFile.lastModified();
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 41 * hash + (int)(length ^ (length >>> 32));
+            hash = 41 * hash + (int)(lastModified ^ (lastModified >>> 32));
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null) return false;
+            if (getClass() != obj.getClass()) return false;
+
+            final ReportFileState other = (ReportFileState)obj;
+            return this.length == other.length && this.lastModified == other.lastModified;
+        }
+    }
+
+    private static final class CachedReport {
+        public final ReportFileState state;
+        public final TestSuiteReport summary;
+
+        public CachedReport(ReportFileState state, TestSuiteReport summary) {
+            this.state = state;
+            this.summary = summary;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package org.netbeans.gradle.project.java.test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.concurrent.CleanupTask;
+import org.jtrim.concurrent.TaskExecutor;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.NbTaskExecutors;
+import org.netbeans.gradle.project.others.test.NbGradleTestSession;
+import org.xml.sax.SAXException;
+
+/**
+ * Parses test report files on a small thread pool and adds the parsed test
+ * suites to a test session when {@link #finish(NbGradleTestSession) finished}.
+ * The test suites are added to the session in the order of the names of
+ * their report files, regardless of the order in which they were submitted
+ * or in which their parsing completes.
+ * <P>
+ * Report files which did not change since they were last parsed are taken
+ * from the given {@link TestReportCache} instead of parsing them again.
+ */
+final class TestReportIngester {
+    private static final Logger LOGGER = Logger.getLogger(TestReportIngester.class.getName());
+
+    private static final TaskExecutor PARSER_EXECUTOR
+            = NbTaskExecutors.newExecutor("Gradle-Test-Report-Parser", getParserThreadCount());
+
+    private static final ThreadLocal<SAXParser> PARSERS = new ThreadLocal<SAXParser>() {
+        @Override
+        protected SAXParser initialValue() {
+            return tryCreateSaxParser();
+        }
+    };
+
+    private static final Comparator<PendingReport> FILE_ORDER = new Comparator<PendingReport>() {
+        @Override
+        public int compare(PendingReport report1, PendingReport report2) {
+            return report1.reportFile.compareTo(report2.reportFile);
+        }
+    };
+
+    private final TestReportCache reportCache;
+
+    private final Lock mainLock;
+    private final Condition allParsedSignal;
+    private final Set<File> submittedFiles;
+    private final List<PendingReport> pendingReports;
+    private int unparsedCount;
+    private boolean finished;
+
+    public TestReportIngester(TestReportCache reportCache) {
+        ExceptionHelper.checkNotNullArgument(reportCache, "reportCache");
+
+        this.reportCache = reportCache;
+
+        this.mainLock = new ReentrantLock();
+        this.allParsedSignal = mainLock.newCondition();
+        this.submittedFiles = new HashSet<>();
+        this.pendingReports = new ArrayList<>();
+        this.unparsedCount = 0;
+        this.finished = false;
+    }
+
+    private static int getParserThreadCount() {
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    private static SAXParser tryCreateSaxParser() {
+        SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+        try {
+            return parserFactory.newSAXParser();
+        } catch (ParserConfigurationException ex) {
+            LOGGER.log(Level.WARNING, "Unexpected parser configuration error.", ex);
+            return null;
+        } catch (SAXException ex) {
+            LOGGER.log(Level.WARNING, "Unexpected SAXException.", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Submits the given report file for parsing. Returns {@code false} if the
+     * file has already been submitted or this ingester has already been
+     * finished or canceled.
+     */
+    public boolean submit(File reportFile) {
+        ExceptionHelper.checkNotNullArgument(reportFile, "reportFile");
+
+        final PendingReport report = new PendingReport(reportFile);
+        mainLock.lock();
+        try {
+            if (finished || !submittedFiles.add(reportFile)) {
+                return false;
+            }
+
+            pendingReports.add(report);
+            unparsedCount++;
+        } finally {
+            mainLock.unlock();
+        }
+
+        PARSER_EXECUTOR.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+            @Override
+            public void execute(CancellationToken cancelToken) {
+                parseReport(report);
+            }
+        }, new CleanupTask() {
+            @Override
+            public void cleanup(boolean canceled, Throwable error) {
+                NbTaskExecutors.defaultCleanup(canceled, error);
+            }
+        });
+        return true;
+    }
+
+    private TestSuiteReport getSuiteReport(File reportFile) throws Exception {
+        TestReportCache.ReportFileState fileState = TestReportCache.getFileState(reportFile);
+        TestSuiteReport result = reportCache.tryGetReport(reportFile, fileState);
+        if (result != null) {
+            return result;
+        }
+
+        SAXParser parser = PARSERS.get();
+        if (parser == null) {
+            return null;
+        }
+
+        result = TestXmlDisplayer.parseTestSuite(reportFile, parser);
+        if (result != null) {
+            reportCache.put(reportFile, fileState, result);
+        }
+        return result;
+    }
+
+    private void parseReport(PendingReport report) {
+        TestSuiteReport suite = null;
+        try {
+            suite = getSuiteReport(report.reportFile);
+        } catch (Exception ex) {
+            LOGGER.log(Level.INFO, "Error while parsing " + report.reportFile, ex);
+        } finally {
+            mainLock.lock();
+            try {
+                report.suite = suite;
+                unparsedCount--;
+                if (unparsedCount <= 0) {
+                    allParsedSignal.signalAll();
+                }
+            } finally {
+                mainLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Waits until every submitted report file has been parsed, adds the
+     * parsed test suites to the given session, then ends the session. Files
+     * submitted after this method was called are ignored.
+     */
+    public void finish(NbGradleTestSession session) {
+        ExceptionHelper.checkNotNullArgument(session, "session");
+
+        List<PendingReport> reports;
+        mainLock.lock();
+        try {
+            finished = true;
+            while (unparsedCount > 0) {
+                allParsedSignal.awaitUninterruptibly();
+            }
+            reports = new ArrayList<>(pendingReports);
+        } finally {
+            mainLock.unlock();
+        }
+
+        Collections.sort(reports, FILE_ORDER);
+        try {
+            for (PendingReport report: reports) {
+                if (report.suite == null) {
+                    continue;
+                }
+
+                try {
+                    report.suite.display(session);
+                } catch (Throwable ex) {
+                    LOGGER.log(Level.SEVERE, "Failed to display test suite of " + report.reportFile, ex);
+                }
+            }
+        } finally {
+            session.endSession();
+        }
+    }
+
+    /**
+     * Discards the submitted report files without displaying them. Files
+     * submitted after this method was called are ignored.
+     */
+    public void cancel() {
+        mainLock.lock();
+        try {
+            finished = true;
+            pendingReports.clear();
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private static final class PendingReport {
+        public final File reportFile;
+
+        // Guarded by TestReportIngester.mainLock
+        public TestSuiteReport suite;
+
+        public PendingReport(File reportFile) {
+            this.reportFile = reportFile;
+            this.suite = null;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.netbeans.gradle.project.java.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.others.test.NbGradleTestSession;
+import org.netbeans.gradle.project.others.test.NbGradleTestSuite;
+import org.netbeans.modules.gsf.testrunner.api.Status;
+import org.netbeans.modules.gsf.testrunner.api.Testcase;
+import org.netbeans.modules.gsf.testrunner.api.Trouble;
+
+/**
+ * Contains the content of a parsed test report file (i.e., a single test
+ * suite). Reports are parsed into this form, so that parsing does not have to
+ * touch the test session and therefore can be done on any thread.
+ * <P>
+ * The {@link #toSummary() summaries} of parsed reports are cached and
+ * displayed again, so reports must not be modified after they have been
+ * parsed.
+ */
+final class TestSuiteReport {
+    private final String suiteName;
+    private final List<TestcaseReport> testcases;
+    private long suiteTime;
+    private String stdOut;
+    private String stdErr;
+
+    public TestSuiteReport(String suiteName) {
+        this(suiteName, new ArrayList<TestcaseReport>());
+    }
+
+    private TestSuiteReport(String suiteName, List<TestcaseReport> testcases) {
+        ExceptionHelper.checkNotNullArgument(suiteName, "suiteName");
+
+        this.suiteName = suiteName;
+        this.testcases = testcases;
+        this.suiteTime = 0;
+        this.stdOut = null;
+        this.stdErr = null;
+    }
+
+    public String getSuiteName() {
+        return suiteName;
+    }
+
+    public TestcaseReport addTestcase(String name) {
+        TestcaseReport result = new TestcaseReport(name);
+        testcases.add(result);
+        return result;
+    }
+
+    public void setSuiteTime(long suiteTime) {
+        this.suiteTime = suiteTime;
+    }
+
+    public void setStdOut(String stdOut) {
+        this.stdOut = stdOut;
+    }
+
+    public void setStdErr(String stdErr) {
+        this.stdErr = stdErr;
+    }
+
+    private static boolean isEmpty(String output) {
+        return output == null || output.trim().isEmpty();
+    }
+
+    /**
+     * Returns {@code true} if the tests of this suite printed anything to the
+     * standard output or to the standard error.
+     */
+    public boolean hasOutput() {
+        return !isEmpty(stdOut) || !isEmpty(stdErr);
+    }
+
+    /**
+     * Returns a compact copy of this report without the output of the tests.
+     * The stack traces are only retained for the failed tests.
+     */
+    public TestSuiteReport toSummary() {
+        TestSuiteReport result = new TestSuiteReport(suiteName, new ArrayList<>(testcases));
+        result.suiteTime = suiteTime;
+        return result;
+    }
+
+    public void display(NbGradleTestSession session) {
+        NbGradleTestSuite testSuite = session.startTestSuite(suiteName);
+        for (TestcaseReport testcase: testcases) {
+            testcase.addTo(testSuite);
+        }
+
+        testSuite.setStdErr(stdErr);
+        testSuite.setStdOut(stdOut);
+        testSuite.endSuite(suiteTime);
+    }
+
+    public static final class TestcaseReport {
+        private final String name;
+        private String className;
+        private long timeMillis;
+        private Status status;
+        private boolean error;
+        private String[] stackTrace;
+
+        private TestcaseReport(String name) {
+            ExceptionHelper.checkNotNullArgument(name, "name");
+
+            this.name = name;
+            this.className = null;
+            this.timeMillis = 0;
+            this.status = null;
+            this.error = false;
+            this.stackTrace = null;
+        }
+
+        public void setClassName(String className) {
+            this.className = className;
+        }
+
+        public void setTimeMillis(long timeMillis) {
+            this.timeMillis = timeMillis;
+        }
+
+        public void setStatus(Status status) {
+            this.status = status;
+        }
+
+        public void setTrouble(boolean error, String[] stackTrace) {
+            this.error = error;
+            this.stackTrace = stackTrace.clone();
+        }
+
+        private void addTo(NbGradleTestSuite testSuite) {
+            Testcase testcase = testSuite.addTestcase(name);
+            if (className != null) {
+                testcase.setClassName(className);
+            }
+            testcase.setTimeMillis(timeMillis);
+            if (status != null) {
+                testcase.setStatus(status);
+            }
+
+            if (stackTrace != null) {
+                Trouble trouble = new Trouble(error);
+                trouble.setStackTrace(stackTrace);
+                testcase.setTrouble(trouble);
+            }
+        }
+    }
+}
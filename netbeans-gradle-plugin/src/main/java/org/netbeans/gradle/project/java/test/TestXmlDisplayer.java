@@ -3,7 +3,6 @@ package org.netbeans.gradle.project.java.test;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
@@ -11,9 +10,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 import javax.swing.event.ChangeListener;
-import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.api.project.Project;
 import org.netbeans.api.project.ProjectInformation;
@@ -23,13 +20,11 @@ import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.others.test.NbGradleTestManager;
 import org.netbeans.gradle.project.others.test.NbGradleTestManagers;
 import org.netbeans.gradle.project.others.test.NbGradleTestSession;
-import org.netbeans.gradle.project.others.test.NbGradleTestSuite;
 import org.netbeans.gradle.project.view.GradleActionProvider;
 import org.netbeans.modules.gsf.testrunner.api.RerunHandler;
 import org.netbeans.modules.gsf.testrunner.api.RerunType;
 import org.netbeans.modules.gsf.testrunner.api.Status;
 import org.netbeans.modules.gsf.testrunner.api.Testcase;
-import org.netbeans.modules.gsf.testrunner.api.Trouble;
 import org.netbeans.spi.project.ActionProvider;
 import org.openide.util.Lookup;
 import org.openide.util.lookup.Lookups;
@@ -131,62 +126,33 @@ public final class TestXmlDisplayer {
         return lines;
     }
 
-    private void displayTestSuite(final File reportFile, SAXParser parser, final NbGradleTestSession testSession) throws Exception {
+    static TestSuiteReport parseTestSuite(File reportFile, SAXParser parser) throws Exception {
         parser.reset();
 
-        TestXmlContentHandler testXmlContentHandler = new TestXmlContentHandler(testSession, reportFile);
+        TestXmlContentHandler testXmlContentHandler = new TestXmlContentHandler(reportFile);
         parser.parse(reportFile, testXmlContentHandler);
 
-        NbGradleTestSuite testSuite = testXmlContentHandler.testSuite;
+        TestSuiteReport testSuite = testXmlContentHandler.testSuite;
         if (testSuite != null) {
             testSuite.setStdErr(testXmlContentHandler.stderr);
             testSuite.setStdOut(testXmlContentHandler.stdout);
-            testSuite.endSuite(testXmlContentHandler.suiteTime);
+            testSuite.setSuiteTime(testXmlContentHandler.suiteTime);
         }
+        return testSuite;
     }
 
-    private SAXParser tryGetSaxParser() {
-        SAXParserFactory parserFactory = SAXParserFactory.newInstance();
-        try {
-            return parserFactory.newSAXParser();
-        } catch (ParserConfigurationException ex) {
-            LOGGER.log(Level.WARNING, "Unexpected parser configuration error.", ex);
-            return null;
-        } catch (SAXException ex) {
-            LOGGER.log(Level.WARNING, "Unexpected SAXException.", ex);
-            return null;
-        }
-    }
-
-    private boolean displayTestSession(NbGradleTestSession testSession, File[] reportFiles) {
-        SAXParser parser = tryGetSaxParser();
-        if (parser == null) {
-            return false;
-        }
-
+    private void displayReport(Lookup runContext, File[] reportFiles) {
+        TestReportIngester ingester = new TestReportIngester(javaExt.getTestReportCache());
         for (File reportFile: reportFiles) {
-            try {
-                displayTestSuite(reportFile, parser, testSession);
-            } catch (Exception ex) {
-                LOGGER.log(Level.INFO, "Error while parsing " + reportFile, ex);
-            }
+            ingester.submit(reportFile);
         }
 
-        return true;
-    }
-
-    private boolean displayReport(Lookup runContext, File[] reportFiles) {
         NbGradleTestSession testSession = testManager.startSession(
                 getProjectName(),
                 project,
                 new JavaTestRunnerNodeFactory(javaExt, new TestTaskName(testName)),
                 new JavaRerunHandler(runContext));
-
-        try {
-            return displayTestSession(testSession, reportFiles);
-        } finally {
-            testSession.endSession();
-        }
+        ingester.finish(testSession);
     }
 
     public boolean displayReport(Lookup runContext) {
@@ -200,7 +166,8 @@ public final class TestXmlDisplayer {
             return false;
         }
 
-        return displayReport(runContext, reportFiles);
+        displayReport(runContext, reportFiles);
+        return true;
     }
 
     public class JavaRerunHandler implements RerunHandler {
@@ -256,26 +223,22 @@ public final class TestXmlDisplayer {
     }
 
     private static final class TestXmlContentHandler extends DefaultHandler {
-        private final NbGradleTestSession session;
         private final File reportFile;
 
         private int level;
-        private NbGradleTestSuite testSuite;
-        private final List<Testcase> allTestcases;
+        private TestSuiteReport testSuite;
 
         private String stdout;
         private String stderr;
         private long suiteTime;
         private boolean error;
-        private Testcase testcase;
+        private TestSuiteReport.TestcaseReport testcase;
         private StringBuilder failureContent;
         private boolean outputBuilderIsStdOut;
         private StringBuilder outputBuilder;
 
-        public TestXmlContentHandler(NbGradleTestSession session, File reportFile) {
-            this.session = session;
+        public TestXmlContentHandler(File reportFile) {
             this.reportFile = reportFile;
-            this.allTestcases = new LinkedList<>();
 
             this.level = 0;
             this.testSuite = null;
@@ -291,18 +254,18 @@ public final class TestXmlDisplayer {
             suiteTime = tryReadTimeMillis(attributes.getValue("", "time"), 0);
 
             String suiteName = name != null ? name : reportFile.getName();
-            testSuite = session.startTestSuite(suiteName);
+            testSuite = new TestSuiteReport(suiteName);
         }
 
-        private Testcase tryGetTestCase(Attributes attributes, Status status) {
-            Testcase result = tryGetTestCase(attributes);
+        private TestSuiteReport.TestcaseReport tryGetTestCase(Attributes attributes, Status status) {
+            TestSuiteReport.TestcaseReport result = tryGetTestCase(attributes);
             if (result != null) {
                 result.setStatus(status);
             }
             return result;
         }
 
-        private Testcase tryGetTestCase(Attributes attributes) {
+        private TestSuiteReport.TestcaseReport tryGetTestCase(Attributes attributes) {
             if (testSuite == null) {
                 LOGGER.warning("test suite has not been started but there is a test case to add.");
                 return null;
@@ -313,7 +276,7 @@ public final class TestXmlDisplayer {
                 return null;
             }
 
-            Testcase result = testSuite.addTestcase(name);
+            TestSuiteReport.TestcaseReport result = testSuite.addTestcase(name);
 
             String className = attributes.getValue("", "classname");
             if (className != null) {
@@ -336,13 +299,7 @@ public final class TestXmlDisplayer {
                     break;
             }
 
-            if (testcase != null) {
-                allTestcases.add(testcase);
-                return true;
-            }
-            else {
-                return false;
-            }
+            return testcase != null;
         }
 
         private void tryUpdateTestCase(String uri, String localName, String qName, Attributes attributes) {
@@ -421,9 +378,7 @@ public final class TestXmlDisplayer {
                     break;
                 case 2:
                     if (failureContent != null && testcase != null) {
-                        Trouble trouble = new Trouble(error);
-                        trouble.setStackTrace(extractStackTrace(failureContent.toString()));
-                        testcase.setTrouble(trouble);
+                        testcase.setTrouble(error, extractStackTrace(failureContent.toString()));
                     }
                     failureContent = null;
                     break;
@@ -19,7 +19,6 @@ import org.gradle.tooling.GradleConnectionException;
 import org.gradle.tooling.GradleConnector;
 import org.gradle.tooling.LongRunningOperation;
 import org.gradle.tooling.ModelBuilder;
-import org.gradle.tooling.ProgressEvent;
 import org.gradle.tooling.ProgressListener;
 import org.gradle.tooling.ProjectConnection;
 import org.gradle.tooling.internal.consumer.DefaultGradleConnector;
@@ -51,10 +50,13 @@ import org.netbeans.gradle.project.model.issue.ModelLoadIssues;
 import org.netbeans.gradle.project.properties.GlobalGradleSettings;
 import org.netbeans.gradle.project.properties.GradleLocation;
 import org.netbeans.gradle.project.properties.ProjectProperties;
+import org.netbeans.gradle.project.properties.SettingsFiles;
+import org.netbeans.gradle.project.tasks.DaemonPrewarmTask;
 import org.netbeans.gradle.project.tasks.DaemonTask;
 import org.netbeans.gradle.project.tasks.GradleDaemonFailures;
 import org.netbeans.gradle.project.tasks.GradleDaemonManager;
 import org.netbeans.gradle.project.tasks.GradleTasks;
+import org.netbeans.gradle.project.tasks.ProgressCoalescer;
 import org.netbeans.gradle.project.view.GlobalErrorReporter;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
@@ -266,7 +268,7 @@ public final class GradleModelLoader {
 
         final File projectDir = project.getProjectDirectoryAsFile();
         String caption = NbStrings.getLoadingProjectText(project.getDisplayName());
-        GradleDaemonManager.submitGradleTask(PROJECT_LOADER, caption, new DaemonTask() {
+        GradleDaemonManager.submitGradleTask(PROJECT_LOADER, project, caption, new DaemonTask() {
             @Override
             public void run(CancellationToken cancelToken, ProgressHandle progress) {
                 NbGradleModel model = tryGetFromCache(projectDir);
@@ -358,7 +360,7 @@ public final class GradleModelLoader {
         ExceptionHelper.checkNotNullArgument(listener, "listener");
 
         String caption = NbStrings.getLoadingProjectText(project.getDisplayName());
-        GradleDaemonManager.submitGradleTask(PROJECT_LOADER, caption, new DaemonTask() {
+        GradleDaemonManager.submitGradleTask(PROJECT_LOADER, project, caption, new DaemonTask() {
             @Override
             public void run(CancellationToken cancelToken, ProgressHandle progress) {
                 NbGradleModel model = null;
@@ -487,20 +489,20 @@ public final class GradleModelLoader {
         try {
             projectConnection = gradleConnector.connect();
 
-            ModelBuilderSetup setup = modelBuilderSetup(project, progress);
+            try (ModelBuilderSetup setup = modelBuilderSetup(project, progress)) {
+                ModelBuilder<BuildEnvironment> modelBuilder = projectConnection.model(BuildEnvironment.class);
+                setupLongRunningOP(setup, modelBuilder);
 
-            ModelBuilder<BuildEnvironment> modelBuilder = projectConnection.model(BuildEnvironment.class);
-            setupLongRunningOP(setup, modelBuilder);
+                BuildEnvironment env = modelBuilder.get();
+                reportKnownIssues(env);
 
-            BuildEnvironment env = modelBuilder.get();
-            reportKnownIssues(env);
+                GradleTarget gradleTarget = new GradleTarget(
+                        setup.getJDKVersion(),
+                        GradleVersion.version(env.getGradle().getGradleVersion()));
+                NbModelLoader modelLoader = chooseModel(gradleTarget, cachedEntry, setup);
 
-            GradleTarget gradleTarget = new GradleTarget(
-                    setup.getJDKVersion(),
-                    GradleVersion.version(env.getGradle().getGradleVersion()));
-            NbModelLoader modelLoader = chooseModel(gradleTarget, cachedEntry, setup);
-
-            loadedModels = modelLoader.loadModels(project, projectConnection, progress);
+                loadedModels = modelLoader.loadModels(project, projectConnection, progress);
+            }
         } finally {
             if (projectConnection != null) {
                 projectConnection.close();
@@ -512,6 +514,7 @@ public final class GradleModelLoader {
         NbGradleModel result = cachedEntry != null
                 ? cachedEntry.updateEntry(loadedModels.getMainModel())
                 : loadedModels.getMainModel();
+        DaemonPrewarmTask.markDaemonUsed(SettingsFiles.getRootDirectory(result));
 
         introduceProjects(loadedModels.getOtherModels(), result);
 
@@ -555,10 +558,10 @@ public final class GradleModelLoader {
         return new NbGradleModel(NbGradleMultiProjectDef.createEmpty(projectDir));
     }
 
-    public static class ModelBuilderSetup implements OperationInitializer {
+    public static class ModelBuilderSetup implements OperationInitializer, Closeable {
         private static final SpecificationVersion DEFAULT_JDK_VERSION = new SpecificationVersion("1.5");
 
-        private final ProgressHandle progress;
+        private final ProgressCoalescer progress;
 
         private final JavaPlatform jdkPlatform;
         private final File jdkHome;
@@ -577,7 +580,7 @@ public final class GradleModelLoader {
                 List<String> arguments,
                 List<String> jvmArgs,
                 ProgressHandle progress) {
-            this.progress = progress;
+            this.progress = progress != null ? new ProgressCoalescer(progress) : null;
 
             JavaPlatform selectedPlatform = GradleModelLoader.tryGetScriptJavaPlatform(project);
             this.jdkHome = GradleModelLoader.getScriptJavaHome(selectedPlatform);
@@ -622,14 +625,19 @@ public final class GradleModelLoader {
             }
 
             if (progress != null) {
-                args.setProgressListeners(new ProgressListener[]{
-                    new ProgressListener() {
-                        @Override
-                        public void statusChanged(ProgressEvent pe) {
-                            progress.progress(pe.getDescription());
-                        }
-                    }
-                });
+                args.setProgressListeners(new ProgressListener[]{progress});
+            }
+        }
+
+        /**
+         * Stops forwarding the progress of the operations to the progress
+         * handle. This method must be called before the progress handle is
+         * finished.
+         */
+        @Override
+        public void close() {
+            if (progress != null) {
+                progress.close();
             }
         }
     }
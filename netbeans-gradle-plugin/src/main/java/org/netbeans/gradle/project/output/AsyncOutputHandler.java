@@ -0,0 +1,417 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.concurrent.TaskExecutor;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.NbTaskExecutors;
+
+/**
+ * Processes the lines of the output of a build on a separate thread, so that
+ * slow output processing (e.g., looking for links) does not slow down the
+ * thread reading the output of Gradle.
+ * <P>
+ * Lines are processed in the order they were written. There is only a single
+ * producer (the thread writing the output) and a single consumer at any
+ * given time.
+ */
+public final class AsyncOutputHandler implements LineOutputWriter.Handler, Closeable {
+    private static final Logger LOGGER = Logger.getLogger(AsyncOutputHandler.class.getName());
+
+    private static final TaskExecutor OUTPUT_PROCESSOR
+            = NbTaskExecutors.newExecutor("Gradle-Output-Processor", getProcessorThreadCount());
+
+    public static final int DEFAULT_CAPACITY = 4096;
+    private static final int MAX_BATCH_SIZE = 256;
+    // The number of batches processed before the drain task gives the
+    // threads of the executor to the output of other builds.
+    private static final int MAX_BATCHES_PER_DRAIN = 16;
+
+    public enum OverflowPolicy {
+        /**
+         * Lines written while the queue is full are not searched for links.
+         * The writer is only blocked if the queue contains twice as many lines
+         * as its capacity.
+         */
+        DROP_DECORATION,
+        /**
+         * The queue is allowed to grow beyond its capacity, so the writer is
+         * never blocked.
+         */
+        SPILL
+    }
+
+    private final SmartOutputHandler processor;
+    private final TaskExecutor executor;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+
+    private final Lock queueLock;
+    private final Condition queueChangedSignal;
+    private final Deque<QueuedLine> queue;
+    private boolean flushRequested;
+    private boolean drainScheduled;
+    private boolean closed;
+
+    private final OutputStatistics statistics;
+
+    public AsyncOutputHandler(SmartOutputHandler processor) {
+        this(processor, OUTPUT_PROCESSOR, DEFAULT_CAPACITY, OverflowPolicy.DROP_DECORATION);
+    }
+
+    public AsyncOutputHandler(
+            SmartOutputHandler processor,
+            TaskExecutor executor,
+            int capacity,
+            OverflowPolicy overflowPolicy) {
+        ExceptionHelper.checkNotNullArgument(processor, "processor");
+        ExceptionHelper.checkNotNullArgument(executor, "executor");
+        ExceptionHelper.checkArgumentInRange(capacity, 1, Integer.MAX_VALUE / 2, "capacity");
+        ExceptionHelper.checkNotNullArgument(overflowPolicy, "overflowPolicy");
+
+        this.processor = processor;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+
+        this.queueLock = new ReentrantLock();
+        this.queueChangedSignal = queueLock.newCondition();
+        this.queue = new ArrayDeque<>();
+        this.flushRequested = false;
+        this.drainScheduled = false;
+        this.closed = false;
+
+        this.statistics = new OutputStatistics();
+    }
+
+    private static int getProcessorThreadCount() {
+        return Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    private boolean mustWaitForSpaceUnlocked() {
+        return overflowPolicy == OverflowPolicy.DROP_DECORATION
+                && queue.size() >= 2 * capacity;
+    }
+
+    private void awaitUninterruptibly(Condition condition) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                condition.await();
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean scheduleDrainUnlocked() {
+        if (drainScheduled) {
+            return false;
+        }
+        drainScheduled = true;
+        return true;
+    }
+
+    @Override
+    public void writeLine(String line) throws IOException {
+        boolean scheduleDrain;
+        queueLock.lock();
+        try {
+            if (closed) {
+                throw new IOException("The output has already been closed.");
+            }
+
+            while (mustWaitForSpaceUnlocked()) {
+                awaitUninterruptibly(queueChangedSignal);
+            }
+
+            boolean decorate = overflowPolicy != OverflowPolicy.DROP_DECORATION
+                    || queue.size() < capacity;
+            queue.add(new QueuedLine(line, decorate));
+            statistics.lineQueued(queue.size(), decorate);
+
+            scheduleDrain = scheduleDrainUnlocked();
+        } finally {
+            queueLock.unlock();
+        }
+
+        if (scheduleDrain) {
+            startDrain();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        boolean scheduleDrain;
+        queueLock.lock();
+        try {
+            flushRequested = true;
+            scheduleDrain = scheduleDrainUnlocked();
+        } finally {
+            queueLock.unlock();
+        }
+
+        if (scheduleDrain) {
+            startDrain();
+        }
+    }
+
+    /**
+     * Waits until all the lines written so far have been processed and
+     * prevents further lines to be written.
+     */
+    @Override
+    public void close() throws IOException {
+        boolean scheduleDrain;
+        queueLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushRequested = true;
+            scheduleDrain = scheduleDrainUnlocked();
+        } finally {
+            queueLock.unlock();
+        }
+
+        if (scheduleDrain) {
+            startDrain();
+        }
+
+        queueLock.lock();
+        try {
+            while (drainScheduled) {
+                awaitUninterruptibly(queueChangedSignal);
+            }
+        } finally {
+            queueLock.unlock();
+        }
+
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Output processing statistics: {0}", statistics);
+        }
+    }
+
+    public OutputStatistics getStatistics() {
+        return statistics;
+    }
+
+    private void startDrain() {
+        executor.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+            @Override
+            public void execute(CancellationToken cancelToken) {
+                drainQueue();
+            }
+        }, null);
+    }
+
+    private void drainQueue() {
+        List<QueuedLine> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        try {
+            for (int batchIndex = 0; ; batchIndex++) {
+                boolean flush;
+
+                queueLock.lock();
+                try {
+                    if (batchIndex >= MAX_BATCHES_PER_DRAIN) {
+                        // Keep drainScheduled set and continue in a new task,
+                        // so that a chatty build does not occupy a thread of
+                        // the bounded executor indefinitely.
+                        break;
+                    }
+
+                    while (batch.size() < MAX_BATCH_SIZE && !queue.isEmpty()) {
+                        batch.add(queue.poll());
+                    }
+
+                    flush = flushRequested;
+                    flushRequested = false;
+
+                    if (batch.isEmpty() && !flush) {
+                        drainScheduled = false;
+                        queueChangedSignal.signalAll();
+                        return;
+                    }
+
+                    queueChangedSignal.signalAll();
+                } finally {
+                    queueLock.unlock();
+                }
+
+                processBatch(batch, flush);
+                batch.clear();
+            }
+
+            startDrain();
+        } catch (Throwable ex) {
+            queueLock.lock();
+            try {
+                drainScheduled = false;
+                queueChangedSignal.signalAll();
+            } finally {
+                queueLock.unlock();
+            }
+            throw ex;
+        }
+    }
+
+    private void processBatch(List<QueuedLine> batch, boolean flush) {
+        for (QueuedLine line: batch) {
+            try {
+                processor.writeLine(line.line, line.decorate);
+            } catch (Throwable ex) {
+                // SmartOutputHandler logs the actual failures.
+                LOGGER.log(Level.FINE, "Failed to process a line of the output.", ex);
+            }
+            statistics.lineProcessed(line.queueTime);
+        }
+
+        if (flush) {
+            try {
+                processor.flush();
+            } catch (Throwable ex) {
+                LOGGER.log(Level.INFO, "Failed to flush the output.", ex);
+            }
+        }
+    }
+
+    private static final class QueuedLine {
+        public final String line;
+        public final boolean decorate;
+        public final long queueTime;
+
+        public QueuedLine(String line, boolean decorate) {
+            this.line = line;
+            this.decorate = decorate;
+            this.queueTime = System.nanoTime();
+        }
+    }
+
+    public static final class OutputStatistics {
+        private final Lock statLock;
+        private long queuedLineCount;
+        private long undecoratedLineCount;
+        private int maxQueueDepth;
+        private long processedLineCount;
+        private long totalLagNanos;
+        private long maxLagNanos;
+
+        private OutputStatistics() {
+            this.statLock = new ReentrantLock();
+        }
+
+        private void lineQueued(int queueDepth, boolean decorated) {
+            statLock.lock();
+            try {
+                queuedLineCount++;
+                if (!decorated) {
+                    undecoratedLineCount++;
+                }
+                if (queueDepth > maxQueueDepth) {
+                    maxQueueDepth = queueDepth;
+                }
+            } finally {
+                statLock.unlock();
+            }
+        }
+
+        private void lineProcessed(long queueTime) {
+            long lagNanos = System.nanoTime() - queueTime;
+
+            statLock.lock();
+            try {
+                processedLineCount++;
+                totalLagNanos += lagNanos;
+                if (lagNanos > maxLagNanos) {
+                    maxLagNanos = lagNanos;
+                }
+            } finally {
+                statLock.unlock();
+            }
+        }
+
+        public int getQueueDepth() {
+            statLock.lock();
+            try {
+                return (int)(queuedLineCount - processedLineCount);
+            } finally {
+                statLock.unlock();
+            }
+        }
+
+        public int getMaxQueueDepth() {
+            statLock.lock();
+            try {
+                return maxQueueDepth;
+            } finally {
+                statLock.unlock();
+            }
+        }
+
+        public long getUndecoratedLineCount() {
+            statLock.lock();
+            try {
+                return undecoratedLineCount;
+            } finally {
+                statLock.unlock();
+            }
+        }
+
+        public long getProcessedLineCount() {
+            statLock.lock();
+            try {
+                return processedLineCount;
+            } finally {
+                statLock.unlock();
+            }
+        }
+
+        public long getAverageLag(TimeUnit unit) {
+            statLock.lock();
+            try {
+                return processedLineCount > 0
+                        ? unit.convert(totalLagNanos / processedLineCount, TimeUnit.NANOSECONDS)
+                        : 0;
+            } finally {
+                statLock.unlock();
+            }
+        }
+
+        public long getMaxLag(TimeUnit unit) {
+            statLock.lock();
+            try {
+                return unit.convert(maxLagNanos, TimeUnit.NANOSECONDS);
+            } finally {
+                statLock.unlock();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "OutputStatistics{" + "processedLines=" + getProcessedLineCount()
+                    + ", undecoratedLines=" + getUndecoratedLineCount()
+                    + ", maxQueueDepth=" + getMaxQueueDepth()
+                    + ", averageLagMs=" + getAverageLag(TimeUnit.MILLISECONDS)
+                    + ", maxLagMs=" + getMaxLag(TimeUnit.MILLISECONDS) + '}';
+        }
+    }
+}
@@ -25,4 +25,9 @@ public final class BuildErrorConsumer implements SmartOutputHandler.Consumer {
         }
         return false;
     }
+
+    @Override
+    public boolean isDecoration() {
+        return false;
+    }
 }
@@ -3,21 +3,30 @@ package org.netbeans.gradle.project.output;
 import java.io.File;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.util.StringUtils;
 
 public final class FileLineConsumer implements OutputLinkFinder {
     private static final Logger LOGGER = Logger.getLogger(FileLineConsumer.class.getName());
 
-    private static OutputLinkDef tryFindLink(String line, File file, String otherInfo) {
-        int lineIndexSep = otherInfo.indexOf(':');
+    private final OutputFileCache fileCache;
+
+    public FileLineConsumer(OutputFileCache fileCache) {
+        ExceptionHelper.checkNotNullArgument(fileCache, "fileCache");
+        this.fileCache = fileCache;
+    }
+
+    private OutputLinkDef tryFindLink(String line, int startIndex, int endIndex, File file, int otherInfoIndex) {
+        int lineIndexSep = StringUtils.indexOf(line, ':', otherInfoIndex, endIndex);
         int lineNumber = -1;
-        if (lineIndexSep > 0) {
+        if (lineIndexSep > otherInfoIndex) {
             try {
-                lineNumber = Integer.parseInt(otherInfo.substring(0, lineIndexSep).trim()) - 1;
+                lineNumber = Integer.parseInt(line.substring(otherInfoIndex, lineIndexSep).trim()) - 1;
             } catch (NumberFormatException ex) {
             }
         }
 
-        Runnable listener = OpenEditorOutputListener.tryCreateListener(file, lineNumber);
+        Runnable listener = fileCache.tryCreateListener(file, lineNumber);
         if (listener == null) {
             LOGGER.log(Level.WARNING, "File displayed in the output disappeared: {0}", file);
             return null;
@@ -25,13 +34,13 @@ public final class FileLineConsumer implements OutputLinkFinder {
 
         // TODO: Altough we expect the whole line to point to a line of a file
         //       we should be more precise.
-        return new OutputLinkDef(0, line.length(), listener);
+        return new OutputLinkDef(startIndex, endIndex, listener);
     }
 
-    private OutputLinkDef tryFindLink(String line, int sepIndex) {
-        File file = new File(line.substring(0, sepIndex).trim());
-        if (file.isFile()) {
-            return tryFindLink(line, file, line.substring(sepIndex + 1, line.length()));
+    private OutputLinkDef tryFindLink(String line, int startIndex, int endIndex, int sepIndex) {
+        File file = new File(line.substring(startIndex, sepIndex).trim());
+        if (fileCache.isFile(file)) {
+            return tryFindLink(line, startIndex, endIndex, file, sepIndex + 1);
         }
         else {
             return null;
@@ -39,23 +48,28 @@ public final class FileLineConsumer implements OutputLinkFinder {
     }
 
     @Override
-    public OutputLinkDef tryFindLink(String line) {
-        int sepIndex = line.indexOf(':');
+    public boolean mightContainLink(String line, int startIndex, int endIndex) {
+        return StringUtils.indexOf(line, ':', startIndex, endIndex) >= 0;
+    }
+
+    @Override
+    public OutputLinkDef tryFindLink(String line, int startIndex, int endIndex) {
+        int sepIndex = StringUtils.indexOf(line, ':', startIndex, endIndex);
         if (sepIndex < 0) {
             return null;
         }
 
-        OutputLinkDef result = tryFindLink(line, sepIndex);
+        OutputLinkDef result = tryFindLink(line, startIndex, endIndex, sepIndex);
         if (result == null) {
             // Look for another ":" because paths on Windows might contain one
             // in the path. E.g.: "C:\\file"
-            sepIndex = line.indexOf(':', sepIndex + 1);
+            sepIndex = StringUtils.indexOf(line, ':', sepIndex + 1, endIndex);
             if (sepIndex < 0) {
                 return null;
             }
 
-            return tryFindLink(line, sepIndex);
+            return tryFindLink(line, startIndex, endIndex, sepIndex);
         }
-        return null;
+        return result;
     }
 }
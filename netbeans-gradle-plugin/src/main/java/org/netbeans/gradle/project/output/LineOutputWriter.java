@@ -2,6 +2,8 @@ package org.netbeans.gradle.project.output;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -17,7 +19,7 @@ public final class LineOutputWriter extends Writer {
     private final Lock mainLock;
     private final StringBuilder lineBuffer;
     private final AtomicBoolean closed;
-    private char lastChar;
+    private boolean skipNextLineFeed;
 
     public LineOutputWriter(Handler handler) {
         ExceptionHelper.checkNotNullArgument(handler, "handler");
@@ -25,52 +27,84 @@ public final class LineOutputWriter extends Writer {
         this.handler = handler;
         this.lineBuffer = new StringBuilder(256);
         this.mainLock = new ReentrantLock();
-        this.lastChar = '\0';
+        this.skipNextLineFeed = false;
         this.closed = new AtomicBoolean(false);
     }
 
-    @Override
-    public void write(char[] cbuf, int off, int len) throws IOException {
-        ExceptionHelper.checkNotNullArgument(cbuf, "cbuf");
-        ExceptionHelper.checkArgumentInRange(off, 0, cbuf.length, "off");
-        ExceptionHelper.checkArgumentInRange(len, 0, cbuf.length - off, "len");
+    private String completeLine(char[] cbuf, int lineStart, int lineEnd) {
+        if (lineBuffer.length() == 0) {
+            return new String(cbuf, lineStart, lineEnd - lineStart);
+        }
 
-        int currentOffset = off;
-        int currentLength = len;
+        lineBuffer.append(cbuf, lineStart, lineEnd - lineStart);
+        String result = lineBuffer.toString();
+        lineBuffer.setLength(0);
+        return result;
+    }
 
-        while (currentLength > 0) {
-            String line = null;
+    private List<String> splitLines(char[] cbuf, int off, int len) {
+        List<String> lines = null;
+        int endOffset = off + len;
 
-            mainLock.lock();
-            try {
-                while (currentLength > 0) {
-                    char currentChar = cbuf[currentOffset];
-                    char prevChar = lastChar;
-                    lastChar = currentChar;
+        mainLock.lock();
+        try {
+            int index = off;
+            if (skipNextLineFeed && index < endOffset) {
+                // The previous chunk ended with '\r', which might have been
+                // the first character of a "\r\n" line separator.
+                skipNextLineFeed = false;
+                if (cbuf[index] == '\n') {
+                    index++;
+                }
+            }
 
-                    currentOffset++;
-                    currentLength--;
+            int lineStart = index;
+            for (; index < endOffset; index++) {
+                char ch = cbuf[index];
+                if (ch != '\n' && ch != '\r') {
+                    continue;
+                }
 
-                    if (prevChar == '\r' && currentChar == '\n') {
-                        continue;
-                    }
+                if (lines == null) {
+                    lines = new ArrayList<>();
+                }
+                lines.add(completeLine(cbuf, lineStart, index));
 
-                    if (currentChar == '\n' || currentChar == '\r') {
-                        line = lineBuffer.toString();
-                        lineBuffer.setLength(0);
-                        break;
+                if (ch == '\r') {
+                    int nextIndex = index + 1;
+                    if (nextIndex >= endOffset) {
+                        skipNextLineFeed = true;
                     }
-                    else {
-                        lineBuffer.append(currentChar);
+                    else if (cbuf[nextIndex] == '\n') {
+                        index = nextIndex;
                     }
                 }
-            } finally {
-                mainLock.unlock();
+                lineStart = index + 1;
             }
 
-            if (line != null) {
-                handler.writeLine(line);
+            if (lineStart < endOffset) {
+                lineBuffer.append(cbuf, lineStart, endOffset - lineStart);
             }
+        } finally {
+            mainLock.unlock();
+        }
+
+        return lines;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        ExceptionHelper.checkNotNullArgument(cbuf, "cbuf");
+        ExceptionHelper.checkArgumentInRange(off, 0, cbuf.length, "off");
+        ExceptionHelper.checkArgumentInRange(len, 0, cbuf.length - off, "len");
+
+        List<String> lines = splitLines(cbuf, off, len);
+        if (lines == null) {
+            return;
+        }
+
+        for (String line: lines) {
+            handler.writeLine(line);
         }
     }
 
@@ -27,6 +27,17 @@ public final class OpenEditorOutputListener implements OutputListener, ActionLis
         this.lineNumber = lineNumber;
     }
 
+    /**
+     * Returns a listener opening the same file as this listener but at the
+     * given line.
+     */
+    public OpenEditorOutputListener withLineNumber(int newLineNumber) {
+        if (newLineNumber == lineNumber) {
+            return this;
+        }
+        return new OpenEditorOutputListener(editor, newLineNumber);
+    }
+
     public static OpenEditorOutputListener tryCreateListener(File file, int lineNumber) {
         ExceptionHelper.checkNotNullArgument(file, "file");
 
@@ -0,0 +1,120 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.util.LruCache;
+
+/**
+ * Caches the existence of files referenced by the output of a build, so that
+ * the link finders do not have to check the file system for every line.
+ * <P>
+ * The cached states expire after a short time. File changes are not listened
+ * for, because a recursive listener on the directory of the build would have
+ * to watch every directory of the build (possibly exhausting the limit of
+ * file watches of the OS) while the output of a build usually refers to the
+ * same files within a few seconds. Instances of this class are meant to be
+ * shared by the link finders of a single build output and should be closed
+ * after the output has been processed (which only logs the statistics of the
+ * cache).
+ */
+public final class OutputFileCache implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(OutputFileCache.class.getName());
+
+    private static final int MAX_CACHE_SIZE = 4096;
+    private static final long DEFAULT_TIME_TO_LIVE_MS = 2000;
+
+    private final long timeToLiveNanos;
+    private final LruCache<String, CachedFileState> cache;
+
+    public OutputFileCache() {
+        this(DEFAULT_TIME_TO_LIVE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public OutputFileCache(long timeToLive, TimeUnit unit) {
+        ExceptionHelper.checkArgumentInRange(timeToLive, 0, Long.MAX_VALUE, "timeToLive");
+        ExceptionHelper.checkNotNullArgument(unit, "unit");
+
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+        this.cache = new LruCache<>(MAX_CACHE_SIZE);
+    }
+
+    private static String getKey(File file) {
+        return file.getPath();
+    }
+
+    private CachedFileState getFileState(File file) {
+        String key = getKey(file);
+
+        CachedFileState state = cache.get(key);
+        long now = System.nanoTime();
+        if (state != null && now - state.checkTime < timeToLiveNanos) {
+            return state;
+        }
+
+        state = new CachedFileState(file.isFile(), now, null);
+        cache.put(key, state);
+        return state;
+    }
+
+    /**
+     * Returns the same value as {@link File#isFile()} but the result might
+     * have been cached recently.
+     */
+    public boolean isFile(File file) {
+        ExceptionHelper.checkNotNullArgument(file, "file");
+
+        return getFileState(file).isFile;
+    }
+
+    /**
+     * Returns a listener opening the given file at the specified line or
+     * {@code null} if the file cannot be opened. The editor of a file is only
+     * looked up once while its cached state is valid.
+     */
+    public OpenEditorOutputListener tryCreateListener(File file, int lineNumber) {
+        ExceptionHelper.checkNotNullArgument(file, "file");
+
+        CachedFileState state = getFileState(file);
+        if (!state.isFile) {
+            return null;
+        }
+
+        if (state.listener != null) {
+            return state.listener.withLineNumber(lineNumber);
+        }
+
+        OpenEditorOutputListener listener = OpenEditorOutputListener.tryCreateListener(file, lineNumber);
+        if (listener != null) {
+            cache.put(getKey(file), new CachedFileState(true, state.checkTime, listener));
+        }
+        return listener;
+    }
+
+    public double getHitRate() {
+        return cache.getHitRate();
+    }
+
+    @Override
+    public void close() {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "File cache of the output: hit rate = {0}, {1}",
+                    new Object[]{cache.getHitRate(), cache});
+        }
+    }
+
+    private static final class CachedFileState {
+        public final boolean isFile;
+        public final long checkTime;
+        public final OpenEditorOutputListener listener;
+
+        public CachedFileState(boolean isFile, long checkTime, OpenEditorOutputListener listener) {
+            this.isFile = isFile;
+            this.checkTime = checkTime;
+            this.listener = listener;
+        }
+    }
+}
@@ -1,5 +1,20 @@
 package org.netbeans.gradle.project.output;
 
 public interface OutputLinkFinder {
-    public OutputLinkDef tryFindLink(String line);
+    /**
+     * Returns {@code false} if the given range of the line cannot contain a
+     * link recognized by this finder. This method is called for every line
+     * of the output, so it must be cheap and should not create new objects.
+     * It is allowed to return {@code true} even if {@code tryFindLink} will
+     * not find any link.
+     */
+    public boolean mightContainLink(String line, int startIndex, int endIndex);
+
+    /**
+     * Returns the first link in the range [{@code startIndex}, {@code endIndex})
+     * of the line or {@code null} if there is no link in this range. The
+     * indexes of the returned link are relative to the beginning of the line
+     * and must be within the specified range.
+     */
+    public OutputLinkDef tryFindLink(String line, int startIndex, int endIndex);
 }
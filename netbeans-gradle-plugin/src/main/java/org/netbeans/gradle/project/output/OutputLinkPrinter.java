@@ -17,37 +17,79 @@ public final class OutputLinkPrinter implements SmartOutputHandler.Consumer {
         ExceptionHelper.checkNotNullElements(this.linkFinders, "linkFinders");
     }
 
-    private void findLinkDefs(String line, int startIndex, int endIndex, List<OutputLinkDef> linkDefs) {
-        if (startIndex >= endIndex || startIndex >= line.length()) {
-            return;
-        }
+    private FinderState[] getCandidateFinders(String line) {
+        int lineLength = line.length();
 
-        String subStr = line.substring(startIndex, endIndex);
+        // Note that in the majority of cases, the line is not a link, so we
+        // spare creating any object when not needed.
+        FinderState[] result = null;
+        int candidateCount = 0;
         for (OutputLinkFinder linkFinder: linkFinders) {
-            OutputLinkDef linkDef = linkFinder.tryFindLink(subStr);
-            // Empty links are unreasonable and may cause an infinite recursion.
-            if (linkDef != null && !linkDef.isEmptyLink()) {
-                OutputLinkDef baseLinkDef = linkDef.offsetLinkDef(startIndex);
-
-                findLinkDefs(line, startIndex, baseLinkDef.getStartIndex(), linkDefs);
-                linkDefs.add(baseLinkDef);
-                findLinkDefs(line, baseLinkDef.getEndIndex(), endIndex, linkDefs);
-                return;
+            if (linkFinder.mightContainLink(line, 0, lineLength)) {
+                if (result == null) {
+                    result = new FinderState[linkFinders.length];
+                }
+                result[candidateCount] = new FinderState(linkFinder);
+                candidateCount++;
             }
         }
+
+        if (result == null || candidateCount == result.length) {
+            return result;
+        }
+
+        FinderState[] trimmedResult = new FinderState[candidateCount];
+        System.arraycopy(result, 0, trimmedResult, 0, candidateCount);
+        return trimmedResult;
     }
 
-    private List<OutputLinkDef> findLinkDefs(String line) {
-        // Note that in the majority of cases, the line is not a link, so we
-        // spare creating a list when not needed.
-        for (OutputLinkFinder linkFinder: linkFinders) {
-            if (linkFinder.tryFindLink(line) != null) {
-                List<OutputLinkDef> result = new ArrayList<>(linkFinders.length);
-                findLinkDefs(line, 0, line.length(), result);
-                return result;
+    /**
+     * Finds the links in the line from left to right. If the links found by
+     * the finders overlap, the link found by the finder specified earlier
+     * wins. That is, a finder is only asked for links before the link found
+     * by a finder having a higher priority.
+     */
+    List<OutputLinkDef> findLinkDefs(String line) {
+        FinderState[] finders = getCandidateFinders(line);
+        if (finders == null) {
+            return null;
+        }
+
+        List<OutputLinkDef> result = null;
+
+        int lineLength = line.length();
+        int startIndex = 0;
+        while (startIndex < lineLength) {
+            OutputLinkDef linkDef = null;
+            for (FinderState finder: finders) {
+                int endIndex = linkDef != null ? linkDef.getStartIndex() : lineLength;
+                if (endIndex <= startIndex) {
+                    break;
+                }
+
+                OutputLinkDef currentLinkDef = finder.tryFindLink(line, startIndex, endIndex);
+                if (currentLinkDef != null) {
+                    linkDef = currentLinkDef;
+                }
+            }
+
+            if (linkDef == null) {
+                break;
+            }
+
+            if (result == null) {
+                result = new ArrayList<>(finders.length);
             }
+            result.add(linkDef);
+            startIndex = linkDef.getEndIndex();
         }
-        return null;
+
+        return result;
+    }
+
+    @Override
+    public boolean isDecoration() {
+        return true;
     }
 
     @Override
@@ -77,4 +119,55 @@ public final class OutputLinkPrinter implements SmartOutputHandler.Consumer {
 
         return true;
     }
+
+    /**
+     * Remembers the last result of a finder, so that ranges are not searched
+     * again unnecessarily when the line is processed from left to right.
+     */
+    private static final class FinderState {
+        private final OutputLinkFinder linkFinder;
+        private int searchedStartIndex;
+        private int searchedEndIndex;
+        private OutputLinkDef lastLinkDef;
+
+        public FinderState(OutputLinkFinder linkFinder) {
+            this.linkFinder = linkFinder;
+            this.searchedStartIndex = 0;
+            this.searchedEndIndex = -1;
+            this.lastLinkDef = null;
+        }
+
+        private boolean isSearched(int startIndex, int endIndex) {
+            if (startIndex < searchedStartIndex || endIndex > searchedEndIndex) {
+                return false;
+            }
+
+            // The last link was the first one in a range containing the
+            // requested range, so it is the first one in the requested range
+            // as well (if it is within that range).
+            return lastLinkDef == null
+                    || (lastLinkDef.getStartIndex() >= startIndex && lastLinkDef.getEndIndex() <= endIndex);
+        }
+
+        public OutputLinkDef tryFindLink(String line, int startIndex, int endIndex) {
+            if (isSearched(startIndex, endIndex)) {
+                return lastLinkDef;
+            }
+
+            OutputLinkDef linkDef = linkFinder.tryFindLink(line, startIndex, endIndex);
+            // Empty links are unreasonable and may cause an infinite loop.
+            if (linkDef != null) {
+                if (linkDef.isEmptyLink()
+                        || linkDef.getStartIndex() < startIndex
+                        || linkDef.getEndIndex() > endIndex) {
+                    linkDef = null;
+                }
+            }
+
+            searchedStartIndex = startIndex;
+            searchedEndIndex = endIndex;
+            lastLinkDef = linkDef;
+            return linkDef;
+        }
+    }
 }
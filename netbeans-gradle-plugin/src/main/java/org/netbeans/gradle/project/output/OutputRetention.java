@@ -0,0 +1,150 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.NbStrings;
+import org.netbeans.gradle.project.api.task.TaskOutputProcessor;
+import org.openide.windows.OutputWriter;
+
+/**
+ * Limits the number of lines retained by the output window of a task. Every
+ * line is written to a {@link SpilledOutputLog} and when the output window
+ * contains more lines than allowed, the output window is cleared and the most
+ * recent lines are printed again from the log.
+ * <P>
+ * The lines are printed again to the stream they were originally written to
+ * and the decorating consumers (e.g., the link printers) of that stream are
+ * applied to them again, so that the lines will look the same as before the
+ * truncation. Consumers which are not only decorating are not applied, since
+ * they have already seen the lines.
+ * <P>
+ * Note that the number of lines in the output window is only approximately
+ * limited because lines printed directly to the output window are not
+ * counted.
+ */
+public final class OutputRetention {
+    private static final Logger LOGGER = Logger.getLogger(OutputRetention.class.getName());
+
+    private final InputOutputWrapper io;
+    private final SpilledOutputLog outputLog;
+    private final int maxLineCount;
+    private final SmartOutputHandler stdOutReplayer;
+    private final SmartOutputHandler stdErrReplayer;
+
+    private final Lock mainLock;
+    private int printedLineCount;
+    private boolean failed;
+
+    public OutputRetention(
+            InputOutputWrapper io,
+            SpilledOutputLog outputLog,
+            int maxLineCount,
+            List<? extends SmartOutputHandler.Consumer> outputConsumers,
+            List<? extends SmartOutputHandler.Consumer> errorConsumers) {
+        ExceptionHelper.checkNotNullArgument(io, "io");
+        ExceptionHelper.checkNotNullArgument(outputLog, "outputLog");
+        ExceptionHelper.checkArgumentInRange(maxLineCount, 2, Integer.MAX_VALUE, "maxLineCount");
+
+        this.io = io;
+        this.outputLog = outputLog;
+        this.maxLineCount = maxLineCount;
+        this.stdOutReplayer = createReplayer(io, io.getOutRef(), outputConsumers);
+        this.stdErrReplayer = createReplayer(io, io.getErrRef(), errorConsumers);
+
+        this.mainLock = new ReentrantLock();
+        this.printedLineCount = 0;
+        this.failed = false;
+    }
+
+    private static SmartOutputHandler createReplayer(
+            InputOutputWrapper io,
+            OutputWriter output,
+            List<? extends SmartOutputHandler.Consumer> consumers) {
+
+        List<SmartOutputHandler.Consumer> decorations = new ArrayList<>(consumers.size());
+        for (SmartOutputHandler.Consumer consumer: consumers) {
+            if (consumer.isDecoration()) {
+                decorations.add(consumer);
+            }
+        }
+
+        return new SmartOutputHandler(
+                io.getIo(),
+                output,
+                Collections.<TaskOutputProcessor>emptyList(),
+                decorations);
+    }
+
+    public TaskOutputProcessor getStdOutProcessor() {
+        return new LineSpiller(false);
+    }
+
+    public TaskOutputProcessor getStdErrProcessor() {
+        return new LineSpiller(true);
+    }
+
+    private void truncateOutput() throws IOException {
+        assert ((ReentrantLock)mainLock).isHeldByCurrentThread();
+
+        OutputWriter output = io.getOutRef();
+        output.reset();
+
+        int lineCount = outputLog.getLineCount();
+        int keptLineCount = Math.min(lineCount, maxLineCount / 2);
+        int firstKeptLine = lineCount - keptLineCount;
+
+        output.println(NbStrings.getOutputTruncated(firstKeptLine, outputLog.getLogFile().getPath()));
+        for (int i = firstKeptLine; i < lineCount; i++) {
+            SmartOutputHandler replayer = outputLog.isErrorLine(i)
+                    ? stdErrReplayer
+                    : stdOutReplayer;
+            replayer.writeLine(outputLog.getLine(i));
+        }
+
+        printedLineCount = keptLineCount + 1;
+    }
+
+    private void processLine(String line, boolean error) {
+        mainLock.lock();
+        try {
+            if (failed) {
+                return;
+            }
+
+            // Truncate before the new line is printed (after this method
+            // returns), so that the new line will not be printed twice.
+            if (printedLineCount >= maxLineCount) {
+                truncateOutput();
+            }
+
+            outputLog.appendLine(line, error);
+            printedLineCount++;
+        } catch (IOException ex) {
+            // Don't truncate the output without having the complete log.
+            failed = true;
+            LOGGER.log(Level.INFO, "Failed to write the output log. The output will no longer be truncated.", ex);
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private final class LineSpiller implements TaskOutputProcessor {
+        private final boolean error;
+
+        public LineSpiller(boolean error) {
+            this.error = error;
+        }
+
+        @Override
+        public void processLine(String line) {
+            OutputRetention.this.processLine(line, error);
+        }
+    }
+}
@@ -9,20 +9,16 @@ import org.openide.windows.OutputEvent;
 import org.openide.windows.OutputListener;
 
 public final class OutputUrlConsumer implements OutputLinkFinder {
-    private static final String[] URL_PREFIXES = new String[]{
-        "http://",
-        "https://",
-        "file://"
+    private static final String SCHEME_SEPARATOR = "://";
+    private static final String[] URL_SCHEMES = new String[]{
+        "http",
+        "https",
+        "file"
     };
-    private static OutputLinkDef tryGetUrlWithPrefix(String prefix, String line) {
-        int startIndex = line.indexOf(prefix);
-        if (startIndex < 0) {
-            return null;
-        }
 
-        int lineLength = line.length();
-        int endIndex = lineLength;
-        for (int i = startIndex + prefix.length(); i < lineLength; i++) {
+    private static OutputLinkDef tryGetUrl(String line, int startIndex, int contentStartIndex, int maxEndIndex) {
+        int endIndex = maxEndIndex;
+        for (int i = contentStartIndex; i < maxEndIndex; i++) {
             if (line.charAt(i) <= ' ') {
                 endIndex = i;
                 break;
@@ -39,10 +35,32 @@ public final class OutputUrlConsumer implements OutputLinkFinder {
         return new OutputLinkDef(startIndex, endIndex, getUrlOpenTask(url));
     }
 
+    private static OutputLinkDef tryGetUrlAt(String line, int startIndex, int separatorIndex, int endIndex) {
+        for (String scheme: URL_SCHEMES) {
+            int schemeLength = scheme.length();
+            int urlStartIndex = separatorIndex - schemeLength;
+            if (urlStartIndex >= startIndex && line.regionMatches(urlStartIndex, scheme, 0, schemeLength)) {
+                return tryGetUrl(line, urlStartIndex, separatorIndex + SCHEME_SEPARATOR.length(), endIndex);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean mightContainLink(String line, int startIndex, int endIndex) {
+        return StringUtils.indexOf(line, SCHEME_SEPARATOR, startIndex, endIndex) >= 0;
+    }
+
     @Override
-    public OutputLinkDef tryFindLink(String line) {
-        for (String prefix: URL_PREFIXES) {
-            return tryGetUrlWithPrefix(prefix, line);
+    public OutputLinkDef tryFindLink(String line, int startIndex, int endIndex) {
+        int separatorIndex = StringUtils.indexOf(line, SCHEME_SEPARATOR, startIndex, endIndex);
+        while (separatorIndex >= 0) {
+            OutputLinkDef result = tryGetUrlAt(line, startIndex, separatorIndex, endIndex);
+            if (result != null) {
+                return result;
+            }
+
+            separatorIndex = StringUtils.indexOf(line, SCHEME_SEPARATOR, separatorIndex + 1, endIndex);
         }
         return null;
     }
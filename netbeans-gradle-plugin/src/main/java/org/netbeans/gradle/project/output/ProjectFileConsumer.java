@@ -4,6 +4,7 @@ import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Locale;
+import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.util.StringUtils;
 import org.openide.filesystems.FileObject;
@@ -11,12 +12,29 @@ import org.openide.util.Utilities;
 
 public final class ProjectFileConsumer implements OutputLinkFinder {
     private final String normalizedPath;
+    private final OutputFileCache fileCache;
+
+    public ProjectFileConsumer(NbGradleProject project, OutputFileCache fileCache) {
+        this(getProjectPath(project), fileCache);
+    }
+
+    // Allows the benchmarks to use this class without a project.
+    ProjectFileConsumer(String projectPath, OutputFileCache fileCache) {
+        ExceptionHelper.checkNotNullArgument(projectPath, "projectPath");
+        ExceptionHelper.checkNotNullArgument(fileCache, "fileCache");
+
+        this.fileCache = fileCache;
 
-    public ProjectFileConsumer(NbGradleProject project) {
-        FileObject projectDirectory = project.getProjectDirectory();
         // In case the filesystem is not case-sesitive, otherwise it shouldn't
         // hurt much, since we will check if the file exists anyway.
-        normalizedPath = projectDirectory.getPath().toLowerCase(Locale.ROOT);
+        normalizedPath = projectPath.toLowerCase(Locale.ROOT);
+    }
+
+    private static String getProjectPath(NbGradleProject project) {
+        ExceptionHelper.checkNotNullArgument(project, "project");
+
+        FileObject projectDirectory = project.getProjectDirectory();
+        return projectDirectory.getPath();
     }
 
     public static boolean isBrowserFile(String path) {
@@ -30,74 +48,111 @@ public final class ProjectFileConsumer implements OutputLinkFinder {
         return ch <= ' ' || ch == ':' || ch == ';';
     }
 
-    private static String tryReadNumberStr(String line, int startIndex) {
-        int lineLength = line.length();
-        if (startIndex >= lineLength) {
-            return "";
+    private static boolean isPathSeparator(char ch) {
+        return ch == '/' || ch == File.separatorChar;
+    }
+
+    private static char normalizeChar(char ch) {
+        return ch == File.separatorChar ? '/' : Character.toLowerCase(ch);
+    }
+
+    private boolean isProjectPathAt(String line, int index) {
+        int pathLength = normalizedPath.length();
+        for (int i = 0; i < pathLength; i++) {
+            if (normalizeChar(line.charAt(index + i)) != normalizedPath.charAt(i)) {
+                return false;
+            }
         }
+        return true;
+    }
 
-        String trimmedLine = line.substring(startIndex).trim();
-        int trimmedLength = trimmedLine.length();
-        for (int i = 0; i < trimmedLength; i++) {
-            char ch = trimmedLine.charAt(i);
-            if (ch < '0' || ch > '9') {
-                return trimmedLine.substring(0, i);
+    private int indexOfProjectPath(String line, int startIndex, int endIndex) {
+        int lastPossibleIndex = endIndex - normalizedPath.length();
+        for (int i = startIndex; i <= lastPossibleIndex; i++) {
+            if (isProjectPathAt(line, i)) {
+                return i;
             }
         }
-        return trimmedLine;
+        return -1;
     }
 
-    private static ParsedIntDef tryReadNumber(String line, int startIndex) {
-        String intStr = tryReadNumberStr(line, startIndex);
-        if (intStr.isEmpty()) {
-            return null;
+    private static int lastIndexOfPathSeparator(String line, int startIndex, int endIndex) {
+        for (int i = endIndex - 1; i >= startIndex; i--) {
+            if (isPathSeparator(line.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static ParsedIntDef tryReadNumber(String line, int startIndex, int endIndex) {
+        int numberStartIndex = startIndex;
+        while (numberStartIndex < endIndex && line.charAt(numberStartIndex) <= ' ') {
+            numberStartIndex++;
+        }
+
+        int value = 0;
+        int numberEndIndex = numberStartIndex;
+        while (numberEndIndex < endIndex) {
+            char ch = line.charAt(numberEndIndex);
+            if (ch < '0' || ch > '9') {
+                break;
+            }
+
+            value = 10 * value + (ch - '0');
+            if (value < 0) {
+                // Overflow
+                return null;
+            }
+            numberEndIndex++;
         }
 
-        try {
-            return new ParsedIntDef(Integer.parseInt(intStr), intStr.length());
-        } catch (NumberFormatException ex) {
+        if (numberEndIndex == numberStartIndex) {
             return null;
         }
+        return new ParsedIntDef(value, numberEndIndex);
     }
 
     @Override
-    public OutputLinkDef tryFindLink(String line) {
-        String normalizedLine = line.replace(File.separatorChar, '/').toLowerCase(Locale.ROOT);
-        int startIndex = normalizedLine.indexOf(normalizedPath);
-        if (startIndex < 0) {
+    public boolean mightContainLink(String line, int startIndex, int endIndex) {
+        return indexOfProjectPath(line, startIndex, endIndex) >= 0;
+    }
+
+    @Override
+    public OutputLinkDef tryFindLink(String line, int startIndex, int endIndex) {
+        int pathStartIndex = indexOfProjectPath(line, startIndex, endIndex);
+        if (pathStartIndex < 0) {
             return null;
         }
 
-        int endPathIndex = normalizedLine.lastIndexOf('/');
+        int endPathIndex = lastIndexOfPathSeparator(line, pathStartIndex, endIndex);
         if (endPathIndex < 0) {
             // I don't think that this is possible but just in case it happens.
             return null;
         }
 
-        int lineLength = line.length();
-        int endIndex = lineLength;
-        for (int i = endPathIndex + 1; i < lineLength; i++) {
+        int pathEndIndex = endIndex;
+        for (int i = endPathIndex + 1; i < endIndex; i++) {
             if (isLineSeparator(line.charAt(i))) {
-                endIndex = i;
+                pathEndIndex = i;
                 break;
             }
         }
 
-        ParsedIntDef lineNumberDef = tryReadNumber(line, endIndex + 1);
+        ParsedIntDef lineNumberDef = pathEndIndex < endIndex
+                ? tryReadNumber(line, pathEndIndex + 1, endIndex)
+                : null;
 
-        int completeLinkEndIndex = endIndex;
+        int completeLinkEndIndex = pathEndIndex;
         int lineNumber = -1;
         if (lineNumberDef != null) {
-            completeLinkEndIndex = endIndex + 1 + lineNumberDef.strLength;
+            completeLinkEndIndex = lineNumberDef.endIndex;
             lineNumber = lineNumberDef.value;
         }
-        if (lineNumber < 0) {
-            lineNumber = -1;
-        }
 
-        String fileStr = StringUtils.stripSeperatorsFromEnd(line.substring(startIndex, endIndex));
+        String fileStr = StringUtils.stripSeperatorsFromEnd(line.substring(pathStartIndex, pathEndIndex));
         File file = new File(fileStr);
-        if (!file.isFile()) {
+        if (!fileCache.isFile(file)) {
             return null;
         }
 
@@ -111,22 +166,22 @@ public final class ProjectFileConsumer implements OutputLinkFinder {
         }
 
         if (outputListener == null) {
-            outputListener = OpenEditorOutputListener.tryCreateListener(file, lineNumber);
+            outputListener = fileCache.tryCreateListener(file, lineNumber);
             if (outputListener == null) {
                 return null;
             }
         }
 
-        return new OutputLinkDef(startIndex, completeLinkEndIndex, outputListener);
+        return new OutputLinkDef(pathStartIndex, completeLinkEndIndex, outputListener);
     }
 
     private static final class ParsedIntDef {
         public final int value;
-        public final int strLength;
+        public final int endIndex;
 
-        public ParsedIntDef(int value, int strLength) {
+        public ParsedIntDef(int value, int endIndex) {
             this.value = value;
-            this.strLength = strLength;
+            this.endIndex = endIndex;
         }
     }
 }
@@ -7,13 +7,24 @@ import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
-import java.util.concurrent.atomic.AtomicReference;
+import java.nio.charset.CodingErrorAction;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import org.jtrim.utils.ExceptionHelper;
 
 public final class ReaderInputStream extends InputStream {
+    private static final int CHAR_BUFFER_SIZE = 1024;
+
     private final Reader reader;
-    private final Charset encoding;
-    private final AtomicReference<byte[]> cacheRef;
+    private final Lock mainLock;
+    private final CharsetEncoder encoder;
+    // Contains the chars read but not yet encoded. This is usually empty or
+    // a single high surrogate whose pair has not been read yet.
+    private final CharBuffer pendingChars;
+    // Always in "read mode". It is only refilled after it has been drained,
+    // so its content never needs to be moved.
+    private final ByteBuffer encodedBytes;
+    private boolean endOfInput;
 
     public ReaderInputStream(Reader reader) {
         this(reader, Charset.defaultCharset());
@@ -24,63 +35,74 @@ public final class ReaderInputStream extends InputStream {
         ExceptionHelper.checkNotNullArgument(encoding, "encoding");
 
         this.reader = reader;
-        this.encoding = encoding;
-        this.cacheRef = new AtomicReference<>(new byte[0]);
+        this.mainLock = new ReentrantLock();
+        this.encoder = encoding.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.pendingChars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+
+        // The buffer must be able to hold the encoded form of all the chars
+        // we might read at once, so that encoding never overflows.
+        int maxBytes = (int)Math.ceil(CHAR_BUFFER_SIZE * (double)encoder.maxBytesPerChar());
+        this.encodedBytes = ByteBuffer.allocate(maxBytes + encoder.replacement().length);
+        this.encodedBytes.flip();
+
+        this.endOfInput = false;
     }
 
-    private int readFromCache(byte[] b, int offset, int length) {
-        byte[] cache;
-        byte[] newCache;
-        int toRead;
-        do {
-            cache = cacheRef.get();
-            toRead = Math.min(cache.length, length);
-            System.arraycopy(cache, 0, b, offset, toRead);
-            newCache = new byte[cache.length - toRead];
-            System.arraycopy(cache, toRead, newCache, 0, newCache.length);
-        } while (!cacheRef.compareAndSet(cache, newCache));
-        return toRead;
-    }
+    /**
+     * Returns {@code false} if there are no more bytes to read and
+     * {@code true} otherwise. In case {@code mayBlock} is {@code false},
+     * this method may return {@code true} without actually having anything
+     * to read.
+     */
+    private boolean fillBuffer(boolean mayBlock) throws IOException {
+        assert ((ReentrantLock)mainLock).isHeldByCurrentThread();
+
+        while (!encodedBytes.hasRemaining()) {
+            if (endOfInput) {
+                return false;
+            }
+            if (!mayBlock && !reader.ready()) {
+                return true;
+            }
+
+            int readCount = reader.read(
+                    pendingChars.array(),
+                    pendingChars.arrayOffset() + pendingChars.position(),
+                    pendingChars.remaining());
 
-    private boolean readToCache(int requiredBytes) throws IOException {
-        assert requiredBytes > 0;
-        // We rely on the encoder to choose the number of bytes to read but
-        // it does not have to be actually accurate, it only matters
-        // performance wise but this is not a performance critical code.
-        CharsetEncoder encoder = encoding.newEncoder();
-        int toRead = (int)((float)requiredBytes / encoder.averageBytesPerChar()) + 1;
-        toRead = Math.max(toRead, requiredBytes);
-        char[] readChars = new char[toRead];
-        int readCount = reader.read(readChars);
-        if (readCount <= 0) {
             // readCount should never be zero but if reader returns zero
             // regardless, assume that it believes that EOF has been
             // reached.
-            return false;
+            boolean reachedEnd = readCount <= 0;
+            if (!reachedEnd) {
+                pendingChars.position(pendingChars.position() + readCount);
+            }
+
+            encodedBytes.clear();
+            pendingChars.flip();
+            encoder.encode(pendingChars, encodedBytes, reachedEnd);
+            if (reachedEnd) {
+                encoder.flush(encodedBytes);
+                endOfInput = true;
+            }
+            pendingChars.compact();
+            encodedBytes.flip();
         }
-        ByteBuffer encodedBuffer = encoder.encode(CharBuffer.wrap(readChars, 0, readCount));
-        byte[] encoded = new byte[encodedBuffer.remaining()];
-        encodedBuffer.get(encoded);
-        byte[] oldCache;
-        byte[] newCache;
-        do {
-            oldCache = cacheRef.get();
-            newCache = new byte[oldCache.length + encoded.length];
-            System.arraycopy(oldCache, 0, newCache, 0, oldCache.length);
-            System.arraycopy(encoded, 0, newCache, oldCache.length, encoded.length);
-        } while (!cacheRef.compareAndSet(oldCache, newCache));
         return true;
     }
 
     @Override
     public int read() throws IOException {
-        byte[] result = new byte[1];
-        if (read(result) <= 0) {
-            // Althouth the above read should never return zero.
-            return -1;
-        }
-        else {
-            return (int)result[0] & 0xFF;
+        mainLock.lock();
+        try {
+            if (!fillBuffer(true)) {
+                return -1;
+            }
+            return encodedBytes.get() & 0xFF;
+        } finally {
+            mainLock.unlock();
         }
     }
 
@@ -94,26 +116,39 @@ public final class ReaderInputStream extends InputStream {
         ExceptionHelper.checkNotNullArgument(b, "b");
         ExceptionHelper.checkArgumentInRange(off, 0, b.length, "off");
         ExceptionHelper.checkArgumentInRange(len, 0, b.length - off, "len");
-        // Note that while this method is implemented to be thread-safe
-        // calling it concurrently is unadvised, since read is not atomic.
 
         if (len == 0) {
             return 0;
         }
 
-        int currentOffset = off;
-        int currentLength = len;
-        int readCount = 0;
-        do {
-            int currentRead = readFromCache(b, currentOffset, currentLength);
-            readCount += currentRead;
-            currentOffset += currentRead;
-            currentLength -= currentRead;
-            if (readCount > 0) {
-                return readCount;
+        mainLock.lock();
+        try {
+            if (!fillBuffer(true)) {
+                return -1;
             }
-        } while (readToCache(currentLength));
-        return readCount > 0 ? readCount : -1;
+
+            int readCount = Math.min(len, encodedBytes.remaining());
+            encodedBytes.get(b, off, readCount);
+            return readCount;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        // If another thread is blocked reading, then it will most likely
+        // consume whatever we could find now.
+        if (!mainLock.tryLock()) {
+            return 0;
+        }
+
+        try {
+            fillBuffer(false);
+            return encodedBytes.remaining();
+        } finally {
+            mainLock.unlock();
+        }
     }
 
     @Override
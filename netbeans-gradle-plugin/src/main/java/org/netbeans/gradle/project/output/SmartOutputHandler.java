@@ -14,6 +14,13 @@ public final class SmartOutputHandler implements LineOutputWriter.Handler {
 
     public static interface Consumer {
         public boolean tryConsumeLine(String line, InputOutput ioParent, OutputWriter output) throws IOException;
+
+        /**
+         * Returns {@code true} if this consumer only decorates the lines (e.g.,
+         * prints them with links), so that it may be skipped when the line
+         * is to be printed as plain text.
+         */
+        public boolean isDecoration();
     }
 
     private final InputOutput ioParent;
@@ -42,6 +49,16 @@ public final class SmartOutputHandler implements LineOutputWriter.Handler {
 
     @Override
     public void writeLine(String line) throws IOException {
+        writeLine(line, true);
+    }
+
+    /**
+     * Processes the given line of the output. If {@code decorate} is
+     * {@code false}, links are not searched for in the line and it is
+     * printed as plain text. Other consumers and the output processors still
+     * see the line.
+     */
+    public void writeLine(String line, boolean decorate) throws IOException {
         Throwable error = null;
 
         for (TaskOutputProcessor visitor: visitors) {
@@ -54,6 +71,10 @@ public final class SmartOutputHandler implements LineOutputWriter.Handler {
         }
 
         for (Consumer processor: processors) {
+            if (!decorate && processor.isDecoration()) {
+                continue;
+            }
+
             try {
                 if (processor.tryConsumeLine(line, ioParent, output)) {
                     return;
@@ -0,0 +1,235 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Stores the complete output of a build in a file, so that the output window
+ * only needs to retain the most recent lines.
+ * <P>
+ * The start offsets of the lines and the indexes of the error lines are kept
+ * in memory, so that any line can be read back quickly.
+ */
+public final class SpilledOutputLog implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(SpilledOutputLog.class.getName());
+
+    private static final Charset ENCODING = Charset.forName("UTF-8");
+    private static final byte LINE_SEPARATOR = '\n';
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final File logFile;
+    private final RandomAccessFile fileRef;
+    private final FileChannel channel;
+
+    private final Lock mainLock;
+    private final ByteBuffer writeBuffer;
+    private long writtenSize;
+    private long[] lineOffsets;
+    private int lineCount;
+    private int[] errorLines;
+    private int errorLineCount;
+    private boolean closed;
+
+    private SpilledOutputLog(File logFile) throws IOException {
+        this.logFile = logFile;
+        this.fileRef = new RandomAccessFile(logFile, "rw");
+        this.channel = fileRef.getChannel();
+
+        this.mainLock = new ReentrantLock();
+        this.writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        this.writtenSize = 0;
+        this.lineOffsets = new long[1024];
+        this.lineCount = 0;
+        this.errorLines = new int[64];
+        this.errorLineCount = 0;
+        this.closed = false;
+    }
+
+    /**
+     * Creates a new empty log in the given directory. The file of the log is
+     * removed when the log is closed.
+     */
+    public static SpilledOutputLog create(File logDir) throws IOException {
+        ExceptionHelper.checkNotNullArgument(logDir, "logDir");
+
+        if (!logDir.isDirectory() && !logDir.mkdirs()) {
+            throw new IOException("Cannot create directory: " + logDir);
+        }
+
+        File logFile = File.createTempFile("output", ".log", logDir);
+        logFile.deleteOnExit();
+        return new SpilledOutputLog(logFile);
+    }
+
+    public File getLogFile() {
+        return logFile;
+    }
+
+    private void checkNotClosed() throws IOException {
+        if (closed) {
+            throw new IOException("The log has already been closed.");
+        }
+    }
+
+    private void flushWriteBuffer() throws IOException {
+        assert ((ReentrantLock)mainLock).isHeldByCurrentThread();
+
+        writeBuffer.flip();
+        try {
+            while (writeBuffer.hasRemaining()) {
+                channel.write(writeBuffer);
+            }
+        } finally {
+            writeBuffer.clear();
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        if (bytes.length > writeBuffer.remaining()) {
+            flushWriteBuffer();
+        }
+
+        if (bytes.length > writeBuffer.remaining()) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        else {
+            writeBuffer.put(bytes);
+        }
+        writtenSize += bytes.length;
+    }
+
+    /**
+     * Appends a new line to the end of the log. The line must not contain a
+     * line separator.
+     */
+    public void appendLine(String line, boolean error) throws IOException {
+        ExceptionHelper.checkNotNullArgument(line, "line");
+
+        byte[] bytes = line.getBytes(ENCODING);
+
+        mainLock.lock();
+        try {
+            checkNotClosed();
+
+            if (lineCount == lineOffsets.length) {
+                lineOffsets = Arrays.copyOf(lineOffsets, 2 * lineCount);
+            }
+            lineOffsets[lineCount] = writtenSize;
+
+            writeBytes(bytes);
+            if (!writeBuffer.hasRemaining()) {
+                flushWriteBuffer();
+            }
+            writeBuffer.put(LINE_SEPARATOR);
+            writtenSize++;
+
+            if (error) {
+                if (errorLineCount == errorLines.length) {
+                    errorLines = Arrays.copyOf(errorLines, 2 * errorLineCount);
+                }
+                errorLines[errorLineCount] = lineCount;
+                errorLineCount++;
+            }
+
+            lineCount++;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    public int getLineCount() {
+        mainLock.lock();
+        try {
+            return lineCount;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private long getLineStart(int lineIndex) {
+        return lineOffsets[lineIndex];
+    }
+
+    private long getLineEnd(int lineIndex) {
+        return lineIndex + 1 < lineCount ? lineOffsets[lineIndex + 1] : writtenSize;
+    }
+
+    /**
+     * Returns the line with the given (zero based) index.
+     */
+    public String getLine(int lineIndex) throws IOException {
+        mainLock.lock();
+        try {
+            checkNotClosed();
+            ExceptionHelper.checkArgumentInRange(lineIndex, 0, lineCount - 1, "lineIndex");
+
+            flushWriteBuffer();
+
+            long start = getLineStart(lineIndex);
+            // The line separator is not part of the line.
+            int length = (int)(getLineEnd(lineIndex) - start - 1);
+
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                int readCount = channel.read(buffer, start + buffer.position());
+                if (readCount < 0) {
+                    throw new IOException("Unexpected end of the log: " + logFile);
+                }
+            }
+            return new String(buffer.array(), 0, length, ENCODING);
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Returns {@code true} if the line with the given (zero based) index was
+     * written to the standard error.
+     */
+    public boolean isErrorLine(int lineIndex) {
+        mainLock.lock();
+        try {
+            ExceptionHelper.checkArgumentInRange(lineIndex, 0, lineCount - 1, "lineIndex");
+            return Arrays.binarySearch(errorLines, 0, errorLineCount, lineIndex) >= 0;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Closes the log and removes its file.
+     */
+    @Override
+    public void close() throws IOException {
+        mainLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            fileRef.close();
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (!logFile.delete()) {
+            // The file might still be mapped, so it will be deleted on exit.
+            LOGGER.log(Level.FINE, "Failed to remove output log: {0}", logFile);
+        }
+    }
+}
@@ -2,7 +2,11 @@ package org.netbeans.gradle.project.output;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.Closeable;
 import java.net.URL;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -12,23 +16,43 @@ import org.netbeans.api.java.classpath.ClassPath;
 import org.netbeans.api.java.queries.SourceForBinaryQuery;
 import org.netbeans.api.project.Project;
 import org.netbeans.gradle.project.java.query.GradleClassPathProvider;
+import org.netbeans.gradle.project.util.LruCache;
+import org.netbeans.gradle.project.util.StringUtils;
 import org.netbeans.spi.java.queries.SourceForBinaryQueryImplementation;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.URLMapper;
+import org.openide.util.WeakListeners;
 
-public final class StackTraceConsumer implements OutputLinkFinder {
+public final class StackTraceConsumer implements OutputLinkFinder, Closeable {
     private static final Logger LOGGER = Logger.getLogger(StackTraceConsumer.class.getName());
 
     private static final Pattern LINE_PATTERN = Pattern.compile("(?:\\[catch\\])?\\sat (.*)\\((.*)\\.java\\:(\\d+)\\)");
+    private static final String JAVA_FILE_LINE_MARKER = ".java:";
+
+    private static final int SOURCE_CACHE_SIZE = 1024;
+    // Not found source files are looked up again after this time, since
+    // their sources might have been downloaded or created since.
+    private static final long MISS_TIME_TO_LIVE_NANOS = TimeUnit.SECONDS.toNanos(10);
 
     private final Project project;
     private final ClassPath classPath;
 
+    // Maps the binary names of top level classes to their source files.
+    // Stack traces usually contain the same few classes many times.
+    private final LruCache<String, CachedSourceFile> sourceCache;
+    private final PropertyChangeListener classPathListener;
+    private final PropertyChangeListener weakClassPathListener;
+
     public StackTraceConsumer(Project project) {
         ExceptionHelper.checkNotNullArgument(project, "project");
 
         this.project = project;
         this.classPath = getClassPathFromProject(project);
+        this.sourceCache = new LruCache<>(SOURCE_CACHE_SIZE);
+        this.classPathListener = new ClassPathChangeListener(sourceCache);
+        this.weakClassPathListener = WeakListeners.propertyChange(classPathListener, classPath);
+
+        this.classPath.addPropertyChangeListener(weakClassPathListener);
     }
 
     private static ClassPath getClassPathFromProject(Project project) {
@@ -46,28 +70,65 @@ public final class StackTraceConsumer implements OutputLinkFinder {
         return classPath;
     }
 
-    private OpenEditorOutputListener tryCreateLinkListener(
-            SourceForBinaryQuery.Result sourceForBinary,
-            String path,
-            String lineNum) {
-
+    private static FileObject tryFindSourceFile(SourceForBinaryQuery.Result sourceForBinary, String path) {
         FileObject[] roots = sourceForBinary.getRoots();
         for (FileObject root: roots) {
             FileObject javaFo = root.getFileObject(path);
             if (javaFo != null) {
-                int lineInt = -1;
-                try {
-                    lineInt = Integer.parseInt(lineNum) - 1;
-                } catch (NumberFormatException ex) {
-                }
-                return OpenEditorOutputListener.tryCreateListener(javaFo, lineInt);
+                return javaFo;
             }
         }
         return null;
     }
 
+    private FileObject tryFindSourceFile(String packagePath, String file) {
+        String resourceName = packagePath + file + ".class";
+        FileObject resource = classPath.findResource(resourceName);
+        if (resource == null) {
+            return null;
+        }
+
+        String path = packagePath + file + ".java";
+        FileObject root = classPath.findOwnerRoot(resource);
+        if (root == null) {
+            return null;
+        }
+        URL url = URLMapper.findURL(root, URLMapper.INTERNAL);
+
+        for (SourceForBinaryQueryImplementation query: project.getLookup().lookupAll(SourceForBinaryQueryImplementation.class)) {
+            SourceForBinaryQuery.Result sourceForBinary = query.findSourceRoots(url);
+            if (sourceForBinary != null) {
+                FileObject result = tryFindSourceFile(sourceForBinary, path);
+                if (result != null) {
+                    return result;
+                }
+            }
+        }
+
+        SourceForBinaryQuery.Result sourceForBinary = SourceForBinaryQuery.findSourceRoots(url);
+        if (sourceForBinary == null) {
+            return null;
+        }
+
+        return tryFindSourceFile(sourceForBinary, path);
+    }
+
+    private FileObject tryGetSourceFile(String packageName, String file) {
+        String binaryName = packageName + file;
+
+        long now = System.nanoTime();
+        CachedSourceFile cached = sourceCache.get(binaryName);
+        if (cached != null && cached.isValid(now)) {
+            return cached.sourceFile;
+        }
+
+        FileObject result = tryFindSourceFile(packageName.replace('.', '/'), file);
+        sourceCache.put(binaryName, new CachedSourceFile(result, now));
+        return result;
+    }
+
     public ActionListener tryGetOpenEditorAction(String line) {
-        final OutputLinkDef linkDef = tryFindLink(line);
+        final OutputLinkDef linkDef = tryFindLink(line, 0, line.length());
         if (linkDef != null) {
             return new ActionListener() {
                 @Override
@@ -81,11 +142,21 @@ public final class StackTraceConsumer implements OutputLinkFinder {
         }
     }
 
+    @Override
+    public boolean mightContainLink(String line, int startIndex, int endIndex) {
+        return StringUtils.indexOf(line, JAVA_FILE_LINE_MARKER, startIndex, endIndex) >= 0;
+    }
+
     // This method is based on
     // org.netbeans.modules.maven.api.output.OutputUtils.matchStackTraceLine
     @Override
-    public OutputLinkDef tryFindLink(String line) {
+    public OutputLinkDef tryFindLink(String line, int startIndex, int endIndex) {
+        if (!mightContainLink(line, startIndex, endIndex)) {
+            return null;
+        }
+
         Matcher match = LINE_PATTERN.matcher(line);
+        match.region(startIndex, endIndex);
         if (!match.matches()) {
             return null;
         }
@@ -97,36 +168,67 @@ public final class StackTraceConsumer implements OutputLinkFinder {
         if (index < 0) {
             return null;
         }
-        String packageName = method.substring(0, index).replace('.', '/');
-        String resourceName = packageName + file + ".class";
-        FileObject resource = classPath.findResource(resourceName);
-        if (resource == null) {
+
+        FileObject javaFo = tryGetSourceFile(method.substring(0, index), file);
+        if (javaFo == null) {
             return null;
         }
 
-        String path = packageName + file + ".java";
-        FileObject root = classPath.findOwnerRoot(resource);
-        if (root == null) {
-            return null;
+        int lineInt = -1;
+        try {
+            lineInt = Integer.parseInt(lineNum) - 1;
+        } catch (NumberFormatException ex) {
         }
-        URL url = URLMapper.findURL(root, URLMapper.INTERNAL);
 
-        for (SourceForBinaryQueryImplementation query: project.getLookup().lookupAll(SourceForBinaryQueryImplementation.class)) {
-            SourceForBinaryQuery.Result sourceForBinary = query.findSourceRoots(url);
-            if (sourceForBinary != null) {
-                OpenEditorOutputListener result = tryCreateLinkListener(sourceForBinary, path, lineNum);
-                if (result != null) {
-                    return new OutputLinkDef(match.start(), match.end(), result);
-                }
+        OpenEditorOutputListener result = OpenEditorOutputListener.tryCreateListener(javaFo, lineInt);
+        return result != null ? new OutputLinkDef(match.start(), match.end(), result) : null;
+    }
+
+    /**
+     * Stops listening for the changes of the class path. The consumer remains
+     * usable after closing but the cached source files are no longer updated
+     * when the class path changes.
+     */
+    @Override
+    public void close() {
+        classPath.removePropertyChangeListener(weakClassPathListener);
+
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Source file cache of stack traces for {0}: hit rate = {1}, {2}",
+                    new Object[]{project.getProjectDirectory(), sourceCache.getHitRate(), sourceCache});
+        }
+    }
+
+    private static final class ClassPathChangeListener implements PropertyChangeListener {
+        private final LruCache<?, ?> sourceCache;
+
+        public ClassPathChangeListener(LruCache<?, ?> sourceCache) {
+            this.sourceCache = sourceCache;
+        }
+
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            String propertyName = evt.getPropertyName();
+            if (ClassPath.PROP_ROOTS.equals(propertyName) || ClassPath.PROP_ENTRIES.equals(propertyName)) {
+                sourceCache.clear();
             }
         }
+    }
 
-        SourceForBinaryQuery.Result sourceForBinary = SourceForBinaryQuery.findSourceRoots(url);
-        if (sourceForBinary == null) {
-            return null;
+    private static final class CachedSourceFile {
+        public final FileObject sourceFile;
+        private final long lookupTime;
+
+        public CachedSourceFile(FileObject sourceFile, long lookupTime) {
+            this.sourceFile = sourceFile;
+            this.lookupTime = lookupTime;
         }
 
-        OpenEditorOutputListener result = tryCreateLinkListener(sourceForBinary, path, lineNum);
-        return result != null ? new OutputLinkDef(match.start(), match.end(), result) : null;
+        public boolean isValid(long now) {
+            if (sourceFile == null) {
+                return now - lookupTime < MISS_TIME_TO_LIVE_NANOS;
+            }
+            return sourceFile.isValid();
+        }
     }
 }
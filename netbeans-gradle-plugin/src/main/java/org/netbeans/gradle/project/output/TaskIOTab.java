@@ -1,20 +1,27 @@
 package org.netbeans.gradle.project.output;
 
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.netbeans.gradle.model.util.CollectionUtils;
 import org.netbeans.gradle.project.tasks.AsyncGradleTask;
 import org.netbeans.gradle.project.tasks.GradleTaskDef;
 import org.openide.windows.InputOutput;
 
 public final class TaskIOTab implements IOTabDef {
+    private static final Logger LOGGER = Logger.getLogger(TaskIOTab.class.getName());
+
     private final InputOutputWrapper io;
     private final TaskTabAction[] actions;
+    private volatile SpilledOutputLog outputLog;
 
     public TaskIOTab(InputOutput io, TaskTabAction... actions) {
         this.io = new InputOutputWrapper(io);
         this.actions = actions.clone();
 
         CollectionUtils.checkNoNullElements(Arrays.asList(this.actions), "actions");
+        this.outputLog = null;
     }
 
     public void setLastTask(GradleTaskDef source, AsyncGradleTask lastTask) {
@@ -33,14 +40,65 @@ public final class TaskIOTab implements IOTabDef {
         for (TaskTabAction action: actions) {
             action.taskCompleted();
         }
+
+        // Releases the output log if the tab was closed while the task was
+        // running.
+        isClosed();
+    }
+
+    /**
+     * Sets the log containing the complete output of the last task and
+     * closes the log of the previous task (if there was any).
+     */
+    public void setOutputLog(SpilledOutputLog outputLog) {
+        SpilledOutputLog prevLog = this.outputLog;
+        this.outputLog = outputLog;
+
+        if (prevLog != outputLog) {
+            closeLog(prevLog);
+        }
+    }
+
+    private static void closeLog(SpilledOutputLog log) {
+        if (log == null) {
+            return;
+        }
+
+        try {
+            log.close();
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to close the output log: " + log.getLogFile(), ex);
+        }
+    }
+
+    /**
+     * Returns the log containing the complete output of the last task or
+     * {@code null} if the output of the last task was not spilled to a file.
+     */
+    public SpilledOutputLog getOutputLog() {
+        return outputLog;
     }
 
     public InputOutputWrapper getIo() {
         return io;
     }
 
+    /**
+     * Returns {@code true} if the user has closed this tab. If so, the log of
+     * the last task is closed as well because there is nothing to show it in.
+     * <P>
+     * Note that the output window does not notify us when a tab is closed, so
+     * the log is closed when the tab is first found closed: That is, when the
+     * tabs are cleaned up (before a new tab is requested) or when a task
+     * completes in an already closed tab.
+     */
     @Override
     public boolean isClosed() {
-        return io.getIo().isClosed();
+        if (!io.getIo().isClosed()) {
+            return false;
+        }
+
+        setOutputLog(null);
+        return true;
     }
 }
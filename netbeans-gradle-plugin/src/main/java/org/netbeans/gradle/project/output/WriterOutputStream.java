@@ -3,26 +3,105 @@ package org.netbeans.gradle.project.output;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import org.jtrim.utils.ExceptionHelper;
 
 public final class WriterOutputStream extends OutputStream {
+    private static final int BUFFER_SIZE = 8 * 1024;
+
     private final Writer writer;
-    private final Charset encoding;
+    private final Lock mainLock;
+    private final CharsetDecoder decoder;
+    // Contains the bytes not yet decoded. These are usually the first bytes of
+    // a multi-byte character whose remaining bytes have not been written yet.
+    private final ByteBuffer pendingBytes;
+    private final CharBuffer decodedChars;
+    private boolean closed;
 
     public WriterOutputStream(Writer writer, Charset encoding) {
         ExceptionHelper.checkNotNullArgument(writer, "writer");
         ExceptionHelper.checkNotNullArgument(encoding, "encoding");
+
         this.writer = writer;
-        this.encoding = encoding;
+        this.mainLock = new ReentrantLock();
+        this.decoder = encoding.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.pendingBytes = ByteBuffer.allocate(BUFFER_SIZE);
+        this.decodedChars = CharBuffer.allocate(BUFFER_SIZE);
+        this.closed = false;
     }
 
     public WriterOutputStream(Writer writer) {
         this(writer, Charset.defaultCharset());
     }
 
+    private void writeDecodedChars() throws IOException {
+        decodedChars.flip();
+        if (decodedChars.hasRemaining()) {
+            writer.write(
+                    decodedChars.array(),
+                    decodedChars.arrayOffset() + decodedChars.position(),
+                    decodedChars.remaining());
+        }
+        decodedChars.clear();
+    }
+
+    private void decode(ByteBuffer input, boolean endOfInput) throws IOException {
+        CoderResult result;
+        do {
+            result = decoder.decode(input, decodedChars, endOfInput);
+            writeDecodedChars();
+        } while (result.isOverflow());
+
+        if (result.isError()) {
+            // Should not happen since errors are replaced.
+            result.throwException();
+        }
+    }
+
+    private void decodePendingBytes(boolean endOfInput) throws IOException {
+        pendingBytes.flip();
+        try {
+            decode(pendingBytes, endOfInput);
+        } finally {
+            pendingBytes.compact();
+        }
+    }
+
+    private void checkNotClosed() throws IOException {
+        if (closed) {
+            throw new IOException("The stream has already been closed.");
+        }
+    }
+
     @Override
     public void close() throws IOException {
+        mainLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            decodePendingBytes(true);
+
+            CoderResult result;
+            do {
+                result = decoder.flush(decodedChars);
+                writeDecodedChars();
+            } while (result.isOverflow());
+        } finally {
+            mainLock.unlock();
+        }
+
         writer.close();
     }
 
@@ -31,18 +110,51 @@ public final class WriterOutputStream extends OutputStream {
         writer.flush();
     }
 
-    @Override
-    public void write(byte[] b) throws IOException {
-        writer.write(new String(b, encoding));
-    }
-
     @Override
     public void write(byte[] b, int off, int len) throws IOException {
-        writer.write(new String(b, off, len, encoding));
+        ExceptionHelper.checkNotNullArgument(b, "b");
+        ExceptionHelper.checkArgumentInRange(off, 0, b.length, "off");
+        ExceptionHelper.checkArgumentInRange(len, 0, b.length - off, "len");
+
+        int currentOffset = off;
+        int currentLength = len;
+
+        mainLock.lock();
+        try {
+            checkNotClosed();
+
+            while (currentLength > 0) {
+                if (pendingBytes.position() == 0) {
+                    // Decode directly from the array of the caller, so only
+                    // the trailing partial character needs to be copied.
+                    ByteBuffer input = ByteBuffer.wrap(b, currentOffset, currentLength);
+                    decode(input, false);
+                    pendingBytes.put(input);
+                    return;
+                }
+
+                int toCopy = Math.min(currentLength, pendingBytes.remaining());
+                pendingBytes.put(b, currentOffset, toCopy);
+                currentOffset += toCopy;
+                currentLength -= toCopy;
+
+                decodePendingBytes(false);
+            }
+        } finally {
+            mainLock.unlock();
+        }
     }
 
     @Override
     public void write(int b) throws IOException {
-        write(new byte[]{(byte)b});
+        mainLock.lock();
+        try {
+            checkNotClosed();
+
+            pendingBytes.put((byte)b);
+            decodePendingBytes(false);
+        } finally {
+            mainLock.unlock();
+        }
     }
 }
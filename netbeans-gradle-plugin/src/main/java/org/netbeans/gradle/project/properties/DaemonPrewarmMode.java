@@ -0,0 +1,25 @@
+package org.netbeans.gradle.project.properties;
+
+// Warning: Never rename instances of this enum because they are used to save
+//          the actual configuration.
+public enum DaemonPrewarmMode {
+    DISABLED(false, false),
+    START_DAEMON(true, false),
+    EVALUATE_BUILD(true, true);
+
+    private final boolean startDaemon;
+    private final boolean evaluateBuild;
+
+    private DaemonPrewarmMode(boolean startDaemon, boolean evaluateBuild) {
+        this.startDaemon = startDaemon;
+        this.evaluateBuild = evaluateBuild;
+    }
+
+    public boolean isStartDaemon() {
+        return startDaemon;
+    }
+
+    public boolean isEvaluateBuild() {
+        return evaluateBuild;
+    }
+}
@@ -46,6 +46,11 @@ public final class GlobalGradleSettings {
     private final StringBasedProperty<Boolean> mayRelyOnJavaOfScript;
     private final StringBasedProperty<ModelLoadingStrategy> modelLoadingStrategy;
     private final StringBasedProperty<Integer> gradleDaemonTimeoutSec;
+    private final StringBasedProperty<Integer> maxConcurrentGradleTasks;
+    private final StringBasedProperty<Integer> maxConcurrentGradleTasksPerRoot;
+    private final StringBasedProperty<Integer> outputRetentionLines;
+    private final StringBasedProperty<DaemonPrewarmMode> daemonPrewarmMode;
+    private final StringBasedProperty<Integer> taskBatchingWindowMs;
 
     public GlobalGradleSettings(String namespace) {
         // "gradle-home" is probably not the best name but it must remain so
@@ -86,6 +91,21 @@ public final class GlobalGradleSettings {
         gradleDaemonTimeoutSec = new GlobalProperty<>(
                 withNS(namespace, "gradle-daemon-timeout-sec"),
                 new IntegerConverter(1, Integer.MAX_VALUE, null));
+        maxConcurrentGradleTasks = new GlobalProperty<>(
+                withNS(namespace, "max-concurrent-gradle-tasks"),
+                new IntegerConverter(1, Integer.MAX_VALUE, null));
+        maxConcurrentGradleTasksPerRoot = new GlobalProperty<>(
+                withNS(namespace, "max-concurrent-gradle-tasks-per-root"),
+                new IntegerConverter(1, Integer.MAX_VALUE, null));
+        outputRetentionLines = new GlobalProperty<>(
+                withNS(namespace, "output-retention-lines"),
+                new IntegerConverter(0, Integer.MAX_VALUE, 0));
+        daemonPrewarmMode = new GlobalProperty<>(
+                withNS(namespace, "daemon-prewarm-mode"),
+                new EnumConverter<>(DaemonPrewarmMode.DISABLED));
+        taskBatchingWindowMs = new GlobalProperty<>(
+                withNS(namespace, "task-batching-window-ms"),
+                new IntegerConverter(0, Integer.MAX_VALUE, 0));
     }
 
     public static void setDefaultPreference() {
@@ -105,6 +125,26 @@ public final class GlobalGradleSettings {
         return gradleDaemonTimeoutSec;
     }
 
+    public StringBasedProperty<Integer> maxConcurrentGradleTasks() {
+        return maxConcurrentGradleTasks;
+    }
+
+    public StringBasedProperty<Integer> maxConcurrentGradleTasksPerRoot() {
+        return maxConcurrentGradleTasksPerRoot;
+    }
+
+    public StringBasedProperty<Integer> outputRetentionLines() {
+        return outputRetentionLines;
+    }
+
+    public StringBasedProperty<DaemonPrewarmMode> daemonPrewarmMode() {
+        return daemonPrewarmMode;
+    }
+
+    public StringBasedProperty<Integer> taskBatchingWindowMs() {
+        return taskBatchingWindowMs;
+    }
+
     public StringBasedProperty<GradleLocation> gradleLocation() {
         return gradleLocation;
     }
@@ -170,6 +210,35 @@ public final class GlobalGradleSettings {
         return getDefault().gradleDaemonTimeoutSec;
     }
 
+    public static StringBasedProperty<Integer> getMaxConcurrentGradleTasks() {
+        return getDefault().maxConcurrentGradleTasks;
+    }
+
+    public static StringBasedProperty<Integer> getMaxConcurrentGradleTasksPerRoot() {
+        return getDefault().maxConcurrentGradleTasksPerRoot;
+    }
+
+    /**
+     * Returns the maximum number of lines retained by the output window of a
+     * task. Zero means that the output is not limited.
+     */
+    public static StringBasedProperty<Integer> getOutputRetentionLines() {
+        return getDefault().outputRetentionLines;
+    }
+
+    public static StringBasedProperty<DaemonPrewarmMode> getDaemonPrewarmMode() {
+        return getDefault().daemonPrewarmMode;
+    }
+
+    /**
+     * Returns the time in milliseconds to wait for other compatible commands
+     * of the same root project, so that they can be executed by a single
+     * build. Zero means that commands are never merged.
+     */
+    public static StringBasedProperty<Integer> getTaskBatchingWindowMs() {
+        return getDefault().taskBatchingWindowMs;
+    }
+
     public static StringBasedProperty<ModelLoadingStrategy> getModelLoadingStrategy() {
         return getDefault().modelLoadingStrategy;
     }
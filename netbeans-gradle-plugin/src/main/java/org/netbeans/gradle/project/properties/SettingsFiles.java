@@ -123,13 +123,16 @@ public final class SettingsFiles {
     }
 
     public static File getRootDirectory(NbGradleProject project) {
-        NbGradleModel model = project.getAvailableModel();
+        return getRootDirectory(project.getAvailableModel());
+    }
+
+    public static File getRootDirectory(NbGradleModel model) {
         File settingsFile = model.getSettingsFile();
         File dir = settingsFile != null
                 ? settingsFile.getParentFile()
-                : project.getProjectDirectoryAsFile();
+                : model.getProjectDir();
         if (dir == null) {
-            dir = project.getProjectDirectoryAsFile();
+            dir = model.getProjectDir();
         }
 
         return dir;
@@ -34,7 +34,12 @@ public final class WeakValueHashMap<K, V> extends AbstractMap<K, V> {
             if (ref == null) {
                 break;
             }
-            wrappedMap.remove(ref.getKey());
+
+            // The key might have been mapped to a new value since then.
+            K key = ref.getKey();
+            if (wrappedMap.get(key) == ref) {
+                wrappedMap.remove(key);
+            }
         }
     }
 
@@ -2,21 +2,27 @@ package org.netbeans.gradle.project.query;
 
 import java.io.File;
 import java.net.URL;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.netbeans.api.java.queries.SourceForBinaryQuery;
+import org.netbeans.gradle.project.util.WeakValueLruCache;
 import org.netbeans.spi.java.queries.SourceForBinaryQueryImplementation2;
 import org.openide.filesystems.FileUtil;
 
 public abstract class AbstractSourceForBinaryQuery implements SourceForBinaryQueryImplementation2 {
-    // This cache cannot shrink because SourceForBinaryQueryImplementation
-    // requires that we return the exact same object when the same URL is
-    // querried. This is a very limiting constraint but I don't want to risk to
-    // violate the constraint.
-    private final ConcurrentMap<File, Result> cache;
+    private static final Logger LOGGER = Logger.getLogger(AbstractSourceForBinaryQuery.class.getName());
+
+    private static final int STRONG_CACHE_SIZE = 64;
+    private static final int LOG_STATS_INTERVAL = 1024;
+
+    // SourceForBinaryQueryImplementation requires that we return the exact
+    // same object when the same URL is querried. This only matters as long as
+    // somebody can compare the results, so the results are only weakly
+    // referenced by the cache (except for the most recently used ones).
+    private final WeakValueLruCache<File, Result> cache;
 
     public AbstractSourceForBinaryQuery() {
-        this.cache = new ConcurrentHashMap<>();
+        this.cache = new WeakValueLruCache<>(STRONG_CACHE_SIZE);
     }
 
     protected abstract Result tryFindSourceRoot(File binaryRoot);
@@ -33,6 +39,8 @@ public abstract class AbstractSourceForBinaryQuery implements SourceForBinaryQue
             return result;
         }
 
+        logCacheStats();
+
         result = tryFindSourceRoot(binaryRootFile);
         if (result == null) {
             return null;
@@ -42,6 +50,33 @@ public abstract class AbstractSourceForBinaryQuery implements SourceForBinaryQue
         return oldResult != null ? oldResult : result;
     }
 
+    private void logCacheStats() {
+        if (LOGGER.isLoggable(Level.FINE) && cache.getMissCount() % LOG_STATS_INTERVAL == 0) {
+            LOGGER.log(Level.FINE, "Source for binary cache of {0}: hit rate = {1}, {2}",
+                    new Object[]{getClass().getName(), cache.getHitRate(), cache});
+        }
+    }
+
+    /**
+     * Returns the number of results cached by this query which were not yet
+     * reclaimed by the garbage collector.
+     */
+    public final int getCachedResultCount() {
+        return cache.size();
+    }
+
+    public final long getCacheHitCount() {
+        return cache.getHitCount();
+    }
+
+    public final long getCacheMissCount() {
+        return cache.getMissCount();
+    }
+
+    public final double getCacheHitRate() {
+        return cache.getHitRate();
+    }
+
     @Override
     public final SourceForBinaryQuery.Result findSourceRoots(URL binaryRoot) {
         return findSourceRoots2(binaryRoot);
@@ -0,0 +1,241 @@
+package org.netbeans.gradle.project.query;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.concurrent.CleanupTask;
+import org.jtrim.concurrent.TaskExecutor;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.NbTaskExecutors;
+
+/**
+ * Defines an in-memory index of the artifact directories of the Gradle cache.
+ * An artifact directory is a directory containing a subdirectory (named after
+ * the hash of the file) for each file of the artifact. In the current layout
+ * of the cache this is the directory of the version of the artifact:
+ * <pre>
+ * files-2.1/GROUP/ARTIFACT/VERSION/HASH/FILE
+ * </pre>
+ * and in the old layout it is the directory of the packaging of the file:
+ * <pre>
+ * GROUP/ARTIFACT/PACKAGING/HASH/FILE
+ * </pre>
+ * <P>
+ * The content of an artifact directory is only listed when it is first
+ * needed (or when {@link #indexInBackground(File) requested}), so the index
+ * is built incrementally. The content is listed again if the modification
+ * time of the artifact directory changes (i.e., a hash directory was added or
+ * removed) or after {@link #invalidateAll()} is called. The directories are
+ * not listened to, because that would need a file system watch for each
+ * artifact directory (see {@code OutputFileCache}). Changes inside an existing
+ * hash directory are only noticed after {@code invalidateAll()}, which is
+ * fine because Gradle stores every new file in a new hash directory.
+ * <P>
+ * The index retains at most a given number of artifact directories. When
+ * there are more, the directories added the earliest are dropped, so they
+ * will be listed again when next needed.
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently.
+ */
+final class GradleArtifactCacheIndex {
+    private static final TaskExecutor INDEX_EXECUTOR
+            = NbTaskExecutors.newExecutor("Gradle-Artifact-Cache-Indexer", 1);
+
+    private static final int DEFAULT_MAX_DIR_COUNT = 4096;
+
+    // The modification time of a directory changed within this time of
+    // listing it is not trusted, because a later change might not update the
+    // modification time on file systems with a coarse timestamp resolution.
+    private static final long RACY_MODIFICATION_TIME_MS = 2000;
+
+    private static final GradleArtifactCacheIndex DEFAULT = new GradleArtifactCacheIndex();
+
+    private final int maxDirCount;
+    private final ConcurrentMap<File, ArtifactDir> artifactDirs;
+    private final Queue<ArtifactDir> addOrder;
+
+    public GradleArtifactCacheIndex() {
+        this(DEFAULT_MAX_DIR_COUNT);
+    }
+
+    public GradleArtifactCacheIndex(int maxDirCount) {
+        ExceptionHelper.checkArgumentInRange(maxDirCount, 1, Integer.MAX_VALUE, "maxDirCount");
+
+        this.maxDirCount = maxDirCount;
+        this.artifactDirs = new ConcurrentHashMap<>();
+        this.addOrder = new ConcurrentLinkedQueue<>();
+    }
+
+    public static GradleArtifactCacheIndex getDefault() {
+        return DEFAULT;
+    }
+
+    private ArtifactDir getArtifactDir(File dir) {
+        ArtifactDir result = artifactDirs.get(dir);
+        if (result == null) {
+            ArtifactDir newDir = new ArtifactDir(dir);
+            result = artifactDirs.putIfAbsent(dir, newDir);
+            if (result == null) {
+                result = newDir;
+                addOrder.add(newDir);
+                removeExcessDirs();
+            }
+        }
+        return result;
+    }
+
+    private void removeExcessDirs() {
+        while (artifactDirs.size() > maxDirCount) {
+            ArtifactDir removed = addOrder.poll();
+            if (removed == null) {
+                break;
+            }
+
+            artifactDirs.remove(removed.getDir(), removed);
+        }
+    }
+
+    int getArtifactDirCount() {
+        return artifactDirs.size();
+    }
+
+    /**
+     * Returns a file with the given name in one of the hash directories of the
+     * given artifact directory, or {@code null} if there is no such file. This
+     * method only lists the given artifact directory if it has not been listed
+     * since it was last changed, otherwise it only checks the modification
+     * time of the directory.
+     */
+    public File tryGetFile(File artifactDir, String fileName) {
+        ExceptionHelper.checkNotNullArgument(artifactDir, "artifactDir");
+        ExceptionHelper.checkNotNullArgument(fileName, "fileName");
+
+        return getArtifactDir(artifactDir).getFiles().get(fileName);
+    }
+
+    /**
+     * Lists the content of the given artifact directory in the background
+     * if it is not listed yet, so that later lookups will not have to wait for
+     * the file system.
+     */
+    public void indexInBackground(File artifactDir) {
+        ExceptionHelper.checkNotNullArgument(artifactDir, "artifactDir");
+
+        final ArtifactDir dir = getArtifactDir(artifactDir);
+        if (dir.isIndexed()) {
+            return;
+        }
+
+        INDEX_EXECUTOR.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+            @Override
+            public void execute(CancellationToken cancelToken) {
+                dir.getFiles();
+            }
+        }, new CleanupTask() {
+            @Override
+            public void cleanup(boolean canceled, Throwable error) {
+                NbTaskExecutors.defaultCleanup(canceled, error);
+            }
+        });
+    }
+
+    /**
+     * Forgets the content of every artifact directory, so that they will be
+     * listed again when next needed.
+     */
+    public void invalidateAll() {
+        for (ArtifactDir dir: artifactDirs.values()) {
+            dir.invalidate();
+        }
+    }
+
+    private static Map<String, File> listArtifactDir(File dir) {
+        File[] hashDirs = dir.listFiles();
+        if (hashDirs == null) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, File> result = new HashMap<>();
+        for (File hashDir: hashDirs) {
+            File[] files = hashDir.listFiles();
+            if (files == null) {
+                continue;
+            }
+
+            for (File file: files) {
+                String name = file.getName();
+                if (!result.containsKey(name) && file.isFile()) {
+                    result.put(name, file);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static final class ArtifactDir {
+        private final File dir;
+        private volatile Listing listing;
+
+        public ArtifactDir(File dir) {
+            this.dir = dir;
+            this.listing = null;
+        }
+
+        public File getDir() {
+            return dir;
+        }
+
+        public boolean isIndexed() {
+            return listing != null;
+        }
+
+        public Map<String, File> getFiles() {
+            long lastModified = dir.lastModified();
+
+            Listing result = listing;
+            if (result != null && result.isUpToDate(lastModified)) {
+                return result.files;
+            }
+
+            synchronized (this) {
+                result = listing;
+                if (result == null || !result.isUpToDate(lastModified)) {
+                    // The modification time is read before listing the
+                    // directory, so that a concurrent change is not missed.
+                    result = new Listing(lastModified, listArtifactDir(dir));
+                    listing = result;
+                }
+            }
+            return result.files;
+        }
+
+        public void invalidate() {
+            listing = null;
+        }
+    }
+
+    private static final class Listing {
+        private final long lastModified;
+        private final boolean trusted;
+        public final Map<String, File> files;
+
+        public Listing(long lastModified, Map<String, File> files) {
+            this.lastModified = lastModified;
+            this.trusted = System.currentTimeMillis() - lastModified > RACY_MODIFICATION_TIME_MS;
+            this.files = files;
+        }
+
+        public boolean isUpToDate(long currentLastModified) {
+            return trusted && lastModified == currentLastModified;
+        }
+    }
+}
@@ -7,7 +7,6 @@ import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import org.netbeans.api.java.queries.BinaryForSourceQuery.Result;
 import org.netbeans.gradle.project.util.GradleFileUtils;
-import org.netbeans.gradle.project.util.NbFileUtils;
 import org.netbeans.spi.java.queries.BinaryForSourceQueryImplementation;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
@@ -37,6 +36,8 @@ public final class GradleCacheBinaryForSourceQuery extends AbstractBinaryForSour
     }
 
     public static void notifyCacheChange() {
+        GradleArtifactCacheIndex.getDefault().invalidateAll();
+
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
@@ -83,12 +84,35 @@ public final class GradleCacheBinaryForSourceQuery extends AbstractBinaryForSour
                 return null;
             }
 
-            return new OldFormatCacheResult(artifactRoot, binFileName);
+            File artifactRootFile = FileUtil.toFile(artifactRoot);
+            if (artifactRootFile == null) {
+                return null;
+            }
+
+            return new OldFormatCacheResult(artifactRootFile, binFileName);
         }
 
-        return GradleFileUtils.isSourceFile(sourceRootObj)
-                ? new NewFormatCacheResult(srcDir, binFileName)
-                : null;
+        if (!GradleFileUtils.isSourceFile(sourceRootObj)) {
+            return null;
+        }
+
+        File srcDirFile = FileUtil.toFile(srcDir);
+        if (srcDirFile == null) {
+            return null;
+        }
+
+        GradleArtifactCacheIndex.getDefault().indexInBackground(srcDirFile);
+        return new NewFormatCacheResult(srcDirFile, binFileName);
+    }
+
+    private static URL[] getCachedFile(File artifactDir, String fileName) {
+        File file = GradleArtifactCacheIndex.getDefault().tryGetFile(artifactDir, fileName);
+        if (file == null) {
+            return NO_ROOTS;
+        }
+
+        FileObject fileObj = FileUtil.toFileObject(file);
+        return fileObj != null ? new URL[]{fileObj.toURL()} : NO_ROOTS;
     }
 
     private static final class EventSource implements Result {
@@ -116,10 +140,10 @@ public final class GradleCacheBinaryForSourceQuery extends AbstractBinaryForSour
     }
 
     private static class NewFormatCacheResult implements Result {
-        private final FileObject artifactRoot;
+        private final File artifactRoot;
         private final String binFileName;
 
-        public NewFormatCacheResult(FileObject artifactRoot, String binFileName) {
+        public NewFormatCacheResult(File artifactRoot, String binFileName) {
             this.artifactRoot = artifactRoot;
             this.binFileName = binFileName;
         }
@@ -131,10 +155,7 @@ public final class GradleCacheBinaryForSourceQuery extends AbstractBinaryForSour
             // ...... \\HASH_OF_SOURCE\\binary-sources.XXX
             // ...... \\HASH_OF_BINARY\\binary.XXX
 
-            FileObject binFile = NbFileUtils.getFileFromASubDir(artifactRoot, binFileName);
-            return binFile != null
-                    ? new URL[]{binFile.toURL()}
-                    : NO_ROOTS;
+            return getCachedFile(artifactRoot, binFileName);
         }
 
         @Override
@@ -149,10 +170,10 @@ public final class GradleCacheBinaryForSourceQuery extends AbstractBinaryForSour
     }
 
     private static class OldFormatCacheResult implements Result {
-        private final FileObject artifactRoot;
+        private final File artifactRoot;
         private final String binFileName;
 
-        public OldFormatCacheResult(FileObject artifactRoot, String binFileName) {
+        public OldFormatCacheResult(File artifactRoot, String binFileName) {
             this.artifactRoot = artifactRoot;
             this.binFileName = binFileName;
         }
@@ -165,14 +186,9 @@ public final class GradleCacheBinaryForSourceQuery extends AbstractBinaryForSour
             // ...... \\packaging type\\HASH_OF_BINARY\\binary.jar
 
             for (String binDirName: GradleFileUtils.BINARY_DIR_NAMES) {
-                FileObject binDir = artifactRoot.getFileObject(binDirName);
-                if (binDir == null) {
-                    continue;
-                }
-
-                FileObject binFile = NbFileUtils.getFileFromASubDir(binDir, binFileName);
-                if (binFile != null) {
-                    return new URL[]{binFile.toURL()};
+                URL[] result = getCachedFile(new File(artifactRoot, binDirName), binFileName);
+                if (result.length > 0) {
+                    return result;
                 }
             }
             return NO_ROOTS;
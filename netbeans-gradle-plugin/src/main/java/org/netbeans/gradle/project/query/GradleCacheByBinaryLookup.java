@@ -34,6 +34,8 @@ public final class GradleCacheByBinaryLookup {
     }
 
     public static void notifyCacheChange() {
+        GradleArtifactCacheIndex.getDefault().invalidateAll();
+
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
@@ -76,10 +78,33 @@ public final class GradleCacheByBinaryLookup {
                 return null;
             }
 
-            return new OldFormatCacheResult(artifactRoot, searchedPackaging, sourceFileName);
+            File artifactRootFile = FileUtil.toFile(artifactRoot);
+            if (artifactRootFile == null) {
+                return null;
+            }
+
+            File searchedDir = new File(artifactRootFile, searchedPackaging);
+            GradleArtifactCacheIndex.getDefault().indexInBackground(searchedDir);
+            return new OldFormatCacheResult(searchedDir, sourceFileName);
         }
 
-        return new NewFormatCacheResult(binDir, sourceFileName);
+        File binDirFile = FileUtil.toFile(binDir);
+        if (binDirFile == null) {
+            return null;
+        }
+
+        GradleArtifactCacheIndex.getDefault().indexInBackground(binDirFile);
+        return new NewFormatCacheResult(binDirFile, sourceFileName);
+    }
+
+    private static FileObject[] getCachedFile(File artifactDir, String fileName) {
+        File file = GradleArtifactCacheIndex.getDefault().tryGetFile(artifactDir, fileName);
+        if (file == null) {
+            return NO_ROOTS;
+        }
+
+        FileObject fileObj = NbFileUtils.asArchiveOrDir(file);
+        return fileObj != null ? new FileObject[]{fileObj} : NO_ROOTS;
     }
 
     private static final class EventSource implements SourceForBinaryQueryImplementation2.Result {
@@ -112,10 +137,10 @@ public final class GradleCacheByBinaryLookup {
     }
 
     private static class NewFormatCacheResult implements SourceForBinaryQueryImplementation2.Result {
-        private final FileObject artifactRoot;
+        private final File artifactRoot;
         private final String sourceFileName;
 
-        public NewFormatCacheResult(FileObject artifactRoot, String sourceFileName) {
+        public NewFormatCacheResult(File artifactRoot, String sourceFileName) {
             this.artifactRoot = artifactRoot;
             this.sourceFileName = sourceFileName;
         }
@@ -132,8 +157,7 @@ public final class GradleCacheByBinaryLookup {
             // ...... \\HASH_OF_SOURCE\\binary-sources.XXX
             // ...... \\HASH_OF_BINARY\\binary.XXX
 
-            FileObject srcFile = NbFileUtils.getFileFromASubDir(artifactRoot, sourceFileName);
-            return srcFile != null ? new FileObject[]{srcFile} : NO_ROOTS;
+            return getCachedFile(artifactRoot, sourceFileName);
         }
 
         @Override
@@ -148,13 +172,11 @@ public final class GradleCacheByBinaryLookup {
     }
 
     private static class OldFormatCacheResult implements SourceForBinaryQueryImplementation2.Result {
-        private final FileObject artifactRoot;
-        private final String searchedPackaging;
+        private final File searchedDir;
         private final String searchedFileName;
 
-        public OldFormatCacheResult(FileObject artifactRoot, String searchedPackaging, String searchedFileName) {
-            this.artifactRoot = artifactRoot;
-            this.searchedPackaging = searchedPackaging;
+        public OldFormatCacheResult(File searchedDir, String searchedFileName) {
+            this.searchedDir = searchedDir;
             this.searchedFileName = searchedFileName;
         }
 
@@ -169,13 +191,7 @@ public final class GradleCacheByBinaryLookup {
             //
             // ...... \\source\\HASH_OF_SOURCE\\binary-sources.jar
             // ...... \\packaging type\\HASH_OF_BINARY\\binary.jar
-            FileObject searchedDir = artifactRoot.getFileObject(searchedPackaging);
-            if (searchedDir == null) {
-                return NO_ROOTS;
-            }
-
-            FileObject searchedFile = NbFileUtils.getFileFromASubDir(searchedDir, searchedFileName);
-            return searchedFile != null ? new FileObject[]{searchedFile} : NO_ROOTS;
+            return getCachedFile(searchedDir, searchedFileName);
         }
 
         @Override
@@ -10,11 +10,16 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -28,6 +33,7 @@ import org.gradle.tooling.model.build.BuildEnvironment;
 import org.gradle.util.GradleVersion;
 import org.jtrim.cancel.Cancellation;
 import org.jtrim.cancel.CancellationToken;
+import org.jtrim.cancel.OperationCanceledException;
 import org.jtrim.concurrent.CancelableTask;
 import org.jtrim.concurrent.TaskExecutor;
 import org.jtrim.event.ListenerRef;
@@ -45,34 +51,39 @@ import org.netbeans.gradle.project.api.task.CommandCompleteListener;
 import org.netbeans.gradle.project.api.task.ExecutedCommandContext;
 import org.netbeans.gradle.project.api.task.GradleTargetVerifier;
 import org.netbeans.gradle.project.api.task.TaskVariable;
+import org.netbeans.gradle.project.api.task.TaskOutputProcessor;
 import org.netbeans.gradle.project.api.task.TaskVariableMap;
 import org.netbeans.gradle.project.model.GradleModelLoader;
+import org.netbeans.gradle.project.output.AsyncOutputHandler;
 import org.netbeans.gradle.project.output.BuildErrorConsumer;
 import org.netbeans.gradle.project.output.FileLineConsumer;
 import org.netbeans.gradle.project.output.IOTabRef;
 import org.netbeans.gradle.project.output.IOTabs;
 import org.netbeans.gradle.project.output.InputOutputWrapper;
 import org.netbeans.gradle.project.output.LineOutputWriter;
+import org.netbeans.gradle.project.output.OutputFileCache;
 import org.netbeans.gradle.project.output.OutputLinkPrinter;
+import org.netbeans.gradle.project.output.OutputRetention;
 import org.netbeans.gradle.project.output.OutputUrlConsumer;
 import org.netbeans.gradle.project.output.ProjectFileConsumer;
 import org.netbeans.gradle.project.output.ReaderInputStream;
 import org.netbeans.gradle.project.output.SmartOutputHandler;
+import org.netbeans.gradle.project.output.SpilledOutputLog;
 import org.netbeans.gradle.project.output.StackTraceConsumer;
 import org.netbeans.gradle.project.output.TaskIOTab;
 import org.netbeans.gradle.project.output.WriterOutputStream;
 import org.netbeans.gradle.project.properties.GlobalGradleSettings;
+import org.netbeans.gradle.project.properties.SettingsFiles;
 import org.netbeans.spi.project.ui.support.BuildExecutionSupport;
 import org.openide.LifecycleManager;
 import org.openide.windows.OutputWriter;
 
 public final class AsyncGradleTask implements Runnable {
-    private static final TaskExecutor TASK_EXECUTOR
-            = NbTaskExecutors.newExecutor("Gradle-Task-Executor", Integer.MAX_VALUE);
     private static final TaskExecutor CANCEL_EXECUTOR
-            = NbTaskExecutors.newExecutor("Gradle-Cancel-Executor", Integer.MAX_VALUE);
+            = NbTaskExecutors.newExecutor("Gradle-Cancel-Executor", 2);
     private static final Logger LOGGER = Logger.getLogger(GradleTasks.class.getName());
     private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final GradleTaskBatcher<BuildExecutionItem> BATCHER = new GradleTaskBatcher<>();
 
     private final NbGradleProject project;
     private final GradleCommandSpecFactory taskDefFactroy;
@@ -199,43 +210,158 @@ public final class AsyncGradleTask implements Runnable {
         }
     }
 
-    private static OutputRef configureOutput(
+    // Commands can only be merged if their tasks do not depend on the
+    // project directory used to execute them (i.e., their tasks are
+    // specified by absolute paths) and they do not need to be handled
+    // separately.
+    private static boolean isBatchable(GradleTaskDef taskDef) {
+        if (!taskDef.isNonBlocking()
+                || taskDef.getGradleTargetVerifier() != null
+                || taskDef.getCancelToken() != Cancellation.UNCANCELABLE_TOKEN
+                || taskDef.getArguments().contains("--tests")) {
+            return false;
+        }
+
+        for (String taskName: taskDef.getTaskNames()) {
+            if (!taskName.startsWith(":")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static OutputRetention tryCreateOutputRetention(
+            NbGradleProject project,
+            TaskIOTab tab,
+            List<SmartOutputHandler.Consumer> outputConsumers,
+            List<SmartOutputHandler.Consumer> errorConsumers) {
+
+        Integer maxLineCount = GlobalGradleSettings.getOutputRetentionLines().getValue();
+        if (maxLineCount == null || maxLineCount <= 0) {
+            tab.setOutputLog(null);
+            return null;
+        }
+
+        File rootDir = SettingsFiles.getRootDirectory(project);
+        File logDir = new File(SettingsFiles.getCacheDir(rootDir), "output");
+
+        SpilledOutputLog outputLog;
+        try {
+            outputLog = SpilledOutputLog.create(logDir);
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Cannot create output log in " + logDir + ". The output will not be truncated.", ex);
+            tab.setOutputLog(null);
+            return null;
+        }
+
+        tab.setOutputLog(outputLog);
+        return new OutputRetention(
+                tab.getIo(),
+                outputLog,
+                Math.max(2, maxLineCount),
+                outputConsumers,
+                errorConsumers);
+    }
+
+    private static OutputHandlers createOutputHandlers(
             NbGradleProject project,
             GradleTaskDef taskDef,
-            BuildLauncher buildLauncher,
             TaskIOTab tab) {
 
+        // The stack trace consumer and the file cache are shared by the
+        // standard output and error, so that they share what they cache.
+        StackTraceConsumer stackTraceConsumer = new StackTraceConsumer(project);
+        OutputFileCache fileCache = new OutputFileCache();
+
         List<SmartOutputHandler.Consumer> outputConsumers = new LinkedList<>();
         outputConsumers.add(new OutputLinkPrinter(
-                new StackTraceConsumer(project),
+                stackTraceConsumer,
                 new OutputUrlConsumer(),
-                new ProjectFileConsumer(project)));
+                new ProjectFileConsumer(project, fileCache)));
 
         List<SmartOutputHandler.Consumer> errorConsumers = new LinkedList<>();
         errorConsumers.add(new BuildErrorConsumer());
         errorConsumers.add(new OutputLinkPrinter(
-                new StackTraceConsumer(project),
+                stackTraceConsumer,
                 new OutputUrlConsumer(),
-                new ProjectFileConsumer(project),
-                new FileLineConsumer()));
+                new ProjectFileConsumer(project, fileCache),
+                new FileLineConsumer(fileCache)));
 
         InputOutputWrapper io = tab.getIo();
-        Writer forwardedStdOut = new LineOutputWriter(new SmartOutputHandler(
+
+        List<TaskOutputProcessor> stdOutVisitors = new ArrayList<>(2);
+        stdOutVisitors.add(taskDef.getStdOutListener(project));
+
+        List<TaskOutputProcessor> stdErrVisitors = new ArrayList<>(2);
+        stdErrVisitors.add(taskDef.getStdErrListener(project));
+
+        OutputRetention outputRetention = tryCreateOutputRetention(project, tab, outputConsumers, errorConsumers);
+        if (outputRetention != null) {
+            stdOutVisitors.add(outputRetention.getStdOutProcessor());
+            stdErrVisitors.add(outputRetention.getStdErrProcessor());
+        }
+
+        AsyncOutputHandler stdOutProcessor = new AsyncOutputHandler(new SmartOutputHandler(
                 io.getIo(),
                 io.getOutRef(),
-                Arrays.asList(taskDef.getStdOutListener(project)),
+                stdOutVisitors,
                 outputConsumers));
-        Writer forwardedStdErr = new LineOutputWriter(new SmartOutputHandler(
+        AsyncOutputHandler stdErrProcessor = new AsyncOutputHandler(new SmartOutputHandler(
                 io.getIo(),
                 io.getErrRef(),
-                Arrays.asList(taskDef.getStdErrListener(project)),
+                stdErrVisitors,
                 errorConsumers));
 
+        return new OutputHandlers(stdOutProcessor, stdErrProcessor, stackTraceConsumer, fileCache);
+    }
+
+    private static OutputRef configureOutput(
+            NbGradleProject project,
+            GradleTaskDef taskDef,
+            BuildLauncher buildLauncher,
+            TaskIOTab tab) {
+
+        OutputHandlers outputHandlers = createOutputHandlers(project, taskDef, tab);
+
+        Writer forwardedStdOut = new LineOutputWriter(outputHandlers.getStdOut());
+        Writer forwardedStdErr = new LineOutputWriter(outputHandlers.getStdErr());
+
         buildLauncher.setStandardOutput(new WriterOutputStream(forwardedStdOut));
         buildLauncher.setStandardError(new WriterOutputStream(forwardedStdErr));
         buildLauncher.setStandardInput(new ReaderInputStream(tab.getIo().getInRef()));
 
-        return new OutputRef(forwardedStdOut, forwardedStdErr);
+        // The writers must be closed first, so that their last lines are
+        // processed before waiting for the processors.
+        return new OutputRef(forwardedStdOut, forwardedStdErr, outputHandlers);
+    }
+
+    private static OutputRef configureBatchedOutput(
+            BuildLauncher buildLauncher,
+            List<BatchedOutput> outputs) {
+
+        List<TaskOutputDemultiplexer.Target> targets = new ArrayList<>(outputs.size());
+        for (BatchedOutput output: outputs) {
+            targets.add(output.getOutputTarget());
+        }
+
+        TaskOutputDemultiplexer demultiplexer = new TaskOutputDemultiplexer(targets);
+
+        Writer forwardedStdOut = new LineOutputWriter(demultiplexer.getStdOut());
+        Writer forwardedStdErr = new LineOutputWriter(demultiplexer.getStdErr());
+
+        buildLauncher.setStandardOutput(new WriterOutputStream(forwardedStdOut));
+        buildLauncher.setStandardError(new WriterOutputStream(forwardedStdErr));
+        // Only the tab of the leader can be used to provide input.
+        TaskIOTab leaderTab = outputs.get(0).getTab();
+        buildLauncher.setStandardInput(new ReaderInputStream(leaderTab.getIo().getInRef()));
+
+        List<Closeable> toClose = new ArrayList<>(outputs.size() + 2);
+        toClose.add(forwardedStdOut);
+        toClose.add(forwardedStdErr);
+        for (BatchedOutput output: outputs) {
+            toClose.add(output.getOutputHandlers());
+        }
+        return new OutputRef(toClose.toArray(new Closeable[toClose.size()]));
     }
 
     private boolean checkTaskExecutable(
@@ -309,6 +435,16 @@ public final class AsyncGradleTask implements Runnable {
         }
     }
 
+    private static String getCommandString(GradleTaskDef taskDef) {
+        StringBuilder commandBuilder = new StringBuilder(128);
+        commandBuilder.append("gradle");
+        for (String task : taskDef.getTaskNames()) {
+            commandBuilder.append(' ');
+            commandBuilder.append(task);
+        }
+        return commandBuilder.toString();
+    }
+
     private void doGradleTasksWithProgress(
             CancellationToken cancelToken,
             ProgressHandle progress,
@@ -330,14 +466,7 @@ public final class AsyncGradleTask implements Runnable {
         GradleTaskDef taskDef = buildItem.getProcessedTaskDef();
         Objects.requireNonNull(taskDef, "command.processed");
 
-        StringBuilder commandBuilder = new StringBuilder(128);
-        commandBuilder.append("gradle");
-        for (String task : taskDef.getTaskNames()) {
-            commandBuilder.append(' ');
-            commandBuilder.append(task);
-        }
-
-        String command = commandBuilder.toString();
+        String command = getCommandString(taskDef);
 
         if (LOGGER.isLoggable(Level.INFO)) {
             LOGGER.log(Level.INFO, "Executing: {0}, Args = {1}, JvmArg = {2}",
@@ -355,6 +484,7 @@ public final class AsyncGradleTask implements Runnable {
         ProjectConnection projectConnection = null;
         try {
             projectConnection = gradleConnector.connect();
+            DaemonPrewarmTask.markDaemonUsed(SettingsFiles.getRootDirectory(project));
 
             BuildLauncher buildLauncher = projectConnection.newBuild();
             List<TemporaryFileRef> initScripts = getAllInitScriptFiles(project);
@@ -428,6 +558,7 @@ public final class AsyncGradleTask implements Runnable {
             }
         } finally {
             try {
+                targetSetup.close();
                 if (projectConnection != null) {
                     projectConnection.close();
                 }
@@ -438,13 +569,124 @@ public final class AsyncGradleTask implements Runnable {
         }
     }
 
+    private static GradleTaskDef mergeTaskDefs(List<BuildExecutionItem> buildItems) {
+        Set<String> taskNames = new LinkedHashSet<>();
+        for (BuildExecutionItem buildItem: buildItems) {
+            taskNames.addAll(buildItem.getProcessedTaskDef().getTaskNames());
+        }
+
+        GradleTaskDef.Builder result = new GradleTaskDef.Builder(buildItems.get(0).getProcessedTaskDef());
+        result.setTaskNames(new ArrayList<>(taskNames));
+        // The failure of a task of one command must not prevent executing
+        // the tasks of the other commands.
+        if (!result.getArguments().contains("--continue")) {
+            result.addArguments(Collections.singletonList("--continue"));
+        }
+        return result.create();
+    }
+
+    // The batched commands are executed with the settings of the leader
+    // (which is the first build item). This is fine because they can only be
+    // merged if they belong to the same root project and have the same
+    // arguments. The build items must have been claimed by the leader (see
+    // BuildExecutionItem.claimBatchItems), so that their finalizers are not
+    // notified by anyone else.
+    private void doBatchedGradleTasks(
+            CancellationToken cancelToken,
+            ProgressHandle progress,
+            List<BuildExecutionItem> buildItems) {
+
+        GradleTaskDef taskDef = mergeTaskDefs(buildItems);
+        String command = getCommandString(taskDef);
+
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.log(Level.INFO, "Executing {0} merged commands: {1}, Args = {2}, JvmArg = {3}",
+                    new Object[]{buildItems.size(), command, taskDef.getArguments(), taskDef.getJvmArguments()});
+        }
+
+        File projectDir = project.getProjectDirectoryAsFile();
+
+        GradleModelLoader.ModelBuilderSetup targetSetup = createTargetSetup(taskDef, progress);
+
+        List<BatchedOutput> outputs = new ArrayList<>(buildItems.size());
+
+        GradleConnector gradleConnector = GradleModelLoader.createGradleConnector(cancelToken, project);
+        gradleConnector.forProjectDirectory(projectDir);
+        ProjectConnection projectConnection = null;
+        try {
+            projectConnection = gradleConnector.connect();
+            DaemonPrewarmTask.markDaemonUsed(SettingsFiles.getRootDirectory(project));
+
+            BuildLauncher buildLauncher = projectConnection.newBuild();
+            List<TemporaryFileRef> initScripts = getAllInitScriptFiles(project);
+            try {
+                configureBuildLauncher(targetSetup, buildLauncher, taskDef, initScripts);
+
+                try {
+                    for (BuildExecutionItem buildItem: buildItems) {
+                        outputs.add(buildItem.startBatchedOutput(command));
+                    }
+                    outputs.get(0).getTab().getIo().getIo().select();
+
+                    try (OutputRef outputRef = configureBatchedOutput(buildLauncher, outputs)) {
+                        assert outputRef != null; // Avoid warning
+                        runBuild(cancelToken, buildLauncher);
+                    }
+
+                    for (BatchedOutput output: outputs) {
+                        output.finalizeSuccessfulCommand(command);
+                    }
+                } catch (Throwable ex) {
+                    LOGGER.log(ex instanceof Exception ? Level.INFO : Level.SEVERE,
+                            "Gradle build failure: " + command,
+                            ex);
+
+                    // With --continue, the commands whose tasks were all
+                    // executed succeeded even if the build failed.
+                    for (BatchedOutput output: outputs) {
+                        if (output.getOutputTarget().isCompleted()) {
+                            output.finalizeSuccessfulCommand(command);
+                        }
+                        else {
+                            output.reportFailure(command, ex);
+                        }
+                    }
+                } finally {
+                    for (BatchedOutput output: outputs) {
+                        output.close();
+                    }
+                }
+            } finally {
+                closeAll(initScripts);
+            }
+        } finally {
+            try {
+                targetSetup.close();
+                if (projectConnection != null) {
+                    projectConnection.close();
+                }
+            } finally {
+                Map<BuildExecutionItem, Throwable> commandErrors = new HashMap<>();
+                for (BatchedOutput output: outputs) {
+                    commandErrors.put(output.getBuildItem(), output.getCommandError());
+                }
+
+                for (BuildExecutionItem buildItem: buildItems) {
+                    buildItem.getProcessedTaskDef().getCommandFinalizer().onComplete(
+                            buildItem.getCommandContext(),
+                            commandErrors.get(buildItem));
+                }
+            }
+        }
+    }
+
     private static void preSubmitGradleTask() {
         LifecycleManager.getDefault().saveAll();
     }
 
-    private static void collectTaskVars(String[] strings, List<DisplayedTaskVariable> taskVars) {
-        for (String str: strings) {
-            StandardTaskVariable.replaceVars(str, EmptyTaskVarMap.INSTANCE, taskVars);
+    private static void collectTaskVars(VariableTemplate[] templates, List<DisplayedTaskVariable> taskVars) {
+        for (VariableTemplate template: templates) {
+            template.collectVariables(taskVars);
         }
     }
 
@@ -485,9 +727,9 @@ public final class AsyncGradleTask implements Runnable {
     }
 
     private static GradleTaskDef queryUserDefinedInputOfTask(GradleTaskDef taskDef) {
-        String[] taskNames = taskDef.getTaskNamesArray();
-        String[] arguments = taskDef.getArgumentArray();
-        String[] jvmArguments = taskDef.getJvmArgumentsArray();
+        VariableTemplate[] taskNames = VariableTemplate.compileAll(taskDef.getTaskNamesArray());
+        VariableTemplate[] arguments = VariableTemplate.compileAll(taskDef.getArgumentArray());
+        VariableTemplate[] jvmArguments = VariableTemplate.compileAll(taskDef.getJvmArgumentsArray());
 
         List<DisplayedTaskVariable> taskVars = new LinkedList<>();
         collectTaskVars(taskNames, taskVars);
@@ -503,24 +745,14 @@ public final class AsyncGradleTask implements Runnable {
             return null;
         }
 
-        replaceAllVars(taskNames, varMap);
-        replaceAllVars(arguments, varMap);
-        replaceAllVars(jvmArguments, varMap);
-
         GradleTaskDef.Builder result = new GradleTaskDef.Builder(taskDef);
-        result.setTaskNames(Arrays.asList(taskNames));
-        result.setArguments(Arrays.asList(arguments));
-        result.setJvmArguments(Arrays.asList(jvmArguments));
+        result.setTaskNames(Arrays.asList(VariableTemplate.replaceAllVars(taskNames, varMap)));
+        result.setArguments(Arrays.asList(VariableTemplate.replaceAllVars(arguments, varMap)));
+        result.setJvmArguments(Arrays.asList(VariableTemplate.replaceAllVars(jvmArguments, varMap)));
         result.addNonUserTaskVariables(varMap);
         return result.create();
     }
 
-    private static void replaceAllVars(String[] strings, TaskVariableMap varMap) {
-        for (int i = 0; i < strings.length; i++) {
-            strings[i] = StandardTaskVariable.replaceVars(strings[i], varMap);
-        }
-    }
-
     private static GradleTaskDef updateGradleTaskDef(GradleTaskDef taskDef) {
         List<String> globalJvmArgs = GlobalGradleSettings.getGradleJvmArgs().getValue();
 
@@ -556,13 +788,22 @@ public final class AsyncGradleTask implements Runnable {
                 }
 
                 ProcessedCommandSpec processedSpec = tryCreateCommandSpec(commandSpec);
-                return processedSpec != null
-                        ? processedSpec.newBuildExecutionItem().getDaemonTaskDef()
-                        : null;
+                if (processedSpec == null) {
+                    return null;
+                }
+
+                BuildExecutionItem buildItem = processedSpec.newBuildExecutionItem();
+                return buildItem.tryGetBatchedTaskDef(cancelToken);
             }
         };
 
-        GradleDaemonManager.submitGradleTask(TASK_EXECUTOR, daemonTaskDefFactory, listener);
+        File rootDir = SettingsFiles.getRootDirectory(project);
+        TaskExecutor executor = getTaskExecutor(rootDir, taskDefFactory.getDisplayName());
+        GradleDaemonManager.submitGradleTask(executor, project, daemonTaskDefFactory, listener);
+    }
+
+    private static TaskExecutor getTaskExecutor(File rootDir, String displayName) {
+        return GradleTaskScheduler.getDefault().getExecutor(rootDir, GradleTaskPriority.INTERACTIVE, displayName);
     }
 
     private AsyncGradleTask adjust(GradleTaskDef taskDef) {
@@ -639,6 +880,7 @@ public final class AsyncGradleTask implements Runnable {
         private final ProcessedCommandSpec processedCommandSpec;
         private final DaemonTaskDef daemonTaskDef;
         private volatile boolean running;
+        private final AtomicBoolean started;
 
         public BuildExecutionItem(ProcessedCommandSpec processedCommandSpec) {
             assert processedCommandSpec != null;
@@ -654,12 +896,145 @@ public final class AsyncGradleTask implements Runnable {
                 }
             });
             this.running = true;
+            this.started = new AtomicBoolean(false);
         }
 
         public DaemonTaskDef getDaemonTaskDef() {
             return daemonTaskDef;
         }
 
+        private GradleTaskBatcher.Batch<BuildExecutionItem> tryAddToBatch() {
+            Integer windowMs = GlobalGradleSettings.getTaskBatchingWindowMs().getValue();
+            if (windowMs == null || windowMs <= 0) {
+                return null;
+            }
+
+            GradleTaskDef taskDef = getProcessedTaskDef();
+            if (!isBatchable(taskDef)) {
+                return null;
+            }
+
+            List<Object> key = Arrays.<Object>asList(
+                    SettingsFiles.getRootDirectory(project),
+                    taskDef.getArguments(),
+                    taskDef.getJvmArguments());
+            return BATCHER.addToBatch(key, this, windowMs, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Adds this command to a batch of compatible commands if batching is
+         * enabled and this command can be merged with other commands, and
+         * returns the task executing this command (possibly along with the
+         * other commands of the batch). Returns {@code null} if this command
+         * has already been executed by the leader of its batch.
+         * <P>
+         * Must be called by the task of the scheduler before acquiring the
+         * queue lock of the project, because the slot of the task is released
+         * while waiting for the other members of the batch.
+         * <P>
+         * If the command is canceled before the returned task is started, the
+         * command is dropped: It is not executed by the leader of its batch
+         * either.
+         */
+        public DaemonTaskDef tryGetBatchedTaskDef(CancellationToken cancelToken) {
+            try {
+                GradleTaskBatcher.Batch<BuildExecutionItem> batch = tryAddToBatch();
+                if (batch == null) {
+                    return dropOnCancel(cancelToken, null, daemonTaskDef.getTask());
+                }
+
+                if (!batch.isLeader(this)) {
+                    return batch.waitForLeader(cancelToken)
+                            ? null
+                            : dropOnCancel(cancelToken, null, daemonTaskDef.getTask());
+                }
+
+                List<BuildExecutionItem> batchItems = batch.close(cancelToken);
+                return dropOnCancel(cancelToken, batch, createLeaderTask(batch, batchItems));
+            } catch (OperationCanceledException ex) {
+                tryDrop();
+                throw ex;
+            }
+        }
+
+        private boolean tryDrop() {
+            return started.compareAndSet(false, true);
+        }
+
+        private DaemonTaskDef dropOnCancel(
+                CancellationToken cancelToken,
+                final GradleTaskBatcher.Batch<BuildExecutionItem> batch,
+                final DaemonTask task) {
+
+            final ListenerRef dropRef = cancelToken.addCancellationListener(new Runnable() {
+                @Override
+                public void run() {
+                    if (tryDrop() && batch != null) {
+                        // The members must not wait for a leader which never starts.
+                        batch.abandon();
+                    }
+                }
+            });
+
+            return new DaemonTaskDef(daemonTaskDef.getCaption(), daemonTaskDef.isNonBlocking(), new DaemonTask() {
+                @Override
+                public void run(CancellationToken cancelToken, ProgressHandle progress) {
+                    dropRef.unregister();
+                    if (started.compareAndSet(false, true)) {
+                        task.run(cancelToken, progress);
+                    }
+                }
+            });
+        }
+
+        private DaemonTask createLeaderTask(
+                final GradleTaskBatcher.Batch<BuildExecutionItem> batch,
+                final List<BuildExecutionItem> batchItems) {
+
+            return new DaemonTask() {
+                @Override
+                public void run(CancellationToken cancelToken, ProgressHandle progress) {
+                    if (!batch.tryStart()) {
+                        // The batch can only be abandoned before the leader
+                        // is started.
+                        throw new IllegalStateException("The batch has been abandoned.");
+                    }
+
+                    try {
+                        List<BuildExecutionItem> claimedItems = claimBatchItems(batchItems);
+                        if (claimedItems.size() > 1) {
+                            doBatchedGradleTasks(cancelToken, progress, claimedItems);
+                        }
+                        else {
+                            doGradleTasksWithProgress(cancelToken, progress, BuildExecutionItem.this);
+                        }
+                    } finally {
+                        batch.complete();
+                    }
+                }
+            };
+        }
+
+        /**
+         * Returns the members of the batch whose commands are to be executed
+         * by this leader. The members canceled before the build started have
+         * been dropped, so they are left out.
+         */
+        private List<BuildExecutionItem> claimBatchItems(List<BuildExecutionItem> batchItems) {
+            List<BuildExecutionItem> result = new ArrayList<>(batchItems.size());
+            for (BuildExecutionItem buildItem: batchItems) {
+                // The leader itself is already marked as started.
+                if (buildItem == this || buildItem.started.compareAndSet(false, true)) {
+                    result.add(buildItem);
+                }
+            }
+            return result;
+        }
+
+        public BatchedOutput startBatchedOutput(String command) {
+            return new BatchedOutput(this, command);
+        }
+
         public GradleTaskDef getSourceTaskDef() {
             return processedCommandSpec.getSourceTaskDef();
         }
@@ -683,7 +1058,9 @@ public final class AsyncGradleTask implements Runnable {
         @Override
         public void repeatExecution() {
             DaemonTaskDef newTaskDef = processedCommandSpec.newBuildExecutionItem().getDaemonTaskDef();
-            GradleDaemonManager.submitGradleTask(TASK_EXECUTOR, newTaskDef, listener);
+            File rootDir = SettingsFiles.getRootDirectory(project);
+            TaskExecutor executor = getTaskExecutor(rootDir, newTaskDef.getCaption());
+            GradleDaemonManager.submitGradleTask(executor, project, newTaskDef, listener);
         }
 
         public void markFinished() {
@@ -701,19 +1078,147 @@ public final class AsyncGradleTask implements Runnable {
         }
     }
 
+    private class BatchedOutput {
+        private final BuildExecutionItem buildItem;
+        private final GradleTaskDef taskDef;
+        private final IOTabRef<TaskIOTab> ioRef;
+        private final TaskIOTab tab;
+        private final OutputHandlers outputHandlers;
+        private final TaskOutputDemultiplexer.Target outputTarget;
+        private Throwable commandError;
+
+        public BatchedOutput(BuildExecutionItem buildItem, String command) {
+            this.buildItem = buildItem;
+            this.taskDef = buildItem.getProcessedTaskDef();
+
+            TaskOutputDef outputDef = taskDef.getOutputDef();
+            this.ioRef = IOTabs.taskTabs().getTab(outputDef.getKey(), outputDef.getCaption());
+            try {
+                this.tab = ioRef.getTab();
+                tab.setLastTask(buildItem.getSourceTaskDef(), adjust(taskDef));
+                tab.taskStarted();
+                BuildExecutionSupport.registerRunningItem(buildItem);
+
+                OutputWriter buildOutput = tab.getIo().getOutRef();
+                if (GlobalGradleSettings.getAlwaysClearOutput().getValue()
+                        || taskDef.isCleanOutput()) {
+                    buildOutput.reset();
+                }
+                printCommand(buildOutput, command, taskDef);
+
+                this.outputHandlers = createOutputHandlers(project, taskDef, tab);
+                this.outputTarget = new TaskOutputDemultiplexer.Target(
+                        taskDef.getTaskNames(),
+                        outputHandlers.getStdOut(),
+                        outputHandlers.getStdErr());
+            } catch (Throwable ex) {
+                ioRef.close();
+                throw ex;
+            }
+            this.commandError = null;
+        }
+
+        public BuildExecutionItem getBuildItem() {
+            return buildItem;
+        }
+
+        public TaskIOTab getTab() {
+            return tab;
+        }
+
+        public OutputHandlers getOutputHandlers() {
+            return outputHandlers;
+        }
+
+        public TaskOutputDemultiplexer.Target getOutputTarget() {
+            return outputTarget;
+        }
+
+        public Throwable getCommandError() {
+            return commandError;
+        }
+
+        public void finalizeSuccessfulCommand(String command) {
+            try {
+                InputOutputWrapper io = tab.getIo();
+                taskDef.getSuccessfulCommandFinalizer().finalizeSuccessfulCommand(
+                        io.getOutRef(),
+                        io.getErrRef());
+            } catch (Throwable ex) {
+                LOGGER.log(Level.INFO, "Failed to finalize command: " + command, ex);
+                reportFailure(command, ex);
+            }
+        }
+
+        public void reportFailure(String command, Throwable error) {
+            if (!taskDef.getCommandExceptionHider().hideException(error)) {
+                commandError = error;
+            }
+
+            String buildFailureMessage = NbStrings.getBuildFailure(command);
+
+            OutputWriter buildErrOutput = tab.getIo().getErrRef();
+            buildErrOutput.println();
+            buildErrOutput.println(buildFailureMessage);
+            if (commandError != null) {
+                project.displayError(buildFailureMessage, commandError);
+            }
+        }
+
+        public void close() {
+            try {
+                tab.taskCompleted();
+            } finally {
+                ioRef.close();
+            }
+            buildItem.markFinished();
+            BuildExecutionSupport.registerFinishedItem(buildItem);
+        }
+    }
+
+    private static final class OutputHandlers implements Closeable {
+        private final AsyncOutputHandler stdOut;
+        private final AsyncOutputHandler stdErr;
+        private final OutputRef otherOutputs;
+
+        public OutputHandlers(AsyncOutputHandler stdOut, AsyncOutputHandler stdErr, Closeable... otherOutputs) {
+            this.stdOut = stdOut;
+            this.stdErr = stdErr;
+            this.otherOutputs = new OutputRef(otherOutputs);
+        }
+
+        public AsyncOutputHandler getStdOut() {
+            return stdOut;
+        }
+
+        public AsyncOutputHandler getStdErr() {
+            return stdErr;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                stdOut.close();
+                stdErr.close();
+            } finally {
+                otherOutputs.close();
+            }
+        }
+    }
+
     private static class OutputRef implements Closeable {
-        private final Writer[] writers;
+        private final Closeable[] outputs;
 
-        public OutputRef(Writer... writers) {
-            this.writers = writers.clone();
+        public OutputRef(Closeable... outputs) {
+            this.outputs = outputs.clone();
 
-            ExceptionHelper.checkNotNullElements(this.writers, "writers");
+            ExceptionHelper.checkNotNullElements(this.outputs, "outputs");
         }
 
         @Override
         public void close() throws IOException {
-            for (Writer writer: writers) {
-                writer.close();
+            for (Closeable output: outputs) {
+                output.close();
             }
         }
     }
@@ -2,6 +2,7 @@ package org.netbeans.gradle.project.tasks;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.gradle.project.api.task.TaskVariable;
 import org.netbeans.gradle.project.api.task.TaskVariableMap;
@@ -22,10 +23,21 @@ public final class CachingVariableMap<ProjectInfo> implements TaskVariableMap {
     public static final class VariableDef<ProjectInfo> {
         private final TaskVariable variable;
         private final ValueGetter<ProjectInfo> valueGetter;
+        private final boolean contextFree;
 
         public VariableDef(TaskVariable variable, ValueGetter<ProjectInfo> valueGetter) {
+            this(variable, valueGetter, false);
+        }
+
+        /**
+         * @param contextFree {@code true} if the value of the variable does not
+         *   depend on the action context, only on the project. The values of
+         *   such variables might be stored in a {@link ContextFreeCache}.
+         */
+        public VariableDef(TaskVariable variable, ValueGetter<ProjectInfo> valueGetter, boolean contextFree) {
             this.variable = variable;
             this.valueGetter = valueGetter;
+            this.contextFree = contextFree;
         }
 
         public TaskVariable getVariable() {
@@ -36,6 +48,10 @@ public final class CachingVariableMap<ProjectInfo> implements TaskVariableMap {
             return valueGetter;
         }
 
+        public boolean isContextFree() {
+            return contextFree;
+        }
+
         public VariableValue tryGetValue(TaskVariableMap variables, ProjectInfo project, Lookup actionContext) {
             return valueGetter.getValue(variables, project, actionContext);
         }
@@ -51,16 +67,78 @@ public final class CachingVariableMap<ProjectInfo> implements TaskVariableMap {
         }
     }
 
+    /**
+     * Stores the values of the context-free variables of a project, so that
+     * they are not recomputed for each executed command. The stored values
+     * are discarded when the version of the project (i.e., the object passed
+     * to {@code CachingVariableMap}) changes.
+     */
+    public static final class ContextFreeCache {
+        private final AtomicReference<VersionedValues> valuesRef;
+
+        public ContextFreeCache() {
+            this.valuesRef = new AtomicReference<>(null);
+        }
+
+        private ConcurrentMap<TaskVariable, VariableValue> getValues(Object projectVersion) {
+            VersionedValues values = valuesRef.get();
+            if (values == null || values.projectVersion != projectVersion) {
+                VersionedValues newValues = new VersionedValues(projectVersion);
+                if (!valuesRef.compareAndSet(values, newValues)) {
+                    values = valuesRef.get();
+                    if (values == null || values.projectVersion != projectVersion) {
+                        // Another version is current, do not share the values.
+                        return newValues.values;
+                    }
+                }
+                else {
+                    values = newValues;
+                }
+            }
+            return values.values;
+        }
+    }
+
+    private static final class VersionedValues {
+        public final Object projectVersion;
+        public final ConcurrentMap<TaskVariable, VariableValue> values;
+
+        public VersionedValues(Object projectVersion) {
+            this.projectVersion = projectVersion;
+            this.values = new ConcurrentHashMap<>();
+        }
+    }
+
     private final ProjectInfo project;
     private final Lookup actionContext;
     private final VariableDefMap<ProjectInfo> taskVariableMap;
 
     private final ConcurrentMap<TaskVariable, VariableValue> cache;
+    private final ConcurrentMap<TaskVariable, VariableValue> contextFreeCache;
 
     public CachingVariableMap(
             VariableDefMap<ProjectInfo> taskVariableMap,
             ProjectInfo project,
             Lookup actionContext) {
+        this(taskVariableMap, project, actionContext, null, null);
+    }
+
+    /**
+     * @param contextFreeCache the cache storing the values of the
+     *   {@link VariableDef#isContextFree() context-free} variables. This
+     *   argument can be {@code null}, in which case context-free variables are
+     *   only cached by this map.
+     * @param projectVersion the object identifying the current state of the
+     *   project (e.g.: its model). Cached context-free values are discarded if
+     *   this object changes (compared by identity). This argument is ignored if
+     *   {@code contextFreeCache} is {@code null}.
+     */
+    public CachingVariableMap(
+            VariableDefMap<ProjectInfo> taskVariableMap,
+            ProjectInfo project,
+            Lookup actionContext,
+            ContextFreeCache contextFreeCache,
+            Object projectVersion) {
         ExceptionHelper.checkNotNullArgument(taskVariableMap, "taskVariableMap");
         ExceptionHelper.checkNotNullArgument(project, "project");
         ExceptionHelper.checkNotNullArgument(actionContext, "actionContext");
@@ -69,6 +147,9 @@ public final class CachingVariableMap<ProjectInfo> implements TaskVariableMap {
         this.actionContext = actionContext;
         this.taskVariableMap = taskVariableMap;
         this.cache = new ConcurrentHashMap<>();
+        this.contextFreeCache = contextFreeCache != null
+                ? contextFreeCache.getValues(projectVersion)
+                : cache;
     }
 
     @Override
@@ -78,11 +159,15 @@ public final class CachingVariableMap<ProjectInfo> implements TaskVariableMap {
             return null;
         }
 
-        VariableValue result = cache.get(variable);
+        ConcurrentMap<TaskVariable, VariableValue> selectedCache = var.isContextFree()
+                ? contextFreeCache
+                : cache;
+
+        VariableValue result = selectedCache.get(variable);
         if (result == null) {
             result = var.tryGetValue(this, project, actionContext);
 
-            VariableValue prevResult = cache.putIfAbsent(variable, result);
+            VariableValue prevResult = selectedCache.putIfAbsent(variable, result);
             if (prevResult != null) {
                 result = prevResult;
             }
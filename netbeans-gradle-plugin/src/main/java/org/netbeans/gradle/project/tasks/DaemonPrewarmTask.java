@@ -0,0 +1,231 @@
+package org.netbeans.gradle.project.tasks;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.gradle.tooling.BuildLauncher;
+import org.gradle.tooling.GradleConnector;
+import org.gradle.tooling.ModelBuilder;
+import org.gradle.tooling.ProjectConnection;
+import org.gradle.tooling.model.build.BuildEnvironment;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.TaskExecutor;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.gradle.project.NbGradleProject;
+import org.netbeans.gradle.project.NbStrings;
+import org.netbeans.gradle.project.api.task.CommandCompleteListener;
+import org.netbeans.gradle.project.model.GradleModelLoader;
+import org.netbeans.gradle.project.properties.DaemonPrewarmMode;
+import org.netbeans.gradle.project.properties.GlobalGradleSettings;
+import org.netbeans.gradle.project.properties.SettingsFiles;
+import org.openide.util.Utilities;
+
+/**
+ * Starts the Gradle daemon of a project in the background, so that the first
+ * build of the user does not have to wait for the daemon to start. The daemon
+ * is started with the same connector settings, Java home and JVM arguments
+ * as builds without command specific JVM arguments, so that they can reuse
+ * it.
+ * <P>
+ * Pre-warming is skipped if a daemon of the same root project was used within
+ * the idle timeout of daemons (that is, the daemon is probably still running),
+ * if the computer is on battery or if there is not much free memory. Since the
+ * pre-warming task is queued on the same daemon queue as the model loads of
+ * the project, it is also skipped if the project is loaded before the
+ * pre-warming task could run.
+ */
+public final class DaemonPrewarmTask implements DaemonTask {
+    private static final Logger LOGGER = Logger.getLogger(DaemonPrewarmTask.class.getName());
+
+    // The task executed to evaluate the build. It is available in every
+    // build and does not do anything expensive.
+    private static final String NO_OP_TASK = "help";
+
+    // The default of Gradle.
+    private static final long DEFAULT_DAEMON_TIMEOUT_SEC = TimeUnit.HOURS.toSeconds(3);
+    private static final long MIN_FREE_MEMORY = 512L * 1024 * 1024;
+    private static final File POWER_SUPPLY_DIR = new File("/sys/class/power_supply");
+
+    // Maps root directories to the time (System.nanoTime()) their daemon
+    // was last used.
+    private static final ConcurrentMap<File, Long> LAST_DAEMON_USES = new ConcurrentHashMap<>();
+
+    // The root directories having a pre-warming task submitted.
+    private static final ConcurrentMap<File, Boolean> PENDING_PREWARMS = new ConcurrentHashMap<>();
+
+    private final NbGradleProject project;
+    private final boolean evaluateBuild;
+
+    public DaemonPrewarmTask(NbGradleProject project, boolean evaluateBuild) {
+        ExceptionHelper.checkNotNullArgument(project, "project");
+
+        this.project = project;
+        this.evaluateBuild = evaluateBuild;
+    }
+
+    public static DaemonTaskDef createTaskDef(NbGradleProject project, boolean evaluateBuild) {
+        return new DaemonTaskDef(
+                NbStrings.getPrewarmDaemonProgressCaption(),
+                true,
+                new DaemonPrewarmTask(project, evaluateBuild));
+    }
+
+    /**
+     * Records that the daemon of the given root project has just been used,
+     * so that it is not pre-warmed needlessly.
+     */
+    public static void markDaemonUsed(File rootDir) {
+        ExceptionHelper.checkNotNullArgument(rootDir, "rootDir");
+
+        LAST_DAEMON_USES.put(rootDir.getAbsoluteFile(), System.nanoTime());
+    }
+
+    private static long getDaemonTimeoutNanos() {
+        Integer timeoutSec = GlobalGradleSettings.getGradleDaemonTimeoutSec().getValue();
+        long result = timeoutSec != null ? timeoutSec : DEFAULT_DAEMON_TIMEOUT_SEC;
+        return TimeUnit.SECONDS.toNanos(result);
+    }
+
+    private static boolean isDaemonUsedRecently(File rootDir) {
+        Long lastUse = LAST_DAEMON_USES.get(rootDir.getAbsoluteFile());
+        return lastUse != null && System.nanoTime() - lastUse < getDaemonTimeoutNanos();
+    }
+
+    private static String tryReadFirstLine(File file) {
+        try {
+            List<String> lines = Files.readAllLines(file.toPath(), Charset.forName("UTF-8"));
+            return lines.isEmpty() ? null : lines.get(0).trim();
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    // Only Linux is supported, we assume AC power on other systems.
+    private static boolean isOnBattery() {
+        if (!Utilities.isUnix() || !POWER_SUPPLY_DIR.isDirectory()) {
+            return false;
+        }
+
+        File[] powerSupplies = POWER_SUPPLY_DIR.listFiles();
+        if (powerSupplies == null) {
+            return false;
+        }
+
+        for (File powerSupply: powerSupplies) {
+            if ("Battery".equals(tryReadFirstLine(new File(powerSupply, "type")))
+                    && "Discharging".equals(tryReadFirstLine(new File(powerSupply, "status")))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLowOnMemory() {
+        OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+        if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+            long freeMemory = ((com.sun.management.OperatingSystemMXBean)osBean).getFreePhysicalMemorySize();
+            return freeMemory < MIN_FREE_MEMORY;
+        }
+        return false;
+    }
+
+    private static boolean shouldSkipPrewarm(File rootDir) {
+        if (isDaemonUsedRecently(rootDir)) {
+            LOGGER.log(Level.FINE, "Daemon was used recently, no need to pre-warm it: {0}", rootDir);
+            return true;
+        }
+
+        if (isOnBattery() || isLowOnMemory()) {
+            LOGGER.log(Level.INFO, "Skipping daemon pre-warm due to battery or low memory: {0}", rootDir);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Pre-warms the daemon of the given project if it is enabled in the global
+     * settings. This method is called when the project is opened (including
+     * the projects reopened when the IDE starts) and returns immediately.
+     */
+    public static void prewarmIfEnabled(NbGradleProject project) {
+        ExceptionHelper.checkNotNullArgument(project, "project");
+
+        DaemonPrewarmMode mode = GlobalGradleSettings.getDaemonPrewarmMode().getValue();
+        if (mode == null || !mode.isStartDaemon()) {
+            return;
+        }
+
+        // Before the project is loaded, this is the directory of the nearest
+        // settings.gradle.
+        final File rootDir = SettingsFiles.getRootDirectory(project).getAbsoluteFile();
+        if (shouldSkipPrewarm(rootDir)) {
+            return;
+        }
+
+        if (PENDING_PREWARMS.putIfAbsent(rootDir, Boolean.TRUE) != null) {
+            return;
+        }
+
+        DaemonTaskDef taskDef = createTaskDef(project, mode.isEvaluateBuild());
+        TaskExecutor executor = GradleTaskScheduler.getDefault().getExecutor(
+                rootDir,
+                GradleTaskPriority.BACKGROUND,
+                taskDef.getCaption());
+        GradleDaemonManager.submitGradleTask(executor, project, taskDef, new CommandCompleteListener() {
+            @Override
+            public void onComplete(Throwable error) {
+                PENDING_PREWARMS.remove(rootDir);
+                if (error != null) {
+                    LOGGER.log(Level.INFO, "Failed to pre-warm the Gradle daemon.", error);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void run(CancellationToken cancelToken, ProgressHandle progress) {
+        // Model loads and builds of the same root are serialized with this
+        // task, so check again: The project might have been loaded since.
+        File rootDir = SettingsFiles.getRootDirectory(project);
+        if (shouldSkipPrewarm(rootDir)) {
+            return;
+        }
+
+        GradleConnector connector = GradleModelLoader.createGradleConnector(cancelToken, project);
+        connector.forProjectDirectory(project.getProjectDirectoryAsFile());
+
+        ProjectConnection connection = connector.connect();
+        markDaemonUsed(rootDir);
+
+        try (GradleModelLoader.ModelBuilderSetup setup = new GradleModelLoader.ModelBuilderSetup(
+                project,
+                Collections.<String>emptyList(),
+                GlobalGradleSettings.getGradleJvmArgs().getValue(),
+                progress)) {
+            if (evaluateBuild) {
+                BuildLauncher buildLauncher = connection.newBuild();
+                GradleModelLoader.setupLongRunningOP(setup, buildLauncher);
+                buildLauncher.forTasks(NO_OP_TASK);
+                buildLauncher.run();
+            }
+            else {
+                ModelBuilder<BuildEnvironment> builder = connection.model(BuildEnvironment.class);
+                GradleModelLoader.setupLongRunningOP(setup, builder);
+                builder.get();
+            }
+        } finally {
+            connection.close();
+        }
+    }
+}
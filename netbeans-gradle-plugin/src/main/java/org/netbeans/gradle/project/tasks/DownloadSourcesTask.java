@@ -9,7 +9,6 @@ import org.jtrim.cancel.CancellationToken;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.api.progress.ProgressHandle;
 import org.netbeans.api.project.Project;
-import org.netbeans.gradle.model.OperationInitializer;
 import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.NbStrings;
 import org.netbeans.gradle.project.model.GradleModelLoader;
@@ -42,13 +41,11 @@ public final class DownloadSourcesTask implements DaemonTask {
 
         connector.forProjectDirectory(projectDir);
 
-        OperationInitializer setup = GradleModelLoader.modelBuilderSetup(project, progress);
-
         // FIXME: Currently we just fetch IdeaProject and rely on that to fetch
         //   the sources. Then the source locator query will find the sources
         //   in the Gradle cache.
         ProjectConnection connection = connector.connect();
-        try {
+        try (GradleModelLoader.ModelBuilderSetup setup = GradleModelLoader.modelBuilderSetup(project, progress)) {
             ModelBuilder<IdeaProject> builder = connection.model(IdeaProject.class);
             GradleModelLoader.setupLongRunningOP(setup, builder);
 
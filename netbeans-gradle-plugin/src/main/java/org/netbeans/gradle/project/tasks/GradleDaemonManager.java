@@ -1,8 +1,16 @@
 package org.netbeans.gradle.project.tasks;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -17,69 +25,171 @@ import org.jtrim.concurrent.TaskExecutor;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.api.progress.ProgressHandle;
 import org.netbeans.api.progress.ProgressHandleFactory;
+import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.api.task.CommandCompleteListener;
+import org.netbeans.gradle.project.properties.SettingsFiles;
 import org.openide.util.Cancellable;
 
 public final class GradleDaemonManager {
     private static final Logger LOGGER = Logger.getLogger(GradleDaemonManager.class.getName());
 
-    private static final ReentrantLock QUEUE_LOCK = new ReentrantLock(true);
+    // Tasks of different root builds never wait for each other, since
+    // they are executed by different daemons (or at least the daemons do not
+    // block each other).
+    //
+    // Stripes are removed when no submitted task refers to them.
+    private static final Lock QUEUE_LOCKS_LOCK = new ReentrantLock();
+    private static final Map<File, LockStripe> QUEUE_LOCKS = new HashMap<>();
+
+    private static final ThreadLocal<Integer> HELD_QUEUE_LOCK_COUNT = new ThreadLocal<>();
+
+    private static File getQueueKey(NbGradleProject project) {
+        // Before the project is loaded, this is the directory of the nearest
+        // settings.gradle which is usually the actual root build as well.
+        // If it is not, the task is moved to the stripe of the actual root
+        // build when it is started after the project has been loaded.
+        return SettingsFiles.getRootDirectory(project).getAbsoluteFile();
+    }
+
+    private static LockStripe acquireQueueLock(File key) {
+        QUEUE_LOCKS_LOCK.lock();
+        try {
+            LockStripe result = QUEUE_LOCKS.get(key);
+            if (result == null) {
+                result = new LockStripe(key);
+                QUEUE_LOCKS.put(key, result);
+            }
+            result.refCount++;
+            return result;
+        } finally {
+            QUEUE_LOCKS_LOCK.unlock();
+        }
+    }
+
+    private static void releaseQueueLock(LockStripe queueLock) {
+        QUEUE_LOCKS_LOCK.lock();
+        try {
+            queueLock.refCount--;
+            if (queueLock.refCount <= 0) {
+                QUEUE_LOCKS.remove(queueLock.rootDir);
+            }
+        } finally {
+            QUEUE_LOCKS_LOCK.unlock();
+        }
+    }
+
+    private static List<LockStripe> getQueueLocks() {
+        QUEUE_LOCKS_LOCK.lock();
+        try {
+            return new ArrayList<>(QUEUE_LOCKS.values());
+        } finally {
+            QUEUE_LOCKS_LOCK.unlock();
+        }
+    }
+
+    private static void addHeldQueueLockCount(int delta) {
+        Integer prevCount = HELD_QUEUE_LOCK_COUNT.get();
+        int newCount = (prevCount != null ? prevCount : 0) + delta;
+        if (newCount > 0) {
+            HELD_QUEUE_LOCK_COUNT.set(newCount);
+        }
+        else {
+            HELD_QUEUE_LOCK_COUNT.remove();
+        }
+    }
+
+    private static void lockWithoutSlot(CancellationToken cancelToken, LockStripe queueLock) {
+        if (queueLock.tryLockWithoutWait()) {
+            return;
+        }
+
+        // Do not prevent the scheduler from starting tasks of other root
+        // builds (or blocking tasks of this root) while we are waiting.
+        GradleTaskScheduler.ReleasedSlot slot = GradleTaskScheduler.releaseCurrentSlot();
+        queueLock.lock(cancelToken);
+        try {
+            slot.reacquire(cancelToken);
+        } catch (Throwable ex) {
+            queueLock.unlock();
+            throw ex;
+        }
+    }
 
     private static void runNonBlockingGradleTask(
             CancellationToken cancelToken,
+            ProjectQueueLock queueLock,
             DaemonTask task,
             ProgressHandle progress) {
 
-        CancelableWaits.lock(cancelToken, QUEUE_LOCK);
+        queueLock.lock(cancelToken);
         try {
             progress.switchToIndeterminate();
             task.run(cancelToken, progress);
         } finally{
-            QUEUE_LOCK.unlock();
+            queueLock.unlock();
         }
     }
 
     private static void runBlockingGradleTask(
             CancellationToken cancelToken,
+            ProjectQueueLock queueLock,
             DaemonTask task,
             ProgressHandle progress) {
 
         // This lock/unlock is here only to wait for pending non-blocking tasks.
-        CancelableWaits.lock(cancelToken, QUEUE_LOCK);
-        QUEUE_LOCK.unlock();
+        queueLock.lock(cancelToken);
+        queueLock.unlock();
 
         progress.switchToIndeterminate();
         task.run(cancelToken, progress);
     }
 
     public static boolean isRunningExclusiveTask() {
-        return QUEUE_LOCK.isHeldByCurrentThread();
+        return HELD_QUEUE_LOCK_COUNT.get() != null;
+    }
+
+    /**
+     * Returns the statistics of the daemon queue locks currently in use.
+     */
+    public static List<QueueLockStatistics> getQueueLockStatistics() {
+        List<LockStripe> queueLocks = getQueueLocks();
+        List<QueueLockStatistics> result = new ArrayList<>(queueLocks.size());
+        for (LockStripe queueLock: queueLocks) {
+            result.add(queueLock.getStatistics());
+        }
+        return result;
     }
 
     public static void submitGradleTask(
             TaskExecutor executor,
+            NbGradleProject project,
             String caption,
             DaemonTask task,
             boolean nonBlocking,
             CommandCompleteListener listener) {
-        submitGradleTask(executor, new DaemonTaskDef(caption, nonBlocking, task), listener);
+        submitGradleTask(executor, project, new DaemonTaskDef(caption, nonBlocking, task), listener);
     }
 
     public static void submitGradleTask(
             TaskExecutor executor,
+            NbGradleProject project,
             final DaemonTaskDef taskDef,
             CommandCompleteListener listener) {
-        submitGradleTask(executor, taskDef.toFactory(), listener);
+        submitGradleTask(executor, project, taskDef.toFactory(), listener);
     }
 
     public static void submitGradleTask(
             TaskExecutor executor,
+            NbGradleProject project,
             final DaemonTaskDefFactory taskDefFactory,
             final CommandCompleteListener listener) {
         ExceptionHelper.checkNotNullArgument(executor, "executor");
+        ExceptionHelper.checkNotNullArgument(project, "project");
         ExceptionHelper.checkNotNullArgument(taskDefFactory, "taskDefFactory");
         ExceptionHelper.checkNotNullArgument(listener, "listener");
 
+        final ProjectQueueLock queueLock = new ProjectQueueLock(project);
+
         final CancellationSource cancel = Cancellation.createCancellationSource();
         final String origDisplayName = taskDefFactory.getDisplayName();
 
@@ -123,10 +233,10 @@ public final class GradleDaemonManager {
                 }
 
                 if (nonBlocking) {
-                    runNonBlockingGradleTask(cancelToken, task, progress.getCurrentHandle());
+                    runNonBlockingGradleTask(cancelToken, queueLock, task, progress.getCurrentHandle());
                 }
                 else {
-                    runBlockingGradleTask(cancelToken, task, progress.getCurrentHandle());
+                    runBlockingGradleTask(cancelToken, queueLock, task, progress.getCurrentHandle());
                 }
             }
         }, new CleanupTask() {
@@ -137,6 +247,7 @@ public final class GradleDaemonManager {
                         listener.onComplete(error);
                     }
                 } finally {
+                    queueLock.release();
                     progress.finish();
                 }
 
@@ -147,6 +258,144 @@ public final class GradleDaemonManager {
         });
     }
 
+    public static final class QueueLockStatistics {
+        private final File rootDir;
+        private final long lockCount;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+
+        private QueueLockStatistics(File rootDir, long lockCount, long totalWaitNanos, long maxWaitNanos) {
+            this.rootDir = rootDir;
+            this.lockCount = lockCount;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        public File getRootDir() {
+            return rootDir;
+        }
+
+        public long getLockCount() {
+            return lockCount;
+        }
+
+        public long getTotalWaitTime(TimeUnit unit) {
+            return unit.convert(totalWaitNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public long getMaxWaitTime(TimeUnit unit) {
+            return unit.convert(maxWaitNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString() {
+            return "QueueLockStatistics{" + "rootDir=" + rootDir
+                    + ", lockCount=" + lockCount
+                    + ", totalWaitMs=" + getTotalWaitTime(TimeUnit.MILLISECONDS)
+                    + ", maxWaitMs=" + getMaxWaitTime(TimeUnit.MILLISECONDS) + '}';
+        }
+    }
+
+    private static final class ProjectQueueLock {
+        private final NbGradleProject project;
+        private volatile LockStripe stripe;
+
+        public ProjectQueueLock(NbGradleProject project) {
+            this.project = project;
+            this.stripe = acquireQueueLock(getQueueKey(project));
+        }
+
+        public void lock(CancellationToken cancelToken) {
+            while (true) {
+                LockStripe currentStripe = stripe;
+                lockWithoutSlot(cancelToken, currentStripe);
+
+                File key = getQueueKey(project);
+                if (key.equals(currentStripe.rootDir)) {
+                    return;
+                }
+
+                // The project was loaded since the task was submitted and it
+                // turned out to belong to another root build.
+                currentStripe.unlock();
+                stripe = acquireQueueLock(key);
+                releaseQueueLock(currentStripe);
+            }
+        }
+
+        public void unlock() {
+            stripe.unlock();
+        }
+
+        public void release() {
+            releaseQueueLock(stripe);
+        }
+    }
+
+    private static final class LockStripe {
+        private final File rootDir;
+        private final ReentrantLock lock;
+        private final AtomicLong lockCount;
+        private final AtomicLong totalWaitNanos;
+        private final AtomicLong maxWaitNanos;
+
+        // Only accessed while holding QUEUE_LOCKS_LOCK.
+        private int refCount;
+
+        public LockStripe(File rootDir) {
+            this.rootDir = rootDir;
+            this.lock = new ReentrantLock(true);
+            this.lockCount = new AtomicLong(0);
+            this.totalWaitNanos = new AtomicLong(0);
+            this.maxWaitNanos = new AtomicLong(0);
+            this.refCount = 0;
+        }
+
+        public void lock(CancellationToken cancelToken) {
+            long startTime = System.nanoTime();
+            CancelableWaits.lock(cancelToken, lock);
+            addHeldQueueLockCount(1);
+            recordWait(System.nanoTime() - startTime);
+        }
+
+        public boolean tryLockWithoutWait() {
+            // Unlike tryLock(), this does not barge in front of waiting threads.
+            if (lock.hasQueuedThreads() || !lock.tryLock()) {
+                return false;
+            }
+            addHeldQueueLockCount(1);
+            recordWait(0);
+            return true;
+        }
+
+        public void unlock() {
+            addHeldQueueLockCount(-1);
+            lock.unlock();
+        }
+
+        private void recordWait(long waitNanos) {
+            lockCount.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+
+            long prevMax;
+            do {
+                prevMax = maxWaitNanos.get();
+                if (prevMax >= waitNanos) {
+                    break;
+                }
+            } while (!maxWaitNanos.compareAndSet(prevMax, waitNanos));
+
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, "Waited {0} ms for the daemon queue of {1}",
+                        new Object[]{TimeUnit.NANOSECONDS.toMillis(waitNanos), rootDir});
+            }
+        }
+
+        public QueueLockStatistics getStatistics() {
+            return new QueueLockStatistics(rootDir, lockCount.get(), totalWaitNanos.get(), maxWaitNanos.get());
+        }
+    }
+
     private static final class ReplaceableProgressHandle {
         private final AtomicReference<ProgressHandle> handleRef;
         private final CancellationController cancelController;
@@ -0,0 +1,270 @@
+package org.netbeans.gradle.project.tasks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim.cancel.CancelableWaits;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.cancel.OperationCanceledException;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Collects compatible commands submitted within a short time window, so that
+ * they can be executed by a single Gradle build.
+ * <P>
+ * The first member of a batch is its leader. The leader waits for the window
+ * to elapse, then executes the commands of all the members and completes the
+ * batch. The other members only have to wait for the batch to complete. If
+ * the leader is canceled before starting to execute the commands, the batch
+ * is abandoned and its members have to execute their commands themselves.
+ * <P>
+ * The members (including the leader) are expected to be tasks of a
+ * {@link GradleTaskScheduler} not yet holding any other lock. Waiting for the
+ * window or for the leader {@link GradleTaskScheduler#releaseCurrentSlot() releases}
+ * the slot of the task, so that waiting members do not prevent other tasks
+ * from being started.
+ */
+final class GradleTaskBatcher<Member> {
+    private final Lock mainLock;
+    private final Map<Object, Batch<Member>> openBatches;
+
+    public GradleTaskBatcher() {
+        this.mainLock = new ReentrantLock();
+        this.openBatches = new HashMap<>();
+    }
+
+    /**
+     * Adds the given member to the open batch of the given key or opens a new
+     * batch (with the given member as its leader) if there is no open batch
+     * for the key.
+     */
+    public Batch<Member> addToBatch(Object key, Member member, long window, TimeUnit unit) {
+        ExceptionHelper.checkNotNullArgument(key, "key");
+        ExceptionHelper.checkNotNullArgument(member, "member");
+        ExceptionHelper.checkArgumentInRange(window, 0, Long.MAX_VALUE, "window");
+        ExceptionHelper.checkNotNullArgument(unit, "unit");
+
+        mainLock.lock();
+        try {
+            Batch<Member> batch = openBatches.get(key);
+            if (batch != null && batch.tryAddMember(member)) {
+                return batch;
+            }
+
+            batch = new Batch<>(this, key, member, System.nanoTime() + unit.toNanos(window));
+            openBatches.put(key, batch);
+            return batch;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private void removeBatch(Object key, Batch<Member> batch) {
+        mainLock.lock();
+        try {
+            if (openBatches.get(key) == batch) {
+                openBatches.remove(key);
+            }
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private enum BatchState {
+        OPEN,
+        CLOSED,
+        RUNNING,
+        COMPLETED,
+        ABANDONED
+    }
+
+    public static final class Batch<Member> {
+        private final GradleTaskBatcher<Member> batcher;
+        private final Object key;
+        private final Member leader;
+        private final long closeTime;
+
+        private final Lock batchLock;
+        private final Condition stateChangeSignal;
+        private final List<Member> members;
+        private BatchState state;
+
+        private Batch(GradleTaskBatcher<Member> batcher, Object key, Member leader, long closeTime) {
+            this.batcher = batcher;
+            this.key = key;
+            this.leader = leader;
+            this.closeTime = closeTime;
+
+            this.batchLock = new ReentrantLock();
+            this.stateChangeSignal = batchLock.newCondition();
+            this.members = new ArrayList<>();
+            this.members.add(leader);
+            this.state = BatchState.OPEN;
+        }
+
+        public boolean isLeader(Member member) {
+            return leader == member;
+        }
+
+        private boolean tryAddMember(Member member) {
+            batchLock.lock();
+            try {
+                if (state != BatchState.OPEN) {
+                    return false;
+                }
+                members.add(member);
+                return true;
+            } finally {
+                batchLock.unlock();
+            }
+        }
+
+        private void setState(BatchState newState) {
+            assert ((ReentrantLock)batchLock).isHeldByCurrentThread();
+
+            state = newState;
+            stateChangeSignal.signalAll();
+        }
+
+        /**
+         * Waits for the window of this batch to elapse and returns the members
+         * of this batch. The first element of the returned list is the leader.
+         * This method may only be called by the leader, which must call
+         * {@link #tryStart() tryStart} before executing the commands and
+         * {@link #complete() complete} after executing them.
+         */
+        public List<Member> close(CancellationToken cancelToken) {
+            ExceptionHelper.checkNotNullArgument(cancelToken, "cancelToken");
+
+            GradleTaskScheduler.ReleasedSlot slot = GradleTaskScheduler.releaseCurrentSlot();
+            List<Member> result = closeWithoutSlot(cancelToken);
+            try {
+                slot.reacquire(cancelToken);
+            } catch (Throwable ex) {
+                abandon();
+                throw ex;
+            }
+            return result;
+        }
+
+        private List<Member> closeWithoutSlot(CancellationToken cancelToken) {
+            List<Member> result;
+            batchLock.lock();
+            try {
+                try {
+                    long remaining = closeTime - System.nanoTime();
+                    while (state == BatchState.OPEN && remaining > 0) {
+                        CancelableWaits.await(cancelToken, remaining, TimeUnit.NANOSECONDS, stateChangeSignal);
+                        remaining = closeTime - System.nanoTime();
+                    }
+                } catch (OperationCanceledException ex) {
+                    abandonLocked();
+                    throw ex;
+                }
+
+                if (state != BatchState.OPEN) {
+                    throw new OperationCanceledException();
+                }
+
+                setState(BatchState.CLOSED);
+                result = new ArrayList<>(members);
+            } finally {
+                batchLock.unlock();
+            }
+
+            batcher.removeBatch(key, this);
+            return result;
+        }
+
+        /**
+         * Marks the commands of this batch as being executed by the leader.
+         * Returns {@code false} if the batch has been abandoned, in which case
+         * the leader must not execute the commands of the members.
+         */
+        public boolean tryStart() {
+            batchLock.lock();
+            try {
+                if (state != BatchState.CLOSED) {
+                    return false;
+                }
+                setState(BatchState.RUNNING);
+                return true;
+            } finally {
+                batchLock.unlock();
+            }
+        }
+
+        /**
+         * Notifies the members that the leader has executed their commands.
+         * Does nothing if the batch has not been {@link #tryStart() started}.
+         */
+        public void complete() {
+            batchLock.lock();
+            try {
+                if (state == BatchState.RUNNING) {
+                    setState(BatchState.COMPLETED);
+                }
+            } finally {
+                batchLock.unlock();
+            }
+        }
+
+        private void abandonLocked() {
+            if (state == BatchState.OPEN || state == BatchState.CLOSED) {
+                setState(BatchState.ABANDONED);
+            }
+        }
+
+        /**
+         * Abandons this batch if the leader has not started executing the
+         * commands of this batch yet. Does nothing if the batch has already
+         * been started.
+         */
+        public void abandon() {
+            batchLock.lock();
+            try {
+                abandonLocked();
+            } finally {
+                batchLock.unlock();
+            }
+
+            batcher.removeBatch(key, this);
+        }
+
+        /**
+         * Waits until the leader completes or abandons this batch. Returns
+         * {@code true} if the leader has executed the commands of the members,
+         * {@code false} if the batch was abandoned. The slot of the calling
+         * task is only reacquired if the batch was abandoned, because only
+         * then does the member have to execute its own command.
+         */
+        public boolean waitForLeader(CancellationToken cancelToken) {
+            ExceptionHelper.checkNotNullArgument(cancelToken, "cancelToken");
+
+            GradleTaskScheduler.ReleasedSlot slot = GradleTaskScheduler.releaseCurrentSlot();
+            if (waitForLeaderWithoutSlot(cancelToken)) {
+                return true;
+            }
+
+            slot.reacquire(cancelToken);
+            return false;
+        }
+
+        private boolean waitForLeaderWithoutSlot(CancellationToken cancelToken) {
+            batchLock.lock();
+            try {
+                while (state != BatchState.COMPLETED && state != BatchState.ABANDONED) {
+                    CancelableWaits.await(cancelToken, stateChangeSignal);
+                }
+                return state == BatchState.COMPLETED;
+            } finally {
+                batchLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.netbeans.gradle.project.tasks;
+
+// Note: The order of the constants matter, tasks with a priority declared
+//       earlier are started before tasks with a priority declared later.
+public enum GradleTaskPriority {
+    INTERACTIVE,
+    NORMAL,
+    BACKGROUND;
+
+    public boolean isHigherThan(GradleTaskPriority other) {
+        return compareTo(other) < 0;
+    }
+}
@@ -0,0 +1,629 @@
+package org.netbeans.gradle.project.tasks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.swing.event.ChangeListener;
+import org.jtrim.cancel.CancelableWaits;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationSource;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.concurrent.CleanupTask;
+import org.jtrim.concurrent.TaskExecutor;
+import org.jtrim.event.ListenerRef;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.NbTaskExecutors;
+import org.netbeans.gradle.project.properties.GlobalGradleSettings;
+import org.netbeans.gradle.project.properties.MutableProperty;
+import org.openide.util.ChangeSupport;
+
+/**
+ * Limits the number of concurrently executing Gradle commands globally and
+ * per root build. Tasks waiting for a free slot are kept in a queue ordered by
+ * their {@link GradleTaskPriority priority} which can be inspected, reordered
+ * and canceled.
+ * <P>
+ * Note that this scheduler only decides when a task may start. The
+ * {@link DaemonTaskDef#isNonBlocking() non-blocking} tasks are still
+ * serialized by {@link GradleDaemonManager}. Tasks waiting for each other
+ * should {@link #releaseCurrentSlot() release} their slot while waiting, so
+ * that they do not prevent unrelated tasks from being started.
+ */
+public final class GradleTaskScheduler {
+    private static final GradleTaskScheduler DEFAULT = new GradleTaskScheduler(
+            NbTaskExecutors.newExecutor("Gradle-Task-Executor", Integer.MAX_VALUE),
+            GlobalGradleSettings.getMaxConcurrentGradleTasks(),
+            GlobalGradleSettings.getMaxConcurrentGradleTasksPerRoot());
+
+    private static final int DEFAULT_PER_ROOT_LIMIT = 2;
+
+    private static final ThreadLocal<RunningSlot> CURRENT_SLOT = new ThreadLocal<>();
+
+    private static final ReleasedSlot NO_SLOT = new ReleasedSlot() {
+        @Override
+        public void reacquire(CancellationToken cancelToken) {
+        }
+    };
+
+    private final TaskExecutor workerExecutor;
+    private final MutableProperty<Integer> globalLimit;
+    private final MutableProperty<Integer> perRootLimit;
+
+    private final Lock mainLock;
+    private final List<QueuedTask> queue;
+    private final Condition slotFreedSignal;
+    private final Map<File, Integer> runningPerRoot;
+    private final Map<File, Integer> reacquiringPerRoot;
+    private int runningCount;
+    private int reacquiringCount;
+    private long nextTaskId;
+
+    private final ChangeSupport queueChanges;
+
+    GradleTaskScheduler(
+            TaskExecutor workerExecutor,
+            MutableProperty<Integer> globalLimit,
+            MutableProperty<Integer> perRootLimit) {
+        ExceptionHelper.checkNotNullArgument(workerExecutor, "workerExecutor");
+        ExceptionHelper.checkNotNullArgument(globalLimit, "globalLimit");
+        ExceptionHelper.checkNotNullArgument(perRootLimit, "perRootLimit");
+
+        this.workerExecutor = workerExecutor;
+        this.globalLimit = globalLimit;
+        this.perRootLimit = perRootLimit;
+        this.mainLock = new ReentrantLock();
+        this.queue = new LinkedList<>();
+        this.slotFreedSignal = mainLock.newCondition();
+        this.runningPerRoot = new HashMap<>();
+        this.reacquiringPerRoot = new HashMap<>();
+        this.runningCount = 0;
+        this.reacquiringCount = 0;
+        this.nextTaskId = 0;
+        this.queueChanges = new ChangeSupport(this);
+    }
+
+    public static GradleTaskScheduler getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns an executor submitting tasks to this scheduler. Tasks submitted
+     * to the returned executor are counted against the limit of the given
+     * root build.
+     */
+    public TaskExecutor getExecutor(
+            final File rootDir,
+            final GradleTaskPriority priority,
+            final String displayName) {
+        ExceptionHelper.checkNotNullArgument(rootDir, "rootDir");
+        ExceptionHelper.checkNotNullArgument(priority, "priority");
+        ExceptionHelper.checkNotNullArgument(displayName, "displayName");
+
+        return new TaskExecutor() {
+            @Override
+            public void execute(CancellationToken cancelToken, CancelableTask task, CleanupTask cleanupTask) {
+                ExceptionHelper.checkNotNullArgument(cancelToken, "cancelToken");
+                ExceptionHelper.checkNotNullArgument(task, "task");
+
+                submit(rootDir, priority, displayName, cancelToken, task, cleanupTask);
+            }
+        };
+    }
+
+    /**
+     * Releases the slot of the task of a scheduler executing on the current
+     * thread, so that other tasks can be started while the current task waits
+     * for something not requiring a slot (e.g., for another task of the same
+     * root build). The slot must be reacquired through the returned reference
+     * before the task continues its actual work.
+     * <P>
+     * If the current thread is not executing a task of a scheduler, this
+     * method does nothing and the returned reference does nothing as well.
+     */
+    public static ReleasedSlot releaseCurrentSlot() {
+        RunningSlot slot = CURRENT_SLOT.get();
+        if (slot == null) {
+            return NO_SLOT;
+        }
+
+        slot.release();
+        return slot;
+    }
+
+    public void addQueueChangeListener(ChangeListener listener) {
+        queueChanges.addChangeListener(listener);
+    }
+
+    public void removeQueueChangeListener(ChangeListener listener) {
+        queueChanges.removeChangeListener(listener);
+    }
+
+    public int getNumberOfRunningTasks() {
+        mainLock.lock();
+        try {
+            return runningCount;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the tasks waiting for execution in the order they will be
+     * started (assuming that no per root limit is hit).
+     */
+    public List<QueuedTaskInfo> getQueuedTasks() {
+        mainLock.lock();
+        try {
+            List<QueuedTaskInfo> result = new ArrayList<>(queue.size());
+            for (QueuedTask task: queue) {
+                result.add(task.info);
+            }
+            return result;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    public boolean cancelQueuedTask(long taskId) {
+        QueuedTask task = findQueuedTask(taskId);
+        if (task == null) {
+            return false;
+        }
+
+        task.queueCancel.getController().cancel();
+        return true;
+    }
+
+    /**
+     * Moves the given task to the head of the queue regardless of its
+     * priority, so that it will be the next task to be started.
+     */
+    public boolean moveToFront(long taskId) {
+        boolean moved;
+        mainLock.lock();
+        try {
+            QueuedTask task = removeQueuedTaskUnlocked(taskId);
+            moved = task != null;
+            if (moved) {
+                queue.add(0, task);
+            }
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (moved) {
+            queueChanges.fireChange();
+        }
+        return moved;
+    }
+
+    /**
+     * Moves the given task to the tail of the queue regardless of its
+     * priority, so that it will be started after every other queued task.
+     */
+    public boolean moveToBack(long taskId) {
+        boolean moved;
+        mainLock.lock();
+        try {
+            QueuedTask task = removeQueuedTaskUnlocked(taskId);
+            moved = task != null;
+            if (moved) {
+                queue.add(task);
+            }
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (moved) {
+            queueChanges.fireChange();
+        }
+        return moved;
+    }
+
+    private QueuedTask findQueuedTask(long taskId) {
+        mainLock.lock();
+        try {
+            for (QueuedTask task: queue) {
+                if (task.info.getTaskId() == taskId) {
+                    return task;
+                }
+            }
+            return null;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private QueuedTask removeQueuedTaskUnlocked(long taskId) {
+        assert ((ReentrantLock)mainLock).isHeldByCurrentThread();
+
+        Iterator<QueuedTask> queueItr = queue.iterator();
+        while (queueItr.hasNext()) {
+            QueuedTask task = queueItr.next();
+            if (task.info.getTaskId() == taskId) {
+                queueItr.remove();
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private void insertByPriorityUnlocked(QueuedTask task) {
+        assert ((ReentrantLock)mainLock).isHeldByCurrentThread();
+
+        GradleTaskPriority priority = task.info.getPriority();
+
+        ListIterator<QueuedTask> queueItr = queue.listIterator(queue.size());
+        while (queueItr.hasPrevious()) {
+            QueuedTask prevTask = queueItr.previous();
+            if (!priority.isHigherThan(prevTask.info.getPriority())) {
+                queueItr.next();
+                queueItr.add(task);
+                return;
+            }
+        }
+        queue.add(0, task);
+    }
+
+    private void submit(
+            File rootDir,
+            GradleTaskPriority priority,
+            String displayName,
+            CancellationToken cancelToken,
+            CancelableTask task,
+            CleanupTask cleanupTask) {
+
+        final QueuedTask queuedTask;
+        boolean alreadyCanceled;
+        mainLock.lock();
+        try {
+            QueuedTaskInfo info = new QueuedTaskInfo(nextTaskId, rootDir, priority, displayName);
+            nextTaskId++;
+
+            queuedTask = new QueuedTask(info, cancelToken, task, cleanupTask);
+
+            // The listener must be registered before the task can be polled
+            // from the queue, otherwise startTask might not unregister it.
+            // If the token is canceled by another thread, the listener waits
+            // for the lock in removeCanceledTask and then removes the task
+            // from the queue.
+            queuedTask.setCancelRef(queuedTask.cancelToken.addCancellationListener(new Runnable() {
+                @Override
+                public void run() {
+                    removeCanceledTask(queuedTask);
+                }
+            }));
+
+            alreadyCanceled = queuedTask.cancelToken.isCanceled();
+            if (!alreadyCanceled) {
+                insertByPriorityUnlocked(queuedTask);
+            }
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (alreadyCanceled) {
+            // The executor will not actually run the task but will call
+            // the cleanup task, notifying the submitter of the cancellation.
+            startTask(queuedTask);
+            return;
+        }
+
+        queueChanges.fireChange();
+        startTasks();
+    }
+
+    private void removeCanceledTask(QueuedTask task) {
+        boolean removed;
+        mainLock.lock();
+        try {
+            removed = queue.remove(task);
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (removed) {
+            // The executor will not actually run the task but will call
+            // the cleanup task, notifying the submitter of the cancellation.
+            startTask(task);
+            queueChanges.fireChange();
+        }
+    }
+
+    private static int getLimit(MutableProperty<Integer> limit, int defaultValue) {
+        Integer result = limit.getValue();
+        return result != null ? result : defaultValue;
+    }
+
+    private int getGlobalLimit() {
+        return getLimit(globalLimit, Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    private int getPerRootLimit() {
+        return getLimit(perRootLimit, DEFAULT_PER_ROOT_LIMIT);
+    }
+
+    private static int getCountOfRoot(Map<File, Integer> counts, File rootDir) {
+        Integer result = counts.get(rootDir);
+        return result != null ? result : 0;
+    }
+
+    private static void addToCountOfRoot(Map<File, Integer> counts, File rootDir, int delta) {
+        int newCount = getCountOfRoot(counts, rootDir) + delta;
+        if (newCount > 0) {
+            counts.put(rootDir, newCount);
+        }
+        else {
+            counts.remove(rootDir);
+        }
+    }
+
+    private int getRunningCountOfRootUnlocked(File rootDir) {
+        return getCountOfRoot(runningPerRoot, rootDir);
+    }
+
+    private boolean hasFreeSlotUnlocked(File rootDir, int maxRunning, int maxRunningPerRoot) {
+        // Tasks reacquiring their slot have precedence over queued tasks.
+        if (runningCount + reacquiringCount >= maxRunning) {
+            return false;
+        }
+        int runningOfRoot = getRunningCountOfRootUnlocked(rootDir);
+        return runningOfRoot + getCountOfRoot(reacquiringPerRoot, rootDir) < maxRunningPerRoot;
+    }
+
+    private void takeSlotUnlocked(QueuedTask task) {
+        assert ((ReentrantLock)mainLock).isHeldByCurrentThread();
+
+        runningCount++;
+        addToCountOfRoot(runningPerRoot, task.info.getRootDir(), 1);
+        task.counted = true;
+    }
+
+    private boolean giveBackSlotUnlocked(QueuedTask task) {
+        assert ((ReentrantLock)mainLock).isHeldByCurrentThread();
+
+        if (!task.counted) {
+            return false;
+        }
+
+        runningCount--;
+        addToCountOfRoot(runningPerRoot, task.info.getRootDir(), -1);
+        task.counted = false;
+        slotFreedSignal.signalAll();
+        return true;
+    }
+
+    private void releaseSlot(QueuedTask task) {
+        boolean released;
+        mainLock.lock();
+        try {
+            released = giveBackSlotUnlocked(task);
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (released) {
+            startTasks();
+        }
+    }
+
+    private void reacquireSlot(CancellationToken cancelToken, QueuedTask task) {
+        File rootDir = task.info.getRootDir();
+        boolean acquired = false;
+
+        mainLock.lock();
+        try {
+            if (task.counted) {
+                acquired = true;
+                return;
+            }
+
+            reacquiringCount++;
+            addToCountOfRoot(reacquiringPerRoot, rootDir, 1);
+            try {
+                while (runningCount >= getGlobalLimit()
+                        || getRunningCountOfRootUnlocked(rootDir) >= getPerRootLimit()) {
+                    CancelableWaits.await(cancelToken, slotFreedSignal);
+                }
+            } finally {
+                reacquiringCount--;
+                addToCountOfRoot(reacquiringPerRoot, rootDir, -1);
+            }
+
+            takeSlotUnlocked(task);
+            acquired = true;
+        } finally {
+            mainLock.unlock();
+
+            if (!acquired) {
+                // We no longer reserve a slot, so a queued task might be
+                // startable now.
+                startTasks();
+            }
+        }
+    }
+
+    private QueuedTask pollStartableTask(int maxRunning, int maxRunningPerRoot) {
+        mainLock.lock();
+        try {
+            if (runningCount + reacquiringCount >= maxRunning) {
+                return null;
+            }
+
+            Iterator<QueuedTask> queueItr = queue.iterator();
+            while (queueItr.hasNext()) {
+                QueuedTask task = queueItr.next();
+                if (hasFreeSlotUnlocked(task.info.getRootDir(), maxRunning, maxRunningPerRoot)) {
+                    queueItr.remove();
+                    takeSlotUnlocked(task);
+                    return task;
+                }
+            }
+            return null;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private void startTasks() {
+        int maxRunning = getGlobalLimit();
+        int maxRunningPerRoot = getPerRootLimit();
+
+        boolean startedAny = false;
+        QueuedTask task = pollStartableTask(maxRunning, maxRunningPerRoot);
+        while (task != null) {
+            startedAny = true;
+            startTask(task);
+            task = pollStartableTask(maxRunning, maxRunningPerRoot);
+        }
+
+        if (startedAny) {
+            queueChanges.fireChange();
+        }
+    }
+
+    private void startTask(final QueuedTask task) {
+        task.unregisterCancelRef();
+
+        workerExecutor.execute(task.cancelToken, new CancelableTask() {
+            @Override
+            public void execute(CancellationToken cancelToken) throws Exception {
+                RunningSlot prevSlot = CURRENT_SLOT.get();
+                CURRENT_SLOT.set(new RunningSlot(task));
+                try {
+                    task.task.execute(cancelToken);
+                } finally {
+                    CURRENT_SLOT.set(prevSlot);
+                }
+            }
+        }, new CleanupTask() {
+            @Override
+            public void cleanup(boolean canceled, Throwable error) throws Exception {
+                try {
+                    if (task.cleanupTask != null) {
+                        task.cleanupTask.cleanup(canceled, error);
+                    }
+                } finally {
+                    onTaskFinished(task);
+                }
+            }
+        });
+    }
+
+    private void onTaskFinished(QueuedTask task) {
+        releaseSlot(task);
+    }
+
+    /**
+     * Defines a slot {@link #releaseCurrentSlot() released} by a running task.
+     */
+    public interface ReleasedSlot {
+        /**
+         * Waits until the task may continue to execute without exceeding the
+         * limits of the scheduler. Tasks reacquiring their slot are preferred
+         * over tasks which have not been started yet. If the wait is canceled,
+         * the slot remains released.
+         *
+         * @param cancelToken the {@code CancellationToken} signaling that
+         *   the wait should be abandoned. This argument cannot be {@code null}.
+         *
+         * @throws org.jtrim.cancel.OperationCanceledException thrown if the
+         *   wait was canceled
+         */
+        public void reacquire(CancellationToken cancelToken);
+    }
+
+    private final class RunningSlot implements ReleasedSlot {
+        private final QueuedTask task;
+
+        public RunningSlot(QueuedTask task) {
+            this.task = task;
+        }
+
+        public void release() {
+            releaseSlot(task);
+        }
+
+        @Override
+        public void reacquire(CancellationToken cancelToken) {
+            ExceptionHelper.checkNotNullArgument(cancelToken, "cancelToken");
+            reacquireSlot(cancelToken, task);
+        }
+    }
+
+    public static final class QueuedTaskInfo {
+        private final long taskId;
+        private final File rootDir;
+        private final GradleTaskPriority priority;
+        private final String displayName;
+
+        private QueuedTaskInfo(long taskId, File rootDir, GradleTaskPriority priority, String displayName) {
+            this.taskId = taskId;
+            this.rootDir = rootDir;
+            this.priority = priority;
+            this.displayName = displayName;
+        }
+
+        public long getTaskId() {
+            return taskId;
+        }
+
+        public File getRootDir() {
+            return rootDir;
+        }
+
+        public GradleTaskPriority getPriority() {
+            return priority;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    private static final class QueuedTask {
+        public final QueuedTaskInfo info;
+        public final CancellationSource queueCancel;
+        public final CancellationToken cancelToken;
+        public final CancelableTask task;
+        public final CleanupTask cleanupTask;
+
+        // Only accessed while holding the lock of the scheduler.
+        public boolean counted;
+        private volatile ListenerRef cancelRef;
+
+        public QueuedTask(
+                QueuedTaskInfo info,
+                CancellationToken cancelToken,
+                CancelableTask task,
+                CleanupTask cleanupTask) {
+            this.info = info;
+            this.queueCancel = Cancellation.createCancellationSource();
+            this.cancelToken = Cancellation.anyToken(cancelToken, queueCancel.getToken());
+            this.task = task;
+            this.cleanupTask = cleanupTask;
+            this.counted = false;
+            this.cancelRef = null;
+        }
+
+        public void setCancelRef(ListenerRef cancelRef) {
+            this.cancelRef = cancelRef;
+        }
+
+        public void unregisterCancelRef() {
+            ListenerRef currentRef = cancelRef;
+            if (currentRef != null) {
+                currentRef.unregister();
+            }
+        }
+    }
+}
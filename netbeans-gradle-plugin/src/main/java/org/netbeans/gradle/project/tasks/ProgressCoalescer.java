@@ -0,0 +1,144 @@
+package org.netbeans.gradle.project.tasks;
+
+import java.io.Closeable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.gradle.tooling.ProgressEvent;
+import org.gradle.tooling.ProgressListener;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.gradle.project.NbTaskExecutors;
+
+/**
+ * Forwards the progress events of the Tooling API to a {@code ProgressHandle}
+ * at a limited rate. Only the most recent status is shown, the statuses
+ * reported in between are dropped.
+ * <P>
+ * The progress events of the Tooling API used by this plugin only have a
+ * description: They report neither the completed tasks nor the size of the
+ * task graph. So there is nothing reliable to compute a percentage from and
+ * the progress handle is left in indeterminate mode.
+ * <P>
+ * Instances of this class must be closed before the progress handle is
+ * finished, so that no status is published after that.
+ */
+public final class ProgressCoalescer implements ProgressListener, Closeable {
+    private static final long DEFAULT_PERIOD_MS = 100;
+
+    private static final ScheduledExecutorService PUBLISHER
+            = NbTaskExecutors.newScheduledExecutor("Gradle-Progress-Publisher");
+
+    private final ProgressHandle progress;
+    private final long periodNanos;
+    private final Runnable publishTask;
+
+    private final Lock mainLock;
+    private String pendingStatus;
+    private ScheduledFuture<?> scheduledPublish;
+    private long lastPublishTime;
+    private boolean closed;
+
+    public ProgressCoalescer(ProgressHandle progress) {
+        this(progress, DEFAULT_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public ProgressCoalescer(ProgressHandle progress, long period, TimeUnit unit) {
+        ExceptionHelper.checkNotNullArgument(progress, "progress");
+        ExceptionHelper.checkArgumentInRange(period, 0, Long.MAX_VALUE, "period");
+        ExceptionHelper.checkNotNullArgument(unit, "unit");
+
+        this.progress = progress;
+        this.periodNanos = unit.toNanos(period);
+        this.publishTask = new Runnable() {
+            @Override
+            public void run() {
+                publishScheduled();
+            }
+        };
+
+        this.mainLock = new ReentrantLock();
+        this.pendingStatus = null;
+        this.scheduledPublish = null;
+        this.lastPublishTime = System.nanoTime() - periodNanos;
+        this.closed = false;
+    }
+
+    @Override
+    public void statusChanged(ProgressEvent event) {
+        setStatus(event.getDescription());
+    }
+
+    public void setStatus(String status) {
+        mainLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+
+            pendingStatus = status != null ? status : "";
+
+            if (scheduledPublish != null) {
+                return;
+            }
+
+            long delay = lastPublishTime + periodNanos - System.nanoTime();
+            if (delay <= 0) {
+                publishPending();
+            }
+            else {
+                scheduledPublish = PUBLISHER.schedule(publishTask, delay, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private void publishScheduled() {
+        mainLock.lock();
+        try {
+            scheduledPublish = null;
+            if (!closed) {
+                publishPending();
+            }
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private void publishPending() {
+        assert ((ReentrantLock)mainLock).isHeldByCurrentThread();
+
+        String status = pendingStatus;
+        if (status == null) {
+            return;
+        }
+
+        pendingStatus = null;
+        lastPublishTime = System.nanoTime();
+
+        progress.progress(status);
+    }
+
+    /**
+     * Stops forwarding statuses to the progress handle. Statuses not yet
+     * published are dropped.
+     */
+    @Override
+    public void close() {
+        mainLock.lock();
+        try {
+            closed = true;
+            pendingStatus = null;
+
+            if (scheduledPublish != null) {
+                scheduledPublish.cancel(false);
+                scheduledPublish = null;
+            }
+        } finally {
+            mainLock.unlock();
+        }
+    }
+}
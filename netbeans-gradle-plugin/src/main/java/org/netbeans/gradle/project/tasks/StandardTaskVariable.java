@@ -27,7 +27,7 @@ import org.openide.loaders.DataObject;
 import org.openide.util.Lookup;
 
 public enum StandardTaskVariable {
-    PROJECT_NAME("project", new ValueGetter<NbGradleProject>() {
+    PROJECT_NAME("project", true, new ValueGetter<NbGradleProject>() {
         @Override
         public VariableValue getValue(TaskVariableMap variables, NbGradleProject project, Lookup actionContext) {
             String uniqueName = project.getAvailableModel().getMainProject().getProjectFullName();
@@ -207,7 +207,12 @@ public enum StandardTaskVariable {
 
     public static TaskVariableMap createVarReplaceMap(
             NbGradleProject project, Lookup actionContext) {
-        return new CachingVariableMap<>(TASK_VARIABLE_MAP, project, actionContext);
+        return new CachingVariableMap<>(
+                TASK_VARIABLE_MAP,
+                project,
+                actionContext,
+                project.getTaskVariableCache(),
+                project.getAvailableModel());
     }
 
     public static String replaceVars(String str, TaskVariableMap varReplaceMap) {
@@ -219,51 +224,28 @@ public enum StandardTaskVariable {
             TaskVariableMap varReplaceMap,
             List<? super DisplayedTaskVariable> collectedVariables) {
 
-        StringBuilder result = new StringBuilder(str.length() * 2);
-
-        int index = 0;
-        while (index < str.length()) {
-            char ch = str.charAt(index);
-            if (ch == '$') {
-                int varStart = str.indexOf('{', index + 1);
-                int varEnd = varStart >= 0
-                        ? StringUtils.unescapedIndexOf(str, varStart + 1, '}')
-                        : -1;
-                if (varStart >= 0 && varEnd >= varStart) {
-                    String varDef = str.substring(varStart + 1, varEnd);
-                    DisplayedTaskVariable taskVar = DisplayedTaskVariable.tryParseTaskVariable(varDef);
-
-                    if (taskVar != null) {
-                        if (collectedVariables != null) {
-                            collectedVariables.add(taskVar);
-                        }
-
-                        String value = varReplaceMap.tryGetValueForVariable(taskVar.getVariable());
-                        if (value != null) {
-                            result.append(value);
-                            index = varEnd + 1;
-                            continue;
-                        }
-                    }
-                }
-            }
-
-            result.append(ch);
-            index++;
-        }
-        return result.toString();
+        return VariableTemplate.compile(str).replaceVars(varReplaceMap, collectedVariables);
     }
 
     private final TaskVariable variable;
+    private final boolean contextFree;
     private final ValueGetter<NbGradleProject> valueGetter;
 
     private StandardTaskVariable(String variableName, ValueGetter<NbGradleProject> valueGetter) {
+        this(variableName, false, valueGetter);
+    }
+
+    private StandardTaskVariable(
+            String variableName,
+            boolean contextFree,
+            ValueGetter<NbGradleProject> valueGetter) {
         this.variable = new TaskVariable(variableName);
+        this.contextFree = contextFree;
         this.valueGetter = valueGetter;
     }
 
     private CachingVariableMap.VariableDef<NbGradleProject> asVariableDef() {
-        return new CachingVariableMap.VariableDef<>(variable, valueGetter);
+        return new CachingVariableMap.VariableDef<>(variable, valueGetter, contextFree);
     }
 
     public TaskVariable getVariable() {
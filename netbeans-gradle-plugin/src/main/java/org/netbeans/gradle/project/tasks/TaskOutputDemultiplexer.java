@@ -0,0 +1,232 @@
+package org.netbeans.gradle.project.tasks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.output.LineOutputWriter;
+
+/**
+ * Distributes the output of a build executing the commands of multiple
+ * requests between the outputs of these requests. The lines are routed
+ * according to the task headers printed by Gradle (e.g.: ":sub:compileJava"
+ * or "> Task :sub:compileJava"): The output of a task is forwarded to the
+ * request which requested the task or a task of the same project. Every other
+ * line (e.g.: the configuration phase or the result of the build) is
+ * forwarded to every request.
+ * <P>
+ * Gradle prints the task headers only to the standard output, so the lines of
+ * the standard error are forwarded to the request owning the task last
+ * started on the standard output. Since the two streams are written
+ * concurrently, an error line written right before a new task header might
+ * be forwarded to the request of the next task.
+ * <P>
+ * The demultiplexer also records which requested tasks were executed and
+ * which tasks failed, so that the failure of a build executed with
+ * {@code --continue} can be reported only to the requests affected by the
+ * failure (see {@link Target#isCompleted()}).
+ */
+final class TaskOutputDemultiplexer {
+    private static final String TASK_HEADER_PREFIX = "> Task ";
+    private static final String FAILED_TASK_SUFFIX = " FAILED";
+    private static final String[] BUILD_RESULT_PREFIXES = {"BUILD ", "FAILURE:", "Total time:"};
+
+    private final List<Target> targets;
+    private final LineOutputWriter.Handler stdOut;
+    private final LineOutputWriter.Handler stdErr;
+
+    // The owner of the task last started on the standard output.
+    // null means that the output is forwarded to every target
+    private volatile Target currentOwner;
+
+    public TaskOutputDemultiplexer(List<Target> targets) {
+        this.targets = new ArrayList<>(targets);
+        this.stdOut = new DemultiplexerHandler(false);
+        this.stdErr = new DemultiplexerHandler(true);
+        this.currentOwner = null;
+
+        ExceptionHelper.checkNotNullElements(this.targets, "targets");
+    }
+
+    public LineOutputWriter.Handler getStdOut() {
+        return stdOut;
+    }
+
+    public LineOutputWriter.Handler getStdErr() {
+        return stdErr;
+    }
+
+    private static boolean isTaskPathChar(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == ':' || ch == '_' || ch == '-' || ch == '.';
+    }
+
+    /**
+     * Returns the path of the task if the given line is a task header printed
+     * by Gradle, {@code null} otherwise.
+     */
+    static String tryGetTaskPath(String line) {
+        int startIndex = line.startsWith(TASK_HEADER_PREFIX) ? TASK_HEADER_PREFIX.length() : 0;
+        if (!line.startsWith(":", startIndex)) {
+            return null;
+        }
+
+        int endIndex = line.indexOf(' ', startIndex);
+        if (endIndex < 0) {
+            endIndex = line.length();
+        }
+        if (endIndex - startIndex < 2) {
+            return null;
+        }
+
+        for (int i = startIndex + 1; i < endIndex; i++) {
+            if (!isTaskPathChar(line.charAt(i))) {
+                return null;
+            }
+        }
+        return line.substring(startIndex, endIndex);
+    }
+
+    /**
+     * Returns {@code true} if the given line is the header of a task printed
+     * by Gradle for a task which failed.
+     */
+    static boolean isFailedTaskHeader(String line) {
+        return line.endsWith(FAILED_TASK_SUFFIX) && tryGetTaskPath(line) != null;
+    }
+
+    private static boolean isBuildResultLine(String line) {
+        for (String prefix: BUILD_RESULT_PREFIXES) {
+            if (line.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getProjectPath(String taskPath) {
+        int sepIndex = taskPath.lastIndexOf(':');
+        return sepIndex >= 0 ? taskPath.substring(0, sepIndex) : "";
+    }
+
+    private Target findOwner(String taskPath) {
+        for (Target target: targets) {
+            if (target.taskNames.contains(taskPath)) {
+                return target;
+            }
+        }
+
+        String projectPath = getProjectPath(taskPath);
+        for (Target target: targets) {
+            if (target.projectPaths.contains(projectPath)) {
+                return target;
+            }
+        }
+        return null;
+    }
+
+    private void writeToAll(String line, boolean error) throws IOException {
+        for (Target target: targets) {
+            target.getOutput(error).writeLine(line);
+        }
+    }
+
+    private void flush(boolean error) throws IOException {
+        for (Target target: targets) {
+            target.getOutput(error).flush();
+        }
+    }
+
+    private void startTask(String taskPath, boolean failed) {
+        Target owner = findOwner(taskPath);
+        currentOwner = owner;
+
+        if (owner != null) {
+            if (failed) {
+                owner.failed = true;
+            }
+            else {
+                owner.executedTasks.add(taskPath);
+            }
+        }
+    }
+
+    private final class DemultiplexerHandler implements LineOutputWriter.Handler {
+        private final boolean error;
+
+        public DemultiplexerHandler(boolean error) {
+            this.error = error;
+        }
+
+        @Override
+        public void writeLine(String line) throws IOException {
+            String taskPath = error ? null : tryGetTaskPath(line);
+            if (taskPath != null) {
+                startTask(taskPath, isFailedTaskHeader(line));
+            }
+            else if (isBuildResultLine(line)) {
+                currentOwner = null;
+            }
+
+            Target owner = currentOwner;
+            if (owner != null) {
+                owner.getOutput(error).writeLine(line);
+            }
+            else {
+                writeToAll(line, error);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            TaskOutputDemultiplexer.this.flush(error);
+        }
+    }
+
+    public static final class Target {
+        private final Set<String> taskNames;
+        private final Set<String> projectPaths;
+        private final LineOutputWriter.Handler stdOut;
+        private final LineOutputWriter.Handler stdErr;
+
+        private final Set<String> executedTasks;
+        private volatile boolean failed;
+
+        public Target(
+                List<String> taskNames,
+                LineOutputWriter.Handler stdOut,
+                LineOutputWriter.Handler stdErr) {
+            ExceptionHelper.checkNotNullElements(taskNames, "taskNames");
+            ExceptionHelper.checkNotNullArgument(stdOut, "stdOut");
+            ExceptionHelper.checkNotNullArgument(stdErr, "stdErr");
+
+            this.taskNames = new HashSet<>(taskNames);
+            this.projectPaths = new HashSet<>();
+            for (String taskName: taskNames) {
+                projectPaths.add(getProjectPath(taskName));
+            }
+            this.stdOut = stdOut;
+            this.stdErr = stdErr;
+            this.executedTasks = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+            this.failed = false;
+        }
+
+        /**
+         * Returns {@code true} if every requested task of this target was
+         * executed (or found to be up-to-date) and no task attributed to this
+         * target has failed. Note that the headers of the tasks are not
+         * printed with the {@code --quiet} option, in which case no target is
+         * considered completed.
+         */
+        public boolean isCompleted() {
+            return !failed && executedTasks.containsAll(taskNames);
+        }
+
+        private LineOutputWriter.Handler getOutput(boolean error) {
+            return error ? stdErr : stdOut;
+        }
+    }
+}
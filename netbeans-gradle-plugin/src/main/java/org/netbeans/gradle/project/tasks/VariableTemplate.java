@@ -0,0 +1,179 @@
+package org.netbeans.gradle.project.tasks;
+
+import java.util.List;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.api.task.TaskVariableMap;
+import org.netbeans.gradle.project.util.LruCache;
+import org.netbeans.gradle.project.util.StringUtils;
+
+/**
+ * Defines a string with task variable references (e.g.: {@code "${project}"})
+ * which was already parsed, so that replacing the variables does not need to
+ * parse the string again.
+ * <P>
+ * A template is a chain of variable references: The literal text before the
+ * first variable reference, the variable itself and the template of the
+ * remaining part of the string. The remaining part depends on whether the
+ * variable has a value or not: If a variable has no value, only its
+ * {@code '$'} character is kept and the rest of the string is processed
+ * again. These remaining templates are parsed lazily and then retained.
+ * <P>
+ * Instances of this class are immutable (except for their lazily initialized
+ * parts) and safe to be used by multiple threads concurrently.
+ *
+ * @see StandardTaskVariable#replaceVars(String, TaskVariableMap, List)
+ */
+public final class VariableTemplate {
+    private static final int MAX_CACHED_TEMPLATES = 1024;
+    private static final LruCache<String, VariableTemplate> TEMPLATE_CACHE
+            = new LruCache<>(MAX_CACHED_TEMPLATES);
+
+    private final String source;
+    private final String literalPrefix;
+    private final DisplayedTaskVariable variable;
+    private final int variableStart;
+    private final int variableEnd;
+
+    private volatile VariableTemplate resolvedTail;
+    private volatile VariableTemplate unresolvedTail;
+
+    private VariableTemplate(String source) {
+        this.source = source;
+        this.resolvedTail = null;
+        this.unresolvedTail = null;
+
+        int index = source.indexOf('$');
+        while (index >= 0) {
+            int varStart = source.indexOf('{', index + 1);
+            int varEnd = varStart >= 0
+                    ? StringUtils.unescapedIndexOf(source, varStart + 1, '}')
+                    : -1;
+            if (varStart >= 0 && varEnd >= varStart) {
+                String varDef = source.substring(varStart + 1, varEnd);
+                DisplayedTaskVariable taskVar = DisplayedTaskVariable.tryParseTaskVariable(varDef);
+                if (taskVar != null) {
+                    this.literalPrefix = source.substring(0, index);
+                    this.variable = taskVar;
+                    this.variableStart = index;
+                    this.variableEnd = varEnd;
+                    return;
+                }
+            }
+
+            index = source.indexOf('$', index + 1);
+        }
+
+        this.literalPrefix = source;
+        this.variable = null;
+        this.variableStart = -1;
+        this.variableEnd = -1;
+    }
+
+    /**
+     * Returns the parsed template of the given string. Templates of recently
+     * used strings are cached, so it is cheap to call this method repeatedly
+     * with the same strings.
+     */
+    public static VariableTemplate compile(String str) {
+        ExceptionHelper.checkNotNullArgument(str, "str");
+
+        VariableTemplate result = TEMPLATE_CACHE.get(str);
+        if (result == null) {
+            result = new VariableTemplate(str);
+            TEMPLATE_CACHE.put(str, result);
+        }
+        return result;
+    }
+
+    public static VariableTemplate[] compileAll(String[] strings) {
+        VariableTemplate[] result = new VariableTemplate[strings.length];
+        for (int i = 0; i < strings.length; i++) {
+            result[i] = compile(strings[i]);
+        }
+        return result;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public boolean hasVariables() {
+        return variable != null;
+    }
+
+    private VariableTemplate getResolvedTail() {
+        VariableTemplate result = resolvedTail;
+        if (result == null) {
+            result = new VariableTemplate(source.substring(variableEnd + 1));
+            resolvedTail = result;
+        }
+        return result;
+    }
+
+    private VariableTemplate getUnresolvedTail() {
+        VariableTemplate result = unresolvedTail;
+        if (result == null) {
+            result = new VariableTemplate(source.substring(variableStart + 1));
+            unresolvedTail = result;
+        }
+        return result;
+    }
+
+    /**
+     * Adds the variables referenced by this template to the given list. This
+     * includes variables which are only found if the preceding variables have
+     * no value.
+     */
+    public void collectVariables(List<? super DisplayedTaskVariable> collectedVariables) {
+        replaceVars(EmptyTaskVarMap.INSTANCE, collectedVariables);
+    }
+
+    public String replaceVars(TaskVariableMap varReplaceMap) {
+        return replaceVars(varReplaceMap, null);
+    }
+
+    public String replaceVars(
+            TaskVariableMap varReplaceMap,
+            List<? super DisplayedTaskVariable> collectedVariables) {
+        ExceptionHelper.checkNotNullArgument(varReplaceMap, "varReplaceMap");
+
+        if (variable == null) {
+            return source;
+        }
+
+        StringBuilder result = new StringBuilder(source.length() * 2);
+
+        VariableTemplate current = this;
+        while (current.variable != null) {
+            result.append(current.literalPrefix);
+            if (collectedVariables != null) {
+                collectedVariables.add(current.variable);
+            }
+
+            String value = varReplaceMap.tryGetValueForVariable(current.variable.getVariable());
+            if (value != null) {
+                result.append(value);
+                current = current.getResolvedTail();
+            }
+            else {
+                result.append('$');
+                current = current.getUnresolvedTail();
+            }
+        }
+        result.append(current.literalPrefix);
+        return result.toString();
+    }
+
+    public static String[] replaceAllVars(VariableTemplate[] templates, TaskVariableMap varReplaceMap) {
+        String[] result = new String[templates.length];
+        for (int i = 0; i < templates.length; i++) {
+            result[i] = templates[i].replaceVars(varReplaceMap);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -0,0 +1,364 @@
+package org.netbeans.gradle.project.util;
+
+import java.io.File;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Defines a set of include and exclude Ant patterns compiled into a form
+ * which can be used to quickly test many files. The compiled patterns are
+ * equivalent to the glob patterns the Ant patterns were previously converted
+ * to but the most common kinds of patterns are matched without glob matching:
+ * <ul>
+ *  <li>{@code **}{@code /*.ext}: The name of the file ends with ".ext".</li>
+ *  <li>{@code dir/subdir/**}: The file is within the given directory.</li>
+ *  <li>{@code **}{@code /dir/**}: One of the parent directories has the given
+ *   name.</li>
+ * </ul>
+ * Other patterns are matched by a {@link PathMatcher} which is only created
+ * once (per file system).
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently.
+ */
+final class ExcludeIncludeMatcher {
+    private static final boolean IGNORE_CASE = new File("a").equals(new File("A"));
+
+    private final AntPatternSet excludePatterns;
+    private final AntPatternSet includePatterns;
+
+    private ExcludeIncludeMatcher(AntPatternSet excludePatterns, AntPatternSet includePatterns) {
+        this.excludePatterns = excludePatterns;
+        this.includePatterns = includePatterns;
+    }
+
+    public static ExcludeIncludeMatcher compile(
+            Collection<String> excludePatterns,
+            Collection<String> includePatterns) {
+        return new ExcludeIncludeMatcher(
+                AntPatternSet.compile(excludePatterns),
+                AntPatternSet.compile(includePatterns));
+    }
+
+    public boolean includeFile(Path file, Path rootPath) {
+        Path absoluteRoot = rootPath.toAbsolutePath();
+        Path testedPath = file.toAbsolutePath();
+
+        if (!testedPath.startsWith(absoluteRoot)) {
+            return false;
+        }
+
+        Path relTestedPath = absoluteRoot.relativize(testedPath);
+        RelativePath relPath = new RelativePath(relTestedPath);
+
+        if (!includePatterns.isEmpty()) {
+            if (!includePatterns.matchesAny(relPath)) {
+                return false;
+            }
+        }
+
+        return !excludePatterns.matchesAny(relPath);
+    }
+
+    static String normalizePattern(String pattern) {
+        String normPattern = pattern.replace("\\\\", "/");
+
+        String result = normPattern;
+        if (result.startsWith("/")) {
+            result = result.substring(1);
+        }
+        if (normPattern.endsWith("/")) {
+            result = result + "**";
+        }
+        return result;
+    }
+
+    static String toGlobPattern(String pattern) {
+        String normPattern = pattern.replace("\\\\", "/");
+
+        // 7 = "glob:".length() + "**".length()
+        StringBuilder result = new StringBuilder(pattern.length() + 7);
+        result.append("glob:");
+
+        String normedDirMatches = normPattern;
+        if (normedDirMatches.startsWith("/")) {
+            normedDirMatches = normedDirMatches.substring(1);
+        }
+
+        normedDirMatches = normedDirMatches.replace("/**/", "{/**/,/}");
+        if (normedDirMatches.startsWith("**/")) {
+            normedDirMatches = "{**/,}" + normedDirMatches.substring(3);
+        }
+
+        result.append(normedDirMatches);
+        if (normPattern.endsWith("/")) {
+            result.append("**");
+        }
+        return result.toString();
+    }
+
+    private static boolean isLiteral(String str) {
+        if (str.isEmpty()) {
+            return false;
+        }
+
+        for (int i = 0; i < str.length(); i++) {
+            switch (str.charAt(i)) {
+                case '*':
+                case '?':
+                case '[':
+                case ']':
+                case '{':
+                case '}':
+                case '\\':
+                case '/':
+                    return false;
+                default:
+                    break;
+            }
+        }
+        return true;
+    }
+
+    private static boolean areLiterals(String[] strs) {
+        for (String str: strs) {
+            if (!isLiteral(str)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compiles the given Ant pattern, using a fast path if possible.
+     */
+    static AntPattern compilePattern(String pattern) {
+        String normPattern = normalizePattern(pattern);
+
+        if (normPattern.startsWith("**/*")) {
+            String suffix = normPattern.substring("**/*".length());
+            if (isLiteral(suffix)) {
+                return new FileSuffixPattern(suffix);
+            }
+        }
+
+        if (normPattern.startsWith("**/") && normPattern.endsWith("/**")
+                && normPattern.length() > "**/".length() + "/**".length()) {
+            String dirName = normPattern.substring("**/".length(), normPattern.length() - "/**".length());
+            if (isLiteral(dirName)) {
+                return new ContainingDirPattern(dirName);
+            }
+        }
+
+        if (normPattern.endsWith("/**")) {
+            String prefix = normPattern.substring(0, normPattern.length() - "/**".length());
+            String[] dirNames = prefix.split("/", -1);
+            if (areLiterals(dirNames)) {
+                return new DirPrefixPattern(dirNames);
+            }
+        }
+
+        return compileGlobPattern(pattern);
+    }
+
+    /**
+     * Compiles the given Ant pattern without any of the fast paths.
+     */
+    static AntPattern compileGlobPattern(String pattern) {
+        return new GlobPattern(toGlobPattern(pattern));
+    }
+
+    private static boolean nameEquals(String path, int offset, int length, String name) {
+        return length == name.length() && path.regionMatches(IGNORE_CASE, offset, name, 0, length);
+    }
+
+    /**
+     * Defines a path relative to the root of the include rules. The path is
+     * converted to string only once and only if needed.
+     */
+    static final class RelativePath {
+        private final Path path;
+        private String pathStr;
+        private char separator;
+
+        public RelativePath(Path path) {
+            this.path = path;
+            this.pathStr = null;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public String getPathStr() {
+            if (pathStr == null) {
+                pathStr = path.toString();
+                String fsSeparator = path.getFileSystem().getSeparator();
+                separator = fsSeparator.length() == 1 ? fsSeparator.charAt(0) : '/';
+            }
+            return pathStr;
+        }
+
+        public char getSeparator() {
+            getPathStr();
+            return separator;
+        }
+    }
+
+    interface AntPattern {
+        public boolean matches(RelativePath path);
+    }
+
+    private static final class AntPatternSet {
+        private static final AntPatternSet EMPTY = new AntPatternSet(new AntPattern[0]);
+
+        private final AntPattern[] patterns;
+
+        private AntPatternSet(AntPattern[] patterns) {
+            this.patterns = patterns;
+        }
+
+        public static AntPatternSet compile(Collection<String> patterns) {
+            if (patterns.isEmpty()) {
+                return EMPTY;
+            }
+
+            List<AntPattern> fastPatterns = new ArrayList<>(patterns.size());
+            List<AntPattern> globPatterns = new ArrayList<>();
+            for (String pattern: patterns) {
+                AntPattern compiled = compilePattern(pattern);
+                if (compiled instanceof GlobPattern) {
+                    globPatterns.add(compiled);
+                }
+                else {
+                    fastPatterns.add(compiled);
+                }
+            }
+
+            // Try the cheap patterns first.
+            fastPatterns.addAll(globPatterns);
+            return new AntPatternSet(fastPatterns.toArray(new AntPattern[fastPatterns.size()]));
+        }
+
+        public boolean isEmpty() {
+            return patterns.length == 0;
+        }
+
+        public boolean matchesAny(RelativePath path) {
+            for (AntPattern pattern: patterns) {
+                if (pattern.matches(path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class FileSuffixPattern implements AntPattern {
+        private final String suffix;
+
+        public FileSuffixPattern(String suffix) {
+            this.suffix = suffix;
+        }
+
+        @Override
+        public boolean matches(RelativePath path) {
+            String pathStr = path.getPathStr();
+            int nameStart = pathStr.lastIndexOf(path.getSeparator()) + 1;
+            int suffixStart = pathStr.length() - suffix.length();
+            if (suffixStart < nameStart) {
+                return false;
+            }
+            return pathStr.regionMatches(IGNORE_CASE, suffixStart, suffix, 0, suffix.length());
+        }
+    }
+
+    private static final class DirPrefixPattern implements AntPattern {
+        private final String[] dirNames;
+
+        public DirPrefixPattern(String[] dirNames) {
+            this.dirNames = dirNames;
+        }
+
+        @Override
+        public boolean matches(RelativePath path) {
+            String pathStr = path.getPathStr();
+            char separator = path.getSeparator();
+
+            int start = 0;
+            for (String dirName: dirNames) {
+                int end = pathStr.indexOf(separator, start);
+                if (end < 0 || !nameEquals(pathStr, start, end - start, dirName)) {
+                    return false;
+                }
+                start = end + 1;
+            }
+            // There must be something within the directory.
+            return start < pathStr.length();
+        }
+    }
+
+    private static final class ContainingDirPattern implements AntPattern {
+        private final String dirName;
+
+        public ContainingDirPattern(String dirName) {
+            this.dirName = dirName;
+        }
+
+        @Override
+        public boolean matches(RelativePath path) {
+            String pathStr = path.getPathStr();
+            char separator = path.getSeparator();
+
+            int start = 0;
+            int end = pathStr.indexOf(separator, start);
+            while (end >= 0) {
+                if (nameEquals(pathStr, start, end - start, dirName) && end + 1 < pathStr.length()) {
+                    return true;
+                }
+                start = end + 1;
+                end = pathStr.indexOf(separator, start);
+            }
+            return false;
+        }
+    }
+
+    private static final class GlobPattern implements AntPattern {
+        private final String globPattern;
+        private volatile CompiledGlob compiled;
+
+        public GlobPattern(String globPattern) {
+            this.globPattern = globPattern;
+            this.compiled = null;
+        }
+
+        private PathMatcher getMatcher(FileSystem fileSystem) {
+            CompiledGlob currentCompiled = compiled;
+            if (currentCompiled == null || currentCompiled.fileSystem != fileSystem) {
+                currentCompiled = new CompiledGlob(fileSystem, fileSystem.getPathMatcher(globPattern));
+                compiled = currentCompiled;
+            }
+            return currentCompiled.matcher;
+        }
+
+        @Override
+        public boolean matches(RelativePath path) {
+            Path relPath = path.getPath();
+            return getMatcher(relPath.getFileSystem()).matches(relPath);
+        }
+    }
+
+    private static final class CompiledGlob {
+        public final FileSystem fileSystem;
+        public final PathMatcher matcher;
+
+        public CompiledGlob(FileSystem fileSystem, PathMatcher matcher) {
+            this.fileSystem = fileSystem;
+            this.matcher = matcher;
+        }
+    }
+}
@@ -19,10 +19,14 @@ public final class ExcludeIncludeRules implements Serializable {
             SourceIncludePatterns.ALLOW_ALL);
 
     private final SourceIncludePatterns sourceIncludePatterns;
+    private final transient ExcludeIncludeMatcher matcher;
 
     private ExcludeIncludeRules(SourceIncludePatterns sourceIncludePatterns) {
         ExceptionHelper.checkNotNullArgument(sourceIncludePatterns, "sourceIncludePatterns");
         this.sourceIncludePatterns = sourceIncludePatterns;
+        this.matcher = ExcludeIncludeMatcher.compile(
+                sourceIncludePatterns.getExcludePatterns(),
+                sourceIncludePatterns.getIncludePatterns());
     }
 
     public static ExcludeIncludeRules create(SourceIncludePatterns sourceIncludePatterns) {
@@ -76,11 +80,7 @@ public final class ExcludeIncludeRules implements Serializable {
             return true;
         }
 
-        return ExcludeInclude.includeFile(
-                file,
-                rootPath,
-                sourceIncludePatterns.getExcludePatterns(),
-                sourceIncludePatterns.getIncludePatterns());
+        return matcher.includeFile(file, rootPath);
     }
 
     @Override
@@ -0,0 +1,151 @@
+package org.netbeans.gradle.project.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Defines a thread-safe map which retains at most a given number of entries.
+ * If the cache is full, the least recently accessed entry is removed.
+ * <P>
+ * The cache also counts its hits and misses, so that its efficiency can be
+ * reported.
+ *
+ * @param <KeyType> the type of the keys of the cache
+ * @param <ValueType> the type of the values of the cache
+ */
+public final class LruCache<KeyType, ValueType> {
+    private final Lock mainLock;
+    private final Map<KeyType, ValueType> cache;
+    private long hitCount;
+    private long missCount;
+
+    public LruCache(final int maxSize) {
+        ExceptionHelper.checkArgumentInRange(maxSize, 1, Integer.MAX_VALUE, "maxSize");
+
+        this.mainLock = new ReentrantLock();
+        this.cache = new LinkedHashMap<KeyType, ValueType>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<KeyType, ValueType> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.hitCount = 0;
+        this.missCount = 0;
+    }
+
+    /**
+     * Returns the value cached for the given key or {@code null} if there is
+     * no such value. This method counts as a hit or a miss.
+     */
+    public ValueType get(KeyType key) {
+        ExceptionHelper.checkNotNullArgument(key, "key");
+
+        mainLock.lock();
+        try {
+            ValueType result = cache.get(key);
+            if (result != null) {
+                hitCount++;
+            }
+            else {
+                missCount++;
+            }
+            return result;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    public void put(KeyType key, ValueType value) {
+        ExceptionHelper.checkNotNullArgument(key, "key");
+        ExceptionHelper.checkNotNullArgument(value, "value");
+
+        mainLock.lock();
+        try {
+            cache.put(key, value);
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    public void remove(KeyType key) {
+        ExceptionHelper.checkNotNullArgument(key, "key");
+
+        mainLock.lock();
+        try {
+            cache.remove(key);
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Removes every entry from the cache. The hit and miss counts are not
+     * reset.
+     */
+    public void clear() {
+        mainLock.lock();
+        try {
+            cache.clear();
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    public int size() {
+        mainLock.lock();
+        try {
+            return cache.size();
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    public long getHitCount() {
+        mainLock.lock();
+        try {
+            return hitCount;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    public long getMissCount() {
+        mainLock.lock();
+        try {
+            return missCount;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the ratio of the hits to all the lookups or zero if there were
+     * no lookups.
+     */
+    public double getHitRate() {
+        mainLock.lock();
+        try {
+            long lookupCount = hitCount + missCount;
+            return lookupCount > 0 ? (double)hitCount / (double)lookupCount : 0.0;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        mainLock.lock();
+        try {
+            return "LruCache{" + "size=" + cache.size()
+                    + ", hits=" + hitCount
+                    + ", misses=" + missCount + '}';
+        } finally {
+            mainLock.unlock();
+        }
+    }
+}
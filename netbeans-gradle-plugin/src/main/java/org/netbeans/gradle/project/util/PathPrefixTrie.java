@@ -0,0 +1,245 @@
+package org.netbeans.gradle.project.util;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Defines an immutable map from files (usually directories) to values, which
+ * can efficiently find the value of a file containing a given file. Finding a
+ * value takes time proportional to the number of path elements of the file
+ * and does not allocate any object.
+ * <P>
+ * A file contains another file if it is the same file or one of its parents
+ * as defined by {@link NbFileUtils#isParentOrSame(File, File)}. That is, paths
+ * are compared as {@link File#equals(Object)} compares them (so, for example,
+ * case insensitively on Windows).
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently.
+ *
+ * @param <ValueType> the type of the values associated with the files
+ *
+ * @see Builder
+ */
+public final class PathPrefixTrie<ValueType> {
+    private static final char SEPARATOR = File.separatorChar;
+    private static final boolean IGNORE_CASE = new File("a").equals(new File("A"));
+
+    /**
+     * Builds a {@code PathPrefixTrie}. If a file contains a given file
+     * through more than one added file, the value of the file added first is
+     * returned for the given file.
+     * <P>
+     * Instances of this class are not safe to be used by multiple threads
+     * concurrently.
+     *
+     * @param <ValueType> the type of the values associated with the files
+     */
+    public static final class Builder<ValueType> {
+        private final BuilderNode root;
+        private int entryCount;
+
+        public Builder() {
+            this.root = new BuilderNode();
+            this.entryCount = 0;
+        }
+
+        /**
+         * Associates the given value with the given file unless the given
+         * file was already added.
+         */
+        public void add(File file, ValueType value) {
+            ExceptionHelper.checkNotNullArgument(file, "file");
+            ExceptionHelper.checkNotNullArgument(value, "value");
+
+            String path = file.getPath();
+            int length = path.length();
+
+            BuilderNode node = root;
+            int start = 0;
+            while (true) {
+                int end = path.indexOf(SEPARATOR, start);
+                if (end < 0) end = length;
+
+                node = node.getChild(path.substring(start, end));
+                if (end >= length - 1) {
+                    break;
+                }
+                start = end + 1;
+            }
+
+            if (node.order < 0) {
+                node.order = entryCount;
+                node.value = value;
+                entryCount++;
+            }
+        }
+
+        public PathPrefixTrie<ValueType> create() {
+            return new PathPrefixTrie<>(root.toNode(), entryCount);
+        }
+    }
+
+    private final Node root;
+    private final int size;
+
+    private PathPrefixTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the value of the file added first to the builder of this trie
+     * which contains the given file, or {@code null} if there is no such file.
+     */
+    public ValueType tryGetValue(File file) {
+        ExceptionHelper.checkNotNullArgument(file, "file");
+
+        String path = file.getPath();
+        int length = path.length();
+
+        int bestOrder = Integer.MAX_VALUE;
+        Object bestValue = null;
+
+        Node node = root;
+        int start = 0;
+        while (true) {
+            int end = path.indexOf(SEPARATOR, start);
+            if (end < 0) end = length;
+
+            node = node.tryGetChild(path, start, end);
+            if (node == null) {
+                break;
+            }
+
+            if (node.order >= 0 && node.order < bestOrder) {
+                bestOrder = node.order;
+                bestValue = node.value;
+            }
+
+            if (end >= length - 1) {
+                break;
+            }
+            start = end + 1;
+        }
+
+        @SuppressWarnings("unchecked")
+        ValueType result = (ValueType)bestValue;
+        return result;
+    }
+
+    /**
+     * Returns the number of files added to this trie.
+     */
+    public int size() {
+        return size;
+    }
+
+    private static char normalizeChar(char ch) {
+        // The same conversion String.regionMatches does when ignoring case.
+        return IGNORE_CASE
+                ? Character.toLowerCase(Character.toUpperCase(ch))
+                : ch;
+    }
+
+    private static int hashRange(String str, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + normalizeChar(str.charAt(i));
+        }
+        // Spread the bits because the hash is used with power of two tables.
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class BuilderNode {
+        private final Map<String, BuilderNode> children;
+        public int order;
+        public Object value;
+
+        public BuilderNode() {
+            this.children = new HashMap<>();
+            this.order = -1;
+            this.value = null;
+        }
+
+        private static String toKey(String name) {
+            if (!IGNORE_CASE) {
+                return name;
+            }
+
+            char[] result = new char[name.length()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = normalizeChar(name.charAt(i));
+            }
+            return new String(result);
+        }
+
+        public BuilderNode getChild(String name) {
+            String key = toKey(name);
+            BuilderNode result = children.get(key);
+            if (result == null) {
+                result = new BuilderNode();
+                children.put(key, result);
+            }
+            return result;
+        }
+
+        public Node toNode() {
+            int tableSize = 1;
+            while (tableSize < 2 * children.size()) {
+                tableSize *= 2;
+            }
+
+            String[] keys = new String[children.isEmpty() ? 0 : tableSize];
+            Node[] nodes = new Node[keys.length];
+            for (Map.Entry<String, BuilderNode> entry: children.entrySet()) {
+                String key = entry.getKey();
+                int index = hashRange(key, 0, key.length()) & (keys.length - 1);
+                while (keys[index] != null) {
+                    index = (index + 1) & (keys.length - 1);
+                }
+                keys[index] = key;
+                nodes[index] = entry.getValue().toNode();
+            }
+
+            return new Node(keys, nodes, order, value);
+        }
+    }
+
+    private static final class Node {
+        // Open addressing hash table with linear probing (never full).
+        private final String[] keys;
+        private final Node[] children;
+        public final int order;
+        public final Object value;
+
+        public Node(String[] keys, Node[] children, int order, Object value) {
+            this.keys = keys;
+            this.children = children;
+            this.order = order;
+            this.value = value;
+        }
+
+        public Node tryGetChild(String path, int start, int end) {
+            int mask = keys.length - 1;
+            if (mask < 0) {
+                return null;
+            }
+
+            int nameLength = end - start;
+            int index = hashRange(path, start, end) & mask;
+            String key = keys[index];
+            while (key != null) {
+                if (key.length() == nameLength && key.regionMatches(IGNORE_CASE, 0, path, start, nameLength)) {
+                    return children[index];
+                }
+
+                index = (index + 1) & mask;
+                key = keys[index];
+            }
+            return null;
+        }
+    }
+}
@@ -43,6 +43,43 @@ public final class StringUtils {
         return "";
     }
 
+    /**
+     * Returns the index of the first occurrence of the given character within
+     * the specified range of the string or -1 if there is no such occurrence.
+     * The end index is exclusive.
+     */
+    public static int indexOf(String str, char toFind, int startIndex, int endIndex) {
+        int limit = Math.min(endIndex, str.length());
+        for (int i = startIndex; i < limit; i++) {
+            if (str.charAt(i) == toFind) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first occurrence of the given string within
+     * the specified range of the string or -1 if there is no such occurrence.
+     * The occurrence must be completely within the range. The end index is
+     * exclusive.
+     */
+    public static int indexOf(String str, String toFind, int startIndex, int endIndex) {
+        int toFindLength = toFind.length();
+        if (toFindLength == 0) {
+            return startIndex <= endIndex ? startIndex : -1;
+        }
+
+        char firstChar = toFind.charAt(0);
+        int lastPossibleIndex = Math.min(endIndex, str.length()) - toFindLength;
+        for (int i = startIndex; i <= lastPossibleIndex; i++) {
+            if (str.charAt(i) == firstChar && str.regionMatches(i + 1, toFind, 1, toFindLength - 1)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     public static String[] splitText(String text, String delimiters) {
         StringTokenizer tokenizer = new StringTokenizer(text, delimiters);
         List<String> result = new LinkedList<>();
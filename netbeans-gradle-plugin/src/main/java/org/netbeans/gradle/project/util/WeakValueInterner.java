@@ -0,0 +1,110 @@
+package org.netbeans.gradle.project.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Defines a thread-safe map which returns the same value for the same key
+ * for as long as the value is reachable. The values are only weakly
+ * referenced, so they are removed once they are reclaimed by the garbage
+ * collector.
+ * <P>
+ * Looking up a value does not need any lock.
+ *
+ * @param <KeyType> the type of the keys of the map
+ * @param <ValueType> the type of the values of the map
+ */
+public final class WeakValueInterner<KeyType, ValueType> {
+    private final ConcurrentMap<KeyType, KeyedWeakReference<KeyType, ValueType>> values;
+    private final ReferenceQueue<ValueType> references;
+
+    public WeakValueInterner() {
+        this.values = new ConcurrentHashMap<>();
+        this.references = new ReferenceQueue<>();
+    }
+
+    private void removeUnreferenced() {
+        while (true) {
+            @SuppressWarnings("unchecked")
+            KeyedWeakReference<KeyType, ValueType> ref
+                    = (KeyedWeakReference<KeyType, ValueType>)references.poll();
+            if (ref == null) {
+                break;
+            }
+            // The key might have been mapped to a new value since then.
+            values.remove(ref.getKey(), ref);
+        }
+    }
+
+    /**
+     * Returns the value stored for the given key or {@code null} if there is
+     * no such value.
+     */
+    public ValueType get(KeyType key) {
+        ExceptionHelper.checkNotNullArgument(key, "key");
+
+        KeyedWeakReference<KeyType, ValueType> ref = values.get(key);
+        return ref != null ? ref.get() : null;
+    }
+
+    /**
+     * Stores the given value unless there is already a value stored for the
+     * given key.
+     *
+     * @return the value already stored for the given key or {@code null} if
+     *   the given value was stored
+     */
+    public ValueType putIfAbsent(KeyType key, ValueType value) {
+        ExceptionHelper.checkNotNullArgument(key, "key");
+        ExceptionHelper.checkNotNullArgument(value, "value");
+
+        removeUnreferenced();
+
+        KeyedWeakReference<KeyType, ValueType> newRef = new KeyedWeakReference<>(key, value, references);
+        while (true) {
+            KeyedWeakReference<KeyType, ValueType> oldRef = values.putIfAbsent(key, newRef);
+            if (oldRef == null) {
+                return null;
+            }
+
+            ValueType oldValue = oldRef.get();
+            if (oldValue != null) {
+                return oldValue;
+            }
+
+            if (values.replace(key, oldRef, newRef)) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of values which were not yet reclaimed by the
+     * garbage collector.
+     */
+    public int size() {
+        removeUnreferenced();
+        return values.size();
+    }
+
+    @Override
+    public String toString() {
+        return "WeakValueInterner{" + "size=" + values.size() + '}';
+    }
+
+    private static final class KeyedWeakReference<KeyType, ValueType> extends WeakReference<ValueType> {
+        private final KeyType key;
+
+        public KeyedWeakReference(KeyType key, ValueType value, ReferenceQueue<? super ValueType> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+
+        public KeyType getKey() {
+            return key;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.netbeans.gradle.project.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Defines a thread-safe cache which returns the same value for the same key
+ * for as long as the value is reachable. The values are only weakly
+ * referenced by the cache except for the most recently added values, which
+ * are strongly referenced to avoid recreating frequently used but not
+ * otherwise retained values.
+ * <P>
+ * Looking up a value does not need any lock. To keep lookups cheap, the
+ * strongly referenced values are not reordered when they are accessed: A
+ * value is strongly referenced again only if it has to be looked up from the
+ * weakly referenced values, so the strongly referenced values only
+ * approximate the most recently used values.
+ * <P>
+ * The cache also counts its hits and misses, so that its efficiency can be
+ * reported.
+ *
+ * @param <KeyType> the type of the keys of the cache
+ * @param <ValueType> the type of the values of the cache
+ */
+public final class WeakValueLruCache<KeyType, ValueType> {
+    private final WeakValueInterner<KeyType, ValueType> values;
+
+    private final ConcurrentMap<KeyType, RecentEntry<KeyType, ValueType>> recentValues;
+    private final AtomicReferenceArray<RecentEntry<KeyType, ValueType>> recentSlots;
+    private final AtomicInteger nextRecentSlot;
+
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+
+    /**
+     * Creates an empty cache which strongly references at most the given
+     * number of values.
+     */
+    public WeakValueLruCache(int maxStrongSize) {
+        ExceptionHelper.checkArgumentInRange(maxStrongSize, 0, Integer.MAX_VALUE, "maxStrongSize");
+
+        this.values = new WeakValueInterner<>();
+        this.recentValues = new ConcurrentHashMap<>();
+        this.recentSlots = new AtomicReferenceArray<>(maxStrongSize);
+        this.nextRecentSlot = new AtomicInteger(0);
+        this.hitCount = new AtomicLong(0);
+        this.missCount = new AtomicLong(0);
+    }
+
+    private void addToRecent(KeyType key, ValueType value) {
+        int slotCount = recentSlots.length();
+        if (slotCount == 0) {
+            return;
+        }
+
+        RecentEntry<KeyType, ValueType> entry = new RecentEntry<>(key, value);
+        recentValues.put(key, entry);
+
+        int slot = (nextRecentSlot.getAndIncrement() & Integer.MAX_VALUE) % slotCount;
+        RecentEntry<KeyType, ValueType> evicted = recentSlots.getAndSet(slot, entry);
+        if (evicted != null) {
+            recentValues.remove(evicted.key, evicted);
+        }
+    }
+
+    private ValueType tryGetValue(KeyType key) {
+        RecentEntry<KeyType, ValueType> recent = recentValues.get(key);
+        if (recent != null) {
+            return recent.value;
+        }
+
+        ValueType result = values.get(key);
+        if (result != null) {
+            addToRecent(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the value cached for the given key or {@code null} if there is
+     * no such value. This method counts as a hit or a miss.
+     */
+    public ValueType get(KeyType key) {
+        ExceptionHelper.checkNotNullArgument(key, "key");
+
+        ValueType result = tryGetValue(key);
+        if (result != null) {
+            hitCount.incrementAndGet();
+        }
+        else {
+            missCount.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Caches the given value unless there is already a value cached for the
+     * given key.
+     *
+     * @return the value already cached for the given key or {@code null} if
+     *   the given value was cached
+     */
+    public ValueType putIfAbsent(KeyType key, ValueType value) {
+        ExceptionHelper.checkNotNullArgument(key, "key");
+        ExceptionHelper.checkNotNullArgument(value, "value");
+
+        ValueType oldValue = values.putIfAbsent(key, value);
+        if (oldValue != null) {
+            return oldValue;
+        }
+
+        addToRecent(key, value);
+        return null;
+    }
+
+    /**
+     * Returns the number of values in the cache which were not yet reclaimed
+     * by the garbage collector.
+     */
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Returns the number of values strongly referenced by this cache.
+     */
+    public int getStrongSize() {
+        return recentValues.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the ratio of the hits to all the lookups or zero if there were
+     * no lookups.
+     */
+    public double getHitRate() {
+        long hits = hitCount.get();
+        long lookupCount = hits + missCount.get();
+        return lookupCount > 0 ? (double)hits / (double)lookupCount : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return "WeakValueLruCache{" + "size=" + values.size()
+                + ", strongSize=" + recentValues.size()
+                + ", hits=" + hitCount.get()
+                + ", misses=" + missCount.get() + '}';
+    }
+
+    private static final class RecentEntry<KeyType, ValueType> {
+        public final KeyType key;
+        public final ValueType value;
+
+        public RecentEntry(KeyType key, ValueType value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
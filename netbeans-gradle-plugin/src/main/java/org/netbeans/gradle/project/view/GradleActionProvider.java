@@ -6,6 +6,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.SwingUtilities;
+import org.jtrim.cancel.Cancellation;
 import org.jtrim.cancel.CancellationToken;
 import org.jtrim.concurrent.WaitableSignal;
 import org.netbeans.api.project.Project;
@@ -239,10 +240,19 @@ public final class GradleActionProvider implements ActionProvider {
                     displayName = task.getDisplayName();
                 }
 
-                return GradleTaskDef.createFromTemplate(project,
+                GradleTaskDef.Builder builder = GradleTaskDef.createFromTemplate(project,
                         task.toCommandTemplate(displayName),
                         customActions,
-                        appliedContext).create();
+                        appliedContext);
+
+                // Allows the invoker (e.g.: continuous builds) to cancel the
+                // command.
+                CancellationToken contextCancelToken = appliedContext.lookup(CancellationToken.class);
+                if (contextCancelToken != null) {
+                    builder.setCancelToken(Cancellation.anyToken(builder.getCancelToken(), contextCancelToken));
+                }
+
+                return builder.create();
             }
         };
 
@@ -297,6 +297,7 @@ implements
                     GradleActionProvider.COMMAND_RELOAD,
                     NbStrings.getReloadCommandCaption()));
             projectActions.add(new RefreshNodesAction());
+            projectActions.add(new ShowTaskQueueAction());
             projectActions.addAll(extActions.getProjectManagementActions());
             projectActions.add(CommonProjectActions.closeProjectAction());
             projectActions.add(null);
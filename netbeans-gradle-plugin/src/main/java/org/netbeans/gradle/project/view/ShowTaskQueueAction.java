@@ -0,0 +1,35 @@
+package org.netbeans.gradle.project.view;
+
+import java.awt.Dialog;
+import java.awt.event.ActionEvent;
+import javax.swing.AbstractAction;
+import org.netbeans.gradle.project.NbStrings;
+import org.netbeans.gradle.project.tasks.GradleTaskScheduler;
+import org.openide.DialogDescriptor;
+import org.openide.DialogDisplayer;
+
+public final class ShowTaskQueueAction extends AbstractAction {
+    private static final long serialVersionUID = 1L;
+
+    public ShowTaskQueueAction() {
+        super(NbStrings.getTaskQueueCommandCaption());
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        TaskQueuePanel panel = new TaskQueuePanel(GradleTaskScheduler.getDefault());
+
+        DialogDescriptor dlgDescriptor = new DialogDescriptor(
+                panel,
+                NbStrings.getTaskQueueDlgTitle(),
+                false,
+                new Object[]{DialogDescriptor.CLOSED_OPTION},
+                DialogDescriptor.CLOSED_OPTION,
+                DialogDescriptor.BOTTOM_ALIGN,
+                null,
+                null);
+        Dialog dlg = DialogDisplayer.getDefault().createDialog(dlgDescriptor);
+        dlg.pack();
+        dlg.setVisible(true);
+    }
+}
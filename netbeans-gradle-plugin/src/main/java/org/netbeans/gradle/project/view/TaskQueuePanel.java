@@ -0,0 +1,176 @@
+package org.netbeans.gradle.project.view;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.List;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.DefaultListModel;
+import javax.swing.JButton;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.NbStrings;
+import org.netbeans.gradle.project.tasks.GradleTaskScheduler;
+import org.netbeans.gradle.project.tasks.GradleTaskScheduler.QueuedTaskInfo;
+
+/**
+ * Displays the Gradle commands waiting for a free slot of a
+ * {@link GradleTaskScheduler} and allows them to be canceled and reordered.
+ * The list is updated while the panel is displayed.
+ */
+@SuppressWarnings("serial") // don't care about serialization
+public final class TaskQueuePanel extends JPanel {
+    private final GradleTaskScheduler scheduler;
+    private final DefaultListModel<QueuedTaskInfo> queueModel;
+    private final JList<QueuedTaskInfo> queueList;
+    private final JButton cancelButton;
+    private final JButton moveToFrontButton;
+    private final JButton moveToBackButton;
+    private final ChangeListener queueChangeListener;
+
+    public TaskQueuePanel(GradleTaskScheduler scheduler) {
+        super(new BorderLayout());
+
+        ExceptionHelper.checkNotNullArgument(scheduler, "scheduler");
+        this.scheduler = scheduler;
+
+        this.queueModel = new DefaultListModel<>();
+        this.queueList = new JList<>(queueModel);
+        this.cancelButton = new JButton(NbStrings.getCancelQueuedTaskLabel());
+        this.moveToFrontButton = new JButton(NbStrings.getMoveQueuedTaskToFrontLabel());
+        this.moveToBackButton = new JButton(NbStrings.getMoveQueuedTaskToBackLabel());
+
+        // The scheduler notifies the listeners on the thread changing the
+        // queue.
+        this.queueChangeListener = new ChangeListener() {
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        updateQueue();
+                    }
+                });
+            }
+        };
+
+        queueList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        queueList.setVisibleRowCount(10);
+        queueList.setCellRenderer(new QueuedTaskRenderer());
+        queueList.addListSelectionListener(new ListSelectionListener() {
+            @Override
+            public void valueChanged(ListSelectionEvent e) {
+                updateButtons();
+            }
+        });
+
+        cancelButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                QueuedTaskInfo selected = queueList.getSelectedValue();
+                if (selected != null) {
+                    TaskQueuePanel.this.scheduler.cancelQueuedTask(selected.getTaskId());
+                }
+            }
+        });
+        moveToFrontButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                QueuedTaskInfo selected = queueList.getSelectedValue();
+                if (selected != null) {
+                    TaskQueuePanel.this.scheduler.moveToFront(selected.getTaskId());
+                }
+            }
+        });
+        moveToBackButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                QueuedTaskInfo selected = queueList.getSelectedValue();
+                if (selected != null) {
+                    TaskQueuePanel.this.scheduler.moveToBack(selected.getTaskId());
+                }
+            }
+        });
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.TRAILING));
+        buttons.add(moveToFrontButton);
+        buttons.add(moveToBackButton);
+        buttons.add(cancelButton);
+
+        add(new JScrollPane(queueList), BorderLayout.CENTER);
+        add(buttons, BorderLayout.SOUTH);
+
+        updateQueue();
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        scheduler.addQueueChangeListener(queueChangeListener);
+        updateQueue();
+    }
+
+    @Override
+    public void removeNotify() {
+        scheduler.removeQueueChangeListener(queueChangeListener);
+        super.removeNotify();
+    }
+
+    private void updateQueue() {
+        QueuedTaskInfo selected = queueList.getSelectedValue();
+        long selectedId = selected != null ? selected.getTaskId() : -1;
+
+        List<QueuedTaskInfo> queuedTasks = scheduler.getQueuedTasks();
+        queueModel.clear();
+        int newSelection = -1;
+        for (QueuedTaskInfo task: queuedTasks) {
+            if (task.getTaskId() == selectedId) {
+                newSelection = queueModel.size();
+            }
+            queueModel.addElement(task);
+        }
+
+        if (newSelection >= 0) {
+            queueList.setSelectedIndex(newSelection);
+        }
+        updateButtons();
+    }
+
+    private void updateButtons() {
+        boolean hasSelection = queueList.getSelectedValue() != null;
+        cancelButton.setEnabled(hasSelection);
+        moveToFrontButton.setEnabled(hasSelection);
+        moveToBackButton.setEnabled(hasSelection);
+    }
+
+    private static final class QueuedTaskRenderer extends DefaultListCellRenderer {
+        @Override
+        public Component getListCellRendererComponent(
+                JList<?> list,
+                Object value,
+                int index,
+                boolean isSelected,
+                boolean cellHasFocus) {
+
+            Object caption = value;
+            if (value instanceof QueuedTaskInfo) {
+                QueuedTaskInfo task = (QueuedTaskInfo)value;
+                caption = NbStrings.getQueuedTaskCaption(
+                        task.getDisplayName(),
+                        task.getRootDir().getName(),
+                        task.getPriority());
+            }
+            return super.getListCellRendererComponent(list, caption, index, isSelected, cellHasFocus);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.netbeans.gradle.model.GenericProjectProperties;
+import org.netbeans.gradle.model.java.JavaCompatibilityModel;
+import org.netbeans.gradle.model.java.JavaOutputDirs;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceGroupName;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.model.java.JavaTestModel;
+import org.netbeans.gradle.project.java.model.JavaModelSource;
+import org.netbeans.gradle.project.java.model.JavaProjectDependency;
+import org.netbeans.gradle.project.java.model.NbJavaModel;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.java.model.NbListedDir;
+import org.netbeans.gradle.project.model.NbGradleProjectTreeTest;
+import org.openide.filesystems.FileUtil;
+
+import static org.junit.Assert.*;
+
+public class JavaSourceRootIndexTest {
+    private static final File PROJECT_DIR = new File("index-test-project").getAbsoluteFile();
+
+    private static File file(String... pathElements) {
+        File result = PROJECT_DIR;
+        for (String pathElement: pathElements) {
+            result = new File(result, pathElement);
+        }
+        return result;
+    }
+
+    private static JavaSourceSet createSources(String name, String... dirPrefix) {
+        JavaSourceSet.Builder result = new JavaSourceSet.Builder(
+                name,
+                new JavaOutputDirs(
+                        file(concat(dirPrefix, "build", "classes", name)),
+                        file(concat(dirPrefix, "build", "resources", name)),
+                        Collections.<File>emptySet()));
+        result.addSourceGroup(new JavaSourceGroup(JavaSourceGroupName.JAVA,
+                Arrays.asList(file(concat(dirPrefix, "src", name, "java")))));
+        result.addSourceGroup(new JavaSourceGroup(JavaSourceGroupName.RESOURCES,
+                Arrays.asList(file(concat(dirPrefix, "src", name, "resources")))));
+        return result.create();
+    }
+
+    private static String[] concat(String[] prefix, String... elements) {
+        String[] result = Arrays.copyOf(prefix, prefix.length + elements.length);
+        System.arraycopy(elements, 0, result, prefix.length, elements.length);
+        return result;
+    }
+
+    private static NbJavaModel createModel(String... dirPrefix) {
+        GenericProjectProperties properties = NbGradleProjectTreeTest.createProperties("app", ":app");
+        JavaCompatibilityModel compatibility = new JavaCompatibilityModel("1.6", "1.7");
+        List<JavaSourceSet> sources = Arrays.asList(createSources("main", dirPrefix), createSources("test", dirPrefix));
+        JavaTestModel testModel = JavaTestModel.getDefaulTestModel(properties.getProjectDir());
+
+        NbJavaModule module = new NbJavaModule(
+                properties, compatibility, sources, Collections.<NbListedDir>emptyList(), testModel);
+        return NbJavaModel.createModel(
+                JavaModelSource.GRADLE_1_8_API,
+                module,
+                Collections.<File, JavaProjectDependency>emptyMap());
+    }
+
+    @Test
+    public void testSourceRootsOfBinary() {
+        JavaSourceRootIndex index = JavaSourceRootIndex.create(createModel());
+
+        assertEquals(
+                Arrays.asList(file("src", "main", "java"), file("src", "main", "resources")),
+                index.tryGetSourceRoots(file("build", "classes", "main")));
+        assertEquals(
+                Arrays.asList(file("src", "test", "java"), file("src", "test", "resources")),
+                index.tryGetSourceRoots(file("build", "classes", "test", "pkg")));
+        assertNull(index.tryGetSourceRoots(file("build", "classes")));
+        assertNull(index.tryGetSourceRoots(file("build", "resources", "main")));
+    }
+
+    @Test
+    public void testClassesDirOfSource() {
+        JavaSourceRootIndex index = JavaSourceRootIndex.create(createModel());
+
+        assertEquals(file("build", "classes", "main"), index.tryGetClassesDir(file("src", "main", "java")));
+        assertEquals(file("build", "classes", "main"), index.tryGetClassesDir(file("src", "main", "resources", "a.txt")));
+        assertEquals(file("build", "classes", "test"), index.tryGetClassesDir(file("src", "test", "java", "pkg")));
+        assertNull(index.tryGetClassesDir(file("src", "main")));
+    }
+
+    @Test
+    public void testTestAndNonTestRoots() {
+        JavaSourceRootIndex index = JavaSourceRootIndex.create(createModel());
+
+        assertTrue(index.isInNonTestSourceRoot(file("src", "main", "java", "pkg", "A.java")));
+        assertFalse(index.isInNonTestSourceRoot(file("src", "test", "java", "pkg", "ATest.java")));
+        assertFalse(index.isInNonTestSourceRoot(file("build", "classes", "main")));
+
+        assertEquals(
+                Arrays.asList(
+                        FileUtil.urlForArchiveOrDir(file("src", "test", "java")),
+                        FileUtil.urlForArchiveOrDir(file("src", "test", "resources"))),
+                Arrays.asList(index.getTestSourceRootUrls()));
+        assertEquals(
+                Arrays.asList(
+                        FileUtil.urlForArchiveOrDir(file("src", "main", "java")),
+                        FileUtil.urlForArchiveOrDir(file("src", "main", "resources"))),
+                Arrays.asList(index.getNonTestSourceRootUrls()));
+    }
+
+    @Test
+    public void testReturnedUrlsAreCopies() {
+        JavaSourceRootIndex index = JavaSourceRootIndex.create(createModel());
+
+        URL[] urls = index.getTestSourceRootUrls();
+        urls[0] = null;
+        assertNotNull(index.getTestSourceRootUrls()[0]);
+    }
+
+    @Test
+    public void testUnnormalizedModelPaths() {
+        JavaSourceRootIndex index = JavaSourceRootIndex.create(createModel("sub", "..", "."));
+
+        assertNotNull(index.tryGetSourceRoots(file("build", "classes", "main")));
+        assertNotNull(index.tryGetClassesDir(file("src", "test", "java", "pkg")));
+        assertTrue(index.isInNonTestSourceRoot(file("src", "main", "java", "pkg", "A.java")));
+    }
+}
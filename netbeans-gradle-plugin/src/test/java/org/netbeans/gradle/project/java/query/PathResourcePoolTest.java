@@ -0,0 +1,54 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.netbeans.gradle.model.java.SourceIncludePatterns;
+import org.netbeans.gradle.project.util.ExcludeIncludeRules;
+import org.netbeans.spi.java.classpath.PathResourceImplementation;
+import org.openide.filesystems.FileUtil;
+
+import static org.junit.Assert.*;
+
+public class PathResourcePoolTest {
+    @Rule
+    public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private static ExcludeIncludeRules excludeRules(String... excludePatterns) {
+        return ExcludeIncludeRules.create(SourceIncludePatterns.create(
+                Arrays.asList(excludePatterns),
+                Collections.<String>emptySet()));
+    }
+
+    @Test
+    public void testProjectsShareTheSameResource() throws IOException {
+        File root = tmpFolder.newFolder("lib");
+
+        // Each project has its own File instance for the same root.
+        PathResourceImplementation resource1 = PathResourcePool.tryGetResource(new File(root.getPath()));
+        PathResourceImplementation resource2 = PathResourcePool.tryGetResource(new File(root.getPath()));
+
+        assertNotNull(resource1);
+        assertSame(resource1, resource2);
+        assertSame(resource1, PathResourcePool.getResource(FileUtil.urlForArchiveOrDir(root)));
+    }
+
+    @Test
+    public void testProjectsShareTheSameFilteredResource() throws IOException {
+        File root = tmpFolder.newFolder("src");
+
+        PathResourceImplementation resource1 = PathResourcePool.tryGetResource(root, excludeRules("**/*.txt"));
+        PathResourceImplementation resource2 = PathResourcePool.tryGetResource(root, excludeRules("**/*.txt"));
+        PathResourceImplementation otherRules = PathResourcePool.tryGetResource(root, excludeRules("**/*.xml"));
+        PathResourceImplementation allowAll = PathResourcePool.tryGetResource(root);
+
+        assertNotNull(resource1);
+        assertSame(resource1, resource2);
+        assertNotSame(resource1, otherRules);
+        assertNotSame(resource1, allowAll);
+    }
+}
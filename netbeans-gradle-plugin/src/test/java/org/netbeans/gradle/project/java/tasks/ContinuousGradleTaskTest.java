@@ -0,0 +1,180 @@
+package org.netbeans.gradle.project.java.tasks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.swing.event.ChangeListener;
+import org.jtrim.cancel.CancellationToken;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openide.util.Lookup;
+
+import static org.junit.Assert.*;
+
+public class ContinuousGradleTaskTest {
+    private static final long DEBOUNCE_MS = 100;
+    private static final long TIMEOUT_MS = 5000;
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private static ContinuousGradleTask createTask(RecordingTarget target) {
+        return new ContinuousGradleTask(target, "build", Lookup.EMPTY, DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testExecutesOnStart() throws InterruptedException {
+        RecordingTarget target = new RecordingTarget();
+        ContinuousGradleTask task = createTask(target);
+
+        task.start();
+        try {
+            target.waitForExecutionCount(1);
+            assertEquals("build", target.getCommand(0));
+            assertEquals(1, target.getListenerCount());
+        } finally {
+            task.stop();
+        }
+    }
+
+    @Test
+    public void testChangesAreDebounced() throws InterruptedException {
+        RecordingTarget target = new RecordingTarget();
+        ContinuousGradleTask task = createTask(target);
+
+        task.start();
+        try {
+            target.waitForExecutionCount(1);
+
+            for (int i = 0; i < 5; i++) {
+                task.sourcesChanged();
+            }
+            target.waitForExecutionCount(2);
+
+            Thread.sleep(3 * DEBOUNCE_MS);
+            assertEquals(2, target.getExecutionCount());
+        } finally {
+            task.stop();
+        }
+    }
+
+    @Test
+    public void testRerunCancelsPreviousExecution() throws InterruptedException {
+        RecordingTarget target = new RecordingTarget();
+        ContinuousGradleTask task = createTask(target);
+
+        task.start();
+        try {
+            target.waitForExecutionCount(1);
+            assertFalse(target.getCancelToken(0).isCanceled());
+
+            task.sourcesChanged();
+            target.waitForExecutionCount(2);
+
+            assertTrue(target.getCancelToken(0).isCanceled());
+            assertFalse(target.getCancelToken(1).isCanceled());
+        } finally {
+            task.stop();
+        }
+    }
+
+    @Test
+    public void testStopCancelsAndIgnoresChanges() throws InterruptedException {
+        RecordingTarget target = new RecordingTarget();
+        ContinuousGradleTask task = createTask(target);
+
+        task.start();
+        target.waitForExecutionCount(1);
+
+        task.sourcesChanged();
+        task.stop();
+        assertFalse(task.isStarted());
+        assertTrue(target.getCancelToken(0).isCanceled());
+        assertEquals(0, target.getListenerCount());
+
+        task.sourcesChanged();
+        Thread.sleep(3 * DEBOUNCE_MS);
+        assertEquals(1, target.getExecutionCount());
+    }
+
+    private static final class RecordingTarget implements ContinuousGradleTask.CommandTarget {
+        private final List<String> commands;
+        private final List<CancellationToken> cancelTokens;
+        private final List<ChangeListener> listeners;
+
+        public RecordingTarget() {
+            this.commands = new ArrayList<>();
+            this.cancelTokens = new ArrayList<>();
+            this.listeners = new ArrayList<>();
+        }
+
+        public synchronized void waitForExecutionCount(int count) throws InterruptedException {
+            long startTime = System.nanoTime();
+            long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+            while (commands.size() < count) {
+                long remainingNanos = timeoutNanos - (System.nanoTime() - startTime);
+                if (remainingNanos <= 0) {
+                    fail("Timeout while waiting for " + count + " executions. Executions: " + commands.size());
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+            }
+        }
+
+        public synchronized int getExecutionCount() {
+            return commands.size();
+        }
+
+        public synchronized String getCommand(int index) {
+            return commands.get(index);
+        }
+
+        public synchronized CancellationToken getCancelToken(int index) {
+            return cancelTokens.get(index);
+        }
+
+        public synchronized int getListenerCount() {
+            return listeners.size();
+        }
+
+        @Override
+        public Set<File> getSourceRoots() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public synchronized void addModelChangeListener(ChangeListener listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public synchronized void removeModelChangeListener(ChangeListener listener) {
+            listeners.remove(listener);
+        }
+
+        @Override
+        public synchronized void executeCommand(String command, Lookup context) {
+            commands.add(command);
+            cancelTokens.add(context.lookup(CancellationToken.class));
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.netbeans.gradle.project.java.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class ClassDependencyIndexTest {
+    @Rule
+    public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private static String getClassFileName(Class<?> cl) {
+        return cl.getName().replace('.', '/') + ".class";
+    }
+
+    private static InputStream openClassFile(Class<?> cl) {
+        InputStream result = cl.getClassLoader().getResourceAsStream(getClassFileName(cl));
+        assertNotNull("Class file of " + cl.getName(), result);
+        return result;
+    }
+
+    private static void copyClassFile(Class<?> cl, File classesDir) throws IOException {
+        File dest = new File(classesDir, getClassFileName(cl));
+        Files.createDirectories(dest.getParentFile().toPath());
+        try (InputStream input = openClassFile(cl)) {
+            Files.copy(input, dest.toPath());
+        }
+    }
+
+    @Test
+    public void testReadReferencedClasses() throws IOException {
+        Set<String> references;
+        try (InputStream input = openClassFile(ClassDependencyIndex.class)) {
+            references = ClassFileReferences.readReferencedClasses(input);
+        }
+
+        assertTrue(references.contains(ClassFileReferences.class.getName()));
+        assertTrue(references.contains(File.class.getName()));
+        assertTrue(references.contains(ClassDependencyIndex.class.getName()));
+        assertFalse(references.contains(ClassDependencyIndex.class.getName() + "$IndexedClassFile"));
+    }
+
+    @Test
+    public void testToTopLevelClassName() {
+        assertEquals("mypackage.Outer", ClassFileReferences.toTopLevelClassName("mypackage/Outer$Inner"));
+        assertEquals("mypackage.Outer", ClassFileReferences.toTopLevelClassName("mypackage/Outer"));
+        assertEquals("my$package.Outer", ClassFileReferences.toTopLevelClassName("my$package/Outer"));
+    }
+
+    @Test
+    public void testFindDependentClasses() throws IOException {
+        File classesDir = tmpFolder.newFolder("classes");
+        copyClassFile(ClassFileReferences.class, classesDir);
+        copyClassFile(ClassDependencyIndex.class, classesDir);
+        copyClassFile(TestReportCache.class, classesDir);
+
+        ClassDependencyIndex index = new ClassDependencyIndex();
+        index.update(Collections.singleton(classesDir));
+
+        assertEquals(3, index.getClassFileCount());
+        assertEquals(new HashSet<>(Arrays.asList(
+                ClassFileReferences.class.getName(),
+                ClassDependencyIndex.class.getName(),
+                TestReportCache.class.getName())),
+                index.getClassesInDir(classesDir));
+
+        Set<String> dependents = index.findDependentClasses(
+                Collections.singleton(ClassFileReferences.class.getName()));
+        assertEquals(new HashSet<>(Arrays.asList(
+                ClassFileReferences.class.getName(),
+                ClassDependencyIndex.class.getName())),
+                dependents);
+    }
+
+    @Test
+    public void testUpdateRemovesDeletedClasses() throws IOException {
+        File classesDir = tmpFolder.newFolder("classes");
+        copyClassFile(ClassFileReferences.class, classesDir);
+        copyClassFile(ClassDependencyIndex.class, classesDir);
+
+        ClassDependencyIndex index = new ClassDependencyIndex();
+        index.update(Collections.singleton(classesDir));
+        assertEquals(2, index.getClassFileCount());
+
+        Files.delete(new File(classesDir, getClassFileName(ClassDependencyIndex.class)).toPath());
+        index.update(Collections.singleton(classesDir));
+
+        assertEquals(1, index.getClassFileCount());
+        assertEquals(Collections.singleton(ClassFileReferences.class.getName()),
+                index.findDependentClasses(Collections.singleton(ClassFileReferences.class.getName())));
+    }
+}
@@ -0,0 +1,185 @@
+package org.netbeans.gradle.project.java.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.netbeans.gradle.project.others.test.NbGradleTestSession;
+import org.netbeans.gradle.project.others.test.NbGradleTestSuite;
+import org.netbeans.modules.gsf.testrunner.api.Testcase;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class TestReportIngesterTest {
+    @Rule
+    public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private File writeReport(String suiteName, int testcaseCount) throws IOException {
+        return writeReport(suiteName, testcaseCount, "");
+    }
+
+    private File writeReport(String suiteName, int testcaseCount, String stdOut) throws IOException {
+        StringBuilder content = new StringBuilder();
+        content.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        content.append("<testsuite name=\"").append(suiteName).append("\" time=\"0.5\">\n");
+        for (int i = 0; i < testcaseCount; i++) {
+            content.append("  <testcase name=\"test").append(i)
+                    .append("\" classname=\"").append(suiteName).append("\" time=\"0.001\"/>\n");
+        }
+        content.append("  <system-out><![CDATA[").append(stdOut).append("]]></system-out>\n");
+        content.append("  <system-err><![CDATA[]]></system-err>\n");
+        content.append("</testsuite>\n");
+
+        File result = tmpFolder.newFile("TEST-" + suiteName + ".xml");
+        Files.write(result.toPath(), content.toString().getBytes(Charset.forName("UTF-8")));
+        return result;
+    }
+
+    @Test
+    public void testSuitesAreDisplayedInNameOrder() throws IOException {
+        List<File> reportFiles = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            // Make the early reports slower to parse than the later ones.
+            reportFiles.add(writeReport(String.format("mypackage.Suite%02d", i), 2000 / (i + 1)));
+        }
+
+        List<File> submittedFiles = new ArrayList<>(reportFiles);
+        Collections.reverse(submittedFiles);
+
+        MockSession session = new MockSession();
+        TestReportIngester ingester = new TestReportIngester(new TestReportCache());
+        for (File reportFile: submittedFiles) {
+            assertTrue(ingester.submit(reportFile));
+        }
+        assertFalse(ingester.submit(reportFiles.get(0)));
+        ingester.finish(session);
+
+        List<String> expectedNames = new ArrayList<>();
+        for (int i = 0; i < reportFiles.size(); i++) {
+            expectedNames.add(String.format("mypackage.Suite%02d", i));
+        }
+
+        assertEquals(expectedNames, session.suiteNames);
+        assertEquals(1, session.endCount.get());
+    }
+
+    @Test
+    public void testCanceledIngesterIgnoresReports() throws IOException {
+        File report = writeReport("mypackage.Suite", 1);
+
+        TestReportIngester ingester = new TestReportIngester(new TestReportCache());
+        ingester.cancel();
+        assertFalse(ingester.submit(report));
+    }
+
+    @Test
+    public void testInvalidReportIsSkipped() throws IOException {
+        File invalidReport = tmpFolder.newFile("TEST-invalid.xml");
+        Files.write(invalidReport.toPath(), "<testsuite".getBytes(Charset.forName("UTF-8")));
+
+        File validReport = writeReport("mypackage.ValidSuite", 1);
+
+        MockSession session = new MockSession();
+        TestReportIngester ingester = new TestReportIngester(new TestReportCache());
+        ingester.submit(invalidReport);
+        ingester.submit(validReport);
+        ingester.finish(session);
+
+        assertEquals(Collections.singletonList("mypackage.ValidSuite"), session.suiteNames);
+        assertEquals(1, session.endCount.get());
+    }
+
+    @Test
+    public void testUnchangedReportsAreNotParsedAgain() throws IOException {
+        File report1 = writeReport("mypackage.Suite1", 3);
+        File report2 = writeReport("mypackage.Suite2", 3);
+
+        TestReportCache cache = new TestReportCache();
+
+        MockSession session1 = new MockSession();
+        TestReportIngester ingester1 = new TestReportIngester(cache);
+        ingester1.submit(report1);
+        ingester1.submit(report2);
+        ingester1.finish(session1);
+
+        assertEquals(0, cache.getHitCount());
+
+        assertTrue(report2.setLastModified(report2.lastModified() - 10000));
+
+        MockSession session2 = new MockSession();
+        TestReportIngester ingester2 = new TestReportIngester(cache);
+        ingester2.submit(report1);
+        ingester2.submit(report2);
+        ingester2.finish(session2);
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(Arrays.asList("mypackage.Suite1", "mypackage.Suite2"), session2.suiteNames);
+    }
+
+    @Test
+    public void testReportsWithOutputAreNotCached() throws IOException {
+        File report = writeReport("mypackage.Suite", 3, "printed by the test");
+
+        TestReportCache cache = new TestReportCache();
+        for (int i = 0; i < 2; i++) {
+            MockSession session = new MockSession();
+            TestReportIngester ingester = new TestReportIngester(cache);
+            ingester.submit(report);
+            ingester.finish(session);
+
+            assertEquals(Collections.singletonList("mypackage.Suite"), session.suiteNames);
+        }
+
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    private static final class MockSession implements NbGradleTestSession {
+        public final List<String> suiteNames = Collections.synchronizedList(new ArrayList<String>());
+        public final AtomicInteger endCount = new AtomicInteger(0);
+
+        @Override
+        public NbGradleTestSuite startTestSuite(String suiteName) {
+            suiteNames.add(suiteName);
+
+            NbGradleTestSuite result = mock(NbGradleTestSuite.class);
+            stub(result.addTestcase(anyString())).toReturn(mock(Testcase.class));
+            return result;
+        }
+
+        @Override
+        public void endSession() {
+            endCount.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.concurrent.CleanupTask;
+import org.jtrim.concurrent.TaskExecutor;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.netbeans.gradle.project.api.task.TaskOutputProcessor;
+import org.openide.windows.InputOutput;
+import org.openide.windows.OutputWriter;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class AsyncOutputHandlerTest {
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private static SmartOutputHandler createProcessor(TaskOutputProcessor visitor) {
+        return new SmartOutputHandler(
+                mock(InputOutput.class),
+                mock(OutputWriter.class),
+                Arrays.asList(visitor),
+                Collections.<SmartOutputHandler.Consumer>emptyList());
+    }
+
+    private static AsyncOutputHandler createHandler(
+            TaskOutputProcessor visitor,
+            TaskExecutor executor,
+            int capacity,
+            AsyncOutputHandler.OverflowPolicy overflowPolicy) {
+        return new AsyncOutputHandler(createProcessor(visitor), executor, capacity, overflowPolicy);
+    }
+
+    @Test
+    public void testLinesAreProcessedInOrderBeforeClose() throws IOException {
+        CollectingProcessor visitor = new CollectingProcessor();
+        AsyncOutputHandler handler = createHandler(
+                visitor,
+                new ThreadTaskExecutor(),
+                AsyncOutputHandler.DEFAULT_CAPACITY,
+                AsyncOutputHandler.OverflowPolicy.DROP_DECORATION);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            String line = "line" + i;
+            expected.add(line);
+            handler.writeLine(line);
+        }
+        handler.close();
+
+        assertEquals(expected, visitor.getLines());
+        assertEquals(0, handler.getStatistics().getQueueDepth());
+        assertEquals(10000, handler.getStatistics().getProcessedLineCount());
+    }
+
+    @Test
+    public void testDropDecorationWhenFull() throws IOException {
+        CollectingProcessor visitor = new CollectingProcessor();
+        ManualTaskExecutor executor = new ManualTaskExecutor();
+        AsyncOutputHandler handler = createHandler(
+                visitor,
+                executor,
+                2,
+                AsyncOutputHandler.OverflowPolicy.DROP_DECORATION);
+
+        handler.writeLine("line1");
+        handler.writeLine("line2");
+        handler.writeLine("line3");
+        assertEquals(1, handler.getStatistics().getUndecoratedLineCount());
+        assertEquals(3, handler.getStatistics().getMaxQueueDepth());
+
+        executor.start();
+        handler.close();
+
+        assertEquals(Arrays.asList("line1", "line2", "line3"), visitor.getLines());
+    }
+
+    @Test
+    public void testSpillKeepsDecoration() throws IOException {
+        CollectingProcessor visitor = new CollectingProcessor();
+        ManualTaskExecutor executor = new ManualTaskExecutor();
+        AsyncOutputHandler handler = createHandler(
+                visitor,
+                executor,
+                2,
+                AsyncOutputHandler.OverflowPolicy.SPILL);
+
+        for (int i = 0; i < 10; i++) {
+            handler.writeLine("line" + i);
+        }
+        assertEquals(0, handler.getStatistics().getUndecoratedLineCount());
+        assertEquals(10, handler.getStatistics().getQueueDepth());
+
+        executor.start();
+        handler.close();
+
+        assertEquals(10, visitor.getLines().size());
+    }
+
+    @Test
+    public void testFailingProcessorDoesNotStopOutput() throws IOException {
+        final CollectingProcessor visitor = new CollectingProcessor();
+        TaskOutputProcessor failingVisitor = new TaskOutputProcessor() {
+            @Override
+            public void processLine(String line) {
+                visitor.processLine(line);
+                throw new RuntimeException("Test failure");
+            }
+        };
+
+        AsyncOutputHandler handler = createHandler(
+                failingVisitor,
+                new ThreadTaskExecutor(),
+                AsyncOutputHandler.DEFAULT_CAPACITY,
+                AsyncOutputHandler.OverflowPolicy.DROP_DECORATION);
+
+        handler.writeLine("line1");
+        handler.writeLine("line2");
+        handler.close();
+
+        assertEquals(Arrays.asList("line1", "line2"), visitor.getLines());
+    }
+
+    @Test
+    public void testDrainYieldsToOtherOutputs() throws IOException {
+        CollectingProcessor visitor = new CollectingProcessor();
+        ManualTaskExecutor executor = new ManualTaskExecutor();
+        AsyncOutputHandler handler = createHandler(
+                visitor,
+                executor,
+                2,
+                AsyncOutputHandler.OverflowPolicy.SPILL);
+
+        int lineCount = 20 * 256;
+        for (int i = 0; i < lineCount; i++) {
+            handler.writeLine("line" + i);
+        }
+
+        executor.start();
+        handler.close();
+
+        assertEquals(lineCount, visitor.getLines().size());
+        assertTrue(executor.getSubmittedCount() > 1);
+    }
+
+    @Test
+    public void testUndecoratedLinesSkipOnlyDecorations() throws IOException {
+        SmartOutputHandler.Consumer decoration = mock(SmartOutputHandler.Consumer.class);
+        when(decoration.isDecoration()).thenReturn(true);
+        SmartOutputHandler.Consumer consumer = mock(SmartOutputHandler.Consumer.class);
+        when(consumer.isDecoration()).thenReturn(false);
+
+        InputOutput io = mock(InputOutput.class);
+        OutputWriter output = mock(OutputWriter.class);
+        SmartOutputHandler processor = new SmartOutputHandler(
+                io,
+                output,
+                Collections.<TaskOutputProcessor>emptyList(),
+                Arrays.asList(decoration, consumer));
+
+        processor.writeLine("line", false);
+
+        verify(decoration, never()).tryConsumeLine("line", io, output);
+        verify(consumer).tryConsumeLine("line", io, output);
+        verify(output).println("line");
+    }
+
+    @Test(expected = IOException.class)
+    public void testWriteAfterClose() throws IOException {
+        AsyncOutputHandler handler = createHandler(
+                new CollectingProcessor(),
+                new ThreadTaskExecutor(),
+                AsyncOutputHandler.DEFAULT_CAPACITY,
+                AsyncOutputHandler.OverflowPolicy.DROP_DECORATION);
+        handler.close();
+        handler.writeLine("line");
+    }
+
+    private static final class CollectingProcessor implements TaskOutputProcessor {
+        private final List<String> lines = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public void processLine(String line) {
+            lines.add(line);
+        }
+
+        public List<String> getLines() {
+            synchronized (lines) {
+                return new ArrayList<>(lines);
+            }
+        }
+    }
+
+    private static final class ThreadTaskExecutor implements TaskExecutor {
+        @Override
+        public void execute(
+                final CancellationToken cancelToken,
+                final CancelableTask task,
+                CleanupTask cleanupTask) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.execute(cancelToken);
+                    } catch (Exception ex) {
+                        throw new RuntimeException(ex);
+                    }
+                }
+            }).start();
+        }
+    }
+
+    /**
+     * Queues the submitted tasks until {@link #start() started}, after which
+     * it executes them synchronously.
+     */
+    private static final class ManualTaskExecutor implements TaskExecutor {
+        private final List<CancelableTask> tasks = new LinkedList<>();
+        private CancellationToken lastToken;
+        private boolean started = false;
+        private int submittedCount = 0;
+
+        @Override
+        public void execute(CancellationToken cancelToken, CancelableTask task, CleanupTask cleanupTask) {
+            lastToken = cancelToken;
+            tasks.add(task);
+            submittedCount++;
+            if (started) {
+                runAll();
+            }
+        }
+
+        public int getSubmittedCount() {
+            return submittedCount;
+        }
+
+        public void start() {
+            started = true;
+            runAll();
+        }
+
+        private void runAll() {
+            while (!tasks.isEmpty()) {
+                try {
+                    tasks.remove(0).execute(lastToken);
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LineOutputWriterTest {
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private static List<String> writeInChunks(int chunkSize, String... chunks) throws IOException {
+        CollectingHandler handler = new CollectingHandler();
+        try (LineOutputWriter writer = new LineOutputWriter(handler)) {
+            for (String chunk: chunks) {
+                char[] chars = chunk.toCharArray();
+                for (int offset = 0; offset < chars.length; offset += chunkSize) {
+                    writer.write(chars, offset, Math.min(chunkSize, chars.length - offset));
+                }
+            }
+        }
+        return handler.lines;
+    }
+
+    private static void testAllChunkSizes(String input, String... expectedLines) throws IOException {
+        List<String> expected = Arrays.asList(expectedLines);
+        for (int chunkSize = 1; chunkSize <= input.length() + 1; chunkSize++) {
+            assertEquals("chunkSize=" + chunkSize, expected, writeInChunks(chunkSize, input));
+        }
+    }
+
+    @Test
+    public void testSingleLine() throws IOException {
+        testAllChunkSizes("line1", "line1");
+    }
+
+    @Test
+    public void testLineFeedSeparators() throws IOException {
+        testAllChunkSizes("line1\nline2\n\nline3", "line1", "line2", "", "line3");
+    }
+
+    @Test
+    public void testCarriageReturnSeparators() throws IOException {
+        testAllChunkSizes("line1\rline2\r\rline3", "line1", "line2", "", "line3");
+    }
+
+    @Test
+    public void testCrLfSeparators() throws IOException {
+        testAllChunkSizes("line1\r\nline2\r\n\r\nline3", "line1", "line2", "", "line3");
+    }
+
+    @Test
+    public void testMixedSeparators() throws IOException {
+        testAllChunkSizes("a\r\r\nb\n\rc\r\n", "a", "", "b", "", "c", "");
+    }
+
+    @Test
+    public void testCrLfSplitBetweenWrites() throws IOException {
+        assertEquals(Arrays.asList("line1", "line2"), writeInChunks(100, "line1\r", "\nline2"));
+    }
+
+    @Test
+    public void testPartialLineCarriedOver() throws IOException {
+        assertEquals(Arrays.asList("line1", "line2"), writeInChunks(100, "li", "ne", "1\nli", "ne2"));
+    }
+
+    private static final class CollectingHandler implements LineOutputWriter.Handler {
+        public final List<String> lines = new LinkedList<>();
+
+        @Override
+        public void writeLine(String line) {
+            lines.add(line);
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class OutputFileCacheTest {
+    @Rule
+    public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    @Test
+    public void testStateIsCachedWithinTimeToLive() throws IOException {
+        File file = tmpFolder.newFile("Source.java");
+
+        try (OutputFileCache cache = new OutputFileCache(1, TimeUnit.HOURS)) {
+            assertTrue(cache.isFile(file));
+            assertTrue(file.delete());
+            assertTrue(cache.isFile(file));
+            assertEquals(0.5, cache.getHitRate(), 0.0);
+        }
+    }
+
+    @Test
+    public void testStateExpires() throws IOException {
+        File file = tmpFolder.newFile("Source.java");
+
+        try (OutputFileCache cache = new OutputFileCache(0, TimeUnit.MILLISECONDS)) {
+            assertTrue(cache.isFile(file));
+            assertTrue(file.delete());
+            assertFalse(cache.isFile(file));
+        }
+    }
+
+    @Test
+    public void testDirectoryIsNotFile() throws IOException {
+        File dir = tmpFolder.newFolder("dir");
+
+        try (OutputFileCache cache = new OutputFileCache()) {
+            assertFalse(cache.isFile(dir));
+            assertNull(cache.tryCreateListener(dir, 1));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.netbeans.gradle.project.util.StringUtils;
+
+import static org.junit.Assert.*;
+
+public class OutputLinkPrinterTest {
+    @Rule
+    public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private static final Runnable NO_OP = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private static List<String> findLinks(String line, OutputLinkFinder... linkFinders) {
+        OutputLinkPrinter printer = new OutputLinkPrinter(linkFinders);
+        List<OutputLinkDef> linkDefs = printer.findLinkDefs(line);
+        if (linkDefs == null) {
+            return null;
+        }
+
+        List<String> result = new ArrayList<>(linkDefs.size());
+        for (OutputLinkDef linkDef: linkDefs) {
+            result.add(line.substring(linkDef.getStartIndex(), linkDef.getEndIndex()));
+        }
+        return result;
+    }
+
+    private static List<String> links(String... links) {
+        List<String> result = new ArrayList<>(links.length);
+        for (String link: links) {
+            result.add(link);
+        }
+        return result;
+    }
+
+    @Test
+    public void testNoLink() {
+        assertNull(findLinks("BUILD SUCCESSFUL", new OutputUrlConsumer()));
+        assertNull(findLinks(":compileJava UP-TO-DATE", new OutputUrlConsumer()));
+    }
+
+    @Test
+    public void testUrls() {
+        assertEquals(links("http://a.com/x", "https://b.com", "file:///c"),
+                findLinks("See http://a.com/x and https://b.com or file:///c", new OutputUrlConsumer()));
+    }
+
+    @Test
+    public void testPrefilterRespectsEndIndex() {
+        String line = "See http://a.com";
+        assertFalse(new OutputUrlConsumer().mightContainLink(line, 0, line.indexOf(':') + 2));
+        assertTrue(new OutputUrlConsumer().mightContainLink(line, 0, line.indexOf(':') + 3));
+
+        assertEquals(-1, StringUtils.indexOf("abcabc", "bc", 2, 5));
+        assertEquals(4, StringUtils.indexOf("abcabc", "bc", 2, 6));
+    }
+
+    @Test
+    public void testProjectFilePrefilterRequiresProjectPath() throws IOException {
+        File projectDir = tmpFolder.newFolder("project");
+        String projectPath = projectDir.getPath().replace(File.separatorChar, '/');
+        try (OutputFileCache fileCache = new OutputFileCache()) {
+            ProjectFileConsumer consumer = new ProjectFileConsumer(projectPath, fileCache);
+
+            String otherLine = "Compiling /some/other/path/Source.java and more text";
+            assertFalse(consumer.mightContainLink(otherLine, 0, otherLine.length()));
+
+            String projectLine = "Error in " + projectPath + File.separator + "build.gradle";
+            assertTrue(consumer.mightContainLink(projectLine, 0, projectLine.length()));
+            assertFalse(consumer.mightContainLink(projectLine, 0, projectLine.length() - 14));
+        }
+    }
+
+    @Test
+    public void testPrefilterSkipsFinder() {
+        WordFinder finder = new WordFinder("link", false);
+        assertNull(findLinks("there is a link here", finder));
+        assertEquals(0, finder.searchCount);
+    }
+
+    @Test
+    public void testLinksOfMultipleFinders() {
+        assertEquals(links("aaa", "bbb", "aaa"), findLinks("x aaa y bbb z aaa",
+                new WordFinder("aaa", true),
+                new WordFinder("bbb", true)));
+    }
+
+    @Test
+    public void testHigherPriorityWinsOnOverlap() {
+        // "abcd" overlaps "cdef", and the first finder has higher priority.
+        assertEquals(links("abcd"), findLinks("abcdef",
+                new WordFinder("abcd", true),
+                new WordFinder("cdef", true)));
+        assertEquals(links("cdef"), findLinks("abcdef",
+                new WordFinder("cdef", true),
+                new WordFinder("abcd", true)));
+    }
+
+    @Test
+    public void testFindersAreNotQueriedRepeatedly() {
+        WordFinder finder = new WordFinder("ab", true);
+        assertEquals(links("ab", "ab", "ab", "ab"), findLinks("ab ab ab ab.", finder));
+        // Once for each link and once more to find that there are no more.
+        assertEquals(5, finder.searchCount);
+    }
+
+    private static final class WordFinder implements OutputLinkFinder {
+        private final String word;
+        private final boolean candidate;
+        public int searchCount;
+
+        public WordFinder(String word, boolean candidate) {
+            this.word = word;
+            this.candidate = candidate;
+            this.searchCount = 0;
+        }
+
+        @Override
+        public boolean mightContainLink(String line, int startIndex, int endIndex) {
+            return candidate;
+        }
+
+        @Override
+        public OutputLinkDef tryFindLink(String line, int startIndex, int endIndex) {
+            searchCount++;
+
+            int index = line.indexOf(word, startIndex);
+            if (index < 0 || index + word.length() > endIndex) {
+                return null;
+            }
+            return new OutputLinkDef(index, index + word.length(), NO_OP);
+        }
+    }
+}
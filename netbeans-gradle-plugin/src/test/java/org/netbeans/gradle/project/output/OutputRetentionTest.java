@@ -0,0 +1,109 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.netbeans.gradle.project.api.task.TaskOutputProcessor;
+import org.openide.windows.InputOutput;
+import org.openide.windows.OutputWriter;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class OutputRetentionTest {
+    @Rule
+    public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test
+    public void testTruncationReplaysLinesToTheirOwnStream() throws IOException {
+        InputOutput io = mock(InputOutput.class);
+        OutputWriter out = mock(OutputWriter.class);
+        OutputWriter err = mock(OutputWriter.class);
+        stub(io.getOut()).toReturn(out);
+        stub(io.getErr()).toReturn(err);
+
+        RecordingConsumer outDecoration = new RecordingConsumer(true);
+        RecordingConsumer errDecoration = new RecordingConsumer(true);
+        RecordingConsumer errNonDecoration = new RecordingConsumer(false);
+
+        try (SpilledOutputLog log = SpilledOutputLog.create(tmpFolder.getRoot())) {
+            OutputRetention retention = new OutputRetention(
+                    new InputOutputWrapper(io),
+                    log,
+                    4,
+                    Arrays.<SmartOutputHandler.Consumer>asList(outDecoration),
+                    Arrays.<SmartOutputHandler.Consumer>asList(errNonDecoration, errDecoration));
+
+            TaskOutputProcessor stdOut = retention.getStdOutProcessor();
+            TaskOutputProcessor stdErr = retention.getStdErrProcessor();
+
+            stdOut.processLine("out1");
+            stdErr.processLine("err1");
+            stdOut.processLine("out2");
+            stdErr.processLine("err2");
+            verify(out, never()).reset();
+
+            stdOut.processLine("out3");
+            verify(out).reset();
+
+            assertEquals(Arrays.asList("out2"), outDecoration.getLines());
+            assertEquals(Arrays.asList("err2"), errDecoration.getLines());
+            assertEquals(0, errNonDecoration.getLines().size());
+
+            verify(out).println("out2");
+            verify(err).println("err2");
+            verify(out, never()).println("err2");
+
+            assertEquals(5, log.getLineCount());
+        }
+    }
+
+    private static final class RecordingConsumer implements SmartOutputHandler.Consumer {
+        private final boolean decoration;
+        private final List<String> lines;
+
+        public RecordingConsumer(boolean decoration) {
+            this.decoration = decoration;
+            this.lines = new ArrayList<>();
+        }
+
+        public List<String> getLines() {
+            return lines;
+        }
+
+        @Override
+        public boolean tryConsumeLine(String line, InputOutput ioParent, OutputWriter output) {
+            lines.add(line);
+            return false;
+        }
+
+        @Override
+        public boolean isDecoration() {
+            return decoration;
+        }
+    }
+}
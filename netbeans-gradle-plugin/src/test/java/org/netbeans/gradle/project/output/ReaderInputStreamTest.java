@@ -0,0 +1,122 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ReaderInputStreamTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // Contains 1, 2, 3 and 4 byte long characters in UTF-8.
+    private static final String MULTI_BYTE_STR = "a\u00E1\u20AC\uD83D\uDE00b\u0151\u6F22";
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private static String readAll(InputStream input, int bufferSize) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[bufferSize];
+        while (true) {
+            int readCount = input.read(buffer);
+            if (readCount < 0) {
+                break;
+            }
+            assertTrue("readCount > 0", readCount > 0);
+            result.write(buffer, 0, readCount);
+        }
+        return new String(result.toByteArray(), UTF8);
+    }
+
+    private static String repeat(String str, int count) {
+        StringBuilder result = new StringBuilder(str.length() * count);
+        for (int i = 0; i < count; i++) {
+            result.append(str);
+        }
+        return result.toString();
+    }
+
+    @Test
+    public void testReadMultiByteChars() throws IOException {
+        for (int bufferSize = 1; bufferSize < 20; bufferSize++) {
+            InputStream input = new ReaderInputStream(new StringReader(MULTI_BYTE_STR), UTF8);
+            assertEquals(MULTI_BYTE_STR, readAll(input, bufferSize));
+        }
+    }
+
+    @Test
+    public void testReadLongInput() throws IOException {
+        String inputStr = repeat(MULTI_BYTE_STR + "\n", 10000);
+        InputStream input = new ReaderInputStream(new StringReader(inputStr), UTF8);
+        assertEquals(inputStr, readAll(input, 4096));
+    }
+
+    @Test
+    public void testSurrogatePairSplitBetweenReads() throws IOException {
+        // Forces the reader to return the surrogate pair in two calls.
+        Reader reader = new StringReader("x\uD83D\uDE00y") {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                return super.read(cbuf, off, Math.min(len, 2));
+            }
+        };
+
+        InputStream input = new ReaderInputStream(reader, UTF8);
+        assertEquals("x\uD83D\uDE00y", readAll(input, 3));
+    }
+
+    @Test
+    public void testReadSingleBytes() throws IOException {
+        InputStream input = new ReaderInputStream(new StringReader(MULTI_BYTE_STR), UTF8);
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        for (int b = input.read(); b >= 0; b = input.read()) {
+            result.write(b);
+        }
+        assertEquals(MULTI_BYTE_STR, new String(result.toByteArray(), UTF8));
+    }
+
+    @Test
+    public void testAvailable() throws IOException {
+        InputStream input = new ReaderInputStream(new StringReader("abc"), UTF8);
+        assertEquals(3, input.available());
+        assertEquals('a', input.read());
+        assertEquals(2, input.available());
+    }
+
+    @Test
+    public void testAvailableDoesNotBlock() throws IOException {
+        Reader reader = new StringReader("abc") {
+            @Override
+            public boolean ready() {
+                return false;
+            }
+        };
+
+        InputStream input = new ReaderInputStream(reader, UTF8);
+        assertEquals(0, input.available());
+        assertEquals("abc", readAll(input, 10));
+    }
+}
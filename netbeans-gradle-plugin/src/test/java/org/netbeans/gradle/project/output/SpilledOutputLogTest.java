@@ -0,0 +1,93 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.File;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class SpilledOutputLogTest {
+    @Rule
+    public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private SpilledOutputLog createLog(String... lines) throws IOException {
+        SpilledOutputLog log = SpilledOutputLog.create(tmpFolder.getRoot());
+        for (String line: lines) {
+            log.appendLine(line, line.startsWith("ERROR"));
+        }
+        return log;
+    }
+
+    @Test
+    public void testGetLine() throws IOException {
+        try (SpilledOutputLog log = createLog("first", "", "árvíztűrő", "last")) {
+            assertEquals(4, log.getLineCount());
+            assertEquals("first", log.getLine(0));
+            assertEquals("", log.getLine(1));
+            assertEquals("árvíztűrő", log.getLine(2));
+            assertEquals("last", log.getLine(3));
+
+            log.appendLine("appended", false);
+            assertEquals("appended", log.getLine(4));
+        }
+    }
+
+    @Test
+    public void testManyLines() throws IOException {
+        try (SpilledOutputLog log = SpilledOutputLog.create(tmpFolder.getRoot())) {
+            int lineCount = 10000;
+            for (int i = 0; i < lineCount; i++) {
+                log.appendLine("Line " + i, false);
+            }
+
+            assertEquals(lineCount, log.getLineCount());
+            for (int i = 0; i < lineCount; i += 97) {
+                assertEquals("Line " + i, log.getLine(i));
+            }
+        }
+    }
+
+    @Test
+    public void testIsErrorLine() throws IOException {
+        try (SpilledOutputLog log = createLog("a", "ERROR 1", "b", "c", "ERROR 2", "d")) {
+            assertFalse(log.isErrorLine(0));
+            assertTrue(log.isErrorLine(1));
+            assertFalse(log.isErrorLine(2));
+            assertFalse(log.isErrorLine(3));
+            assertTrue(log.isErrorLine(4));
+            assertFalse(log.isErrorLine(5));
+        }
+    }
+
+    @Test
+    public void testCloseRemovesFile() throws IOException {
+        SpilledOutputLog log = createLog("line");
+        File logFile = log.getLogFile();
+        assertTrue(logFile.isFile());
+
+        log.close();
+        assertFalse(logFile.exists());
+    }
+}
@@ -0,0 +1,90 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WriterOutputStreamTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // Contains 1, 2, 3 and 4 byte long characters in UTF-8.
+    private static final String MULTI_BYTE_STR = "a\u00E1\u20AC\uD83D\uDE00b\u0151\u6F22";
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private static String writeInChunks(byte[] bytes, int chunkSize) throws IOException {
+        StringWriter result = new StringWriter();
+        try (WriterOutputStream output = new WriterOutputStream(result, UTF8)) {
+            for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+                output.write(bytes, offset, Math.min(chunkSize, bytes.length - offset));
+            }
+        }
+        return result.toString();
+    }
+
+    @Test
+    public void testMultiByteCharsSplitAcrossChunks() throws IOException {
+        byte[] bytes = MULTI_BYTE_STR.getBytes(UTF8);
+        for (int chunkSize = 1; chunkSize <= bytes.length; chunkSize++) {
+            assertEquals("chunkSize=" + chunkSize, MULTI_BYTE_STR, writeInChunks(bytes, chunkSize));
+        }
+    }
+
+    @Test
+    public void testWriteSingleBytes() throws IOException {
+        StringWriter result = new StringWriter();
+        try (WriterOutputStream output = new WriterOutputStream(result, UTF8)) {
+            for (byte b: MULTI_BYTE_STR.getBytes(UTF8)) {
+                output.write(b);
+            }
+        }
+        assertEquals(MULTI_BYTE_STR, result.toString());
+    }
+
+    @Test
+    public void testLongInput() throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            input.append(MULTI_BYTE_STR);
+            input.append('\n');
+        }
+        String inputStr = input.toString();
+        byte[] bytes = inputStr.getBytes(UTF8);
+
+        assertEquals(inputStr, writeInChunks(bytes, 8191));
+        assertEquals(inputStr, writeInChunks(bytes, bytes.length));
+    }
+
+    @Test
+    public void testIncompleteCharAtEndIsReplaced() throws IOException {
+        byte[] euroBytes = "\u20AC".getBytes(UTF8);
+
+        StringWriter result = new StringWriter();
+        try (WriterOutputStream output = new WriterOutputStream(result, UTF8)) {
+            output.write('x');
+            output.write(euroBytes, 0, 2);
+        }
+        assertEquals("x\uFFFD", result.toString());
+    }
+}
@@ -0,0 +1,114 @@
+package org.netbeans.gradle.project.query;
+
+import java.io.File;
+import java.io.IOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class GradleArtifactCacheIndexTest {
+    @Rule
+    public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private static File createFile(File dir, String... pathElements) throws IOException {
+        File result = dir;
+        for (String pathElement: pathElements) {
+            result = new File(result, pathElement);
+        }
+        result.getParentFile().mkdirs();
+        assertTrue(result.createNewFile());
+        return result;
+    }
+
+    @Test
+    public void testFindsFilesInHashDirs() throws IOException {
+        File versionDir = tmpFolder.newFolder("org.example", "lib", "1.0");
+        File binary = createFile(versionDir, "1111", "lib-1.0.jar");
+        File sources = createFile(versionDir, "2222", "lib-1.0-sources.jar");
+        createFile(versionDir, "not-a-hash-dir.txt");
+
+        GradleArtifactCacheIndex index = new GradleArtifactCacheIndex();
+        assertEquals(binary, index.tryGetFile(versionDir, "lib-1.0.jar"));
+        assertEquals(sources, index.tryGetFile(versionDir, "lib-1.0-sources.jar"));
+        assertNull(index.tryGetFile(versionDir, "lib-1.0-javadoc.jar"));
+        assertNull(index.tryGetFile(versionDir, "not-a-hash-dir.txt"));
+    }
+
+    @Test
+    public void testMissingArtifactDir() {
+        File versionDir = new File(tmpFolder.getRoot(), "missing");
+
+        GradleArtifactCacheIndex index = new GradleArtifactCacheIndex();
+        assertNull(index.tryGetFile(versionDir, "lib-1.0.jar"));
+    }
+
+    @Test
+    public void testInvalidateAll() throws IOException {
+        File versionDir = tmpFolder.newFolder("org.example", "lib", "1.0");
+        createFile(versionDir, "1111", "lib-1.0.jar");
+
+        GradleArtifactCacheIndex index = new GradleArtifactCacheIndex();
+        assertNull(index.tryGetFile(versionDir, "lib-1.0-sources.jar"));
+
+        File sources = createFile(versionDir, "2222", "lib-1.0-sources.jar");
+        index.invalidateAll();
+        assertEquals(sources, index.tryGetFile(versionDir, "lib-1.0-sources.jar"));
+    }
+
+    @Test
+    public void testRelistsModifiedDir() throws IOException {
+        File versionDir = tmpFolder.newFolder("org.example", "lib", "1.0");
+        createFile(versionDir, "1111", "lib-1.0.jar");
+        assertTrue(versionDir.setLastModified(System.currentTimeMillis() - 60000));
+
+        GradleArtifactCacheIndex index = new GradleArtifactCacheIndex();
+        assertNull(index.tryGetFile(versionDir, "lib-1.0-sources.jar"));
+
+        File sources = createFile(versionDir, "2222", "lib-1.0-sources.jar");
+        assertEquals(sources, index.tryGetFile(versionDir, "lib-1.0-sources.jar"));
+    }
+
+    @Test
+    public void testKeepsListingOfUnmodifiedDir() throws IOException {
+        File versionDir = tmpFolder.newFolder("org.example", "lib", "1.0");
+        File hashDir = new File(versionDir, "1111");
+        createFile(hashDir, "lib-1.0.jar");
+        long lastModified = System.currentTimeMillis() - 60000;
+        assertTrue(versionDir.setLastModified(lastModified));
+
+        GradleArtifactCacheIndex index = new GradleArtifactCacheIndex();
+        assertNull(index.tryGetFile(versionDir, "lib-1.0-sources.jar"));
+
+        // A change inside an existing hash directory is not noticed until the
+        // index is invalidated.
+        File sources = createFile(hashDir, "lib-1.0-sources.jar");
+        assertTrue(versionDir.setLastModified(lastModified));
+        assertNull(index.tryGetFile(versionDir, "lib-1.0-sources.jar"));
+
+        index.invalidateAll();
+        assertEquals(sources, index.tryGetFile(versionDir, "lib-1.0-sources.jar"));
+    }
+
+    @Test
+    public void testDropsEarliestDirsBeyondLimit() throws IOException {
+        File versionDir1 = tmpFolder.newFolder("org.example", "lib1", "1.0");
+        File versionDir2 = tmpFolder.newFolder("org.example", "lib2", "1.0");
+        File versionDir3 = tmpFolder.newFolder("org.example", "lib3", "1.0");
+        File binary1 = createFile(versionDir1, "1111", "lib1-1.0.jar");
+        File binary3 = createFile(versionDir3, "3333", "lib3-1.0.jar");
+
+        GradleArtifactCacheIndex index = new GradleArtifactCacheIndex(2);
+        assertEquals(binary1, index.tryGetFile(versionDir1, "lib1-1.0.jar"));
+        assertNull(index.tryGetFile(versionDir2, "lib2-1.0.jar"));
+        assertEquals(binary3, index.tryGetFile(versionDir3, "lib3-1.0.jar"));
+        assertEquals(2, index.getArtifactDirCount());
+
+        File binary2 = createFile(versionDir2, "2222", "lib2-1.0.jar");
+        assertEquals(binary1, index.tryGetFile(versionDir1, "lib1-1.0.jar"));
+        assertEquals(2, index.getArtifactDirCount());
+        assertEquals(binary2, index.tryGetFile(versionDir2, "lib2-1.0.jar"));
+        assertEquals(2, index.getArtifactDirCount());
+    }
+}
@@ -0,0 +1,126 @@
+package org.netbeans.gradle.project.tasks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.OperationCanceledException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GradleTaskBatcherTest {
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test
+    public void testSameKeyIsBatched() {
+        GradleTaskBatcher<String> batcher = new GradleTaskBatcher<>();
+        GradleTaskBatcher.Batch<String> batch1 = batcher.addToBatch("key", "leader", 0, TimeUnit.MILLISECONDS);
+        GradleTaskBatcher.Batch<String> batch2 = batcher.addToBatch("key", "member", 0, TimeUnit.MILLISECONDS);
+
+        assertSame(batch1, batch2);
+        assertTrue(batch1.isLeader("leader"));
+        assertFalse(batch1.isLeader("member"));
+
+        List<String> members = batch1.close(Cancellation.UNCANCELABLE_TOKEN);
+        assertEquals(Arrays.asList("leader", "member"), members);
+
+        assertTrue(batch1.tryStart());
+        batch1.complete();
+        assertTrue(batch2.waitForLeader(Cancellation.UNCANCELABLE_TOKEN));
+    }
+
+    @Test
+    public void testDifferentKeysAreNotBatched() {
+        GradleTaskBatcher<String> batcher = new GradleTaskBatcher<>();
+        GradleTaskBatcher.Batch<String> batch1 = batcher.addToBatch("key1", "task1", 0, TimeUnit.MILLISECONDS);
+        GradleTaskBatcher.Batch<String> batch2 = batcher.addToBatch("key2", "task2", 0, TimeUnit.MILLISECONDS);
+
+        assertNotSame(batch1, batch2);
+        assertTrue(batch2.isLeader("task2"));
+    }
+
+    @Test
+    public void testClosedBatchIsNotJoined() {
+        GradleTaskBatcher<String> batcher = new GradleTaskBatcher<>();
+        GradleTaskBatcher.Batch<String> batch1 = batcher.addToBatch("key", "leader", 0, TimeUnit.MILLISECONDS);
+        batch1.close(Cancellation.UNCANCELABLE_TOKEN);
+
+        GradleTaskBatcher.Batch<String> batch2 = batcher.addToBatch("key", "late", 0, TimeUnit.MILLISECONDS);
+        assertNotSame(batch1, batch2);
+        assertTrue(batch2.isLeader("late"));
+    }
+
+    @Test
+    public void testCloseWaitsForWindow() {
+        GradleTaskBatcher<String> batcher = new GradleTaskBatcher<>();
+        long startTime = System.nanoTime();
+        GradleTaskBatcher.Batch<String> batch = batcher.addToBatch("key", "leader", 50, TimeUnit.MILLISECONDS);
+        batch.close(Cancellation.UNCANCELABLE_TOKEN);
+
+        assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void testAbandonedBatch() {
+        GradleTaskBatcher<String> batcher = new GradleTaskBatcher<>();
+        GradleTaskBatcher.Batch<String> batch = batcher.addToBatch("key", "leader", 0, TimeUnit.MILLISECONDS);
+        batcher.addToBatch("key", "member", 0, TimeUnit.MILLISECONDS);
+
+        batch.abandon();
+        assertFalse(batch.waitForLeader(Cancellation.UNCANCELABLE_TOKEN));
+
+        try {
+            batch.close(Cancellation.UNCANCELABLE_TOKEN);
+            fail("Expected OperationCanceledException.");
+        } catch (OperationCanceledException ex) {
+        }
+
+        GradleTaskBatcher.Batch<String> newBatch = batcher.addToBatch("key", "next", 0, TimeUnit.MILLISECONDS);
+        assertTrue(newBatch.isLeader("next"));
+    }
+
+    @Test
+    public void testAbandonClosedBatch() {
+        GradleTaskBatcher<String> batcher = new GradleTaskBatcher<>();
+        GradleTaskBatcher.Batch<String> batch = batcher.addToBatch("key", "leader", 0, TimeUnit.MILLISECONDS);
+        batcher.addToBatch("key", "member", 0, TimeUnit.MILLISECONDS);
+        batch.close(Cancellation.UNCANCELABLE_TOKEN);
+
+        batch.abandon();
+        assertFalse(batch.tryStart());
+        batch.complete();
+        assertFalse(batch.waitForLeader(Cancellation.UNCANCELABLE_TOKEN));
+    }
+
+    @Test
+    public void testStartedBatchCannotBeAbandoned() {
+        GradleTaskBatcher<String> batcher = new GradleTaskBatcher<>();
+        GradleTaskBatcher.Batch<String> batch = batcher.addToBatch("key", "leader", 0, TimeUnit.MILLISECONDS);
+        batcher.addToBatch("key", "member", 0, TimeUnit.MILLISECONDS);
+        batch.close(Cancellation.UNCANCELABLE_TOKEN);
+
+        assertTrue(batch.tryStart());
+        batch.abandon();
+        batch.complete();
+        assertTrue(batch.waitForLeader(Cancellation.UNCANCELABLE_TOKEN));
+    }
+}
@@ -0,0 +1,321 @@
+package org.netbeans.gradle.project.tasks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationSource;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.concurrent.CleanupTask;
+import org.jtrim.concurrent.TaskExecutor;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.netbeans.gradle.project.properties.GlobalGradleSettings;
+
+import static org.junit.Assert.*;
+
+public class GradleTaskSchedulerTest {
+    private static final File ROOT1 = new File("root1");
+    private static final File ROOT2 = new File("root2");
+
+    private GlobalGradleSettings settings;
+    private ManualExecutor worker;
+    private List<String> executed;
+
+    @BeforeClass
+    public static void setUpClass() {
+        GlobalGradleSettings.setCleanMemoryPreference();
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        GlobalGradleSettings.setDefaultPreference();
+    }
+
+    @Before
+    public void setUp() {
+        settings = new GlobalGradleSettings("GradleTaskSchedulerTest");
+        worker = new ManualExecutor();
+        executed = new LinkedList<>();
+    }
+
+    @After
+    public void tearDown() {
+        settings.maxConcurrentGradleTasks().setValue(null);
+        settings.maxConcurrentGradleTasksPerRoot().setValue(null);
+    }
+
+    private GradleTaskScheduler create(int globalLimit, int perRootLimit) {
+        settings.maxConcurrentGradleTasks().setValue(globalLimit);
+        settings.maxConcurrentGradleTasksPerRoot().setValue(perRootLimit);
+        return new GradleTaskScheduler(
+                worker,
+                settings.maxConcurrentGradleTasks(),
+                settings.maxConcurrentGradleTasksPerRoot());
+    }
+
+    private void submit(
+            GradleTaskScheduler scheduler,
+            File rootDir,
+            GradleTaskPriority priority,
+            final String name,
+            CancellationToken cancelToken) {
+
+        TaskExecutor executor = scheduler.getExecutor(rootDir, priority, name);
+        executor.execute(cancelToken, new CancelableTask() {
+            @Override
+            public void execute(CancellationToken cancelToken) {
+                executed.add(name);
+            }
+        }, null);
+    }
+
+    private void submit(GradleTaskScheduler scheduler, File rootDir, GradleTaskPriority priority, String name) {
+        submit(scheduler, rootDir, priority, name, Cancellation.UNCANCELABLE_TOKEN);
+    }
+
+    private static List<String> queuedNames(GradleTaskScheduler scheduler) {
+        List<String> result = new ArrayList<>();
+        for (GradleTaskScheduler.QueuedTaskInfo info: scheduler.getQueuedTasks()) {
+            result.add(info.getDisplayName());
+        }
+        return result;
+    }
+
+    @Test
+    public void testGlobalLimit() throws Exception {
+        GradleTaskScheduler scheduler = create(1, 10);
+
+        submit(scheduler, ROOT1, GradleTaskPriority.NORMAL, "task1");
+        submit(scheduler, ROOT2, GradleTaskPriority.NORMAL, "task2");
+
+        assertEquals(1, worker.getSubmittedCount());
+        assertEquals(1, scheduler.getNumberOfRunningTasks());
+
+        worker.runAll();
+        assertEquals(1, scheduler.getNumberOfRunningTasks());
+        assertTrue(scheduler.getQueuedTasks().isEmpty());
+
+        worker.runAll();
+        assertEquals(0, scheduler.getNumberOfRunningTasks());
+        assertEquals(Arrays.asList("task1", "task2"), executed);
+    }
+
+    @Test
+    public void testPerRootLimit() throws Exception {
+        GradleTaskScheduler scheduler = create(10, 1);
+
+        submit(scheduler, ROOT1, GradleTaskPriority.NORMAL, "task1");
+        submit(scheduler, ROOT1, GradleTaskPriority.NORMAL, "task2");
+        submit(scheduler, ROOT2, GradleTaskPriority.NORMAL, "task3");
+
+        assertEquals(2, worker.getSubmittedCount());
+        assertEquals(Arrays.asList("task2"), queuedNames(scheduler));
+    }
+
+    @Test
+    public void testPriorityOrder() throws Exception {
+        GradleTaskScheduler scheduler = create(1, 1);
+
+        submit(scheduler, ROOT1, GradleTaskPriority.NORMAL, "running");
+        submit(scheduler, ROOT1, GradleTaskPriority.BACKGROUND, "background");
+        submit(scheduler, ROOT1, GradleTaskPriority.NORMAL, "normal");
+        submit(scheduler, ROOT1, GradleTaskPriority.INTERACTIVE, "interactive");
+
+        assertEquals(Arrays.asList("interactive", "normal", "background"), queuedNames(scheduler));
+    }
+
+    @Test
+    public void testMoveToFront() throws Exception {
+        GradleTaskScheduler scheduler = create(1, 1);
+
+        submit(scheduler, ROOT1, GradleTaskPriority.NORMAL, "running");
+        submit(scheduler, ROOT1, GradleTaskPriority.INTERACTIVE, "interactive");
+        submit(scheduler, ROOT1, GradleTaskPriority.BACKGROUND, "background");
+
+        long backgroundId = scheduler.getQueuedTasks().get(1).getTaskId();
+        assertTrue(scheduler.moveToFront(backgroundId));
+
+        assertEquals(Arrays.asList("background", "interactive"), queuedNames(scheduler));
+    }
+
+    @Test
+    public void testCancelQueuedTask() throws Exception {
+        GradleTaskScheduler scheduler = create(1, 1);
+
+        submit(scheduler, ROOT1, GradleTaskPriority.NORMAL, "running");
+        submit(scheduler, ROOT1, GradleTaskPriority.NORMAL, "toCancel");
+
+        long taskId = scheduler.getQueuedTasks().get(0).getTaskId();
+        assertTrue(scheduler.cancelQueuedTask(taskId));
+        assertTrue(scheduler.getQueuedTasks().isEmpty());
+
+        worker.runAll();
+        assertEquals(Arrays.asList("running"), executed);
+        assertEquals(0, scheduler.getNumberOfRunningTasks());
+    }
+
+    @Test
+    public void testCancelBySubmitter() throws Exception {
+        GradleTaskScheduler scheduler = create(1, 1);
+        CancellationSource cancel = Cancellation.createCancellationSource();
+
+        submit(scheduler, ROOT1, GradleTaskPriority.NORMAL, "running");
+        submit(scheduler, ROOT1, GradleTaskPriority.NORMAL, "toCancel", cancel.getToken());
+
+        cancel.getController().cancel();
+        assertTrue(scheduler.getQueuedTasks().isEmpty());
+
+        worker.runAll();
+        assertEquals(Arrays.asList("running"), executed);
+    }
+
+    @Test
+    public void testAlreadyCanceledTaskIsNotQueued() throws Exception {
+        GradleTaskScheduler scheduler = create(1, 1);
+        CancellationSource cancel = Cancellation.createCancellationSource();
+        cancel.getController().cancel();
+
+        submit(scheduler, ROOT1, GradleTaskPriority.NORMAL, "canceled", cancel.getToken());
+        assertTrue(scheduler.getQueuedTasks().isEmpty());
+        assertEquals(0, scheduler.getNumberOfRunningTasks());
+
+        worker.runAll();
+        assertTrue(executed.isEmpty());
+    }
+
+    @Test
+    public void testReleasedSlotStartsQueuedTask() throws Exception {
+        final GradleTaskScheduler scheduler = create(1, 1);
+        final List<Integer> submittedCounts = new ArrayList<>();
+
+        TaskExecutor executor = scheduler.getExecutor(ROOT1, GradleTaskPriority.NORMAL, "waiting");
+        executor.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+            @Override
+            public void execute(CancellationToken cancelToken) {
+                GradleTaskScheduler.releaseCurrentSlot();
+                submittedCounts.add(worker.getSubmittedCount());
+            }
+        }, null);
+        submit(scheduler, ROOT2, GradleTaskPriority.NORMAL, "other");
+
+        worker.runNext();
+        assertEquals(Arrays.asList(1), submittedCounts);
+        assertEquals(1, scheduler.getNumberOfRunningTasks());
+
+        worker.runAll();
+        assertEquals(Arrays.asList("other"), executed);
+        assertEquals(0, scheduler.getNumberOfRunningTasks());
+    }
+
+    @Test(timeout = 20000)
+    public void testReacquiringTaskPrecedesQueuedTasks() throws Exception {
+        final GradleTaskScheduler scheduler = create(1, 1);
+        final CountDownLatch releasedLatch = new CountDownLatch(1);
+        final List<List<String>> queuedAfterReacquire = new ArrayList<>();
+
+        TaskExecutor executor = scheduler.getExecutor(ROOT1, GradleTaskPriority.NORMAL, "waiting");
+        executor.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+            @Override
+            public void execute(CancellationToken cancelToken) {
+                GradleTaskScheduler.ReleasedSlot slot = GradleTaskScheduler.releaseCurrentSlot();
+                releasedLatch.countDown();
+                slot.reacquire(cancelToken);
+                queuedAfterReacquire.add(queuedNames(scheduler));
+            }
+        }, null);
+        submit(scheduler, ROOT1, GradleTaskPriority.NORMAL, "running");
+        submit(scheduler, ROOT1, GradleTaskPriority.NORMAL, "queued");
+
+        Thread waitingThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    worker.runNext();
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        });
+        waitingThread.start();
+        try {
+            releasedLatch.await();
+            // Give the thread a chance to start waiting for its slot.
+            Thread.sleep(50);
+            assertEquals(Arrays.asList("queued"), queuedNames(scheduler));
+
+            worker.runNext();
+        } finally {
+            waitingThread.join();
+        }
+
+        assertEquals(Arrays.asList("running"), executed);
+        assertEquals(Arrays.asList(Arrays.asList("queued")), queuedAfterReacquire);
+
+        worker.runAll();
+        assertEquals(Arrays.asList("running", "queued"), executed);
+        assertEquals(0, scheduler.getNumberOfRunningTasks());
+    }
+
+    private static final class ManualExecutor implements TaskExecutor {
+        private final List<SubmittedTask> tasks = new LinkedList<>();
+
+        @Override
+        public synchronized void execute(CancellationToken cancelToken, CancelableTask task, CleanupTask cleanupTask) {
+            tasks.add(new SubmittedTask(cancelToken, task, cleanupTask));
+        }
+
+        public synchronized int getSubmittedCount() {
+            return tasks.size();
+        }
+
+        public void runNext() throws Exception {
+            SubmittedTask task;
+            synchronized (this) {
+                task = tasks.remove(0);
+            }
+            run(task);
+        }
+
+        public void runAll() throws Exception {
+            List<SubmittedTask> toRun;
+            synchronized (this) {
+                toRun = new ArrayList<>(tasks);
+                tasks.clear();
+            }
+
+            for (SubmittedTask task: toRun) {
+                run(task);
+            }
+        }
+
+        private static void run(SubmittedTask task) throws Exception {
+            boolean canceled = task.cancelToken.isCanceled();
+            if (!canceled) {
+                task.task.execute(task.cancelToken);
+            }
+            if (task.cleanupTask != null) {
+                task.cleanupTask.cleanup(canceled, null);
+            }
+        }
+    }
+
+    private static final class SubmittedTask {
+        public final CancellationToken cancelToken;
+        public final CancelableTask task;
+        public final CleanupTask cleanupTask;
+
+        public SubmittedTask(CancellationToken cancelToken, CancelableTask task, CleanupTask cleanupTask) {
+            this.cancelToken = cancelToken;
+            this.task = task;
+            this.cleanupTask = cleanupTask;
+        }
+    }
+}
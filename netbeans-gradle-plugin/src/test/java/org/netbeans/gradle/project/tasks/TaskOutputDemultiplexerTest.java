@@ -0,0 +1,150 @@
+package org.netbeans.gradle.project.tasks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.netbeans.gradle.project.output.LineOutputWriter;
+
+import static org.junit.Assert.*;
+
+public class TaskOutputDemultiplexerTest {
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test
+    public void testTaskPath() {
+        assertEquals(":compileJava", TaskOutputDemultiplexer.tryGetTaskPath(":compileJava"));
+        assertEquals(":sub:test", TaskOutputDemultiplexer.tryGetTaskPath(":sub:test UP-TO-DATE"));
+        assertEquals(":sub:jar", TaskOutputDemultiplexer.tryGetTaskPath("> Task :sub:jar"));
+
+        assertNull(TaskOutputDemultiplexer.tryGetTaskPath(""));
+        assertNull(TaskOutputDemultiplexer.tryGetTaskPath(":"));
+        assertNull(TaskOutputDemultiplexer.tryGetTaskPath("compileJava"));
+        assertNull(TaskOutputDemultiplexer.tryGetTaskPath(":a/b"));
+        assertNull(TaskOutputDemultiplexer.tryGetTaskPath("  :compileJava"));
+    }
+
+    @Test
+    public void testRouting() throws IOException {
+        CollectingHandler out1 = new CollectingHandler();
+        CollectingHandler err1 = new CollectingHandler();
+        CollectingHandler out2 = new CollectingHandler();
+        CollectingHandler err2 = new CollectingHandler();
+
+        TaskOutputDemultiplexer demultiplexer = new TaskOutputDemultiplexer(Arrays.asList(
+                new TaskOutputDemultiplexer.Target(Arrays.asList(":a:classes"), out1, err1),
+                new TaskOutputDemultiplexer.Target(Arrays.asList(":b:test"), out2, err2)));
+
+        LineOutputWriter.Handler stdOut = demultiplexer.getStdOut();
+        LineOutputWriter.Handler stdErr = demultiplexer.getStdErr();
+
+        stdOut.writeLine("configuring");
+        stdOut.writeLine(":a:compileJava");
+        stdErr.writeLine("a warning");
+        stdOut.writeLine(":b:test");
+        stdOut.writeLine("test output");
+        stdOut.writeLine(":lib:jar");
+        stdOut.writeLine("BUILD SUCCESSFUL");
+
+        assertEquals(Arrays.asList("configuring", ":a:compileJava", ":lib:jar", "BUILD SUCCESSFUL"), out1.lines);
+        assertEquals(Arrays.asList("a warning"), err1.lines);
+        assertEquals(Arrays.asList("configuring", ":b:test", "test output", ":lib:jar", "BUILD SUCCESSFUL"), out2.lines);
+        assertEquals(Arrays.<String>asList(), err2.lines);
+    }
+
+    @Test
+    public void testFailedTaskHeader() {
+        assertTrue(TaskOutputDemultiplexer.isFailedTaskHeader(":compileJava FAILED"));
+        assertTrue(TaskOutputDemultiplexer.isFailedTaskHeader("> Task :sub:test FAILED"));
+
+        assertFalse(TaskOutputDemultiplexer.isFailedTaskHeader(":compileJava"));
+        assertFalse(TaskOutputDemultiplexer.isFailedTaskHeader(":sub:test UP-TO-DATE"));
+        assertFalse(TaskOutputDemultiplexer.isFailedTaskHeader("BUILD FAILED"));
+    }
+
+    @Test
+    public void testCompletedTargets() throws IOException {
+        CollectingHandler handler = new CollectingHandler();
+
+        TaskOutputDemultiplexer.Target target1
+                = new TaskOutputDemultiplexer.Target(Arrays.asList(":a:test"), handler, handler);
+        TaskOutputDemultiplexer.Target target2
+                = new TaskOutputDemultiplexer.Target(Arrays.asList(":b:classes", ":b:jar"), handler, handler);
+        TaskOutputDemultiplexer.Target target3
+                = new TaskOutputDemultiplexer.Target(Arrays.asList(":c:build"), handler, handler);
+
+        TaskOutputDemultiplexer demultiplexer
+                = new TaskOutputDemultiplexer(Arrays.asList(target1, target2, target3));
+
+        LineOutputWriter.Handler stdOut = demultiplexer.getStdOut();
+        stdOut.writeLine("> Task :a:compileJava FAILED");
+        stdOut.writeLine("> Task :b:classes UP-TO-DATE");
+        stdOut.writeLine("> Task :b:jar");
+        stdOut.writeLine("BUILD FAILED");
+
+        assertFalse(target1.isCompleted());
+        assertTrue(target2.isCompleted());
+        assertFalse(target3.isCompleted());
+    }
+
+    @Test
+    public void testStdErrFollowsStdOutOwner() throws IOException {
+        CollectingHandler out1 = new CollectingHandler();
+        CollectingHandler err1 = new CollectingHandler();
+        CollectingHandler out2 = new CollectingHandler();
+        CollectingHandler err2 = new CollectingHandler();
+
+        TaskOutputDemultiplexer demultiplexer = new TaskOutputDemultiplexer(Arrays.asList(
+                new TaskOutputDemultiplexer.Target(Arrays.asList(":a:test"), out1, err1),
+                new TaskOutputDemultiplexer.Target(Arrays.asList(":b:test"), out2, err2)));
+
+        LineOutputWriter.Handler stdOut = demultiplexer.getStdOut();
+        LineOutputWriter.Handler stdErr = demultiplexer.getStdErr();
+
+        stdErr.writeLine("configuration warning");
+        stdOut.writeLine(":a:test");
+        stdErr.writeLine("a error");
+        stdErr.writeLine(":b:test");
+        stdOut.writeLine(":b:test");
+        stdErr.writeLine("b error");
+        stdErr.writeLine("FAILURE: Build failed");
+        stdErr.writeLine("summary");
+
+        assertEquals(Arrays.asList(":a:test"), out1.lines);
+        assertEquals(Arrays.asList("configuration warning", "a error", ":b:test", "FAILURE: Build failed", "summary"), err1.lines);
+        assertEquals(Arrays.asList(":b:test"), out2.lines);
+        assertEquals(Arrays.asList("configuration warning", "b error", "FAILURE: Build failed", "summary"), err2.lines);
+    }
+
+    private static final class CollectingHandler implements LineOutputWriter.Handler {
+        public final List<String> lines = new ArrayList<>();
+
+        @Override
+        public void writeLine(String line) {
+            lines.add(line);
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
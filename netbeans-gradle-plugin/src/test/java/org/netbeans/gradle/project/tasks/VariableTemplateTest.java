@@ -0,0 +1,133 @@
+package org.netbeans.gradle.project.tasks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.netbeans.gradle.project.api.task.TaskVariable;
+import org.netbeans.gradle.project.api.task.TaskVariableMap;
+import org.openide.util.Lookup;
+
+import static org.junit.Assert.*;
+
+public class VariableTemplateTest {
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private static DisplayedTaskVariable createVar(String name) {
+        return new DisplayedTaskVariable(new TaskVariable(name), name, VariableTypeDescription.DEFAULT_TYPE);
+    }
+
+    private static TaskVariableMap singleVarMap(DisplayedTaskVariable var, String value) {
+        return DisplayedTaskVariable.variableMap(Collections.singletonMap(var, value));
+    }
+
+    @Test
+    public void testNoVariables() {
+        VariableTemplate template = VariableTemplate.compile("clean build");
+        assertFalse(template.hasVariables());
+        assertEquals("clean build", template.replaceVars(EmptyTaskVarMap.INSTANCE));
+    }
+
+    @Test
+    public void testCompileIsCached() {
+        String str = "testCompileIsCached-${var}";
+        assertSame(VariableTemplate.compile(str), VariableTemplate.compile(str));
+    }
+
+    @Test
+    public void testSameTemplateWithDifferentValues() {
+        DisplayedTaskVariable var = createVar("var");
+        VariableTemplate template = VariableTemplate.compile("a-${var}-b");
+
+        assertEquals("a-1-b", template.replaceVars(singleVarMap(var, "1")));
+        assertEquals("a-2-b", template.replaceVars(singleVarMap(var, "2")));
+        assertEquals("a-${var}-b", template.replaceVars(EmptyTaskVarMap.INSTANCE));
+    }
+
+    @Test
+    public void testVariableInsideUnresolvedVariable() {
+        DisplayedTaskVariable inner = createVar("inner");
+        VariableTemplate template = VariableTemplate.compile("${outer:${inner}}");
+
+        List<DisplayedTaskVariable> collected = new ArrayList<>();
+        template.collectVariables(collected);
+        assertEquals(Arrays.asList(createVar("outer").getVariable(), inner.getVariable()),
+                Arrays.asList(collected.get(0).getVariable(), collected.get(1).getVariable()));
+
+        assertEquals("${outer:VALUE}", template.replaceVars(singleVarMap(inner, "VALUE")));
+    }
+
+    @Test
+    public void testContextFreeCache() {
+        final TaskVariable contextFreeVar = new TaskVariable("context-free");
+        final TaskVariable contextVar = new TaskVariable("context");
+        final AtomicInteger contextFreeCalls = new AtomicInteger(0);
+        final AtomicInteger contextCalls = new AtomicInteger(0);
+
+        final CachingVariableMap.VariableDef<Object> contextFreeDef = new CachingVariableMap.VariableDef<>(
+                contextFreeVar,
+                new CachingVariableMap.ValueGetter<Object>() {
+                    @Override
+                    public CachingVariableMap.VariableValue getValue(
+                            TaskVariableMap variables, Object project, Lookup actionContext) {
+                        contextFreeCalls.incrementAndGet();
+                        return new CachingVariableMap.VariableValue("A");
+                    }
+                }, true);
+        final CachingVariableMap.VariableDef<Object> contextDef = new CachingVariableMap.VariableDef<>(
+                contextVar,
+                new CachingVariableMap.ValueGetter<Object>() {
+                    @Override
+                    public CachingVariableMap.VariableValue getValue(
+                            TaskVariableMap variables, Object project, Lookup actionContext) {
+                        contextCalls.incrementAndGet();
+                        return new CachingVariableMap.VariableValue("B");
+                    }
+                });
+        CachingVariableMap.VariableDefMap<Object> defMap = new CachingVariableMap.VariableDefMap<Object>() {
+            @Override
+            public CachingVariableMap.VariableDef<Object> tryGetDef(TaskVariable variable) {
+                if (contextFreeVar.equals(variable)) return contextFreeDef;
+                if (contextVar.equals(variable)) return contextDef;
+                return null;
+            }
+        };
+
+        Object project = new Object();
+        Object version1 = new Object();
+        Object version2 = new Object();
+        CachingVariableMap.ContextFreeCache cache = new CachingVariableMap.ContextFreeCache();
+
+        for (int i = 0; i < 3; i++) {
+            TaskVariableMap varMap = new CachingVariableMap<>(defMap, project, Lookup.EMPTY, cache, version1);
+            assertEquals("A", varMap.tryGetValueForVariable(contextFreeVar));
+            assertEquals("B", varMap.tryGetValueForVariable(contextVar));
+        }
+        assertEquals(1, contextFreeCalls.get());
+        assertEquals(3, contextCalls.get());
+
+        TaskVariableMap varMap = new CachingVariableMap<>(defMap, project, Lookup.EMPTY, cache, version2);
+        assertEquals("A", varMap.tryGetValueForVariable(contextFreeVar));
+        assertEquals(2, contextFreeCalls.get());
+    }
+}
@@ -0,0 +1,94 @@
+package org.netbeans.gradle.project.util;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ExcludeIncludeMatcherTest {
+    private static final String[] PATTERNS = {
+        "**/*.java",
+        "/**/*.java",
+        "**/*Test.java",
+        "**/*",
+        "**/test/**",
+        "**/test/",
+        "/**/test/**",
+        "test/**",
+        "test/",
+        "/test/",
+        "root1/root2/**",
+        "root1/*",
+        "root1/**/file1",
+        "**/test/*",
+        "**/te?t/**",
+        "**/*.{java,groovy}",
+        "**/**",
+        "**",
+        "",
+    };
+
+    private static final String[][] PATHS = {
+        {},
+        {"A.java"},
+        {".java"},
+        {"java"},
+        {"A.javax"},
+        {"pkg", "A.java"},
+        {"pkg", "ATest.java"},
+        {"pkg.java", "A.txt"},
+        {"test"},
+        {"test", "A.java"},
+        {"test", "sub", "file1"},
+        {"pkg", "test"},
+        {"pkg", "test", "file1"},
+        {"pkg", "tests", "file1"},
+        {"root1"},
+        {"root1", "file1"},
+        {"root1", "root2"},
+        {"root1", "root2", "file1"},
+        {"root1", "root2", "sub", "file1"},
+        {"root1", "root3", "file1"},
+        {"root", "root1", "root2", "file1"},
+        {"A.groovy"},
+    };
+
+    private static Path relPath(String[] pathElements) {
+        if (pathElements.length == 0) {
+            return Paths.get("");
+        }
+        return Paths.get(pathElements[0], Arrays.copyOfRange(pathElements, 1, pathElements.length));
+    }
+
+    @Test
+    public void testFastPathsAreEquivalentToGlob() {
+        for (String pattern: PATTERNS) {
+            ExcludeIncludeMatcher.AntPattern compiled = ExcludeIncludeMatcher.compilePattern(pattern);
+            ExcludeIncludeMatcher.AntPattern glob = ExcludeIncludeMatcher.compileGlobPattern(pattern);
+
+            for (String[] pathElements: PATHS) {
+                Path path = relPath(pathElements);
+                boolean expected = glob.matches(new ExcludeIncludeMatcher.RelativePath(path));
+                boolean actual = compiled.matches(new ExcludeIncludeMatcher.RelativePath(path));
+                assertEquals("Pattern \"" + pattern + "\" for path \"" + path + "\"", expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testFileExtensionPattern() {
+        Path root = Paths.get("root").toAbsolutePath();
+        ExcludeIncludeMatcher matcher = ExcludeIncludeMatcher.compile(
+                Collections.singleton("**/*Test.java"),
+                Collections.singleton("**/*.java"));
+
+        assertTrue(matcher.includeFile(root.resolve("pkg").resolve("A.java"), root));
+        assertTrue(matcher.includeFile(root.resolve("A.java"), root));
+        assertFalse(matcher.includeFile(root.resolve("pkg").resolve("ATest.java"), root));
+        assertFalse(matcher.includeFile(root.resolve("pkg").resolve("A.txt"), root));
+        assertFalse(matcher.includeFile(Paths.get("other", "A.java").toAbsolutePath(), root));
+    }
+}
@@ -0,0 +1,87 @@
+package org.netbeans.gradle.project.util;
+
+import java.io.File;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PathPrefixTrieTest {
+    private static File file(String... pathElements) {
+        File result = new File(pathElements[0]).getAbsoluteFile();
+        for (int i = 1; i < pathElements.length; i++) {
+            result = new File(result, pathElements[i]);
+        }
+        return result;
+    }
+
+    @Test
+    public void testEmpty() {
+        PathPrefixTrie<String> trie = new PathPrefixTrie.Builder<String>().create();
+        assertEquals(0, trie.size());
+        assertNull(trie.tryGetValue(file("a", "b")));
+    }
+
+    @Test
+    public void testParentOrSame() {
+        PathPrefixTrie.Builder<String> builder = new PathPrefixTrie.Builder<>();
+        builder.add(file("root", "src", "main", "java"), "main");
+        builder.add(file("root", "lib.jar"), "jar");
+        PathPrefixTrie<String> trie = builder.create();
+
+        assertEquals(2, trie.size());
+        assertEquals("main", trie.tryGetValue(file("root", "src", "main", "java")));
+        assertEquals("main", trie.tryGetValue(file("root", "src", "main", "java", "pkg", "A.java")));
+        assertEquals("jar", trie.tryGetValue(file("root", "lib.jar")));
+
+        assertNull(trie.tryGetValue(file("root", "src", "main")));
+        assertNull(trie.tryGetValue(file("root", "src", "main", "javax", "A.java")));
+        assertNull(trie.tryGetValue(file("root", "lib.jar2")));
+        assertNull(trie.tryGetValue(file("other")));
+    }
+
+    @Test
+    public void testFirstAddedWins() {
+        PathPrefixTrie.Builder<String> builder = new PathPrefixTrie.Builder<>();
+        builder.add(file("root", "nested"), "first");
+        builder.add(file("root"), "second");
+        builder.add(file("root", "nested"), "third");
+        PathPrefixTrie<String> trie = builder.create();
+
+        assertEquals(2, trie.size());
+        assertEquals("first", trie.tryGetValue(file("root", "nested", "A.java")));
+        assertEquals("second", trie.tryGetValue(file("root", "other", "A.java")));
+
+        builder = new PathPrefixTrie.Builder<>();
+        builder.add(file("root"), "first");
+        builder.add(file("root", "nested"), "second");
+        trie = builder.create();
+
+        assertEquals("first", trie.tryGetValue(file("root", "nested", "A.java")));
+    }
+
+    @Test
+    public void testFileSystemRoot() {
+        File root = file("a").toPath().getRoot().toFile();
+
+        PathPrefixTrie.Builder<String> builder = new PathPrefixTrie.Builder<>();
+        builder.add(root, "root");
+        PathPrefixTrie<String> trie = builder.create();
+
+        assertEquals("root", trie.tryGetValue(root));
+        assertEquals("root", trie.tryGetValue(file("a", "b")));
+    }
+
+    @Test
+    public void testManyChildren() {
+        PathPrefixTrie.Builder<Integer> builder = new PathPrefixTrie.Builder<>();
+        for (int i = 0; i < 1000; i++) {
+            builder.add(file("root", "dir" + i), i);
+        }
+        PathPrefixTrie<Integer> trie = builder.create();
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Integer.valueOf(i), trie.tryGetValue(file("root", "dir" + i, "A.java")));
+        }
+        assertNull(trie.tryGetValue(file("root", "dir1000")));
+    }
+}
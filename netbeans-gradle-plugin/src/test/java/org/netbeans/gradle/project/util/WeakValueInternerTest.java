@@ -0,0 +1,35 @@
+package org.netbeans.gradle.project.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WeakValueInternerTest {
+    @Test
+    public void testReturnsSameValue() {
+        WeakValueInterner<String, Object> interner = new WeakValueInterner<>();
+        Object value1 = new Object();
+        Object value2 = new Object();
+
+        assertNull(interner.get("key"));
+        assertNull(interner.putIfAbsent("key", value1));
+        assertSame(value1, interner.putIfAbsent("key", value2));
+        assertSame(value1, interner.get("key"));
+        assertEquals(1, interner.size());
+    }
+
+    @Test
+    public void testReclaimedValueIsReplaced() throws InterruptedException {
+        WeakValueInterner<String, Object> interner = new WeakValueInterner<>();
+        interner.putIfAbsent("key", new Object());
+        for (int i = 0; i < 100 && interner.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(0, interner.size());
+
+        Object newValue = new Object();
+        assertNull(interner.putIfAbsent("key", newValue));
+        assertSame(newValue, interner.get("key"));
+    }
+}
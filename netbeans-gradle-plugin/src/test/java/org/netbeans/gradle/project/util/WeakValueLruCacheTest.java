@@ -0,0 +1,98 @@
+package org.netbeans.gradle.project.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WeakValueLruCacheTest {
+    private static void collectGarbage(WeakValueLruCache<?, ?> cache, int expectedSize) throws InterruptedException {
+        for (int i = 0; i < 100 && cache.size() > expectedSize; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testReturnsSameValue() {
+        WeakValueLruCache<String, Object> cache = new WeakValueLruCache<>(2);
+        Object value1 = new Object();
+        Object value2 = new Object();
+
+        assertNull(cache.get("key"));
+        assertNull(cache.putIfAbsent("key", value1));
+        assertSame(value1, cache.putIfAbsent("key", value2));
+        assertSame(value1, cache.get("key"));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate(), 0.0);
+    }
+
+    @Test
+    public void testStrongSizeIsBounded() {
+        WeakValueLruCache<Integer, Object> cache = new WeakValueLruCache<>(3);
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Object value = new Object();
+            values.add(value);
+            cache.putIfAbsent(i, value);
+        }
+
+        assertEquals(3, cache.getStrongSize());
+        assertEquals(10, cache.size());
+        for (int i = 0; i < 10; i++) {
+            assertSame(values.get(i), cache.get(i));
+        }
+    }
+
+    @Test
+    public void testUnreachableValuesAreReclaimed() throws InterruptedException {
+        WeakValueLruCache<Integer, Object> cache = new WeakValueLruCache<>(2);
+        for (int i = 0; i < 10; i++) {
+            cache.putIfAbsent(i, new Object());
+        }
+
+        collectGarbage(cache, 2);
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get(0));
+        assertNotNull(cache.get(8));
+        assertNotNull(cache.get(9));
+    }
+
+    @Test
+    public void testRecentValuesAreReturnedWithoutPromotion() {
+        WeakValueLruCache<Integer, Object> cache = new WeakValueLruCache<>(2);
+        Object value = new Object();
+        cache.putIfAbsent(0, value);
+
+        for (int i = 0; i < 10; i++) {
+            assertSame(value, cache.get(0));
+        }
+        assertEquals(1, cache.getStrongSize());
+        assertEquals(10, cache.getHitCount());
+    }
+
+    @Test
+    public void testReclaimedValueDoesNotRemoveNewValue() throws InterruptedException {
+        WeakValueLruCache<String, Object> cache = new WeakValueLruCache<>(0);
+        cache.putIfAbsent("key", new Object());
+        for (int i = 0; i < 100 && cache.get("key") != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(cache.get("key"));
+
+        Object newValue = new Object();
+        assertNull(cache.putIfAbsent("key", newValue));
+
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            Thread.sleep(10);
+            assertEquals(1, cache.size());
+        }
+        assertSame(newValue, cache.get("key"));
+    }
+}